@@ -0,0 +1,90 @@
+package ft.list.benchmarks;
+
+import ft.list.FTSimpleList;
+import ft.list.FTTableList;
+import ft.list.models.FTSimpleGenericModel;
+import ft.list.models.FTTableGenericModel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Bulk operations of the lists and of their generic models: adding
+ * <code>size</code> elements at once to an empty list, and reading all the
+ * elements of a list that holds <code>size</code> elements.
+ * <p>The lists are created in headless mode and never shown, so only the cost
+ * of the models and of the events they fire is measured.
+ *
+ * @author Manuel Agostinetto
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Djava.awt.headless=true"})
+@State(Scope.Benchmark)
+public class BulkBenchmark {
+
+    private static final String[] HEADERS = { "Id", "Group" };
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean set;
+
+    private List<Integer> values;
+    private List<Integer[]> rows;
+    private FTSimpleList<Integer> fullList;
+    private FTTableList<Integer[]> fullTable;
+    private FTSimpleList<Integer> emptyList;
+    private FTTableList<Integer[]> emptyTable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        values = new ArrayList<Integer>( size );
+        rows = new ArrayList<Integer[]>( size );
+        for(int i=0; i<size; i++) {
+            values.add( Integer.valueOf(i) );
+            rows.add( new Integer[] { Integer.valueOf(i), Integer.valueOf(i % 100) } );
+        }
+        fullList = new FTSimpleList<Integer>( new FTSimpleGenericModel<Integer>(set) );
+        fullList.addElements( values );
+        fullTable = new FTTableList<Integer[]>( new FTTableGenericModel<Integer>(HEADERS, set) );
+        fullTable.addElements( rows );
+    }
+
+    /*
+     * The lists filled by the add benchmarks are replaced before each call.
+     */
+    @Setup(Level.Invocation)
+    public void createEmptyLists() {
+        emptyList = new FTSimpleList<Integer>( new FTSimpleGenericModel<Integer>(set) );
+        emptyTable = new FTTableList<Integer[]>( new FTTableGenericModel<Integer>(HEADERS, set) );
+    }
+
+    @Benchmark
+    public int addElementsSimple() {
+        emptyList.addElements( values );
+        return emptyList.getNumElements();
+    }
+
+    @Benchmark
+    public int addElementsTable() {
+        emptyTable.addElements( rows );
+        return emptyTable.getNumElements();
+    }
+
+    @Benchmark
+    public List<Integer> getAllElementsSimple() { return fullList.getAllElements(); }
+
+    @Benchmark
+    public List<Integer[]> getAllElementsTable() { return fullTable.getAllElements(); }
+
+    @Benchmark
+    public List<Integer> snapshotSimple() { return fullList.snapshot(); }
+
+    @Benchmark
+    public List<Integer[]> snapshotTable() { return fullTable.snapshot(); }
+}
@@ -0,0 +1,71 @@
+package ft.list.benchmarks;
+
+import ft.list.FTList;
+import ft.list.FTSimpleList;
+import ft.list.FTTableList;
+import ft.list.models.FTLegendItem;
+import ft.list.models.FTSimpleGenericModel;
+import ft.list.models.FTTableGenericModel;
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The construction of empty <code>FTSimpleList</code> and <code>FTTableList</code>
+ * instances, the startup cost of a screen that shows several lists.
+ * <p>The <code>legend</code> parameter tells whether the list has no legend, a
+ * legend that is set but not shown, which doesn't build the legend panel, or a
+ * legend that is shown. The button icons are decoded by the first list of the
+ * JVM only: <code>firstSimpleList</code> measures that first construction in a
+ * new JVM for each sample.
+ *
+ * @author Manuel Agostinetto
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+@State(Scope.Benchmark)
+public class ConstructionBenchmark {
+
+    private static final String[] HEADERS = { "Id", "Name", "Amount" };
+
+    private static final List<FTLegendItem> LEGEND = Arrays.asList(
+        new FTLegendItem(Color.RED, "Expired"),
+        new FTLegendItem(Color.YELLOW, "Expiring"),
+        new FTLegendItem(Color.GREEN, "Valid")
+    );
+
+    @Param({"none", "hidden", "visible"})
+    public String legend;
+
+    private <T extends FTList<?>> T withLegend(T list) {
+        if ( !"none".equals(legend) ) {
+            list.setLegend( LEGEND );
+            list.setLegendVisible( "visible".equals(legend) );
+        }
+        return list;
+    }
+
+    @Benchmark
+    public FTSimpleList<String> simpleList() {
+        return withLegend( new FTSimpleList<String>(new FTSimpleGenericModel<String>(false)) );
+    }
+
+    @Benchmark
+    public FTTableList<Object[]> tableList() {
+        return withLegend( new FTTableList<Object[]>(new FTTableGenericModel<Object>(HEADERS, false)) );
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(value = 10, jvmArgsAppend = {"-Djava.awt.headless=true"})
+    public FTSimpleList<String> firstSimpleList() {
+        return withLegend( new FTSimpleList<String>(new FTSimpleGenericModel<String>(false)) );
+    }
+}
@@ -0,0 +1,140 @@
+package ft.list.benchmarks;
+
+import ft.list.FTModelFactory;
+import ft.list.models.FTSimpleListModel;
+import ft.list.models.FTTableListModel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The models of boxed numbers created by <code>FTModelFactory</code>, holding
+ * <code>size</code> distinct values: the cost of boxing and unboxing on single
+ * element operations and on a full scan of the model.
+ * <p>Each benchmark that changes the model undoes its change, so the model keeps
+ * the same size for the whole run.
+ *
+ * @author Manuel Agostinetto
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Djava.awt.headless=true"})
+@State(Scope.Benchmark)
+public class ModelFactoryBenchmark {
+
+    private static final String[] HEADERS = { "A", "B" };
+
+    /**
+     * A table of boxed integers, stored by rows or by columns.
+     */
+    @State(Scope.Benchmark)
+    public static class TableState {
+
+        @Param({"columnar", "rows"})
+        public String tableLayout;
+
+        private FTTableListModel<Integer[]> table;
+        private Integer[] absentRow;
+
+        @Setup(Level.Trial)
+        public void setUp(ModelFactoryBenchmark benchmark) {
+            List<Integer[]> rows = new ArrayList<Integer[]>( benchmark.size );
+            for(int i=0; i<benchmark.size; i++) {
+                rows.add( new Integer[] { Integer.valueOf(i), Integer.valueOf(-i) } );
+            }
+            table = FTModelFactory.createTableIntegerModel(HEADERS, benchmark.set, "columnar".equals(tableLayout));
+            table.addRows( rows );
+            absentRow = new Integer[] { Integer.valueOf(benchmark.size), Integer.valueOf(-benchmark.size) };
+        }
+    }
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean set;
+
+    private FTSimpleListModel<Integer> integers;
+    private FTSimpleListModel<Double> doubles;
+    private Integer absent;
+    private Integer middle;
+    private Double absentDouble;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Integer> intValues = new ArrayList<Integer>( size );
+        List<Double> doubleValues = new ArrayList<Double>( size );
+        for(int i=0; i<size; i++) {
+            intValues.add( Integer.valueOf(i) );
+            doubleValues.add( Double.valueOf(i) );
+        }
+        integers = FTModelFactory.createSimpleIntegerModel( set );
+        integers.addAll( intValues );
+        doubles = FTModelFactory.createSimpleDoubleModel( set );
+        doubles.addAll( doubleValues );
+        absent = Integer.valueOf( size );
+        middle = Integer.valueOf( size / 2 );
+        absentDouble = Double.valueOf( size );
+    }
+
+    @Benchmark
+    public Integer integerAddAndRemoveLast() {
+        integers.addElement( absent );
+        return integers.removeElementAt( size );
+    }
+
+    @Benchmark
+    public Double doubleAddAndRemoveLast() {
+        doubles.addElement( absentDouble );
+        return doubles.removeElementAt( size );
+    }
+
+    @Benchmark
+    public Integer integerInsertAndRemoveMiddle() {
+        integers.insertElementAt(size / 2, absent);
+        return integers.removeElementAt( size / 2 );
+    }
+
+    @Benchmark
+    public boolean integerRemoveAndReinsertMiddle() {
+        boolean ret = integers.removeElement( middle );
+        integers.insertElementAt(size / 2, middle);
+        return ret;
+    }
+
+    @Benchmark
+    public long integerScan() {
+        long ret = 0;
+        for(int i=0; i<size; i++) {
+            ret += (Integer) integers.getElementAt( i );
+        }
+        return ret;
+    }
+
+    @Benchmark
+    public double doubleScan() {
+        double ret = 0;
+        for(int i=0; i<size; i++) {
+            ret += (Double) doubles.getElementAt( i );
+        }
+        return ret;
+    }
+
+    @Benchmark
+    public Integer[] tableAddAndRemoveLast(TableState state) {
+        state.table.addRow( state.absentRow );
+        return state.table.removeRow( size );
+    }
+
+    @Benchmark
+    public long tableColumnScan(TableState state) {
+        long ret = 0;
+        for(int i=0; i<size; i++) {
+            ret += (Integer) state.table.getValueAt(i, 0);
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,138 @@
+package ft.list.benchmarks;
+
+import ft.list.FTTableList;
+import ft.list.event.FTTableRowColorCustomizer;
+import ft.list.models.FTColumn;
+import ft.list.models.FTTableGenericModel;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JTable;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The paint of a <code>FTTableList</code> holding <code>size</code> rows, clipped
+ * to a window of {@link #WINDOW_ROWS} rows as when the table is shown in a
+ * scroll pane, into a <code>BufferedImage</code> in headless mode.
+ * <p>The window is painted with the columns declared with a <code>Format</code>,
+ * which are rendered by the format renderers of the table, or with undeclared
+ * columns, rendered by the default renderers; with or without a row color
+ * customizer. <code>paintWindow</code> paints the same rows again, like a repaint
+ * of a still table, while <code>paintScrolling</code> moves the window down by a
+ * page on each call, so the colors of the rows are computed the first time each
+ * row is painted.
+ *
+ * @author Manuel Agostinetto
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Djava.awt.headless=true"})
+@State(Scope.Benchmark)
+public class RenderingBenchmark {
+
+    /**
+     * The number of rows painted on each call.
+     */
+    public static final int WINDOW_ROWS = 40;
+
+    private static final int WIDTH = 800;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean formatted;
+
+    @Param({"false", "true"})
+    public boolean customizer;
+
+    private JTable table;
+    private BufferedImage image;
+    private int windowHeight;
+    private int firstRow;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        FTColumn[] columns;
+        if (formatted) {
+            columns = new FTColumn[] {
+                new FTColumn("Id", Integer.class, false, new DecimalFormat("000000000")),
+                new FTColumn("Name", String.class),
+                new FTColumn("Amount", Double.class, true, new DecimalFormat("#,##0.00"))
+            };
+        } else {
+            columns = FTColumn.of(new String[] { "Id", "Name", "Amount" });
+        }
+        List<Object[]> rows = new ArrayList<Object[]>( size );
+        for(int i=0; i<size; i++) {
+            rows.add( new Object[] { Integer.valueOf(i), "Row " + i, Double.valueOf(i * 1.25) } );
+        }
+        FTTableGenericModel<Object> model = new FTTableGenericModel<Object>(columns, false);
+        model.addRows( rows );
+        FTTableList<Object[]> list = new FTTableList<Object[]>( model );
+        if (customizer) {
+            list.setRowColorCustomizer( new FTTableRowColorCustomizer<Object[]>() {
+                @Override
+                public Color getRowColor(Object[] row) {
+                    return ((((Integer) row[0]) % 3) == 0) ? Color.YELLOW : null;
+                }
+            });
+        }
+        table = findTable( list );
+        table.setSize(WIDTH, table.getRowHeight() * size);
+        table.doLayout();
+        windowHeight = table.getRowHeight() * Math.min(WINDOW_ROWS, size);
+        image = new BufferedImage(WIDTH, windowHeight, BufferedImage.TYPE_INT_RGB);
+    }
+
+    private static JTable findTable(Container container) {
+        for(Component child : container.getComponents()) {
+            if (child instanceof JTable) {
+                return (JTable) child;
+            }
+            if (child instanceof Container) {
+                JTable ret = findTable( (Container) child );
+                if (ret != null) {
+                    return ret;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void paint(int row) {
+        Graphics2D g = image.createGraphics();
+        try {
+            int y = row * table.getRowHeight();
+            g.translate(0, -y);
+            g.setClip(0, y, WIDTH, windowHeight);
+            table.paint( g );
+        } finally {
+            g.dispose();
+        }
+    }
+
+    @Benchmark
+    public BufferedImage paintWindow() {
+        paint( (size - Math.min(WINDOW_ROWS, size)) / 2 );
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage paintScrolling() {
+        paint( firstRow );
+        firstRow += WINDOW_ROWS;
+        if (firstRow + WINDOW_ROWS > size) {
+            firstRow = 0;
+        }
+        return image;
+    }
+}
@@ -0,0 +1,78 @@
+package ft.list.benchmarks;
+
+import ft.list.models.FTSimpleGenericModel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Single element operations of a <code>FTSimpleGenericModel</code>, in list and
+ * set mode, on a model that holds <code>size</code> distinct elements.
+ * <p>Each benchmark that changes the model undoes its change, so the model keeps
+ * the same size for the whole run; the measured time is the one of the pair of
+ * operations.
+ *
+ * @author Manuel Agostinetto
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Djava.awt.headless=true"})
+@State(Scope.Benchmark)
+public class SimpleGenericModelBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean set;
+
+    private FTSimpleGenericModel<Integer> model;
+    private Integer absent;
+    private Integer middle;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Integer> values = new ArrayList<Integer>( size );
+        for(int i=0; i<size; i++) {
+            values.add( Integer.valueOf(i) );
+        }
+        model = new FTSimpleGenericModel<Integer>( set );
+        model.addAll( values );
+        absent = Integer.valueOf( size );
+        middle = values.get( size / 2 );
+    }
+
+    @Benchmark
+    public Integer addAndRemoveLast() {
+        model.addElement( absent );
+        return model.removeElementAt( size );
+    }
+
+    @Benchmark
+    public Integer insertAndRemoveFirst() {
+        model.insertElementAt(0, absent);
+        return model.removeElementAt( 0 );
+    }
+
+    @Benchmark
+    public Integer insertAndRemoveMiddle() {
+        model.insertElementAt(size / 2, absent);
+        return model.removeElementAt( size / 2 );
+    }
+
+    @Benchmark
+    public boolean removeAndReinsertMiddle() {
+        boolean ret = model.removeElement( middle );
+        model.insertElementAt(size / 2, middle);
+        return ret;
+    }
+
+    @Benchmark
+    public boolean containsMiddle() { return model.contains( middle ); }
+
+    @Benchmark
+    public boolean containsAbsent() { return model.contains( absent ); }
+}
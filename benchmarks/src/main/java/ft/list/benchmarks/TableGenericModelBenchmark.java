@@ -0,0 +1,122 @@
+package ft.list.benchmarks;
+
+import ft.list.models.FTColumn;
+import ft.list.models.FTTableGenericModel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Single row operations of a <code>FTTableGenericModel</code>, in list and set
+ * mode, on a model that holds <code>size</code> distinct rows of four columns,
+ * and the lookup of the class of its columns.
+ * <p>Each benchmark that changes the model undoes its change, so the model keeps
+ * the same size for the whole run; the measured time is the one of the pair of
+ * operations.
+ *
+ * @author Manuel Agostinetto
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Djava.awt.headless=true"})
+@State(Scope.Benchmark)
+public class TableGenericModelBenchmark {
+
+    private static final String[] HEADERS = { "Id", "Group", "Amount", "Name" };
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean set;
+
+    private FTTableGenericModel<Object> model;
+    private FTTableGenericModel<Object> declared;
+    private Object[] absent;
+    private Object[] middle;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Object[]> rows = new ArrayList<Object[]>( size );
+        for(int i=0; i<size; i++) {
+            rows.add( row(i) );
+        }
+        model = new FTTableGenericModel<Object>(HEADERS, set);
+        model.addRows( rows );
+        FTColumn[] columns = {
+            new FTColumn("Id", Integer.class, false, null),
+            new FTColumn("Group", Integer.class),
+            new FTColumn("Amount", Double.class),
+            new FTColumn("Name", String.class)
+        };
+        declared = new FTTableGenericModel<Object>(columns, set);
+        declared.addRows( rows );
+        absent = row( size );
+        middle = rows.get( size / 2 );
+    }
+
+    private static Object[] row(int i) {
+        return new Object[] { Integer.valueOf(i), Integer.valueOf(i % 100), Double.valueOf(i * 0.5), "Row " + i };
+    }
+
+    @Benchmark
+    public Object[] addAndRemoveLast() {
+        model.addRow( absent );
+        return model.removeRow( size );
+    }
+
+    @Benchmark
+    public Object[] insertAndRemoveFirst() {
+        model.insertElementAt(0, absent);
+        return model.removeRow( 0 );
+    }
+
+    @Benchmark
+    public Object[] insertAndRemoveMiddle() {
+        model.insertElementAt(size / 2, absent);
+        return model.removeRow( size / 2 );
+    }
+
+    @Benchmark
+    public boolean removeAndReinsertMiddle() {
+        boolean ret = model.removeElement( middle );
+        model.insertElementAt(size / 2, middle);
+        return ret;
+    }
+
+    @Benchmark
+    public boolean containsMiddle() { return model.contains( middle ); }
+
+    @Benchmark
+    public boolean containsAbsent() { return model.contains( absent ); }
+
+    @Benchmark
+    public void columnClassDeclared(Blackhole bh) {
+        for(int col=0; col<HEADERS.length; col++) {
+            bh.consume( declared.getColumnClass(col) );
+        }
+    }
+
+    @Benchmark
+    public void columnClassInferred(Blackhole bh) {
+        for(int col=0; col<HEADERS.length; col++) {
+            bh.consume( model.getColumnClass(col) );
+        }
+    }
+
+    /*
+     * A change of the whole data discards the inferred classes, so each lookup
+     * probes the rows again, like a JTable after fireTableDataChanged.
+     */
+    @Benchmark
+    public void columnClassAfterDataChanged(Blackhole bh) {
+        model.fireTableDataChanged();
+        for(int col=0; col<HEADERS.length; col++) {
+            bh.consume( model.getColumnClass(col) );
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package ft.list;
+
+import ft.list.event.FTLoadListener;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import javax.swing.SwingUtilities;
+
+/**
+ * An asynchronous load of elements into a <code>FTList</code>.
+ * Elements are produced on a background thread and published to the list in chunks,
+ * each one added on the Event Dispatch Thread with a single <code>addElements</code>
+ * call. At most two chunks are waiting for the Event Dispatch Thread at any time,
+ * so a fast producer can't flood the event queue.
+ * <p>The load completes with the number of elements added to the list, or
+ * exceptionally if the producer or the list fails. Cancelling it stops the producer
+ * and discards the chunks not yet added; the elements already added stay in the list.
+ * The background thread checks for cancellation between two elements and, when
+ * <code>cancel(true)</code> is used, it's also interrupted, so a producer blocked
+ * in an interruptible call stops too.
+ * <p>When a source is given, it's closed on the background thread once the producer
+ * is no longer used, whether the load completes, fails or is cancelled.
+ * 
+ * @author Manuel Agostinetto
+ * @param <E> the type of elements loaded
+ */
+class FTAsyncLoader<E> extends CompletableFuture<Integer> implements Runnable {
+    
+    private static Executor executor;
+    
+    private final FTList<E> list;
+    private final Iterator<? extends E> elements;
+    private final AutoCloseable source;
+    private final int chunkSize;
+    private final FTLoadListener listener;
+    private final Semaphore inFlight;
+    private int loaded;
+    private final Object workerLock = new Object();
+    private Thread worker;
+    
+    FTAsyncLoader(FTList<E> list, Iterator<? extends E> elements, AutoCloseable source, int chunkSize, FTLoadListener listener) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be greater then 0. Passed " + chunkSize);
+        }
+        this.list = list;
+        this.elements = elements;
+        this.source = source;
+        this.chunkSize = chunkSize;
+        this.listener = listener;
+        inFlight = new Semaphore(2);
+    }
+    
+    /**
+     * Starts the load on the background executor.
+     */
+    void start() {
+        getExecutor().execute( this );
+    }
+    
+    @Override
+    public void run() {
+        synchronized (workerLock) {
+            worker = Thread.currentThread();
+        }
+        ArrayList<E> chunk = new ArrayList<E>( chunkSize );
+        Throwable failure = null;
+        try {
+            while (!isDone() && elements.hasNext()) {
+                chunk.add( elements.next() );
+                if (chunk.size() == chunkSize) {
+                    publish(chunk, false);
+                    chunk = new ArrayList<E>( chunkSize );
+                }
+            }
+        } catch (InterruptedException e) {
+            cancel( true );
+        } catch (Throwable t) {
+            failure = t;
+        } finally {
+            synchronized (workerLock) {
+                worker = null;
+                // an interrupt sent by cancel must not reach the next task of the thread
+                Thread.interrupted();
+            }
+            failure = close( failure );
+        }
+        if (failure != null) {
+            fail( failure );
+        } else if ( !isDone() ) {
+            try {
+                publish(chunk, true);
+            } catch (InterruptedException e) {
+                cancel( true );
+            }
+        }
+    }
+    
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean ret = super.cancel( mayInterruptIfRunning );
+        if (ret && mayInterruptIfRunning) {
+            synchronized (workerLock) {
+                if (worker != null) worker.interrupt();
+            }
+        }
+        if (ret && (listener != null)) {
+            SwingUtilities.invokeLater( new Runnable() {
+                @Override
+                public void run() { listener.loadFinished(loaded, null); }
+            });
+        }
+        return ret;
+    }
+    
+    /*
+     * Closes the source, returning the failure of the load: the one of the
+     * producer, if any, with the failure of close suppressed.
+     */
+    private Throwable close(Throwable failure) {
+        if (source != null) {
+            try {
+                source.close();
+            } catch (Throwable t) {
+                if (failure == null) {
+                    return t;
+                }
+                failure.addSuppressed( t );
+            }
+        }
+        return failure;
+    }
+    
+    private void fail(final Throwable t) {
+        SwingUtilities.invokeLater( new Runnable() {
+            @Override
+            public void run() {
+                if ( completeExceptionally(t) ) {
+                    if (listener != null) listener.loadFinished(loaded, t);
+                }
+            }
+        });
+    }
+    
+    private void publish(final ArrayList<E> chunk, final boolean last) throws InterruptedException {
+        inFlight.acquire();
+        SwingUtilities.invokeLater( new Runnable() {
+            @Override
+            public void run() {
+                inFlight.release();
+                if ( isDone() ) {
+                    return;
+                }
+                try {
+                    if ( !chunk.isEmpty() ) {
+                        // a list acting as a Set may skip some elements of the chunk
+                        int size = list.getNumElements();
+                        list.addElements( chunk );
+                        loaded += list.getNumElements() - size;
+                        if (listener != null) listener.elementsLoaded( loaded );
+                    }
+                } catch (Throwable t) {
+                    if ( completeExceptionally(t) ) {
+                        if (listener != null) listener.loadFinished(loaded, t);
+                    }
+                    return;
+                }
+                if (last && complete(loaded) && (listener != null)) {
+                    listener.loadFinished(loaded, null);
+                }
+            }
+        });
+    }
+    
+    /*
+     * Uses virtual threads when the running JVM provides them, otherwise a pool of
+     * daemon threads.
+     */
+    private static synchronized Executor getExecutor() {
+        if (executor == null) {
+            try {
+                executor = (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (Exception e) {
+                executor = Executors.newCachedThreadPool( new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, "FTList-loader");
+                        t.setDaemon( true );
+                        return t;
+                    }
+                });
+            }
+        }
+        return executor;
+    }
+}
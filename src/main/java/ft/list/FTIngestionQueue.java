@@ -0,0 +1,154 @@
+package ft.list;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * A thread-safe front-end that feeds a <code>FTList</code> with elements produced
+ * by any number of threads.
+ * <p>Producers call {@link #offer(Object)} from any thread: the element is appended
+ * to a lock-free queue and the call returns immediately. Elements are drained on
+ * the Event Dispatch Thread at most once every <code>maxLatency</code> milliseconds,
+ * and each drain adds up to <code>maxBatchSize</code> elements to the list with a
+ * single call to <code>addElements</code>, so the model fires one event per batch
+ * instead of one per element and the event queue receives one task per batch
+ * instead of one per element.
+ * <pre>
+ * FTIngestionQueue&lt;String[]&gt; queue = new FTIngestionQueue&lt;String[]&gt;(tableList, 16, 5000);
+ * ...
+ * queue.offer( row );   // from any thread
+ * </pre>
+ *
+ * @author Manuel Agostinetto
+ * @param <E> the type of elements of the list
+ */
+public class FTIngestionQueue<E> {
+
+    private final FTList<E> list;
+    private final int maxBatchSize;
+    private final ConcurrentLinkedQueue<E> queue;
+    private final AtomicInteger pending;
+    private final AtomicBoolean scheduled;
+    private final Timer timer;
+
+    /**
+     * Creates a queue for the specified list that drains at most every 16 milliseconds
+     * (about once per frame) up to 10000 elements at a time.
+     *
+     * @param list the list that receives the elements
+     */
+    public FTIngestionQueue(FTList<E> list) {
+        this(list, 16, 10000);
+    }
+
+    /**
+     * Creates a queue for the specified list.
+     *
+     * @param list the list that receives the elements
+     * @param maxLatency the maximum time, in milliseconds, an element waits in the
+     * queue before a drain is started
+     * @param maxBatchSize the maximum number of elements added to the list by a
+     * single drain
+     */
+    public FTIngestionQueue(FTList<E> list, int maxLatency, int maxBatchSize) {
+        if (maxLatency < 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Invalid latency or batch size: " + maxLatency + ", " + maxBatchSize);
+        }
+        this.list = list;
+        this.maxBatchSize = maxBatchSize;
+        queue = new ConcurrentLinkedQueue<E>();
+        pending = new AtomicInteger();
+        scheduled = new AtomicBoolean();
+        timer = new Timer(maxLatency, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent ae) { drain(); }
+        });
+        timer.setRepeats( false );
+        timer.setCoalesce( true );
+    }
+
+    /**
+     * Appends an element to the queue. It can be called from any thread.
+     *
+     * @param element the element to be added to the list
+     */
+    public void offer(E element) {
+        pending.incrementAndGet();
+        queue.offer( element );
+        schedule();
+    }
+
+    /**
+     * Appends all the elements of the <code>Collection</code> to the queue.
+     * It can be called from any thread.
+     *
+     * @param elements the elements to be added to the list
+     */
+    public void offerAll(Collection<? extends E> elements) {
+        pending.addAndGet( elements.size() );
+        for(E element : elements) {
+            queue.offer( element );
+        }
+        schedule();
+    }
+
+    /**
+     * Returns the number of elements waiting to be added to the list.
+     *
+     * @return the number of elements in the queue
+     */
+    public int getPendingCount() { return pending.get(); }
+
+    /**
+     * Adds all the elements in the queue to the list immediately, regardless of
+     * the maximum batch size. It must be called on the Event Dispatch Thread.
+     */
+    public void flush() {
+        ArrayList<E> batch = new ArrayList<E>();
+        E element;
+        while ((element = queue.poll()) != null) {
+            batch.add( element );
+        }
+        publish( batch );
+    }
+
+    private void schedule() {
+        if ( scheduled.compareAndSet(false, true) ) {
+            SwingUtilities.invokeLater( new Runnable() {
+                @Override
+                public void run() { timer.restart(); }
+            });
+        }
+    }
+
+    private void drain() {
+        ArrayList<E> batch = new ArrayList<E>( Math.min(maxBatchSize, pending.get()) );
+        E element;
+        while (batch.size() < maxBatchSize && (element = queue.poll()) != null) {
+            batch.add( element );
+        }
+        try {
+            publish( batch );
+        } finally {
+            // a failing batch must not stop the elements queued after it
+            scheduled.set( false );
+            if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+                timer.restart();
+            }
+        }
+    }
+
+    private void publish(ArrayList<E> batch) {
+        if ( !batch.isEmpty() ) {
+            pending.addAndGet( -batch.size() );
+            list.addElements( batch );
+        }
+    }
+}
@@ -3,11 +3,19 @@ package ft.list;
 import ft.list.event.FTActionEvent;
 import ft.list.event.FTSelectionObservable;
 import ft.list.event.FTActionListener;
+import ft.list.event.FTLoadListener;
 import ft.list.models.*;
 import java.awt.*;
 import java.awt.event.*;
 import javax.swing.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import javax.swing.event.ListSelectionListener;
 /**
  * A component that displays a list of objects and four buttons with the semantic
@@ -40,6 +48,9 @@ public abstract class FTList<E> extends JPanel implements FTSelectionObservable
         @Override
         public void actionPerformed(ActionEvent ae) {
             FTButton btn = (FTButton) ae.getSource();
+            if (autoMove && ((btn.getIndex() == FTActionEvent.UP_ACTION) || (btn.getIndex() == FTActionEvent.DOWN_ACTION))) {
+                moveSelectedElements( (btn.getIndex() == FTActionEvent.UP_ACTION) ? -1 : 1 );
+            }
             notifyMyListeners( btn.getIndex() );
         }
     }
@@ -66,7 +77,8 @@ public abstract class FTList<E> extends JPanel implements FTSelectionObservable
     private FTInternalListener myInternalListener;
     
     private ArrayList<FTActionListener> listeners;
-    private ArrayList<ListSelectionListener> listListeners;
+    private final FTSelectionDispatcher selectionDispatcher = new FTSelectionDispatcher( this );
+    private volatile FTListMetrics metrics;
     
     private JComponent myList;
     private JPanel legendPanel;
@@ -79,7 +91,9 @@ public abstract class FTList<E> extends JPanel implements FTSelectionObservable
     private boolean[] enabledButtons;
     private int buttonPosition;
     private int legendPosition;
+    private boolean autoMove;
     private static final Map<Integer,String> mapPosition;
+    private static final Map<String,Icon> iconCache = new ConcurrentHashMap<String,Icon>();
     
     /**
      * Creates a new <code>FTList</code>. The default button position is used.
@@ -210,9 +224,35 @@ public abstract class FTList<E> extends JPanel implements FTSelectionObservable
      * @param legendVisible <code>true</code> if the legend should be visible
      */
     public void setLegendVisible(boolean legendVisible) {
+        if (legendPanel == null) {
+            if (!legendVisible) {
+                return;
+            }
+            createLegendPanel();
+        }
         legendPanel.setVisible( legendVisible );
     }
     
+    /**
+     * Sets whether the <code>Up</code> and <code>Down</code> buttons move the
+     * selected elements by one position. The default value is <code>false</code>.
+     * <p>When enabled, the selected elements are moved with {@link #moveSelectedElements(int) moveSelectedElements}
+     * and stay selected at their new positions before the <code>FTActionListener</code>s
+     * are notified.
+     * 
+     * @param autoMove if <code>true</code>, the <code>Up</code> and <code>Down</code>
+     * buttons move the selected elements
+     */
+    public void setAutoMoveEnabled(boolean autoMove) { this.autoMove = autoMove; }
+    
+    /**
+     * Returns <code>true</code> if the <code>Up</code> and <code>Down</code> buttons
+     * move the selected elements.
+     * 
+     * @return <code>true</code> if the selected elements are moved by the buttons
+     */
+    public boolean isAutoMoveEnabled() { return autoMove; }
+    
     /**
      * Adds an <code>FTActionListener</code> to the list
      * 
@@ -227,6 +267,88 @@ public abstract class FTList<E> extends JPanel implements FTSelectionObservable
      */
     public void removeFTActionListener(FTActionListener listener) { listeners.remove( listener ); }
     
+    /**
+     * Adds a listener to the list, to be notified each time a change to the selection
+     * occurs; the preferred way of listening for selection state changes.
+     * <code>FTList</code> takes care of listening for selection state changes in the
+     * selection model, and notifies the given listener of each change according to
+     * the {@link #setSelectionDispatchMode(int) dispatch mode}. The source of the
+     * events is the <code>FTList</code>.
+     * 
+     * @param listener the <code>ListSelectionListener</code> to add
+     */
+    @Override
+    public void addListSelectionListener(ListSelectionListener listener) { selectionDispatcher.addListener( listener ); }
+    
+    /**
+     * Removes a listener from the list.
+     * 
+     * @param listener the <code>ListSelectionListener</code> to remove
+     */
+    @Override
+    public void removeListSelectionListener(ListSelectionListener listener) { selectionDispatcher.removeListener( listener ); }
+    
+    /**
+     * Returns all the <code>ListSelectionListener</code>s added to the list.
+     * 
+     * @return the listeners of the list, or an empty array if there are none
+     */
+    public ListSelectionListener[] getListSelectionListeners() { return selectionDispatcher.getListeners(); }
+    
+    @Override
+    public void setSelectionDispatchMode(int mode) { selectionDispatcher.setMode( mode ); }
+    
+    @Override
+    public int getSelectionDispatchMode() { return selectionDispatcher.getMode(); }
+    
+    /**
+     * Sets how long the selection must stay unchanged before its changes are
+     * delivered in the <code>DISPATCH_DEBOUNCE</code> mode. The default is 150
+     * milliseconds.
+     * 
+     * @param delay the delay in milliseconds
+     * @throws IllegalArgumentException if <code>delay</code> is negative
+     */
+    public void setSelectionDispatchDelay(int delay) { selectionDispatcher.setDelay( delay ); }
+    
+    /**
+     * Returns the delay of the <code>DISPATCH_DEBOUNCE</code> mode.
+     * 
+     * @return the delay in milliseconds
+     */
+    public int getSelectionDispatchDelay() { return selectionDispatcher.getDelay(); }
+    
+    /**
+     * Returns the listener that forwards the changes of the selection of the list
+     * component to the listeners of this list. Subclasses must register it on the
+     * component returned by <code>createListComponent</code>, or on its selection model.
+     * 
+     * @return the listener of the selection of the list component
+     */
+    protected final ListSelectionListener getSelectionForwarder() { return selectionDispatcher; }
+    
+    /**
+     * Sets the metrics that record what this list costs at runtime, or
+     * <code>null</code> to stop recording; metrics are disabled by default.
+     * The list times the delivery of its events, and subclasses pass the metrics
+     * to their model and time the rendering of the list component.
+     * <p>The same metrics can be shared by several lists to sum their costs.
+     * 
+     * @param metrics the metrics to update, or <code>null</code>
+     * @see FTListMetrics#register(String)
+     */
+    public void setMetrics(FTListMetrics metrics) {
+        this.metrics = metrics;
+        selectionDispatcher.setMetrics( metrics );
+    }
+    
+    /**
+     * Returns the metrics that record what this list costs at runtime.
+     * 
+     * @return the metrics of this list, or <code>null</code> if they are disabled
+     */
+    public FTListMetrics getMetrics() { return metrics; }
+    
     /**
      * Sets whether or not this component is enabled.
      * Overrides the implementation in <code>JComponent</code> in order to reflect
@@ -262,23 +384,33 @@ public abstract class FTList<E> extends JPanel implements FTSelectionObservable
         
         myInternalListener = new FTInternalListener();
         listeners = new ArrayList<FTActionListener>();
-        listListeners = new ArrayList<ListSelectionListener>();
         
         JPanel jpButtons = constructButtonPanel();
         createButtons( jpButtons );
         
-        legendPanel = new JPanel( new FlowLayout(FlowLayout.LEFT, 0, 10) );
-        legendPanel.setVisible( false );
-        
         myList = createListComponent();
         JScrollPane jsp = new JScrollPane( myList );
         
         add(jpButtons, mapPosition.get(buttonPosition));
         add(jsp, BorderLayout.CENTER);
+    }
+    
+    /*
+     * The legend panel is not visible by default, so it's built only the first time
+     * it's shown.
+     */
+    private void createLegendPanel() {
+        legendPanel = new JPanel( new FlowLayout(FlowLayout.LEFT, 0, 10) );
+        legendPanel.setVisible( false );
         add(legendPanel, mapPosition.get(legendPosition));
+        remakeLegend();
+        revalidate();
     }
     
     private void remakeLegend() {
+        if (legendPanel == null) {
+            return;
+        }
         legendPanel.removeAll();
         if ((legend != null) && !legend.isEmpty()) {
             for(FTLegendItem item : legend) {
@@ -318,8 +450,16 @@ public abstract class FTList<E> extends JPanel implements FTSelectionObservable
         jp.add( cmdDown );
     }
     
-    private Icon loadIcon(String resource) {
-        return new ImageIcon(FTList.class.getResource(resource));
+    /*
+     * Icons are shared by all the lists: each image is decoded only once per process.
+     */
+    private static Icon loadIcon(String resource) {
+        Icon icon = iconCache.get( resource );
+        if (icon == null) {
+            icon = new ImageIcon(FTList.class.getResource(resource));
+            iconCache.put(resource, icon);
+        }
+        return icon;
     }
     
     private JPanel constructButtonPanel() {
@@ -366,9 +506,14 @@ public abstract class FTList<E> extends JPanel implements FTSelectionObservable
     
     private void notifyMyListeners(int btn) {
         FTActionEvent evt = new FTActionEvent(this, btn);
+        FTListMetrics m = metrics;
+        long start = (m != null) ? System.nanoTime() : 0L;
         for(FTActionListener ftal : listeners) {
             ftal.buttonClicked( evt );
         }
+        if (m != null) {
+            m.recordActionDispatch(System.nanoTime() - start);
+        }
     }
     
     /**
@@ -389,10 +534,88 @@ public abstract class FTList<E> extends JPanel implements FTSelectionObservable
      * Adds all the elements in the <code>Collection</code> to the list. Subclasses
      * must implements this metohd adding all the elements in the specified
      * <code>Collection</code> to the model and notifying the list.
+     * <p>Implementations should add the elements to the model in bulk, notifying
+     * the list with a single event rather than one event per element.
      * @param c the <code>Collection</code> of elements to be added to the list
      */
     public abstract void addElements(Collection<? extends E> c);
     
+    /**
+     * Adds the elements returned by <code>elements</code> to the list without
+     * blocking the Event Dispatch Thread.
+     * <p>The elements are produced on a background thread (a virtual thread when the
+     * JVM provides them) and added to the list in chunks of <code>chunkSize</code>
+     * elements, each one with a single call to <code>addElements</code> on the Event
+     * Dispatch Thread. The <code>Iterable</code> is iterated only by the background
+     * thread.
+     * 
+     * @param elements the elements to be added to the list
+     * @param chunkSize the number of elements added to the list at a time
+     * @return a <code>Future</code> that completes with the number of elements added
+     * to the list, and that can be cancelled to stop the load
+     * @see #addElementsAsync(Iterable, int, FTLoadListener)
+     */
+    public Future<Integer> addElementsAsync(Iterable<? extends E> elements, int chunkSize) {
+        return addElementsAsync(elements, chunkSize, null);
+    }
+    
+    /**
+     * Adds the elements returned by <code>elements</code> to the list without
+     * blocking the Event Dispatch Thread, notifying <code>listener</code> of the
+     * progress of the load.
+     * <p>Cancelling the returned <code>Future</code> stops the background thread and
+     * discards the elements not yet added; the elements already added stay in the list.
+     * The thread stops before the next element, or, with <code>cancel(true)</code>,
+     * as soon as an interruptible call of the iterator is interrupted.
+     * 
+     * @param elements the elements to be added to the list
+     * @param chunkSize the number of elements added to the list at a time
+     * @param listener the listener notified on the Event Dispatch Thread after each
+     * chunk and at the end of the load, or <code>null</code>
+     * @return a <code>Future</code> that completes with the number of elements added
+     * to the list, and that can be cancelled to stop the load
+     */
+    public Future<Integer> addElementsAsync(Iterable<? extends E> elements, int chunkSize, FTLoadListener listener) {
+        FTAsyncLoader<E> loader = new FTAsyncLoader<E>(this, elements.iterator(), null, chunkSize, listener);
+        loader.start();
+        return loader;
+    }
+    
+    /**
+     * Adds the elements of <code>elements</code> to the list without blocking the
+     * Event Dispatch Thread. The stream is consumed by a background thread and
+     * closed when the load ends.
+     * 
+     * @param elements the elements to be added to the list
+     * @param chunkSize the number of elements added to the list at a time
+     * @return a <code>Future</code> that completes with the number of elements added
+     * to the list, and that can be cancelled to stop the load
+     * @see #addElementsAsync(Iterable, int, FTLoadListener)
+     */
+    public Future<Integer> addElementsAsync(Stream<? extends E> elements, int chunkSize) {
+        return addElementsAsync(elements, chunkSize, null);
+    }
+    
+    /**
+     * Adds the elements of <code>elements</code> to the list without blocking the
+     * Event Dispatch Thread, notifying <code>listener</code> of the progress of the
+     * load. The stream is consumed by a background thread and closed when the load
+     * ends, whether it completes, fails or is cancelled.
+     * 
+     * @param elements the elements to be added to the list
+     * @param chunkSize the number of elements added to the list at a time
+     * @param listener the listener notified on the Event Dispatch Thread after each
+     * chunk and at the end of the load, or <code>null</code>
+     * @return a <code>Future</code> that completes with the number of elements added
+     * to the list, and that can be cancelled to stop the load
+     * @see #addElementsAsync(Iterable, int, FTLoadListener)
+     */
+    public Future<Integer> addElementsAsync(Stream<? extends E> elements, int chunkSize, FTLoadListener listener) {
+        FTAsyncLoader<E> loader = new FTAsyncLoader<E>(this, elements.iterator(), elements, chunkSize, listener);
+        loader.start();
+        return loader;
+    }
+    
     /**
      * Sets the selections mode to be used by the list.
      * <p>The following list describes the accepted selection modes:
@@ -443,6 +666,83 @@ public abstract class FTList<E> extends JPanel implements FTSelectionObservable
      */
     public abstract E removeElementAt(int index);
 
+    /**
+     * Removes the elements at the specified positions in the list, that are the
+     * positions taken by {@link #removeElementAt(int) removeElementAt}.
+     * <p>The default implementation calls <code>removeElementAt</code> for each
+     * position, from the highest to the lowest; subclasses should override it in
+     * order to remove all the elements from the model at once, so that the storage
+     * is compacted in a single pass and the selected elements that are not removed
+     * stay selected.
+     * 
+     * @param indexes the positions of the elements to be removed, in any order
+     */
+    public void removeElementsAt(int[] indexes) {
+        int[] sorted = indexes.clone();
+        Arrays.sort( sorted );
+        for(int i=sorted.length-1; i>=0; i--) {
+            if ((i == sorted.length-1) || (sorted[i] != sorted[i+1])) {
+                removeElementAt( sorted[i] );
+            }
+        }
+    }
+    
+    /**
+     * Removes the selected elements. This is the preferred way of removing a
+     * multiple selection, since the lists whose selection indexes differ from the
+     * positions of the elements, like a sorted <code>FTTableList</code>, convert them.
+     * <p>The default implementation passes the result of
+     * <code>getSelectedIndexes</code> to <code>removeElementsAt</code>.
+     */
+    public void removeSelectedElements() {
+        int[] selected = getSelectedIndexes();
+        if (selected.length > 0) {
+            removeElementsAt( selected );
+        }
+    }
+    
+    /**
+     * Moves the selected elements by <code>delta</code> positions, as
+     * {@link #moveElements(int[], int) moveElements} does, and selects them at
+     * their new positions.
+     * <p>The default implementation passes the result of
+     * <code>getSelectedIndexes</code> to <code>moveElements</code> and the
+     * positions it returns to <code>setSelectedIndexes</code>.
+     * 
+     * @param delta the number of positions to move the elements by
+     */
+    public void moveSelectedElements(int delta) {
+        int[] selected = getSelectedIndexes();
+        if (selected.length > 0) {
+            setSelectedIndexes( moveElements(selected, delta) );
+        }
+    }
+    
+    /**
+     * Removes all the elements of the list that satisfy the specified predicate.
+     * <p>The default implementation tests each element returned by
+     * <code>getElementAt</code> and removes the matching ones with
+     * {@link #removeElementsAt(int[]) removeElementsAt}.
+     * 
+     * @param filter the predicate that returns <code>true</code> for the elements
+     * to be removed
+     * @return <code>true</code> if any element was removed
+     */
+    public boolean removeIf(Predicate<? super E> filter) {
+        int size = getNumElements();
+        int[] matches = new int[ size ];
+        int count = 0;
+        for(int i=0; i<size; i++) {
+            if ( filter.test(getElementAt(i)) ) {
+                matches[count++] = i;
+            }
+        }
+        if (count > 0) {
+            removeElementsAt( Arrays.copyOf(matches, count) );
+        }
+        return (count > 0);
+    }
+
     /**
      * Returns the element at the specified position in the list.
      * 
@@ -454,15 +754,201 @@ public abstract class FTList<E> extends JPanel implements FTSelectionObservable
     /**
      * Returns all the elements in the list as a {@link java.util.List List} object.
      * @return a <code>List</code> of all the objects
+     * @see #snapshot()
+     * @see #stream()
      */
     public abstract java.util.List<E> getAllElements();
     
+    /**
+     * Returns an immutable {@link java.util.List List} with the elements currently
+     * in the list. The returned list doesn't change when the list changes, so it can
+     * be exported or validated by a background thread while the Event Dispatch
+     * Thread keeps changing the list. This method must be called on the Event
+     * Dispatch Thread.
+     * <p>The default implementation copies the elements returned by
+     * <code>getAllElements</code>; subclasses should override it in order to return
+     * the snapshot of their model, that shares the storage of the model and takes
+     * O(1) time.
+     * 
+     * @return an immutable copy of the elements of the list
+     */
+    public java.util.List<E> snapshot() {
+        return Collections.unmodifiableList( getAllElements() );
+    }
+    
+    /**
+     * Returns a <code>Spliterator</code> over the elements of the list. It's sized,
+     * it splits evenly for parallel streams and it throws a
+     * <code>ConcurrentModificationException</code> if the list changes while it's
+     * in use. It must be used on the Event Dispatch Thread, or while the Event
+     * Dispatch Thread waits for it; to read the elements from another thread use the
+     * spliterator of a {@link #snapshot()}.
+     * <p>The default implementation copies the elements returned by
+     * <code>getAllElements</code>; subclasses should override it in order to return
+     * the spliterator of their model, that reads the storage of the model without
+     * copying it.
+     * 
+     * @return a spliterator over the elements of the list
+     */
+    public Spliterator<E> spliterator() {
+        return getAllElements().spliterator();
+    }
+    
+    /**
+     * Returns a sequential <code>Stream</code> over the elements of the list,
+     * backed by its {@link #spliterator()}.
+     * 
+     * @return a sequential stream over the elements of the list
+     */
+    public Stream<E> stream() { return StreamSupport.stream(spliterator(), false); }
+    
+    /**
+     * Returns a parallel <code>Stream</code> over the elements of the list, backed
+     * by its {@link #spliterator()}. Aggregations and exports over large lists can
+     * run in parallel without copying the elements first.
+     * 
+     * @return a parallel stream over the elements of the list
+     */
+    public Stream<E> parallelStream() { return StreamSupport.stream(spliterator(), true); }
+    
+    /**
+     * Performs the given action for each element of the list, in order.
+     * 
+     * @param action the action to be performed for each element
+     */
+    public void forEach(Consumer<? super E> action) { spliterator().forEachRemaining( action ); }
+    
     /**
      * Returns an array af all the selected indexes in the list.
      * @return all of the selected indices or an empty array if nothing is selected
      */
     public abstract int[] getSelectedIndexes();
     
+    /**
+     * Performs the given action for each selected index, in ascending order.
+     * <p>The default implementation iterates over the array returned by
+     * <code>getSelectedIndexes</code>; the lists provided by the library visit the
+     * runs of their {@link FTSelectionModel} without allocating that array, which
+     * matters when most of a very large list is selected.
+     * 
+     * @param action the action to be performed for each selected index
+     */
+    public void forEachSelected(IntConsumer action) {
+        for(int index : getSelectedIndexes()) {
+            action.accept( index );
+        }
+    }
+    
+    /**
+     * Selects the elements at the specified indexes, replacing the current selection.
+     * Each <code>ListSelectionListener</code> is notified of the change.
+     * <p>The default implementation clears the selection model of the
+     * <code>JList</code> or <code>JTable</code> returned by
+     * <code>createListComponent</code> and adds each run of consecutive indexes
+     * to it, while the model is adjusting.
+     * 
+     * @param indexes the indexes of the elements to select
+     * @throws UnsupportedOperationException if the list component is neither a
+     * <code>JList</code> nor a <code>JTable</code>
+     */
+    public void setSelectedIndexes(int[] indexes) {
+        ListSelectionModel selection;
+        if (myList instanceof JList) {
+            selection = ((JList<?>) myList).getSelectionModel();
+        } else if (myList instanceof JTable) {
+            selection = ((JTable) myList).getSelectionModel();
+        } else {
+            throw new UnsupportedOperationException("setSelectedIndexes");
+        }
+        int[] sorted = indexes.clone();
+        Arrays.sort( sorted );
+        selection.setValueIsAdjusting( true );
+        try {
+            selection.clearSelection();
+            int i = 0;
+            while (i < sorted.length) {
+                int j = i;
+                while ((j + 1 < sorted.length) && (sorted[j+1] <= sorted[j] + 1)) {
+                    j++;
+                }
+                selection.addSelectionInterval(sorted[i], sorted[j]);
+                i = j + 1;
+            }
+        } finally {
+            selection.setValueIsAdjusting( false );
+        }
+    }
+    
+    /**
+     * Moves the elements at the specified indexes by <code>delta</code> positions,
+     * towards the top of the list when <code>delta</code> is negative. The moved
+     * elements keep their relative order; the distance is reduced when needed so
+     * that no element moves beyond the top or the bottom of the list.
+     * <p>The default implementation removes with <code>removeElementAt</code> the
+     * elements from the first position affected by the move to the end of the list,
+     * and adds them again in the new order with <code>add</code>; subclasses should
+     * override it in order to move the elements in the model, which notifies the
+     * list with a single event.
+     * 
+     * @param indexes the indexes of the elements to move
+     * @param delta the number of positions to move the elements by
+     * @return the new indexes of the moved elements
+     * @throws ArrayIndexOutOfBoundsException if an index is out of range
+     */
+    @SuppressWarnings("unchecked")
+    public int[] moveElements(int[] indexes, int delta) {
+        int size = getNumElements();
+        int[] sources = indexes.clone();
+        Arrays.sort( sources );
+        int count = 0;
+        for(int i=0; i<sources.length; i++) {
+            if ((sources[i] < 0) || (sources[i] >= size)) {
+                throw new ArrayIndexOutOfBoundsException( sources[i] );
+            }
+            if ((count == 0) || (sources[i] != sources[count-1])) {
+                sources[count++] = sources[i];
+            }
+        }
+        sources = Arrays.copyOf(sources, count);
+        int distance = 0;
+        if (count > 0) {
+            distance = (delta < 0) ? Math.max(delta, -sources[0]) : Math.min(delta, size - 1 - sources[count-1]);
+        }
+        int[] ret = new int[ count ];
+        for(int i=0; i<count; i++) {
+            ret[i] = sources[i] + distance;
+        }
+        if (distance == 0) {
+            return ret;
+        }
+        int from = Math.min(sources[0], ret[0]);
+        Object[] tail = new Object[ size - from ];
+        for(int i=size-1; i>=from; i--) {
+            tail[i - from] = removeElementAt( i );
+        }
+        Object[] moved = new Object[ tail.length ];
+        boolean[] taken = new boolean[ tail.length ];
+        boolean[] isSource = new boolean[ tail.length ];
+        for(int i=0; i<count; i++) {
+            moved[ret[i] - from] = tail[sources[i] - from];
+            taken[ret[i] - from] = true;
+            isSource[sources[i] - from] = true;
+        }
+        int next = 0;
+        for(int i=0; i<tail.length; i++) {
+            if ( !isSource[i] ) {
+                while ( taken[next] ) {
+                    next++;
+                }
+                moved[next++] = tail[i];
+            }
+        }
+        for(Object element : moved) {
+            add( (E) element );
+        }
+        return ret;
+    }
+    
     /**
      * Returns the number of elements in the list.
      * @return the number of elements in the list.
@@ -0,0 +1,249 @@
+package ft.list;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+/**
+ * Counts what a list costs at runtime: the changes notified by its model, the
+ * rows they add and remove, and the time spent rendering the list and delivering
+ * its events.
+ * <p>Metrics are opt-in: a list and its model record nothing until a
+ * <code>FTListMetrics</code> is set with {@link FTList#setMetrics(FTListMetrics)},
+ * and then only read a clock around the work they measure. The values can be read
+ * directly or through JMX, registering the metrics in the platform MBean server:
+ * <pre>
+ * FTListMetrics metrics = new FTListMetrics();
+ * list.setMetrics( metrics );
+ * metrics.register("Customers");    // ft.list:type=FTList,name="Customers"
+ * </pre>
+ * The counters can be updated from any thread. Models and renderers outside the
+ * library can report their own work through the <code>record</code> methods.
+ *
+ * @author Manuel Agostinetto
+ */
+public final class FTListMetrics implements FTListMetricsMBean {
+
+    /**
+     * The domain of the names under which the metrics are registered.
+     */
+    public static final String DOMAIN = "ft.list";
+
+    private final LongAdder insertEvents = new LongAdder();
+    private final LongAdder deleteEvents = new LongAdder();
+    private final LongAdder updateEvents = new LongAdder();
+    private final LongAdder rowsAdded = new LongAdder();
+    private final LongAdder rowsRemoved = new LongAdder();
+    private final LongAdder renderCount = new LongAdder();
+    private final LongAdder renderNanos = new LongAdder();
+    private final LongAdder paintCount = new LongAdder();
+    private final LongAdder paintNanos = new LongAdder();
+    private final LongAdder rowColorCount = new LongAdder();
+    private final LongAdder rowColorNanos = new LongAdder();
+    private final LongAdder actionCount = new LongAdder();
+    private final LongAdder actionNanos = new LongAdder();
+    private final LongAdder selectionCount = new LongAdder();
+    private final LongAdder selectionNanos = new LongAdder();
+    private volatile ObjectName objectName;
+
+    /**
+     * Records an event of the model notifying inserted rows.
+     *
+     * @param rows the number of rows inserted
+     */
+    public void recordInsert(int rows) {
+        insertEvents.increment();
+        rowsAdded.add( rows );
+    }
+
+    /**
+     * Records an event of the model notifying removed rows.
+     *
+     * @param rows the number of rows removed
+     */
+    public void recordDelete(int rows) {
+        deleteEvents.increment();
+        rowsRemoved.add( rows );
+    }
+
+    /**
+     * Records an event of the model notifying changed rows or a changed structure.
+     */
+    public void recordUpdate() { updateEvents.increment(); }
+
+    /**
+     * Records the preparation of a cell for rendering.
+     *
+     * @param nanos the time spent, in nanoseconds
+     */
+    public void recordRender(long nanos) {
+        renderCount.increment();
+        renderNanos.add( nanos );
+    }
+
+    /**
+     * Records a paint of the list component.
+     *
+     * @param nanos the time spent, in nanoseconds
+     */
+    public void recordPaint(long nanos) {
+        paintCount.increment();
+        paintNanos.add( nanos );
+    }
+
+    /**
+     * Records a call to the row color customizer.
+     *
+     * @param nanos the time spent, in nanoseconds
+     */
+    public void recordRowColor(long nanos) {
+        rowColorCount.increment();
+        rowColorNanos.add( nanos );
+    }
+
+    /**
+     * Records the delivery of an <code>FTActionEvent</code> to the listeners.
+     *
+     * @param nanos the time spent, in nanoseconds
+     */
+    public void recordActionDispatch(long nanos) {
+        actionCount.increment();
+        actionNanos.add( nanos );
+    }
+
+    /**
+     * Records the delivery of a selection event to the listeners.
+     *
+     * @param nanos the time spent, in nanoseconds
+     */
+    public void recordSelectionDispatch(long nanos) {
+        selectionCount.increment();
+        selectionNanos.add( nanos );
+    }
+
+    /**
+     * Returns the number of changes notified by the model, that is the sum of the
+     * insertion, removal and update events.
+     *
+     * @return the number of changes of the model
+     */
+    @Override
+    public long getMutationCount() { return insertEvents.sum() + deleteEvents.sum() + updateEvents.sum(); }
+
+    @Override
+    public long getInsertEventCount() { return insertEvents.sum(); }
+
+    @Override
+    public long getDeleteEventCount() { return deleteEvents.sum(); }
+
+    @Override
+    public long getUpdateEventCount() { return updateEvents.sum(); }
+
+    @Override
+    public long getRowsAdded() { return rowsAdded.sum(); }
+
+    @Override
+    public long getRowsRemoved() { return rowsRemoved.sum(); }
+
+    @Override
+    public long getRenderCount() { return renderCount.sum(); }
+
+    @Override
+    public long getRenderNanos() { return renderNanos.sum(); }
+
+    @Override
+    public long getPaintCount() { return paintCount.sum(); }
+
+    @Override
+    public long getPaintNanos() { return paintNanos.sum(); }
+
+    @Override
+    public long getRowColorCount() { return rowColorCount.sum(); }
+
+    @Override
+    public long getRowColorNanos() { return rowColorNanos.sum(); }
+
+    @Override
+    public long getActionDispatchCount() { return actionCount.sum(); }
+
+    @Override
+    public long getActionDispatchNanos() { return actionNanos.sum(); }
+
+    @Override
+    public long getSelectionDispatchCount() { return selectionCount.sum(); }
+
+    @Override
+    public long getSelectionDispatchNanos() { return selectionNanos.sum(); }
+
+    @Override
+    public void reset() {
+        LongAdder[] all = { insertEvents, deleteEvents, updateEvents, rowsAdded, rowsRemoved,
+                            renderCount, renderNanos, paintCount, paintNanos, rowColorCount, rowColorNanos,
+                            actionCount, actionNanos, selectionCount, selectionNanos };
+        for(LongAdder adder : all) {
+            adder.reset();
+        }
+    }
+
+    /**
+     * Registers the metrics in the platform MBean server, under the name
+     * <code>ft.list:type=FTList,name=&lt;name&gt;</code>. Metrics can be registered
+     * under one name at a time.
+     *
+     * @param name the name of the list, usually the screen that shows it
+     * @return the name under which the metrics are registered
+     * @throws IllegalArgumentException if metrics are already registered under
+     * that name
+     * @throws IllegalStateException if these metrics are already registered, or
+     * the MBean server refuses them
+     */
+    public synchronized ObjectName register(String name) {
+        if (objectName != null) {
+            throw new IllegalStateException("Metrics already registered as " + objectName);
+        }
+        ObjectName ret;
+        try {
+            ret = new ObjectName(DOMAIN + ":type=FTList,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, ret);
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException("Invalid metrics name: " + name, e);
+        } catch (InstanceAlreadyExistsException e) {
+            throw new IllegalArgumentException("Metrics already registered as " + name, e);
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register metrics " + name, e);
+        }
+        objectName = ret;
+        return ret;
+    }
+
+    /**
+     * Removes the metrics from the platform MBean server. Does nothing if they
+     * are not registered.
+     */
+    public synchronized void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean( objectName );
+        } catch (InstanceNotFoundException e) {
+            // already removed from the server directly
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot unregister metrics " + objectName, e);
+        }
+        objectName = null;
+    }
+
+    /**
+     * Returns the name under which the metrics are registered.
+     *
+     * @return the name of the MBean, or <code>null</code> if the metrics are not registered
+     */
+    public ObjectName getObjectName() { return objectName; }
+}
@@ -0,0 +1,134 @@
+package ft.list;
+
+/**
+ * The management interface of {@link FTListMetrics}, through which the metrics
+ * of a list are exposed as a JMX MBean.
+ * <p>Times are in nanoseconds; all the values are totals since the metrics were
+ * created or last reset.
+ *
+ * @author Manuel Agostinetto
+ */
+public interface FTListMetricsMBean {
+
+    /**
+     * Returns the number of changes notified by the model.
+     *
+     * @return the number of changes of the model
+     */
+    long getMutationCount();
+
+    /**
+     * Returns the number of events of the model notifying inserted rows.
+     *
+     * @return the number of insertion events
+     */
+    long getInsertEventCount();
+
+    /**
+     * Returns the number of events of the model notifying removed rows.
+     *
+     * @return the number of removal events
+     */
+    long getDeleteEventCount();
+
+    /**
+     * Returns the number of events of the model notifying changed rows or a
+     * changed structure.
+     *
+     * @return the number of update events
+     */
+    long getUpdateEventCount();
+
+    /**
+     * Returns the number of rows notified as inserted by the model.
+     *
+     * @return the number of rows added
+     */
+    long getRowsAdded();
+
+    /**
+     * Returns the number of rows notified as removed by the model.
+     *
+     * @return the number of rows removed
+     */
+    long getRowsRemoved();
+
+    /**
+     * Returns the number of cells prepared for rendering by a table.
+     *
+     * @return the number of prepared cells
+     */
+    long getRenderCount();
+
+    /**
+     * Returns the time spent preparing cells for rendering, which is part of
+     * the paint time.
+     *
+     * @return the render time in nanoseconds
+     */
+    long getRenderNanos();
+
+    /**
+     * Returns the number of times the list component was painted.
+     *
+     * @return the number of paints
+     */
+    long getPaintCount();
+
+    /**
+     * Returns the time spent painting the list component.
+     *
+     * @return the paint time in nanoseconds
+     */
+    long getPaintNanos();
+
+    /**
+     * Returns the number of calls to the row color customizer of a table.
+     *
+     * @return the number of customizer calls
+     */
+    long getRowColorCount();
+
+    /**
+     * Returns the time spent in the row color customizer of a table, which is
+     * part of the render time.
+     *
+     * @return the customizer time in nanoseconds
+     */
+    long getRowColorNanos();
+
+    /**
+     * Returns the number of <code>FTActionEvent</code>s delivered to the
+     * <code>FTActionListener</code>s of the list.
+     *
+     * @return the number of action events
+     */
+    long getActionDispatchCount();
+
+    /**
+     * Returns the time spent in the <code>FTActionListener</code>s of the list.
+     *
+     * @return the action dispatch time in nanoseconds
+     */
+    long getActionDispatchNanos();
+
+    /**
+     * Returns the number of selection events delivered to the
+     * <code>ListSelectionListener</code>s of the list.
+     *
+     * @return the number of selection events
+     */
+    long getSelectionDispatchCount();
+
+    /**
+     * Returns the time spent in the <code>ListSelectionListener</code>s of the list.
+     *
+     * @return the selection dispatch time in nanoseconds
+     */
+    long getSelectionDispatchNanos();
+
+    /**
+     * Sets all the metrics to zero.
+     */
+    void reset();
+}
@@ -30,11 +30,14 @@ public class FTModelFactory {
      * It can be created as a model that act as a Set, so it can not accept
      * duplicate values.
      * 
+     * <p>The returned model is a {@link FTSimpleIntegerModel} that stores the values in an
+     * array of <code>int</code>.
+     * 
      * @param set if <code>true</code> the generated model act as a Set
      * @return an instance of FTSimpleListModel that manages Integer objects
      */
     public static FTSimpleListModel<Integer> createSimpleIntegerModel(boolean set) {
-        return new FTSimpleGenericModel<Integer>( set );
+        return new FTSimpleIntegerModel( set );
     }
     
     /**
@@ -42,11 +45,14 @@ public class FTModelFactory {
      * It can be created as a model that act as a Set, so it can not accept
      * duplicate values.
      * 
+     * <p>The returned model is a {@link FTSimpleDoubleModel} that stores the values in an
+     * array of <code>double</code>.
+     * 
      * @param set if <code>true</code> the generated model act as a Set
      * @return an instance of FTSimpleListModel that manages Double objects
      */
     public static FTSimpleListModel<Double> createSimpleDoubleModel(boolean set) {
-        return new FTSimpleGenericModel<Double>( set );
+        return new FTSimpleDoubleModel( set );
     }
     
     /**
@@ -54,11 +60,14 @@ public class FTModelFactory {
      * It can be created as a model that act as a Set, so it can not accept
      * duplicate values.
      * 
+     * <p>The returned model is a {@link FTSimpleLongModel} that stores the values in an
+     * array of <code>long</code>.
+     * 
      * @param set if <code>true</code> the generated model act as a Set
      * @return an instance of FTSimpleListModel that manages Long objects
      */
     public static FTSimpleListModel<Long> createSimpleLongModel(boolean set) {
-        return new FTSimpleGenericModel<Long>( set );
+        return new FTSimpleLongModel( set );
     }
     
     /**
@@ -66,11 +75,32 @@ public class FTModelFactory {
      * It can be created as a model that act as a Set, so it can not accept
      * duplicate values.
      * 
+     * <p>The returned model is a {@link FTSimpleFloatModel} that stores the values in an
+     * array of <code>float</code>.
+     * 
      * @param set if <code>true</code> the generated model act as a Set
      * @return an instance of FTSimpleListModel that manages Float objects
      */
     public static FTSimpleListModel<Float> createSimpleFloatModel(boolean set) {
-        return new FTSimpleGenericModel<Float>( set );
+        return new FTSimpleFloatModel( set );
+    }
+    
+    /**
+     * Creates a FTSimpleListModel that can manage any type of element, stored
+     * in a balanced tree.
+     * It can be created as a model that act as a Set, so it can not accept
+     * duplicate values.
+     * 
+     * <p>The returned model is a {@link FTSimpleTreeModel}, where inserting or removing
+     * an element takes O(log n) time wherever it is: it suits lists where elements
+     * are often inserted near the top.
+     * 
+     * @param <T> the type of elements managed by the model
+     * @param set if <code>true</code> the generated model act as a Set
+     * @return an instance of FTSimpleListModel backed by a balanced tree
+     */
+    public static <T> FTSimpleListModel<T> createSimpleTreeModel(boolean set) {
+        return new FTSimpleTreeModel<T>( set );
     }
     
     /**
@@ -83,7 +113,26 @@ public class FTModelFactory {
      * @return an instance of FTSimpleListModel that manages arrays of String
      */
     public static FTTableListModel<String[]> createTableStringModel(String[] headers, boolean set) {
-        return new FTTableGenericModel<String>(headers, set);
+        return new FTTableGenericModel<String>(FTColumn.of(headers, String.class), set);
+    }
+
+    /**
+     * Creates a FTTableListModel that can manage arrays of String.
+     * It can be created as a model that act as a Set, so it can not accept
+     * duplicate values.
+     * <p>If <code>columnar</code> is <code>true</code> the generated model is a
+     * {@link FTTableColumnarModel} that stores the values by column.
+     * 
+     * @param headers array of String to use as the table header
+     * @param set if <code>true</code> the generated model act as a Set
+     * @param columnar if <code>true</code> the generated model stores the values by column
+     * @return an instance of FTSimpleListModel that manages arrays of String
+     */
+    public static FTTableListModel<String[]> createTableStringModel(String[] headers, boolean set, boolean columnar) {
+        if (columnar) {
+            return new FTTableColumnarModel<String>(headers, String.class, set);
+        }
+        return new FTTableGenericModel<String>(FTColumn.of(headers, String.class), set);
     }
 
     /**
@@ -96,7 +145,26 @@ public class FTModelFactory {
      * @return an instance of FTSimpleListModel that manages arrays of Integer
      */
     public static FTTableListModel<Integer[]> createTableIntegerModel(String[] headers, boolean set) {
-        return new FTTableGenericModel<Integer>(headers, set);
+        return new FTTableGenericModel<Integer>(FTColumn.of(headers, Integer.class), set);
+    }
+
+    /**
+     * Creates a FTTableListModel that can manage arrays of Integer.
+     * It can be created as a model that act as a Set, so it can not accept
+     * duplicate values.
+     * <p>If <code>columnar</code> is <code>true</code> the generated model is a
+     * {@link FTTableColumnarModel} that stores the values by column, each in an array of <code>int</code>.
+     * 
+     * @param headers array of String to use as the table header
+     * @param set if <code>true</code> the generated model act as a Set
+     * @param columnar if <code>true</code> the generated model stores the values by column
+     * @return an instance of FTSimpleListModel that manages arrays of Integer
+     */
+    public static FTTableListModel<Integer[]> createTableIntegerModel(String[] headers, boolean set, boolean columnar) {
+        if (columnar) {
+            return new FTTableColumnarModel<Integer>(headers, Integer.class, set);
+        }
+        return new FTTableGenericModel<Integer>(FTColumn.of(headers, Integer.class), set);
     }
 
     /**
@@ -109,7 +177,26 @@ public class FTModelFactory {
      * @return an instance of FTSimpleListModel that manages arrays of Double
      */
     public static FTTableListModel<Double[]> createTableDoubleModel(String[] headers, boolean set) {
-        return new FTTableGenericModel<Double>(headers, set);
+        return new FTTableGenericModel<Double>(FTColumn.of(headers, Double.class), set);
+    }
+
+    /**
+     * Creates a FTTableListModel that can manage arrays of Double.
+     * It can be created as a model that act as a Set, so it can not accept
+     * duplicate values.
+     * <p>If <code>columnar</code> is <code>true</code> the generated model is a
+     * {@link FTTableColumnarModel} that stores the values by column, each in an array of <code>double</code>.
+     * 
+     * @param headers array of String to use as the table header
+     * @param set if <code>true</code> the generated model act as a Set
+     * @param columnar if <code>true</code> the generated model stores the values by column
+     * @return an instance of FTSimpleListModel that manages arrays of Double
+     */
+    public static FTTableListModel<Double[]> createTableDoubleModel(String[] headers, boolean set, boolean columnar) {
+        if (columnar) {
+            return new FTTableColumnarModel<Double>(headers, Double.class, set);
+        }
+        return new FTTableGenericModel<Double>(FTColumn.of(headers, Double.class), set);
     }
 
     /**
@@ -122,7 +209,26 @@ public class FTModelFactory {
      * @return an instance of FTSimpleListModel that manages arrays of Long
      */
     public static FTTableListModel<Long[]> createTableLongModel(String[] headers, boolean set) {
-        return new FTTableGenericModel<Long>(headers, set);
+        return new FTTableGenericModel<Long>(FTColumn.of(headers, Long.class), set);
+    }
+
+    /**
+     * Creates a FTTableListModel that can manage arrays of Long.
+     * It can be created as a model that act as a Set, so it can not accept
+     * duplicate values.
+     * <p>If <code>columnar</code> is <code>true</code> the generated model is a
+     * {@link FTTableColumnarModel} that stores the values by column, each in an array of <code>long</code>.
+     * 
+     * @param headers array of String to use as the table header
+     * @param set if <code>true</code> the generated model act as a Set
+     * @param columnar if <code>true</code> the generated model stores the values by column
+     * @return an instance of FTSimpleListModel that manages arrays of Long
+     */
+    public static FTTableListModel<Long[]> createTableLongModel(String[] headers, boolean set, boolean columnar) {
+        if (columnar) {
+            return new FTTableColumnarModel<Long>(headers, Long.class, set);
+        }
+        return new FTTableGenericModel<Long>(FTColumn.of(headers, Long.class), set);
     }
 
     /**
@@ -135,6 +241,43 @@ public class FTModelFactory {
      * @return an instance of FTSimpleListModel that manages arrays of Float
      */
     public static FTTableListModel<Float[]> createTableFloatModel(String[] headers, boolean set) {
-        return new FTTableGenericModel<Float>(headers, set);
+        return new FTTableGenericModel<Float>(FTColumn.of(headers, Float.class), set);
+    }
+
+    /**
+     * Creates a FTTableListModel that can manage arrays of Float.
+     * It can be created as a model that act as a Set, so it can not accept
+     * duplicate values.
+     * <p>If <code>columnar</code> is <code>true</code> the generated model is a
+     * {@link FTTableColumnarModel} that stores the values by column, each in an array of <code>float</code>.
+     * 
+     * @param headers array of String to use as the table header
+     * @param set if <code>true</code> the generated model act as a Set
+     * @param columnar if <code>true</code> the generated model stores the values by column
+     * @return an instance of FTSimpleListModel that manages arrays of Float
+     */
+    public static FTTableListModel<Float[]> createTableFloatModel(String[] headers, boolean set, boolean columnar) {
+        if (columnar) {
+            return new FTTableColumnarModel<Float>(headers, Float.class, set);
+        }
+        return new FTTableGenericModel<Float>(FTColumn.of(headers, Float.class), set);
+    }
+
+    /**
+     * Creates a FTTableListModel that can manage arrays of any type, stored in
+     * a balanced tree.
+     * It can be created as a model that act as a Set, so it can not accept
+     * duplicate values.
+     * <p>The returned model is a {@link FTTableTreeModel}, where inserting or removing
+     * a row takes O(log n) time wherever it is: it suits tables where rows are often
+     * inserted near the top.
+     * 
+     * @param <T> the type of the cells managed by the model
+     * @param headers array of String to use as the table header
+     * @param set if <code>true</code> the generated model act as a Set
+     * @return an instance of FTTableListModel backed by a balanced tree
+     */
+    public static <T> FTTableListModel<T[]> createTableTreeModel(String[] headers, boolean set) {
+        return new FTTableTreeModel<T>(headers, set);
     }
 }
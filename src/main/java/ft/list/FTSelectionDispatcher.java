@@ -0,0 +1,209 @@
+package ft.list;
+
+import ft.list.event.FTSelectionObservable;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.Arrays;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
+
+/**
+ * Forwards the changes of the selection of the list component of a
+ * <code>FTList</code> to the <code>ListSelectionListener</code>s of the list,
+ * according to its dispatch mode.
+ * <p>In the coalescing modes the changes are merged into a single pending range,
+ * delivered later with one event whose <code>valueIsAdjusting</code> flag is the
+ * one of the last change. The listeners are kept in an array replaced on each
+ * change, so a dispatch doesn't allocate anything but the delivered event, and
+ * listeners can be added or removed while an event is being delivered.
+ *
+ * @author Manuel Agostinetto
+ * @see FTSelectionObservable#setSelectionDispatchMode(int)
+ */
+final class FTSelectionDispatcher implements ListSelectionListener {
+
+    /**
+     * The default delay, in milliseconds, of the <code>DISPATCH_DEBOUNCE</code> mode.
+     */
+    static final int DEFAULT_DELAY = 150;
+
+    private static final ListSelectionListener[] NO_LISTENERS = new ListSelectionListener[0];
+
+    private final Object source;
+    private ListSelectionListener[] listeners = NO_LISTENERS;
+    private int mode = FTSelectionObservable.DISPATCH_IMMEDIATE;
+    private int delay = DEFAULT_DELAY;
+    private int firstIndex = Integer.MAX_VALUE;
+    private int lastIndex = -1;
+    private boolean isAdjusting;
+    private boolean scheduled;
+    private Timer timer;
+    private volatile FTListMetrics metrics;
+
+    /**
+     * Creates a dispatcher that delivers events with the specified source.
+     *
+     * @param source the source of the delivered events, usually the list
+     */
+    FTSelectionDispatcher(Object source) {
+        this.source = source;
+    }
+
+    /**
+     * Adds a listener, notified after the listeners already added.
+     *
+     * @param listener the listener to add
+     */
+    void addListener(ListSelectionListener listener) {
+        ListSelectionListener[] copy = Arrays.copyOf(listeners, listeners.length + 1);
+        copy[listeners.length] = listener;
+        listeners = copy;
+    }
+
+    /**
+     * Removes the first occurrence of a listener.
+     *
+     * @param listener the listener to remove
+     */
+    void removeListener(ListSelectionListener listener) {
+        for(int i=0; i<listeners.length; i++) {
+            if (listeners[i] == listener) {
+                ListSelectionListener[] copy = new ListSelectionListener[ listeners.length - 1 ];
+                System.arraycopy(listeners, 0, copy, 0, i);
+                System.arraycopy(listeners, i + 1, copy, i, listeners.length - i - 1);
+                listeners = copy;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns a copy of the listeners, in the order they are notified.
+     *
+     * @return the listeners of the list
+     */
+    ListSelectionListener[] getListeners() { return listeners.clone(); }
+
+    /**
+     * Changes the dispatch mode, delivering at once the pending changes.
+     *
+     * @param mode one of the <code>DISPATCH_*</code> constants of <code>FTSelectionObservable</code>
+     * @throws IllegalArgumentException if the mode is not valid
+     */
+    void setMode(int mode) {
+        if ((mode < FTSelectionObservable.DISPATCH_IMMEDIATE) || (mode > FTSelectionObservable.DISPATCH_DEBOUNCE)) {
+            throw new IllegalArgumentException("Invalid dispatch mode: " + mode);
+        }
+        if (timer != null) {
+            timer.stop();
+        }
+        flush();
+        this.mode = mode;
+    }
+
+    int getMode() { return mode; }
+
+    /**
+     * Changes the delay of the <code>DISPATCH_DEBOUNCE</code> mode.
+     *
+     * @param delay the delay in milliseconds
+     * @throws IllegalArgumentException if <code>delay</code> is negative
+     */
+    void setDelay(int delay) {
+        if (delay < 0) {
+            throw new IllegalArgumentException("Invalid delay: " + delay);
+        }
+        this.delay = delay;
+        if (timer != null) {
+            timer.setInitialDelay( delay );
+        }
+    }
+
+    int getDelay() { return delay; }
+
+    /**
+     * Sets the metrics that time the delivery of the events.
+     *
+     * @param metrics the metrics to update, or <code>null</code>
+     */
+    void setMetrics(FTListMetrics metrics) { this.metrics = metrics; }
+
+    @Override
+    public void valueChanged(ListSelectionEvent e) {
+        if (listeners.length == 0) {
+            return;
+        }
+        switch (mode) {
+            case FTSelectionObservable.DISPATCH_COALESCE_ADJUSTING:
+                merge( e );
+                if ( !e.getValueIsAdjusting() ) {
+                    flush();
+                }
+                break;
+            case FTSelectionObservable.DISPATCH_PER_TICK:
+                merge( e );
+                if ( !scheduled ) {
+                    scheduled = true;
+                    SwingUtilities.invokeLater( new Runnable() {
+                        @Override
+                        public void run() {
+                            scheduled = false;
+                            flush();
+                        }
+                    });
+                }
+                break;
+            case FTSelectionObservable.DISPATCH_DEBOUNCE:
+                merge( e );
+                if (timer == null) {
+                    timer = new Timer(delay, new ActionListener() {
+                        @Override
+                        public void actionPerformed(ActionEvent ae) { flush(); }
+                    });
+                    timer.setRepeats( false );
+                }
+                timer.restart();
+                break;
+            default:
+                dispatch(e.getFirstIndex(), e.getLastIndex(), e.getValueIsAdjusting());
+        }
+    }
+
+    private void merge(ListSelectionEvent e) {
+        firstIndex = Math.min(firstIndex, e.getFirstIndex());
+        lastIndex = Math.max(lastIndex, e.getLastIndex());
+        isAdjusting = e.getValueIsAdjusting();
+    }
+
+    /*
+     * Delivers the pending range, if any.
+     */
+    private void flush() {
+        if (lastIndex < 0) {
+            return;
+        }
+        int first = firstIndex;
+        int last = lastIndex;
+        firstIndex = Integer.MAX_VALUE;
+        lastIndex = -1;
+        dispatch(first, last, isAdjusting);
+    }
+
+    private void dispatch(int first, int last, boolean adjusting) {
+        ListSelectionListener[] targets = listeners;
+        if (targets.length == 0) {
+            return;
+        }
+        ListSelectionEvent lse = new ListSelectionEvent(source, first, last, adjusting);
+        FTListMetrics m = metrics;
+        long start = (m != null) ? System.nanoTime() : 0L;
+        for(ListSelectionListener lsl : targets) {
+            lsl.valueChanged( lse );
+        }
+        if (m != null) {
+            m.recordSelectionDispatch(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,860 @@
+package ft.list;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import javax.swing.DefaultListSelectionModel;
+
+/**
+ * A <code>ListSelectionModel</code> that stores the selection as a sorted array
+ * of runs of contiguous selected indexes, used by the lists of <code>FTList</code>.
+ * <p>Unlike <code>DefaultListSelectionModel</code>, which keeps a bit for every
+ * index up to the last selected one, the cost of this model depends on the number
+ * of runs rather than on the number of indexes: selecting all the rows of a list
+ * stores a single run, <code>isSelectedIndex</code> is a binary search and
+ * {@link #forEachSelected(IntConsumer)} and {@link #getSelectedIndices()} visit the
+ * runs without scanning the unselected indexes. Inserting and removing indexes,
+ * as the lists do when their model changes, shifts the runs after the changed
+ * position instead of every selected bit.
+ * <p>Indexes added out of order, as <code>JTable</code> does when it restores the
+ * selection after sorting, are collected and merged into the runs with a single
+ * pass the next time the selection is read.
+ * <p>The model notifies its listeners with the same events and follows the same
+ * rules for the selection modes, the anchor and the lead as
+ * <code>DefaultListSelectionModel</code>. It extends it, without using its bits,
+ * so that the Swing classes that expect it, like the key bindings that move the
+ * lead without changing the selection, keep working.
+ *
+ * @author Manuel Agostinetto
+ */
+public class FTSelectionModel extends DefaultListSelectionModel {
+
+    private static final int MIN = -1;
+    private static final int MAX = Integer.MAX_VALUE;
+
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private int runs;
+
+    private long[] added = new long[8];
+    private int addedCount;
+
+    private int selectionMode = MULTIPLE_INTERVAL_SELECTION;
+    private int anchorIndex = -1;
+    private int leadIndex = -1;
+    private boolean isAdjusting;
+    private int firstAdjustedIndex = MAX;
+    private int lastAdjustedIndex = MIN;
+    private int firstChangedIndex = MAX;
+    private int lastChangedIndex = MIN;
+    private int deferred;
+
+    /**
+     * Creates an empty selection model in <code>MULTIPLE_INTERVAL_SELECTION</code> mode.
+     */
+    public FTSelectionModel() {}
+
+    /**
+     * Performs the given action for each selected index, in ascending order. Unlike
+     * {@link #getSelectedIndices()}, it doesn't allocate an array of the selected
+     * indexes, so it's the preferred way of visiting large selections.
+     *
+     * @param action the action to be performed for each selected index
+     */
+    public void forEachSelected(IntConsumer action) {
+        flush();
+        int count = runs;
+        for(int run=0; run<count; run++) {
+            int end = ends[run];
+            for(int i=starts[run]; i<=end; i++) {
+                action.accept( i );
+            }
+        }
+    }
+
+    /**
+     * Returns the selected indexes in ascending order.
+     *
+     * @return the selected indexes, or an empty array if nothing is selected
+     */
+    public int[] getSelectedIndices() {
+        flush();
+        int[] ret = new int[ getSelectedItemsCount() ];
+        int pos = 0;
+        for(int run=0; run<runs; run++) {
+            for(int i=starts[run]; i<=ends[run]; i++) {
+                ret[pos++] = i;
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Returns the number of selected indexes.
+     *
+     * @return the number of selected indexes, 0 if nothing is selected
+     */
+    public int getSelectedItemsCount() {
+        flush();
+        int ret = 0;
+        for(int run=0; run<runs; run++) {
+            ret += ends[run] - starts[run] + 1;
+        }
+        return ret;
+    }
+
+    /**
+     * Returns the number of runs of contiguous selected indexes.
+     *
+     * @return the number of runs of the selection
+     */
+    public int getSelectedRunCount() {
+        flush();
+        return runs;
+    }
+
+    @Override
+    public void setSelectionInterval(int index0, int index1) {
+        if ((index0 == -1) || (index1 == -1)) {
+            return;
+        }
+        if (selectionMode == SINGLE_SELECTION) {
+            index0 = index1;
+        }
+        updateLeadAnchorIndices(index0, index1);
+        changeSelection(getMinSelectionIndex(), getMaxSelectionIndex(), Math.min(index0, index1), Math.max(index0, index1), true);
+        fireValueChanged();
+    }
+
+    @Override
+    public void addSelectionInterval(int index0, int index1) {
+        if ((index0 == -1) || (index1 == -1)) {
+            return;
+        }
+        if (selectionMode == SINGLE_SELECTION) {
+            setSelectionInterval(index0, index1);
+            return;
+        }
+        int setMin = Math.min(index0, index1);
+        int setMax = Math.max(index0, index1);
+        if ((selectionMode == SINGLE_INTERVAL_SELECTION) && !isSelectionEmpty()
+                && ((setMax < getMinSelectionIndex() - 1) || (setMin > getMaxSelectionIndex() + 1))) {
+            setSelectionInterval(index0, index1);
+            return;
+        }
+        updateLeadAnchorIndices(index0, index1);
+        select(setMin, setMax);
+        fireValueChanged();
+    }
+
+    @Override
+    public void removeSelectionInterval(int index0, int index1) {
+        removeSelectionInterval(index0, index1, true);
+    }
+
+    @Override
+    public int getMinSelectionIndex() {
+        flush();
+        return (runs == 0) ? -1 : starts[0];
+    }
+
+    @Override
+    public int getMaxSelectionIndex() {
+        flush();
+        return (runs == 0) ? -1 : ends[runs-1];
+    }
+
+    @Override
+    public boolean isSelectedIndex(int index) {
+        if (index < 0) {
+            return false;
+        }
+        flush();
+        int run = findRun( index );
+        return (run < runs) && (starts[run] <= index);
+    }
+
+    @Override
+    public int getAnchorSelectionIndex() { return anchorIndex; }
+
+    @Override
+    public void setAnchorSelectionIndex(int anchorIndex) {
+        updateLeadAnchorIndices(anchorIndex, leadIndex);
+        fireValueChanged();
+    }
+
+    @Override
+    public int getLeadSelectionIndex() { return leadIndex; }
+
+    /**
+     * Sets the lead selection index, changing the selection between the anchor and
+     * the old and the new lead as <code>DefaultListSelectionModel</code> does: the
+     * indexes between the anchor and the new lead take the selection state of the
+     * anchor, the indexes left out of that range take the opposite state.
+     *
+     * @param leadIndex the new lead selection index
+     */
+    @Override
+    public void setLeadSelectionIndex(int leadIndex) {
+        int anchor = anchorIndex;
+        if (leadIndex == -1) {
+            if (anchor == -1) {
+                updateLeadAnchorIndices(anchor, leadIndex);
+                fireValueChanged();
+            }
+            return;
+        } else if (anchor == -1) {
+            return;
+        }
+        if (this.leadIndex == -1) {
+            this.leadIndex = leadIndex;
+        }
+        boolean shouldSelect = isSelectedIndex( anchorIndex );
+        if (selectionMode == SINGLE_SELECTION) {
+            anchor = leadIndex;
+            shouldSelect = true;
+        }
+        int oldMin = Math.min(anchorIndex, this.leadIndex);
+        int oldMax = Math.max(anchorIndex, this.leadIndex);
+        int newMin = Math.min(anchor, leadIndex);
+        int newMax = Math.max(anchor, leadIndex);
+        updateLeadAnchorIndices(anchor, leadIndex);
+        if (shouldSelect) {
+            changeSelection(oldMin, oldMax, newMin, newMax, true);
+        } else {
+            changeSelection(newMin, newMax, oldMin, oldMax, false);
+        }
+        fireValueChanged();
+    }
+
+    @Override
+    public void clearSelection() {
+        removeSelectionInterval(getMinSelectionIndex(), getMaxSelectionIndex(), false);
+    }
+
+    @Override
+    public boolean isSelectionEmpty() { return (runs == 0) && (addedCount == 0); }
+
+    /**
+     * Inserts <code>length</code> indexes before or after <code>index</code>, shifting
+     * the selected indexes that follow. The inserted indexes are selected if
+     * <code>index</code> is selected, unless the selection mode is
+     * <code>SINGLE_SELECTION</code>.
+     *
+     * @param index the index where the indexes are inserted
+     * @param length the number of inserted indexes
+     * @param before <code>true</code> to insert the indexes before <code>index</code>
+     */
+    @Override
+    public void insertIndexInterval(int index, int length, boolean before) {
+        flush();
+        int[] oldStarts = Arrays.copyOf(starts, runs);
+        int[] oldEnds = Arrays.copyOf(ends, runs);
+        int firstAdjusted = firstAdjustedIndex;
+        int lastAdjusted = lastAdjustedIndex;
+        int insMinIndex = before ? index : index + 1;
+        boolean fill = (selectionMode != SINGLE_SELECTION) && isSelectedIndex( index );
+        int run = findRun( insMinIndex );
+        if (run < runs) {
+            if (starts[run] < insMinIndex) {
+                replace(run, run + 1, starts[run], insMinIndex - 1, insMinIndex, ends[run], 2);
+                run++;
+            }
+            for(int i=run; i<runs; i++) {
+                starts[i] += length;
+                ends[i] += length;
+            }
+        }
+        if (fill) {
+            select(insMinIndex, insMinIndex + length - 1);
+            flush();
+        }
+        firstAdjustedIndex = firstAdjusted;
+        lastAdjustedIndex = lastAdjusted;
+        markDifference(oldStarts, oldEnds);
+        int lead = leadIndex;
+        if ((lead > index) || (before && (lead == index))) {
+            lead = leadIndex + length;
+        }
+        int anchor = anchorIndex;
+        if ((anchor > index) || (before && (anchor == index))) {
+            anchor = anchorIndex + length;
+        }
+        if ((lead != leadIndex) || (anchor != anchorIndex)) {
+            updateLeadAnchorIndices(anchor, lead);
+        }
+        fireValueChanged();
+    }
+
+    /**
+     * Removes the indexes between <code>index0</code> and <code>index1</code>, both
+     * inclusive, shifting the selected indexes that follow.
+     *
+     * @param index0 one end of the interval of removed indexes
+     * @param index1 the other end of the interval of removed indexes
+     */
+    @Override
+    public void removeIndexInterval(int index0, int index1) {
+        flush();
+        int[] oldStarts = Arrays.copyOf(starts, runs);
+        int[] oldEnds = Arrays.copyOf(ends, runs);
+        int firstAdjusted = firstAdjustedIndex;
+        int lastAdjusted = lastAdjustedIndex;
+        int rmMinIndex = Math.min(index0, index1);
+        int rmMaxIndex = Math.max(index0, index1);
+        int gapLength = rmMaxIndex - rmMinIndex + 1;
+        int run = findRun( rmMinIndex );
+        if (run < runs) {
+            deselect(rmMinIndex, rmMaxIndex);
+            run = findRun( rmMinIndex );
+            for(int i=run; i<runs; i++) {
+                starts[i] -= gapLength;
+                ends[i] -= gapLength;
+            }
+            if ((run > 0) && (run < runs) && (ends[run-1] + 1 == starts[run])) {
+                replace(run - 1, run + 1, starts[run-1], ends[run], 0, 0, 1);
+            }
+        }
+        firstAdjustedIndex = firstAdjusted;
+        lastAdjustedIndex = lastAdjusted;
+        markDifference(oldStarts, oldEnds);
+        int lead = shiftRemoved(leadIndex, rmMinIndex, rmMaxIndex, gapLength);
+        int anchor = shiftRemoved(anchorIndex, rmMinIndex, rmMaxIndex, gapLength);
+        if ((lead != leadIndex) || (anchor != anchorIndex)) {
+            updateLeadAnchorIndices(anchor, lead);
+        }
+        fireValueChanged();
+    }
+
+    @Override
+    public void setValueIsAdjusting(boolean valueIsAdjusting) {
+        if (valueIsAdjusting != isAdjusting) {
+            isAdjusting = valueIsAdjusting;
+            fireValueChanged( valueIsAdjusting );
+        }
+    }
+
+    @Override
+    public boolean getValueIsAdjusting() { return isAdjusting; }
+
+    /**
+     * Sets the selection mode. When the mode becomes more restrictive the selection
+     * is reduced to its first index or to its first run, as
+     * <code>DefaultListSelectionModel</code> does.
+     *
+     * @param selectionMode the selection mode
+     * @throws IllegalArgumentException if the selection mode isn't one of the
+     * modes defined by <code>ListSelectionModel</code>
+     */
+    @Override
+    public void setSelectionMode(int selectionMode) {
+        int oldMode = this.selectionMode;
+        switch (selectionMode) {
+            case SINGLE_SELECTION:
+            case SINGLE_INTERVAL_SELECTION:
+            case MULTIPLE_INTERVAL_SELECTION:
+                this.selectionMode = selectionMode;
+                break;
+            default:
+                throw new IllegalArgumentException("invalid selectionMode");
+        }
+        if ((oldMode > selectionMode) && !isSelectionEmpty()) {
+            flush();
+            if (selectionMode == SINGLE_SELECTION) {
+                setSelectionInterval(starts[0], starts[0]);
+            } else {
+                setSelectionInterval(starts[0], ends[0]);
+            }
+        }
+    }
+
+    @Override
+    public int getSelectionMode() { return selectionMode; }
+
+    /**
+     * Moves the lead selection index without changing the selection.
+     *
+     * @param leadIndex the new lead selection index
+     */
+    @Override
+    public void moveLeadSelectionIndex(int leadIndex) {
+        if ((leadIndex == -1) && (anchorIndex != -1)) {
+            return;
+        }
+        updateLeadAnchorIndices(anchorIndex, leadIndex);
+        fireValueChanged();
+    }
+
+    /**
+     * Notifies the listeners of all the changes made while the value was adjusting.
+     *
+     * @param isAdjusting <code>true</code> if the value is still adjusting
+     */
+    @Override
+    protected void fireValueChanged(boolean isAdjusting) {
+        if (lastChangedIndex == MIN) {
+            return;
+        }
+        int first = firstChangedIndex;
+        int last = lastChangedIndex;
+        firstChangedIndex = MAX;
+        lastChangedIndex = MIN;
+        fireValueChanged(first, last, isAdjusting);
+    }
+
+    /**
+     * Returns a copy of this selection model, with the same selection and no listeners.
+     *
+     * @return a copy of this selection model
+     * @throws CloneNotSupportedException never thrown by this class
+     */
+    @Override
+    public Object clone() throws CloneNotSupportedException {
+        flush();
+        FTSelectionModel ret = (FTSelectionModel) super.clone();
+        ret.starts = starts.clone();
+        ret.ends = ends.clone();
+        ret.added = new long[8];
+        return ret;
+    }
+
+    @Override
+    public String toString() {
+        flush();
+        StringBuilder ret = new StringBuilder( getClass().getName() );
+        ret.append(' ').append( Integer.toString(hashCode()) ).append(" [");
+        for(int run=0; run<runs; run++) {
+            if (run > 0) {
+                ret.append(", ");
+            }
+            ret.append( starts[run] );
+            if (ends[run] > starts[run]) {
+                ret.append('-').append( ends[run] );
+            }
+        }
+        return ret.append(']').toString();
+    }
+
+    /**
+     * Stops notifying the listeners of the changes until
+     * {@link #fireDeferredEvents()} is called. The lists defer the events while
+     * their model removes many rows, since <code>JList</code> lays out all its
+     * cells again on each event that follows a change of its model.
+     */
+    void deferEvents() { deferred++; }
+
+    /**
+     * Resumes notifying the listeners, with a single event covering all the
+     * changes made since {@link #deferEvents()} was called.
+     */
+    void fireDeferredEvents() {
+        if (--deferred == 0) {
+            fireValueChanged();
+        }
+    }
+
+    /**
+     * Returns the selection as it will be once the specified indexes are removed,
+     * as pairs of first and last index of each run, computed with a single pass.
+     * The lists restore it with {@link #restoreRuns(int[])} after the model has
+     * removed its rows, since models that remove many runs of rows notify their
+     * listeners that all the rows changed and the selection is cleared.
+     *
+     * @param indexes the indexes that will be removed, in any order
+     * @return the runs of the selection after the removal
+     */
+    int[] runsAfterRemoval(int[] indexes) {
+        flush();
+        int[] removed = indexes.clone();
+        Arrays.sort( removed );
+        int[] ret = new int[ runs * 2 ];
+        int count = 0;
+        int next = 0;
+        int shift = 0;
+        int last = -1;
+        for(int run=0; run<runs; run++) {
+            while ((next < removed.length) && (removed[next] < starts[run])) {
+                if (removed[next] != last) {
+                    last = removed[next];
+                    shift++;
+                }
+                next++;
+            }
+            int inside = 0;
+            while ((next < removed.length) && (removed[next] <= ends[run])) {
+                if (removed[next] != last) {
+                    last = removed[next];
+                    inside++;
+                }
+                next++;
+            }
+            int from = starts[run] - shift;
+            int to = ends[run] - shift - inside;
+            shift += inside;
+            if (to >= from) {
+                if ((count > 0) && (ret[count-1] + 1 >= from)) {
+                    ret[count-1] = to;
+                } else {
+                    ret[count++] = from;
+                    ret[count++] = to;
+                }
+            }
+        }
+        return Arrays.copyOf(ret, count);
+    }
+
+    /**
+     * Replaces the selection with the runs returned by
+     * {@link #runsAfterRemoval(int[])}, notifying the listeners if it changes.
+     *
+     * @param pairs the first and the last index of each run
+     */
+    void restoreRuns(int[] pairs) {
+        flush();
+        boolean same = (pairs.length == runs * 2);
+        for(int run=0; same && run<runs; run++) {
+            same = (starts[run] == pairs[2*run]) && (ends[run] == pairs[2*run+1]);
+        }
+        if ( !same ) {
+            if (runs > 0) {
+                markAsDirty(starts[0], ends[runs-1]);
+            }
+            if (pairs.length > 0) {
+                markAsDirty(pairs[0], pairs[pairs.length-1]);
+            }
+            runs = 0;
+            for(int i=0; i<pairs.length; i+=2) {
+                replace(runs, runs, pairs[i], pairs[i+1], 0, 0, 1);
+            }
+        }
+        fireValueChanged();
+    }
+
+    /*
+     * Notifies the listeners of the changes made since the last notification, as a
+     * single event covering the changed indexes.
+     */
+    private void fireValueChanged() {
+        if ((lastAdjustedIndex == MIN) || (deferred > 0)) {
+            return;
+        }
+        if (isAdjusting) {
+            firstChangedIndex = Math.min(firstChangedIndex, firstAdjustedIndex);
+            lastChangedIndex = Math.max(lastChangedIndex, lastAdjustedIndex);
+        }
+        int first = firstAdjustedIndex;
+        int last = lastAdjustedIndex;
+        firstAdjustedIndex = MAX;
+        lastAdjustedIndex = MIN;
+        fireValueChanged(first, last, isAdjusting);
+    }
+
+    private void removeSelectionInterval(int index0, int index1, boolean changeLeadAnchor) {
+        if ((index0 == -1) || (index1 == -1)) {
+            return;
+        }
+        if (changeLeadAnchor) {
+            updateLeadAnchorIndices(index0, index1);
+        }
+        int clearMin = Math.min(index0, index1);
+        int clearMax = Math.max(index0, index1);
+        // a removal that would split the selection in two removes up to its end
+        if ((selectionMode != MULTIPLE_INTERVAL_SELECTION) && (clearMin > getMinSelectionIndex()) && (clearMax < getMaxSelectionIndex())) {
+            clearMax = getMaxSelectionIndex();
+        }
+        deselect(clearMin, clearMax);
+        fireValueChanged();
+    }
+
+    private void updateLeadAnchorIndices(int anchorIndex, int leadIndex) {
+        if ( isLeadAnchorNotificationEnabled() ) {
+            if (this.anchorIndex != anchorIndex) {
+                markAsDirty( this.anchorIndex );
+                markAsDirty( anchorIndex );
+            }
+            if (this.leadIndex != leadIndex) {
+                markAsDirty( this.leadIndex );
+                markAsDirty( leadIndex );
+            }
+        }
+        this.anchorIndex = anchorIndex;
+        this.leadIndex = leadIndex;
+    }
+
+    private static int shiftRemoved(int index, int rmMinIndex, int rmMaxIndex, int gapLength) {
+        if ((index == 0) && (rmMinIndex == 0)) {
+            return index;
+        }
+        if (index > rmMaxIndex) {
+            return index - gapLength;
+        }
+        if (index >= rmMinIndex) {
+            return rmMinIndex - 1;
+        }
+        return index;
+    }
+
+    /*
+     * Clears the indexes between clearMin and clearMax and selects the indexes
+     * between setMin and setMax, both inclusive. When the ranges overlap, the
+     * indexes in both are selected if clearFirst is true and cleared otherwise.
+     */
+    private void changeSelection(int clearMin, int clearMax, int setMin, int setMax, boolean clearFirst) {
+        if (clearFirst) {
+            deselectOutside(clearMin, clearMax, setMin, setMax);
+            select(setMin, setMax);
+        } else {
+            selectOutside(setMin, setMax, clearMin, clearMax);
+            deselect(clearMin, clearMax);
+        }
+    }
+
+    private void deselectOutside(int from, int to, int min, int max) {
+        if ((from < 0) || (from > to)) {
+            return;
+        }
+        if (min > max) {
+            deselect(from, to);
+            return;
+        }
+        if (from < min) {
+            deselect(from, Math.min(to, min - 1));
+        }
+        if (to > max) {
+            deselect(Math.max(from, max + 1), to);
+        }
+    }
+
+    private void selectOutside(int from, int to, int min, int max) {
+        if ((from < 0) || (from > to)) {
+            return;
+        }
+        if ((min < 0) || (min > max)) {
+            select(from, to);
+            return;
+        }
+        if (from < min) {
+            select(from, Math.min(to, min - 1));
+        }
+        if (to > max) {
+            select(Math.max(from, max + 1), to);
+        }
+    }
+
+    private void markAsDirty(int index) {
+        if (index == -1) {
+            return;
+        }
+        markAsDirty(index, index);
+    }
+
+    private void markAsDirty(int from, int to) {
+        firstAdjustedIndex = Math.min(firstAdjustedIndex, from);
+        lastAdjustedIndex = Math.max(lastAdjustedIndex, to);
+    }
+
+    /*
+     * Marks as dirty the first and the last index whose selection differs between
+     * the specified runs and the current ones, which must be flushed.
+     */
+    private void markDifference(int[] oldStarts, int[] oldEnds) {
+        int oldRuns = oldStarts.length;
+        int i = 0;
+        while ((i < oldRuns) && (i < runs) && (oldStarts[i] == starts[i]) && (oldEnds[i] == ends[i])) {
+            i++;
+        }
+        int first;
+        if (i == oldRuns) {
+            if (i == runs) {
+                return;
+            }
+            first = starts[i];
+        } else if (i == runs) {
+            first = oldStarts[i];
+        } else if (oldStarts[i] != starts[i]) {
+            first = Math.min(oldStarts[i], starts[i]);
+        } else {
+            first = Math.min(oldEnds[i], ends[i]) + 1;
+        }
+        int j = oldRuns - 1;
+        int k = runs - 1;
+        while ((j >= 0) && (k >= 0) && (oldStarts[j] == starts[k]) && (oldEnds[j] == ends[k])) {
+            j--;
+            k--;
+        }
+        int last;
+        if (j < 0) {
+            last = ends[k];
+        } else if (k < 0) {
+            last = oldEnds[j];
+        } else if (oldEnds[j] != ends[k]) {
+            last = Math.max(oldEnds[j], ends[k]);
+        } else {
+            last = Math.max(oldStarts[j], starts[k]) - 1;
+        }
+        markAsDirty(first, last);
+    }
+
+    /*
+     * Selects the indexes between from and to, both inclusive. An interval that
+     * extends the last run or follows it is applied at once, any other one is
+     * collected and merged by flush.
+     */
+    private void select(int from, int to) {
+        if ((from < 0) || (from > to)) {
+            return;
+        }
+        // like DefaultListSelectionModel, only the indexes that change are dirty
+        int first = from;
+        int run = findRun( from );
+        if ((run < runs) && (starts[run] <= from)) {
+            first = ends[run] + 1;
+        }
+        if (first > to) {
+            return;
+        }
+        int last = to;
+        run = findRun( to );
+        if ((run < runs) && (starts[run] <= to)) {
+            last = starts[run] - 1;
+        }
+        markAsDirty(first, last);
+        if (addedCount == 0) {
+            if ((runs > 0) && (from >= starts[runs-1])) {
+                if (from <= ends[runs-1] + 1) {
+                    ends[runs-1] = to;
+                } else {
+                    replace(runs, runs, from, to, 0, 0, 1);
+                }
+                return;
+            }
+            if (runs == 0) {
+                replace(0, 0, from, to, 0, 0, 1);
+                return;
+            }
+        }
+        if (addedCount == added.length) {
+            added = Arrays.copyOf(added, addedCount * 2);
+        }
+        added[addedCount++] = ((long) from << 32) | to;
+    }
+
+    /*
+     * Clears the indexes between from and to, both inclusive.
+     */
+    private void deselect(int from, int to) {
+        if ((from < 0) || (from > to)) {
+            return;
+        }
+        flush();
+        int first = findRun( from );
+        if ((first == runs) || (starts[first] > to)) {
+            return;
+        }
+        int last = findRun( to );
+        if ((last == runs) || (starts[last] > to)) {
+            last--;
+        }
+        markAsDirty(Math.max(from, starts[first]), Math.min(to, ends[last]));
+        int count = 0;
+        int s0 = 0;
+        int e0 = 0;
+        int s1 = 0;
+        int e1 = 0;
+        if (starts[first] < from) {
+            s0 = starts[first];
+            e0 = from - 1;
+            count++;
+        }
+        if (ends[last] > to) {
+            if (count == 0) {
+                s0 = to + 1;
+                e0 = ends[last];
+            } else {
+                s1 = to + 1;
+                e1 = ends[last];
+            }
+            count++;
+        }
+        replace(first, last + 1, s0, e0, s1, e1, count);
+    }
+
+    /*
+     * Merges the collected intervals into the runs with a single pass.
+     */
+    private void flush() {
+        if (addedCount == 0) {
+            return;
+        }
+        Arrays.sort(added, 0, addedCount);
+        int[] newStarts = new int[ Math.max(8, runs + addedCount) ];
+        int[] newEnds = new int[ newStarts.length ];
+        int count = 0;
+        int run = 0;
+        int next = 0;
+        while ((run < runs) || (next < addedCount)) {
+            int from;
+            int to;
+            if ((next == addedCount) || ((run < runs) && (starts[run] <= (int) (added[next] >>> 32)))) {
+                from = starts[run];
+                to = ends[run++];
+            } else {
+                from = (int) (added[next] >>> 32);
+                to = (int) added[next++];
+            }
+            if ((count > 0) && (from <= newEnds[count-1] + 1)) {
+                newEnds[count-1] = Math.max(newEnds[count-1], to);
+            } else {
+                newStarts[count] = from;
+                newEnds[count++] = to;
+            }
+        }
+        starts = newStarts;
+        ends = newEnds;
+        runs = count;
+        addedCount = 0;
+        if (added.length > 1024) {
+            added = new long[8];
+        }
+    }
+
+    /*
+     * Returns the first run that ends at or after index, or runs if there is none.
+     */
+    private int findRun(int index) {
+        int low = 0;
+        int high = runs;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ends[mid] < index) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /*
+     * Replaces the runs between from, inclusive, and to, exclusive, with count
+     * new runs (at most two).
+     */
+    private void replace(int from, int to, int s0, int e0, int s1, int e1, int count) {
+        int newRuns = runs - (to - from) + count;
+        if (newRuns > starts.length) {
+            int capacity = Math.max(newRuns, starts.length * 2);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+        System.arraycopy(starts, to, starts, from + count, runs - to);
+        System.arraycopy(ends, to, ends, from + count, runs - to);
+        if (count > 0) {
+            starts[from] = s0;
+            ends[from] = e0;
+        }
+        if (count > 1) {
+            starts[from+1] = s1;
+            ends[from+1] = e1;
+        }
+        runs = newRuns;
+    }
+}
@@ -1,11 +1,13 @@
 package ft.list;
 
 import ft.list.models.FTSimpleListModel;
+import java.awt.Graphics;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
 import javax.swing.*;
-import javax.swing.event.ListSelectionEvent;
-import javax.swing.event.ListSelectionListener;
 
 /**
  * An <code>FTList</code> implementation that uses a <code>JList</code> to represent
@@ -21,17 +23,31 @@ import javax.swing.event.ListSelectionListener;
  */
 public class FTSimpleList<E> extends FTList<E> {
     
-    private class FTListListener implements ListSelectionListener {
+    /*
+     * Times the paint of the list when metrics are enabled.
+     */
+    private class FTCustomList extends JList {
+        
+        public FTCustomList(ListModel listModel) {
+            super( listModel );
+        }
+        
         @Override
-        public void valueChanged(ListSelectionEvent lse) {
-            notifyMyListListeners( lse );
+        protected void paintComponent(Graphics g) {
+            FTListMetrics metrics = getMetrics();
+            if (metrics == null) {
+                super.paintComponent( g );
+                return;
+            }
+            long start = System.nanoTime();
+            super.paintComponent( g );
+            metrics.recordPaint(System.nanoTime() - start);
         }
     }
     
     private FTSimpleListModel model;
     private JList list;
-    private FTListListener myListListener;
-    private ArrayList<ListSelectionListener> listeners;
+    private FTSelectionModel selection;
     
     /**
      * Constructs a new <code>FTSimpleList</code> object using the specified <code>model</code>.
@@ -54,17 +70,16 @@ public class FTSimpleList<E> extends FTList<E> {
         super( buttonPosition );
         this.model = model;
 
-        listeners = new ArrayList<ListSelectionListener>();
-        
         initComponents();
 
-        myListListener = new FTListListener();
-        list.addListSelectionListener( myListListener );
+        list.addListSelectionListener( getSelectionForwarder() );
     }
     
     @Override
     protected JComponent createListComponent() {
-        list = new JList( model );
+        list = new FTCustomList( model );
+        selection = new FTSelectionModel();
+        list.setSelectionModel( selection );
         return list;
     }
     
@@ -78,7 +93,16 @@ public class FTSimpleList<E> extends FTList<E> {
     public int getNumElements() { return model.getSize(); }
 
     @Override
-    public int[] getSelectedIndexes() { return list.getSelectedIndices(); }
+    public int[] getSelectedIndexes() { return selection.getSelectedIndices(); }
+
+    @Override
+    public void forEachSelected(IntConsumer action) { selection.forEachSelected( action ); }
+
+    @Override
+    public void setSelectedIndexes(int[] indexes) { list.setSelectedIndices( indexes ); }
+
+    @Override
+    public int[] moveElements(int[] indexes, int delta) { return model.moveRows(indexes, delta); }
 
     @Override
     public java.util.List<E> getAllElements() {
@@ -92,6 +116,26 @@ public class FTSimpleList<E> extends FTList<E> {
         return ret;
     }
 
+    /**
+     * Returns the snapshot of the model, in O(1) time for the models provided
+     * by the library.
+     * 
+     * @return an immutable copy of the elements of the list
+     * @see FTSimpleListModel#snapshot()
+     */
+    @Override
+    public java.util.List<E> snapshot() { return model.snapshot(); }
+
+    /**
+     * Returns the spliterator of the model, that reads the elements without
+     * copying them.
+     * 
+     * @return a spliterator over the elements of the list
+     * @see FTSimpleListModel#spliterator()
+     */
+    @Override
+    public java.util.Spliterator<E> spliterator() { return model.spliterator(); }
+
     @Override
     public E getElementAt(int index) { return (E) model.getElementAt(index); }
 
@@ -99,12 +143,20 @@ public class FTSimpleList<E> extends FTList<E> {
     public E removeElementAt(int index) { return (E) model.removeElementAt(index); }
 
     @Override
-    public void addElements(Collection<? extends E> c) {
-        for(E element : c) {
-            model.addElement( element );
+    public void removeElementsAt(int[] indexes) {
+        int[] kept = selection.runsAfterRemoval( indexes );
+        selection.deferEvents();
+        try {
+            model.removeElementsAt( indexes );
+            selection.restoreRuns( kept );
+        } finally {
+            selection.fireDeferredEvents();
         }
     }
 
+    @Override
+    public void addElements(Collection<? extends E> c) { model.addAll( c ); }
+
     @Override
     public void add(E element) { model.addElement( element ); }
 
@@ -114,6 +166,17 @@ public class FTSimpleList<E> extends FTList<E> {
     @Override
     public void clearSelection() { list.clearSelection(); }
     
+    /**
+     * Sets the metrics of the list, passing them to the model.
+     * 
+     * @param metrics the metrics to update, or <code>null</code>
+     */
+    @Override
+    public void setMetrics(FTListMetrics metrics) {
+        super.setMetrics( metrics );
+        model.setMetrics( metrics );
+    }
+    
     @Override
     public void refreshList() {
         list.repaint();
@@ -121,19 +184,9 @@ public class FTSimpleList<E> extends FTList<E> {
     
     @Override
     public void setSelectionInterval(int firstIndex, int secondIndex) {
-        list.getSelectionModel().setSelectionInterval(firstIndex, firstIndex);
+        list.getSelectionModel().setSelectionInterval(firstIndex, secondIndex);
     }
     
-    /**
-     * Adds a listener to the list, to be notified each time a change to the selection occurs;
-     * the preferred way of listening for selection state changes.
-     * <code>FTSimpleList</code> takes care of listening for selection state changes
-     * in the selection model, and notifies the given listener of each change.
-     * @param listener the <code>ListSelectionListener</code> to add.
-     */
-    @Override
-    public void addListSelectionListener(ListSelectionListener listener) { listeners.add( listener ); }
-    
     @Override
     public void setSelectionMode(int selectionMode) { list.setSelectionMode( selectionMode ); }
     
@@ -146,9 +199,4 @@ public class FTSimpleList<E> extends FTList<E> {
     public void setRenderer(ListCellRenderer renderer) {
         list.setCellRenderer( renderer );
     }
-    
-    private void notifyMyListListeners(ListSelectionEvent evt) {
-        ListSelectionEvent lse = new ListSelectionEvent(this, evt.getFirstIndex(), evt.getLastIndex(), evt.getValueIsAdjusting());
-        for(ListSelectionListener lsl : listeners) lsl.valueChanged( lse );
-    }
 }
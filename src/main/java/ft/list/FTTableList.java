@@ -1,14 +1,28 @@
 package ft.list;
 
+import ft.list.event.FTRowsRemovedEvent;
 import ft.list.event.FTTableRowColorCustomizer;
+import ft.list.models.FTColumn;
 import ft.list.models.FTTableListModel;
+import ft.list.models.FTTablePagedModel;
 import java.awt.Color;
 import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
 import java.util.ArrayList;
+import java.text.Format;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
 import javax.swing.*;
-import javax.swing.event.ListSelectionEvent;
-import javax.swing.event.ListSelectionListener;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.TableCellRenderer;
 import javax.swing.table.TableModel;
 
@@ -18,61 +32,254 @@ import javax.swing.table.TableModel;
  * it's necessary to pass it an <code>FTTableListModel</code> instance in the
  * constructor.<br>
  * To render the values in the table, it uses the default renderer provided by the
- * <code>JTable</code> class. It's also possible to set up a new Renderer for each
- * column of the table.
+ * <code>JTable</code> class for the class of each column, or a renderer based on the
+ * <code>Format</code> of the columns declared with one (see {@link FTColumn}). It's
+ * also possible to set up a new Renderer for each column of the table.
+ * <p>The methods that access the elements by index (<code>getElementAt</code>,
+ * <code>removeElementAt</code>, <code>removeElementsAt</code> and
+ * <code>moveElements</code>) take model indexes, while the selection methods
+ * (<code>getSelectedIndexes</code>, <code>setSelectedIndexes</code> and
+ * <code>setSelectionInterval</code>) take view indexes, like the ones of
+ * <code>JTable</code>. When the table is sorted or filtered the two are converted
+ * with <code>convertRowIndexToModel</code> and <code>convertRowIndexToView</code>;
+ * <code>removeSelectedElements</code> and <code>moveSelectedElements</code> do it
+ * for the selected rows.
  * 
  * @author Manuel Agostinetto
  * @param <E> the type of elements managed by this list.
  */
 public class FTTableList<E> extends FTList<E> {
     
-    private class FTTableListListener implements ListSelectionListener {
+    private class FTViewportListener implements ChangeListener {
         @Override
-        public void valueChanged(ListSelectionEvent lse) {
-            notifyMyListListeners( lse );
+        public void stateChanged(ChangeEvent ce) {
+            if (table.getModel() instanceof FTTablePagedModel) {
+                Rectangle visible = ((JViewport) ce.getSource()).getViewRect();
+                int first = table.rowAtPoint( visible.getLocation() );
+                int last = table.rowAtPoint( new Point(visible.x, visible.y + visible.height - 1) );
+                if (first >= 0) {
+                    if (last < 0) last = table.getRowCount() - 1;
+                    FTTablePagedModel<?> paged = (FTTablePagedModel<?>) table.getModel();
+                    if (table.getRowSorter() == null) {
+                        paged.prefetch(first, last);
+                    } else {
+                        // sorted rows are scattered across the pages: only their own pages are loaded
+                        int[] rows = new int[ last - first + 1 ];
+                        for(int i=0; i<rows.length; i++) {
+                            rows[i] = table.convertRowIndexToModel( first + i );
+                        }
+                        paged.prefetch( rows );
+                    }
+                }
+            }
+        }
+    }
+    
+    /*
+     * Caches the color returned by the RowColorCustomizer for each model row, so the
+     * customizer runs once per row change instead of once per cell on every paint.
+     * Entries are shifted or dropped precisely according to the events of the model.
+     */
+    private class FTRowColorCache implements TableModelListener {
+        
+        private final Object NO_COLOR = new Object();
+        private Object[] colors = new Object[0];
+        
+        Color getRowColor(int modelRow) {
+            if (modelRow >= colors.length) {
+                colors = Arrays.copyOf(colors, Math.max(modelRow + 1, colors.length + (colors.length >> 1)));
+            }
+            Object color = colors[modelRow];
+            if (color == null) {
+                FTListMetrics metrics = getMetrics();
+                long start = (metrics != null) ? System.nanoTime() : 0L;
+                Color c = rowColorCustomizer.getRowColor( table.model.getRow(modelRow) );
+                if (metrics != null) {
+                    metrics.recordRowColor(System.nanoTime() - start);
+                }
+                colors[modelRow] = (c != null) ? c : NO_COLOR;
+                return c;
+            }
+            return (color != NO_COLOR) ? (Color) color : null;
+        }
+        
+        void invalidate(int firstRow, int lastRow) {
+            int to = Math.min(lastRow, colors.length - 1);
+            if (firstRow <= to) {
+                Arrays.fill(colors, Math.max(firstRow, 0), to + 1, null);
+            }
+        }
+        
+        void invalidateAll() {
+            colors = new Object[0];
+        }
+        
+        @Override
+        public void tableChanged(TableModelEvent tme) {
+            int first = tme.getFirstRow();
+            int last = tme.getLastRow();
+            if ((first == TableModelEvent.HEADER_ROW) || (last == Integer.MAX_VALUE)) {
+                invalidateAll();
+                return;
+            }
+            int count = last - first + 1;
+            switch( tme.getType() ) {
+                case TableModelEvent.INSERT:
+                    if (first < colors.length) {
+                        Object[] shifted = new Object[ colors.length + count ];
+                        System.arraycopy(colors, 0, shifted, 0, first);
+                        System.arraycopy(colors, first, shifted, first + count, colors.length - first);
+                        colors = shifted;
+                    }
+                    break;
+                case TableModelEvent.DELETE:
+                    if (last + 1 < colors.length) {
+                        int tail = colors.length - last - 1;
+                        System.arraycopy(colors, last + 1, colors, first, tail);
+                        Arrays.fill(colors, first + tail, colors.length, null);
+                    } else if (first < colors.length) {
+                        // the cache ends inside the deleted rows: nothing to shift
+                        Arrays.fill(colors, first, colors.length, null);
+                    }
+                    break;
+                default:
+                    invalidate(first, last);
+            }
+        }
+    }
+    
+    /*
+     * Renders the values of a column with the Format declared for the column.
+     */
+    private static class FTFormatRenderer extends DefaultTableCellRenderer {
+        
+        private final Format format;
+        
+        FTFormatRenderer(Format format, Class<?> type) {
+            this.format = format;
+            if (Number.class.isAssignableFrom(type)) {
+                setHorizontalAlignment( SwingConstants.RIGHT );
+            }
+        }
+        
+        @Override
+        protected void setValue(Object value) {
+            setText( (value == null) ? "" : format.format(value) );
         }
     }
     
     private class FTCustomTable extends JTable {
 
         private FTTableListModel<E> model;
+        private TableCellRenderer[] formatRenderers;
 
         public FTCustomTable(FTTableListModel<E> tableModel) {
             super( tableModel );
             model = tableModel;
         }
+        
+        /*
+         * A removal of rows that are not contiguous is announced to the sorter, which
+         * then removes the rows from its order instead of sorting again.
+         */
+        @Override
+        public void tableChanged(TableModelEvent e) {
+            if ((e instanceof FTRowsRemovedEvent) && (getRowSorter() instanceof FTTableRowSorter)) {
+                ((FTTableRowSorter<?>) getRowSorter()).expectRowsRemoved( ((FTRowsRemovedEvent) e).getRemovedRows() );
+            }
+            super.tableChanged( e );
+        }
+        
+        @Override
+        protected ListSelectionModel createDefaultSelectionModel() {
+            return new FTSelectionModel();
+        }
 
         @Override
         public void setModel(TableModel model) {
             if (model instanceof FTTableListModel) {
+                if ((rowColorCache != null) && (this.model != null)) {
+                    this.model.removeTableModelListener( rowColorCache );
+                    model.addTableModelListener( rowColorCache );
+                    rowColorCache.invalidateAll();
+                }
+                boolean sorted = (getRowSorter() instanceof FTTableRowSorter);
                 super.setModel( model );
                 this.model = (FTTableListModel<E>) model;
+                if (sorted) {
+                    setRowSorter( new FTTableRowSorter<FTTableListModel<E>>(this.model) );
+                }
+            }
+        }
+        
+        /*
+         * Columns declared with a Format use a renderer created once per column,
+         * unless a renderer was set explicitly on the column.
+         */
+        @Override
+        public TableCellRenderer getCellRenderer(int row, int column) {
+            if (getColumnModel().getColumn(column).getCellRenderer() == null) {
+                int modelColumn = convertColumnIndexToModel( column );
+                if (formatRenderers == null) {
+                    formatRenderers = new TableCellRenderer[ model.getColumnCount() ];
+                    for(int i=0; i<formatRenderers.length; i++) {
+                        FTColumn declared = model.getColumn( i );
+                        if (declared.getFormat() != null) {
+                            formatRenderers[i] = new FTFormatRenderer(declared.getFormat(), model.getColumnClass(i));
+                        }
+                    }
+                }
+                if (formatRenderers[modelColumn] != null) {
+                    return formatRenderers[modelColumn];
+                }
             }
+            return super.getCellRenderer(row, column);
+        }
+        
+        @Override
+        public void createDefaultColumnsFromModel() {
+            formatRenderers = null;
+            super.createDefaultColumnsFromModel();
         }
         
         @Override
         public Component prepareRenderer(TableCellRenderer renderer, int row, int column) {
+            FTListMetrics metrics = getMetrics();
+            long start = (metrics != null) ? System.nanoTime() : 0L;
             Component rendererComponent = super.prepareRenderer(renderer, row, column);
 
             if (rowColorCustomizer != null) {
                 if ( !isCellSelected(row, column) ) {
-                    E rowObj = model.getRow( convertRowIndexToModel(row) );
-                    Color color = rowColorCustomizer.getRowColor( rowObj );
+                    Color color = rowColorCache.getRowColor( convertRowIndexToModel(row) );
                     if (color != null) {
                         rendererComponent.setBackground( color );
                     }
                 }
             }
 
+            if (metrics != null) {
+                metrics.recordRender(System.nanoTime() - start);
+            }
             return rendererComponent;
         }
+        
+        @Override
+        protected void paintComponent(Graphics g) {
+            FTListMetrics metrics = getMetrics();
+            if (metrics == null) {
+                super.paintComponent( g );
+                return;
+            }
+            long start = System.nanoTime();
+            super.paintComponent( g );
+            metrics.recordPaint(System.nanoTime() - start);
+        }
     }
     
     private FTTableListModel<E> model;
     private FTCustomTable table;
-    private FTTableListListener myListListener;
-    private ArrayList<ListSelectionListener> listeners;
     private FTTableRowColorCustomizer<E> rowColorCustomizer;
+    private FTRowColorCache rowColorCache;
     
     /**
      * Constructs a new <code>FTTableList</code> object using the specified <code>model</code>.
@@ -95,12 +302,16 @@ public class FTTableList<E> extends FTList<E> {
         super( buttonPosition );
         this.model = model;
         
-        listeners = new ArrayList<ListSelectionListener>();
-        
         initComponents();
+        
+        rowColorCache = new FTRowColorCache();
+        table.getModel().addTableModelListener( rowColorCache );
 
-        myListListener = new FTTableListListener();
-        table.getSelectionModel().addListSelectionListener( myListListener );
+        table.getSelectionModel().addListSelectionListener( getSelectionForwarder() );
+        
+        if (table.getParent() instanceof JViewport) {
+            ((JViewport) table.getParent()).addChangeListener( new FTViewportListener() );
+        }
     }
     
     @Override
@@ -119,7 +330,58 @@ public class FTTableList<E> extends FTList<E> {
     public int getNumElements() { return model.getRowCount(); }
     
     @Override
-    public int[] getSelectedIndexes() { return table.getSelectedRows(); }
+    public int[] getSelectedIndexes() { return selection().getSelectedIndices(); }
+    
+    @Override
+    public void forEachSelected(IntConsumer action) { selection().forEachSelected( action ); }
+    
+    private FTSelectionModel selection() { return (FTSelectionModel) table.getSelectionModel(); }
+
+    @Override
+    public void setSelectedIndexes(int[] indexes) {
+        ListSelectionModel selection = table.getSelectionModel();
+        selection.setValueIsAdjusting( true );
+        selection.clearSelection();
+        for(int index : indexes) {
+            selection.addSelectionInterval(index, index);
+        }
+        selection.setValueIsAdjusting( false );
+    }
+
+    /**
+     * Moves the rows at the specified model indexes by <code>delta</code> positions
+     * in the model.
+     * 
+     * @param indexes the model indexes of the rows to move
+     * @param delta the number of positions to move the rows by
+     * @return the model indexes of the moved rows
+     */
+    @Override
+    public int[] moveElements(int[] indexes, int delta) { return model.moveRows(indexes, delta); }
+    
+    /**
+     * Moves the selected rows by <code>delta</code> positions in the model and
+     * selects them at their new positions. When the table is sorted, the rows are
+     * moved in the model order.
+     * 
+     * @param delta the number of positions to move the rows by
+     */
+    @Override
+    public void moveSelectedElements(int delta) {
+        int[] selected = getSelectedIndexes();
+        if (selected.length > 0) {
+            int[] moved = model.moveRows(toModel( selected ), delta);
+            int[] views = new int[ moved.length ];
+            int count = 0;
+            for(int row : moved) {
+                int view = table.convertRowIndexToView( row );
+                if (view >= 0) {
+                    views[count++] = view;
+                }
+            }
+            setSelectedIndexes( Arrays.copyOf(views, count) );
+        }
+    }
     
     @Override
     public java.util.List<E> getAllElements() {
@@ -133,19 +395,124 @@ public class FTTableList<E> extends FTList<E> {
         return ret;
     }
     
+    /**
+     * Returns the snapshot of the model, in O(1) time for the models provided
+     * by the library. The rows are in the order of the model, regardless of the
+     * sorting of the table.
+     * 
+     * @return an immutable copy of the rows of the table
+     * @see FTTableListModel#snapshot()
+     */
+    @Override
+    public java.util.List<E> snapshot() { return model.snapshot(); }
+    
+    /**
+     * Returns the spliterator of the model, that reads the rows without copying
+     * them. The rows are in the order of the model, regardless of the sorting of
+     * the table.
+     * 
+     * @return a spliterator over the rows of the table
+     * @see FTTableListModel#spliterator()
+     */
+    @Override
+    public java.util.Spliterator<E> spliterator() { return model.spliterator(); }
+    
     @Override
     public E getElementAt(int index) { return model.getRow(index); }
     
     @Override
     public E removeElementAt(int index) { return model.removeRow(index); }
     
+    /**
+     * Removes the rows at the specified model indexes, like
+     * <code>removeElementAt</code>. The selected rows that are not removed stay
+     * selected.
+     * 
+     * @param indexes the model indexes of the rows to remove, in any order
+     */
+    @Override
+    public void removeElementsAt(int[] indexes) {
+        int[] views = new int[ indexes.length ];
+        int count = 0;
+        for(int row : indexes) {
+            int view = table.convertRowIndexToView( row );
+            if (view >= 0) {
+                views[count++] = view;
+            }
+        }
+        removeRows(indexes, Arrays.copyOf(views, count));
+    }
+    
+    /**
+     * Removes the selected rows, converting their view indexes to model indexes
+     * when the table is sorted or filtered.
+     */
     @Override
-    public void addElements(Collection<? extends E> c) {
-        for(E element : c) {
-            model.addRow( element );
+    public void removeSelectedElements() {
+        int[] selected = getSelectedIndexes();
+        if (selected.length > 0) {
+            removeRows(toModel( selected ), selected);
+        }
+    }
+    
+    private int[] toModel(int[] views) {
+        int[] ret = new int[ views.length ];
+        for(int i=0; i<views.length; i++) {
+            ret[i] = table.convertRowIndexToModel( views[i] );
         }
+        return ret;
     }
     
+    /**
+     * Removes all the rows of the model that satisfy the specified predicate,
+     * including the rows hidden by the filter of the row sorter.
+     * 
+     * @param filter the predicate that returns <code>true</code> for the rows to
+     * be removed
+     * @return <code>true</code> if any row was removed
+     */
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        int size = model.getRowCount();
+        int[] rows = new int[ size ];
+        int[] views = new int[ size ];
+        int count = 0;
+        int visible = 0;
+        for(int i=0; i<size; i++) {
+            if ( filter.test(model.getRow(i)) ) {
+                rows[count++] = i;
+                int view = table.convertRowIndexToView( i );
+                if (view >= 0) {
+                    views[visible++] = view;
+                }
+            }
+        }
+        if (count > 0) {
+            removeRows(Arrays.copyOf(rows, count), Arrays.copyOf(views, visible));
+        }
+        return (count > 0);
+    }
+    
+    /*
+     * Removes the rows from the model, keeping selected the rows of the view that
+     * are not removed: the model notifies the removal of many runs of rows as a
+     * change of all its rows, which clears the selection of the table.
+     */
+    private void removeRows(int[] rows, int[] views) {
+        FTSelectionModel selection = selection();
+        int[] kept = selection.runsAfterRemoval( views );
+        selection.deferEvents();
+        try {
+            model.removeElementsAt( rows );
+            selection.restoreRuns( kept );
+        } finally {
+            selection.fireDeferredEvents();
+        }
+    }
+    
+    @Override
+    public void addElements(Collection<? extends E> c) { model.addRows( c ); }
+    
     @Override
     public void add(E element) { model.addRow( element ); }
     
@@ -155,26 +522,28 @@ public class FTTableList<E> extends FTList<E> {
     @Override
     public void clearSelection() { table.clearSelection(); }
     
+    /**
+     * Sets the metrics of the list, passing them to the model.
+     * 
+     * @param metrics the metrics to update, or <code>null</code>
+     */
     @Override
-    public void refreshList() {
-        table.repaint();
+    public void setMetrics(FTListMetrics metrics) {
+        super.setMetrics( metrics );
+        model.setMetrics( metrics );
     }
     
-    /**
-     * Adds a listener to the list, to be notified each time a change to the selection occurs; the preferred way of listening for selection state changes.
-     * <code>FTTableList</code> takes care of listening for selection state changes
-     * in the selection model, and notifies the given listener of each change.
-     * @param listener the <code>ListSelectionListener</code> to add.
-     */
     @Override
-    public void addListSelectionListener(ListSelectionListener listener) { listeners.add( listener ); }
+    public void refreshList() {
+        table.repaint();
+    }
     
     @Override
     public void setSelectionMode(int selectionMode) { table.setSelectionMode( selectionMode ); }
     
     @Override
     public void setSelectionInterval(int firstIndex, int secondIndex) {
-        table.getSelectionModel().setSelectionInterval(firstIndex, firstIndex);
+        table.getSelectionModel().setSelectionInterval(firstIndex, secondIndex);
     }
     
     /**
@@ -197,11 +566,39 @@ public class FTTableList<E> extends FTList<E> {
      * Sets a RowColorCustomizer for this table component.<br>
      * A RowColorCustomizer is a delegate that is used to determine the color to use for
      * highlighting the entire row of a table according to the value of that row bean.
+     * The color of each row is cached: the customizer is invoked again for a row only
+     * when the model notifies a change to that row.
      * 
      * @param rowColorCustomizer the customizer instanze to set up
      */
     public void setRowColorCustomizer(FTTableRowColorCustomizer<E> rowColorCustomizer) {
         this.rowColorCustomizer = rowColorCustomizer;
+        rowColorCache.invalidateAll();
+        table.repaint();
+    }
+    
+    /**
+     * Discards the colors computed by the RowColorCustomizer for all the rows.
+     * <p>The color of a row is computed once and cached until the model notifies
+     * a change to that row. Call this method when the colors depend on something
+     * else than the row bean, and changed.
+     */
+    public void invalidateRowColors() {
+        rowColorCache.invalidateAll();
+        table.repaint();
+    }
+    
+    /**
+     * Discards the colors computed by the RowColorCustomizer for the rows between
+     * <code>firstRow</code> and <code>lastRow</code>, both inclusive.
+     * 
+     * @param firstRow the model index of the first row
+     * @param lastRow the model index of the last row
+     * @see #invalidateRowColors()
+     */
+    public void invalidateRowColors(int firstRow, int lastRow) {
+        rowColorCache.invalidate(firstRow, lastRow);
+        table.repaint();
     }
     
     /**
@@ -240,12 +637,45 @@ public class FTTableList<E> extends FTList<E> {
     /**
      * Sets whether to use an auto-created row sorter for the table.
      * Defaults to <code>false</code>
+     * <p>The row sorter is a {@link FTTableRowSorter}, which extracts the sort keys
+     * of each row once and keeps the order in sync with the model incrementally.
      * 
      * @param autoCreateRowSorter if <code>true</code> it sets to auto-create
      * a row sorter for the table
      */
     public void setAutoCreateRowSorter(boolean autoCreateRowSorter) {
-        table.setAutoCreateRowSorter( autoCreateRowSorter );
+        table.setRowSorter( autoCreateRowSorter ? new FTTableRowSorter<FTTableListModel<E>>(table.model) : null );
+    }
+    
+    /**
+     * Returns the row sorter of the table, if it was created by
+     * {@link #setAutoCreateRowSorter(boolean)}.
+     * 
+     * @return the row sorter of the table, or <code>null</code> if the table is not sorted
+     */
+    @SuppressWarnings("unchecked")
+    public FTTableRowSorter<FTTableListModel<E>> getRowSorter() {
+        RowSorter<?> sorter = table.getRowSorter();
+        return (sorter instanceof FTTableRowSorter) ? (FTTableRowSorter<FTTableListModel<E>>) sorter : null;
+    }
+    
+    /**
+     * Shows only the rows accepted by <code>filter</code>. If the table has no
+     * row sorter, a {@link FTTableRowSorter} is installed first.
+     * <p>On large tables the filter is evaluated by several threads at the same
+     * time, so it must be thread-safe.
+     * 
+     * @param filter the rows to show, or <code>null</code> to show all the rows
+     * @see FTTableRowSorter#setRowFilter(IntPredicate)
+     */
+    public void setRowFilter(final Predicate<? super E> filter) {
+        if (getRowSorter() == null) {
+            setAutoCreateRowSorter( true );
+        }
+        getRowSorter().setRowFilter( (filter == null) ? null : new IntPredicate() {
+            @Override
+            public boolean test(int row) { return filter.test( table.model.getRow(row) ); }
+        });
     }
     
     /**
@@ -272,9 +702,4 @@ public class FTTableList<E> extends FTList<E> {
     public int convertRowIndexToView(int modelRowIndex) {
         return table.convertRowIndexToView( modelRowIndex );
     }
-    
-    private void notifyMyListListeners(ListSelectionEvent evt) {
-        ListSelectionEvent lse = new ListSelectionEvent(this, evt.getFirstIndex(), evt.getLastIndex(), evt.getValueIsAdjusting());
-        for(ListSelectionListener lsl : listeners) lsl.valueChanged( lse );
-    }
 }
@@ -0,0 +1,1182 @@
+package ft.list;
+
+import ft.list.models.FTTableColumnarModel;
+import ft.list.models.FTTableListModel;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntPredicate;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.SwingUtilities;
+
+/**
+ * A <code>RowSorter</code> for the tables of a <code>FTTableList</code>.
+ * <p>Unlike the <code>TableRowSorter</code> used by <code>JTable</code>, this sorter
+ * doesn't call <code>getValueAt</code> and a <code>Comparator</code> on each
+ * comparison. The sort key of each row is extracted once into an array for every
+ * sorted column: a <code>long</code> for integer columns, a <code>double</code> for
+ * the other numeric columns and a <code>CollationKey</code> for text columns. The
+ * sort then compares only those keys.
+ * <p>Keys are kept in sync with the model incrementally: inserted and updated rows
+ * are extracted and placed by binary search into the current order, so a single
+ * insert costs O(log n) comparisons instead of a whole resort; deleted rows are
+ * removed with a single pass over the mapping.
+ * <p>Rows with equal keys keep the order of the model. <code>null</code> values come
+ * before any other value in ascending order.
+ * <p>When the model has at least {@link #getParallelThreshold()} rows, a change of
+ * the sort keys or of the row filter is computed on the common
+ * <code>ForkJoinPool</code>: keys are extracted and the filter is evaluated in
+ * parallel, then the rows are sorted with a parallel merge sort in background and
+ * the new order replaces the current one on the Event Dispatch Thread. Since models
+ * are not thread-safe, the Event Dispatch Thread waits for the extraction, which
+ * reads the model, but not for the sort. If the model changes before the new order
+ * is ready, the changes are applied to the new order before it's shown.
+ *
+ * @author Manuel Agostinetto
+ * @param <M> the type of the model
+ * @see FTTableList#setAutoCreateRowSorter(boolean)
+ */
+public class FTTableRowSorter<M extends FTTableListModel<?>> extends RowSorter<M> {
+
+    private static final int MAX_SORT_KEYS = 3;
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+    private static final int PARALLEL_GRAIN = 8192;
+
+    private final M model;
+    private final Collator collator;
+    private List<SortKey> sortKeys;
+    private IntPredicate filter;
+    private FTOrder order;
+    private int[] viewToModel;
+    private int[] modelToView;
+    private int modelRowCount;
+    private int columnCount;
+    private int parallelThreshold;
+    private FTSortJob job;
+    private int[] expectedRemoval;
+
+    /**
+     * Creates a sorter for the specified model, comparing text with the
+     * <code>Collator</code> of the default locale.
+     *
+     * @param model the model to be sorted
+     */
+    public FTTableRowSorter(M model) {
+        this(model, Collator.getInstance());
+    }
+
+    /**
+     * Creates a sorter for the specified model, comparing text with the
+     * specified <code>Collator</code>.
+     *
+     * @param model the model to be sorted
+     * @param collator the collator used to compare text
+     */
+    public FTTableRowSorter(M model, Collator collator) {
+        this.model = model;
+        this.collator = collator;
+        sortKeys = Collections.emptyList();
+        order = new FTOrder(new FTSortColumn[0], new boolean[0]);
+        modelRowCount = model.getRowCount();
+        columnCount = model.getColumnCount();
+        parallelThreshold = 100000;
+    }
+
+    @Override
+    public M getModel() { return model; }
+
+    /**
+     * Returns the number of rows from which sorting and filtering run in parallel.
+     *
+     * @return the minimum number of rows of the model for a parallel sort
+     */
+    public int getParallelThreshold() { return parallelThreshold; }
+
+    /**
+     * Sets the number of rows from which sorting and filtering run in parallel.
+     * The default is 100000.
+     *
+     * @param parallelThreshold the minimum number of rows of the model for a
+     * parallel sort
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold <= 0) {
+            throw new IllegalArgumentException("parallelThreshold must be greater then 0. Passed " + parallelThreshold);
+        }
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Returns the filter of the rows.
+     *
+     * @return the filter of the rows, or <code>null</code> if all the rows are shown
+     */
+    public IntPredicate getRowFilter() { return filter; }
+
+    /**
+     * Sets the filter of the rows. The filter is given the index of a row in the
+     * model and returns <code>true</code> if the row must be shown. It's evaluated
+     * again for a row each time the row is updated.
+     * <p>For models larger than the parallel threshold the filter is evaluated by
+     * several threads at the same time, so it must be thread-safe.
+     *
+     * @param filter the filter of the rows, or <code>null</code> to show all the rows
+     * @see FTTableList#setRowFilter(java.util.function.Predicate)
+     */
+    public void setRowFilter(IntPredicate filter) {
+        this.filter = filter;
+        rebuild(false, true);
+    }
+
+    /**
+     * Makes <code>column</code> the primary sort key, in ascending order, or
+     * reverses its order if it's already the primary sort key. At most three
+     * columns are used as sort keys.
+     *
+     * @param column the index of the column, in terms of the model
+     */
+    @Override
+    public void toggleSortOrder(int column) {
+        checkColumn( column );
+        List<SortKey> keys = new ArrayList<SortKey>( sortKeys );
+        int current = -1;
+        for(int i=0; i<keys.size(); i++) {
+            if (keys.get(i).getColumn() == column) {
+                current = i;
+                break;
+            }
+        }
+        if (current == 0) {
+            SortOrder newOrder = (keys.get(0).getSortOrder() == SortOrder.ASCENDING) ? SortOrder.DESCENDING : SortOrder.ASCENDING;
+            keys.set(0, new SortKey(column, newOrder));
+        } else {
+            if (current > 0) {
+                keys.remove( current );
+            }
+            keys.add(0, new SortKey(column, SortOrder.ASCENDING));
+            if (keys.size() > MAX_SORT_KEYS) {
+                keys = keys.subList(0, MAX_SORT_KEYS);
+            }
+        }
+        setSortKeys( keys );
+    }
+
+    @Override
+    public int convertRowIndexToModel(int index) {
+        if (viewToModel == null) {
+            if ((index < 0) || (index >= modelRowCount)) {
+                throw new IndexOutOfBoundsException("Invalid index " + index);
+            }
+            return index;
+        }
+        if ((index < 0) || (index >= viewToModel.length)) {
+            throw new IndexOutOfBoundsException("Invalid index " + index);
+        }
+        return viewToModel[index];
+    }
+
+    @Override
+    public int convertRowIndexToView(int index) {
+        if ((index < 0) || (index >= modelRowCount)) {
+            throw new IndexOutOfBoundsException("Invalid index " + index);
+        }
+        if (viewToModel == null) {
+            return index;
+        }
+        if (modelToView == null) {
+            modelToView = new int[ modelRowCount ];
+            Arrays.fill(modelToView, -1);
+            for(int i=0; i<viewToModel.length; i++) {
+                modelToView[viewToModel[i]] = i;
+            }
+        }
+        return modelToView[index];
+    }
+
+    /**
+     * Sets the sort keys. Keys with order <code>UNSORTED</code> are kept but don't
+     * affect the order of the rows.
+     *
+     * @param keys the new sort keys, or <code>null</code> to leave the rows unsorted
+     * @throws IllegalArgumentException if a key refers to a column out of range
+     */
+    @Override
+    public void setSortKeys(List<? extends SortKey> keys) {
+        List<SortKey> newKeys;
+        if ((keys == null) || keys.isEmpty()) {
+            newKeys = Collections.emptyList();
+        } else {
+            for(SortKey key : keys) {
+                if ((key == null) || (key.getColumn() < 0) || (key.getColumn() >= columnCount)) {
+                    throw new IllegalArgumentException("Invalid SortKey " + key);
+                }
+            }
+            newKeys = Collections.unmodifiableList( new ArrayList<SortKey>(keys) );
+        }
+        if ( !newKeys.equals(sortKeys) ) {
+            sortKeys = newKeys;
+            fireSortOrderChanged();
+            rebuild(false, true);
+        }
+    }
+
+    @Override
+    public List<? extends SortKey> getSortKeys() { return sortKeys; }
+
+    @Override
+    public int getViewRowCount() {
+        return (viewToModel == null) ? modelRowCount : viewToModel.length;
+    }
+
+    @Override
+    public int getModelRowCount() { return model.getRowCount(); }
+
+    @Override
+    public void modelStructureChanged() {
+        if (model.getColumnCount() != columnCount) {
+            columnCount = model.getColumnCount();
+            if ( !sortKeys.isEmpty() ) {
+                sortKeys = Collections.emptyList();
+                fireSortOrderChanged();
+            }
+        }
+        allRowsChanged();
+    }
+
+    @Override
+    public void allRowsChanged() {
+        int[] removed = expectedRemoval;
+        expectedRemoval = null;
+        if ((removed != null) && (modelRowCount - removed.length == model.getRowCount())) {
+            rowsDeleted( removed );
+            return;
+        }
+        modelRowCount = model.getRowCount();
+        rebuild(true, false);
+    }
+
+    @Override
+    public void rowsInserted(int firstRow, int endRow) {
+        checkRange(firstRow, endRow);
+        int count = endRow - firstRow + 1;
+        if ((firstRow > modelRowCount) || (modelRowCount + count != model.getRowCount())) {
+            allRowsChanged();
+            return;
+        }
+        modelRowCount += count;
+        record( new FTChange(FTChange.INSERT, firstRow, endRow, null) );
+        if (viewToModel == null) {
+            return;
+        }
+        for(FTSortColumn column : order.columns) {
+            column.insert(firstRow, count);
+            extract(column, firstRow, endRow, collator);
+        }
+        int[] old = viewToModel;
+        int[] shifted = new int[ old.length ];
+        for(int i=0; i<old.length; i++) {
+            shifted[i] = (old[i] >= firstRow) ? old[i] + count : old[i];
+        }
+        viewToModel = order.insertSorted(shifted, acceptedRange(firstRow, endRow));
+        modelToView = null;
+        fireRowSorterChanged( old );
+    }
+
+    @Override
+    public void rowsDeleted(int firstRow, int endRow) {
+        checkRange(firstRow, endRow);
+        int count = endRow - firstRow + 1;
+        if ((endRow >= modelRowCount) || (modelRowCount - count != model.getRowCount())) {
+            allRowsChanged();
+            return;
+        }
+        modelRowCount -= count;
+        record( new FTChange(FTChange.DELETE, firstRow, endRow, null) );
+        if (viewToModel == null) {
+            return;
+        }
+        for(FTSortColumn column : order.columns) {
+            column.delete(firstRow, endRow);
+        }
+        int[] old = viewToModel;
+        int[] kept = new int[ old.length ];
+        int size = 0;
+        for(int row : old) {
+            if (row < firstRow) {
+                kept[size++] = row;
+            } else if (row > endRow) {
+                kept[size++] = row - count;
+            }
+        }
+        viewToModel = (size < kept.length) ? Arrays.copyOf(kept, size) : kept;
+        modelToView = null;
+        fireRowSorterChanged( old );
+    }
+
+    /**
+     * Announces that the next <code>allRowsChanged</code> notifies the removal of
+     * the specified rows, as done by the <code>FTTableList</code> for a
+     * {@link ft.list.event.FTRowsRemovedEvent}: the rows are then removed from
+     * the current order in a single pass instead of sorting all the rows again.
+     * 
+     * @param rows the indexes of the removed rows before the removal, sorted and
+     * without duplicates
+     */
+    void expectRowsRemoved(int[] rows) { expectedRemoval = rows; }
+
+    /*
+     * Removes rows that are not contiguous, compacting the keys of each sorted
+     * column and the mapping with one pass each.
+     */
+    private void rowsDeleted(int[] rows) {
+        int oldCount = modelRowCount;
+        modelRowCount -= rows.length;
+        record( new FTChange(FTChange.REMOVE, 0, 0, rows) );
+        if (viewToModel == null) {
+            return;
+        }
+        for(FTSortColumn column : order.columns) {
+            column.delete( rows );
+        }
+        int[] newIndexes = new int[ oldCount ];
+        int next = 0;
+        for(int row=0; row<oldCount; row++) {
+            if ((next < rows.length) && (rows[next] == row)) {
+                newIndexes[row] = -1;
+                next++;
+            } else {
+                newIndexes[row] = row - next;
+            }
+        }
+        int[] old = viewToModel;
+        int[] kept = new int[ old.length ];
+        int size = 0;
+        for(int row : old) {
+            if (newIndexes[row] >= 0) {
+                kept[size++] = newIndexes[row];
+            }
+        }
+        viewToModel = (size < kept.length) ? Arrays.copyOf(kept, size) : kept;
+        modelToView = null;
+        fireRowSorterChanged( old );
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow) {
+        checkRange(firstRow, endRow);
+        if ((endRow >= modelRowCount) || (modelRowCount != model.getRowCount())) {
+            allRowsChanged();
+            return;
+        }
+        record( new FTChange(FTChange.UPDATE, firstRow, endRow, null) );
+        if (viewToModel == null) {
+            return;
+        }
+        for(FTSortColumn column : order.columns) {
+            extract(column, firstRow, endRow, collator);
+        }
+        int[] old = viewToModel;
+        int[] kept = new int[ old.length ];
+        int size = 0;
+        for(int row : old) {
+            if ((row < firstRow) || (row > endRow)) {
+                kept[size++] = row;
+            }
+        }
+        viewToModel = order.insertSorted(Arrays.copyOf(kept, size), acceptedRange(firstRow, endRow));
+        modelToView = null;
+        fireRowSorterChanged( old );
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column) {
+        checkColumn( column );
+        if (filter != null) {
+            rowsUpdated(firstRow, endRow);
+            return;
+        }
+        for(FTSortColumn sortColumn : order.columns) {
+            if (sortColumn.column == column) {
+                rowsUpdated(firstRow, endRow);
+                return;
+            }
+        }
+        checkRange(firstRow, endRow);
+        record( new FTChange(FTChange.UPDATE, firstRow, endRow, null) );
+    }
+
+    /*
+     * Records a change of the model for the running job, if any, whose order
+     * doesn't include it yet.
+     */
+    private void record(FTChange change) {
+        if (job != null) {
+            job.changes.add( change );
+        }
+    }
+
+    /*
+     * Brings the rows sorted by a job up to date with the changes of the model
+     * notified while it was sorting. The keys of the job are shifted as the model
+     * was; the inserted and updated rows are then extracted from the current model
+     * and placed by binary search, so the rows are not sorted again.
+     */
+    private int[] replay(FTOrder newOrder, int[] sorted, List<FTChange> changes) {
+        int[] rows = sorted;
+        int rowCount = rows.length;
+        int[] dirty = new int[ 16 ];
+        int dirtyCount = 0;
+        for(FTChange change : changes) {
+            for(FTSortColumn column : newOrder.columns) {
+                if (change.type == FTChange.INSERT) {
+                    column.insert(change.firstRow, change.endRow - change.firstRow + 1);
+                } else if (change.type == FTChange.DELETE) {
+                    column.delete(change.firstRow, change.endRow);
+                } else if (change.type == FTChange.REMOVE) {
+                    column.delete( change.rows );
+                }
+            }
+            rowCount = change.map(rows, rowCount);
+            dirtyCount = change.map(dirty, dirtyCount);
+            if ((change.type == FTChange.INSERT) || (change.type == FTChange.UPDATE)) {
+                int count = change.endRow - change.firstRow + 1;
+                if (dirtyCount + count > dirty.length) {
+                    dirty = Arrays.copyOf(dirty, Math.max(dirtyCount + count, dirty.length * 2));
+                }
+                for(int row=change.firstRow; row<=change.endRow; row++) {
+                    dirty[dirtyCount++] = row;
+                }
+            }
+        }
+        boolean[] isDirty = new boolean[ modelRowCount ];
+        int[] added = new int[ dirtyCount ];
+        int addedCount = 0;
+        for(int i=0; i<dirtyCount; i++) {
+            int row = dirty[i];
+            if ( !isDirty[row] ) {
+                isDirty[row] = true;
+                for(FTSortColumn column : newOrder.columns) {
+                    extract(column, row, row, collator);
+                }
+                if ((filter == null) || filter.test(row)) {
+                    added[addedCount++] = row;
+                }
+            }
+        }
+        int keptCount = 0;
+        for(int i=0; i<rowCount; i++) {
+            if ( !isDirty[rows[i]] ) {
+                rows[keptCount++] = rows[i];
+            }
+        }
+        added = Arrays.copyOf(added, addedCount);
+        Arrays.sort( added );
+        newOrder.sort(added, false);
+        return newOrder.insertSorted(Arrays.copyOf(rows, keptCount), added);
+    }
+
+    /*
+     * Computes the order of the rows from scratch. Keys are extracted again only
+     * for the columns that were not sorted before, unless reload is true. Large
+     * models are sorted in background when async is true.
+     */
+    private void rebuild(boolean reload, boolean async) {
+        job = null;
+        boolean sorted = false;
+        for(SortKey key : sortKeys) {
+            sorted |= (key.getSortOrder() != SortOrder.UNSORTED);
+        }
+        if (!sorted && (filter == null)) {
+            int[] old = viewToModelAsInts();
+            order = new FTOrder(new FTSortColumn[0], new boolean[0]);
+            viewToModel = null;
+            modelToView = null;
+            fireRowSorterChanged( old );
+            return;
+        }
+        boolean parallel = (modelRowCount >= parallelThreshold);
+        ArrayList<FTSortColumn> newColumns = new ArrayList<FTSortColumn>();
+        ArrayList<FTSortColumn> toExtract = new ArrayList<FTSortColumn>();
+        boolean[] newDescending = new boolean[ sortKeys.size() ];
+        for(SortKey key : sortKeys) {
+            if (key.getSortOrder() == SortOrder.UNSORTED) {
+                continue;
+            }
+            FTSortColumn column = null;
+            if (!reload) {
+                for(FTSortColumn existing : order.columns) {
+                    if (existing.column == key.getColumn()) {
+                        column = parallel ? existing.copy() : existing;
+                    }
+                }
+            }
+            if (column == null) {
+                column = createColumn( key.getColumn() );
+                column.insert(0, modelRowCount);
+                toExtract.add( column );
+            }
+            newDescending[newColumns.size()] = (key.getSortOrder() == SortOrder.DESCENDING);
+            newColumns.add( column );
+        }
+        FTOrder newOrder = new FTOrder(newColumns.toArray( new FTSortColumn[newColumns.size()] ), Arrays.copyOf(newDescending, newColumns.size()));
+        boolean[] accepted = (filter != null) ? new boolean[ modelRowCount ] : null;
+        FTExtractTask extraction = new FTExtractTask(toExtract, accepted, 0, modelRowCount, parallel);
+        if (parallel) {
+            for(FTSortColumn column : toExtract) {
+                column.allocateNulls();
+            }
+            ForkJoinPool.commonPool().invoke( extraction );
+        } else {
+            extraction.compute();
+        }
+        if (parallel && async) {
+            job = new FTSortJob(newOrder, accepted, modelRowCount);
+            ForkJoinPool.commonPool().execute( job );
+        } else {
+            int[] rows = acceptedRows(accepted, modelRowCount);
+            newOrder.sort(rows, parallel);
+            install(newOrder, rows);
+        }
+    }
+
+    private void install(FTOrder newOrder, int[] rows) {
+        int[] old = viewToModelAsInts();
+        order = newOrder;
+        viewToModel = rows;
+        modelToView = null;
+        fireRowSorterChanged( old );
+    }
+
+    private FTSortColumn createColumn(int column) {
+        Class<?> type;
+        try {
+            type = model.getColumnClass( column );
+        } catch (RuntimeException e) {
+            type = Object.class;
+        }
+        if ((type == Integer.class) || (type == Long.class) || (type == Short.class) || (type == Byte.class)) {
+            return new FTLongColumn( column );
+        } else if ((type == Double.class) || (type == Float.class)) {
+            return new FTDoubleColumn( column );
+        }
+        return new FTObjectColumn( column );
+    }
+
+    /*
+     * Extracts the keys of the rows between firstRow and lastRow, both inclusive.
+     */
+    private void extract(FTSortColumn column, int firstRow, int lastRow, Collator collator) {
+        if (model instanceof FTTableColumnarModel) {
+            FTTableColumnarModel<?> columnar = (FTTableColumnarModel<?>) model;
+            if (column instanceof FTLongColumn) {
+                for(int row=firstRow; row<=lastRow; row++) {
+                    if ( columnar.isNull(row, column.column) ) {
+                        column.setNull( row );
+                    } else {
+                        ((FTLongColumn) column).keys[row] = columnar.getLong(row, column.column);
+                        column.clearNull( row );
+                    }
+                }
+                return;
+            } else if (column instanceof FTDoubleColumn) {
+                for(int row=firstRow; row<=lastRow; row++) {
+                    if ( columnar.isNull(row, column.column) ) {
+                        column.setNull( row );
+                    } else {
+                        ((FTDoubleColumn) column).keys[row] = columnar.getDouble(row, column.column);
+                        column.clearNull( row );
+                    }
+                }
+                return;
+            }
+        }
+        for(int row=firstRow; row<=lastRow; row++) {
+            Object value = model.getValueAt(row, column.column);
+            if (value == null) {
+                column.setNull( row );
+            } else {
+                column.set(row, value, collator);
+            }
+        }
+    }
+
+    /*
+     * Returns the rows between firstRow and lastRow accepted by the filter, sorted.
+     */
+    private int[] acceptedRange(int firstRow, int lastRow) {
+        int[] ret = new int[ lastRow - firstRow + 1 ];
+        int size = 0;
+        for(int row=firstRow; row<=lastRow; row++) {
+            if ((filter == null) || filter.test(row)) {
+                ret[size++] = row;
+            }
+        }
+        ret = Arrays.copyOf(ret, size);
+        order.sort(ret, false);
+        return ret;
+    }
+
+    private static int[] acceptedRows(boolean[] accepted, int rowCount) {
+        if (accepted == null) {
+            return identity( rowCount );
+        }
+        int[] ret = new int[ accepted.length ];
+        int size = 0;
+        for(int row=0; row<accepted.length; row++) {
+            if (accepted[row]) {
+                ret[size++] = row;
+            }
+        }
+        return Arrays.copyOf(ret, size);
+    }
+
+    private int[] viewToModelAsInts() {
+        return (viewToModel != null) ? viewToModel : identity( modelRowCount );
+    }
+
+    private static int[] identity(int size) {
+        int[] ret = new int[ size ];
+        for(int i=0; i<size; i++) {
+            ret[i] = i;
+        }
+        return ret;
+    }
+
+    private void checkColumn(int column) {
+        if ((column < 0) || (column >= columnCount)) {
+            throw new IndexOutOfBoundsException("Column " + column + " out of range");
+        }
+    }
+
+    private static void checkRange(int firstRow, int endRow) {
+        if ((firstRow < 0) || (firstRow > endRow)) {
+            throw new IndexOutOfBoundsException("Invalid range " + firstRow + ", " + endRow);
+        }
+    }
+
+    /*
+     * Extracts the keys of a range of rows and evaluates the filter on them,
+     * splitting the range among the threads of the pool when forked.
+     */
+    private class FTExtractTask extends RecursiveAction {
+
+        private final List<FTSortColumn> columns;
+        private final boolean[] accepted;
+        private final int from;
+        private final int to;
+        private final boolean parallel;
+
+        FTExtractTask(List<FTSortColumn> columns, boolean[] accepted, int from, int to, boolean parallel) {
+            this.columns = columns;
+            this.accepted = accepted;
+            this.from = from;
+            this.to = to;
+            this.parallel = parallel;
+        }
+
+        @Override
+        protected void compute() {
+            if (parallel && (to - from > PARALLEL_GRAIN)) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new FTExtractTask(columns, accepted, from, mid, true), new FTExtractTask(columns, accepted, mid, to, true));
+                return;
+            }
+            if (to <= from) {
+                return;
+            }
+            Collator taskCollator = parallel ? (Collator) collator.clone() : collator;
+            for(FTSortColumn column : columns) {
+                extract(column, from, to - 1, taskCollator);
+            }
+            if (accepted != null) {
+                for(int row=from; row<to; row++) {
+                    accepted[row] = filter.test( row );
+                }
+            }
+        }
+    }
+
+    /*
+     * Sorts the accepted rows in background and installs the new order on the
+     * Event Dispatch Thread, unless it was superseded. The changes of the model
+     * notified in the meantime are replayed on the new order before installing it,
+     * so the Event Dispatch Thread never sorts all the rows again; only if the sort
+     * failed the rows are sorted again on the Event Dispatch Thread.
+     */
+    private class FTSortJob implements Runnable {
+
+        private final FTOrder newOrder;
+        private final boolean[] accepted;
+        private final int rowCount;
+        private final List<FTChange> changes = new ArrayList<FTChange>();
+
+        FTSortJob(FTOrder newOrder, boolean[] accepted, int rowCount) {
+            this.newOrder = newOrder;
+            this.accepted = accepted;
+            this.rowCount = rowCount;
+        }
+
+        @Override
+        public void run() {
+            int[] rows = null;
+            try {
+                rows = acceptedRows(accepted, rowCount);
+                newOrder.sort(rows, true);
+            } catch (RuntimeException e) {
+                rows = null;
+            }
+            final int[] sorted = rows;
+            SwingUtilities.invokeLater( new Runnable() {
+                @Override
+                public void run() {
+                    if (job != FTSortJob.this) {
+                        return;
+                    }
+                    job = null;
+                    if (sorted == null) {
+                        rebuild(false, false);
+                    } else if ( changes.isEmpty() ) {
+                        install(newOrder, sorted);
+                    } else {
+                        install(newOrder, replay(newOrder, sorted, changes));
+                    }
+                }
+            });
+        }
+    }
+
+    /*
+     * A change of the model notified while a job is sorting.
+     */
+    private static class FTChange {
+
+        static final int INSERT = 0;
+        static final int DELETE = 1;
+        static final int UPDATE = 2;
+        static final int REMOVE = 3;
+
+        final int type;
+        final int firstRow;
+        final int endRow;
+        final int[] rows;
+
+        FTChange(int type, int firstRow, int endRow, int[] rows) {
+            this.type = type;
+            this.firstRow = firstRow;
+            this.endRow = endRow;
+            this.rows = rows;
+        }
+
+        /*
+         * Returns the index after the change of a row, or -1 if the row was removed.
+         */
+        int map(int row) {
+            switch( type ) {
+                case INSERT:
+                    return (row >= firstRow) ? row + endRow - firstRow + 1 : row;
+                case DELETE:
+                    if (row < firstRow) {
+                        return row;
+                    }
+                    return (row > endRow) ? row - (endRow - firstRow + 1) : -1;
+                case REMOVE:
+                    int index = Arrays.binarySearch(rows, row);
+                    return (index >= 0) ? -1 : row + index + 1;
+                default:
+                    return row;
+            }
+        }
+
+        /*
+         * Maps the first count rows in place, dropping the removed ones, and
+         * returns the number of rows left.
+         */
+        int map(int[] indexes, int count) {
+            if (type == UPDATE) {
+                return count;
+            }
+            int ret = 0;
+            for(int i=0; i<count; i++) {
+                int row = map( indexes[i] );
+                if (row >= 0) {
+                    indexes[ret++] = row;
+                }
+            }
+            return ret;
+        }
+    }
+
+    /*
+     * The order defined by the keys of the sorted columns.
+     */
+    private static class FTOrder {
+
+        final FTSortColumn[] columns;
+        final boolean[] descending;
+
+        FTOrder(FTSortColumn[] columns, boolean[] descending) {
+            this.columns = columns;
+            this.descending = descending;
+        }
+
+        int compare(int row1, int row2) {
+            for(int i=0; i<columns.length; i++) {
+                int ret = columns[i].compare(row1, row2);
+                if (ret != 0) {
+                    return descending[i] ? -ret : ret;
+                }
+            }
+            return (row1 < row2) ? -1 : ((row1 == row2) ? 0 : 1);
+        }
+
+        /*
+         * Sorts rows, which must be in ascending model order, on the common pool
+         * when parallel is true.
+         */
+        void sort(int[] rows, boolean parallel) {
+            if (columns.length == 0) {
+                return;
+            }
+            int[] aux = new int[ rows.length ];
+            if (parallel && (rows.length > PARALLEL_GRAIN)) {
+                ForkJoinPool.commonPool().invoke( new FTMergeSortTask(this, rows, aux, 0, rows.length) );
+            } else {
+                mergeSort(rows, aux, 0, rows.length);
+            }
+        }
+
+        /*
+         * Sorts rows[from, to) using aux as temporary storage.
+         */
+        void mergeSort(int[] rows, int[] aux, int from, int to) {
+            if (to - from <= INSERTION_SORT_THRESHOLD) {
+                for(int i=from+1; i<to; i++) {
+                    int row = rows[i];
+                    int j = i - 1;
+                    while (j >= from && compare(rows[j], row) > 0) {
+                        rows[j+1] = rows[j];
+                        j--;
+                    }
+                    rows[j+1] = row;
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            mergeSort(rows, aux, from, mid);
+            mergeSort(rows, aux, mid, to);
+            merge(rows, aux, from, mid, to);
+        }
+
+        /*
+         * Merges the sorted runs rows[from, mid) and rows[mid, to).
+         */
+        void merge(int[] rows, int[] aux, int from, int mid, int to) {
+            if (compare(rows[mid-1], rows[mid]) <= 0) {
+                return;
+            }
+            System.arraycopy(rows, from, aux, from, to - from);
+            int i = from;
+            int j = mid;
+            for(int k=from; k<to; k++) {
+                if (i >= mid) {
+                    rows[k] = aux[j++];
+                } else if (j >= to || compare(aux[i], aux[j]) <= 0) {
+                    rows[k] = aux[i++];
+                } else {
+                    rows[k] = aux[j++];
+                }
+            }
+        }
+
+        /*
+         * Inserts the sorted rows of added into the sorted rows of base, placing each
+         * one by binary search and copying the rows in between with a single arraycopy.
+         */
+        int[] insertSorted(int[] base, int[] added) {
+            int[] ret = new int[ base.length + added.length ];
+            int src = 0;
+            int dst = 0;
+            for(int row : added) {
+                int low = src;
+                int high = base.length;
+                while (low < high) {
+                    int mid = (low + high) >>> 1;
+                    if (compare(base[mid], row) < 0) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+                System.arraycopy(base, src, ret, dst, low - src);
+                dst += low - src;
+                ret[dst++] = row;
+                src = low;
+            }
+            System.arraycopy(base, src, ret, dst, base.length - src);
+            return ret;
+        }
+    }
+
+    private static class FTMergeSortTask extends RecursiveAction {
+
+        private final FTOrder order;
+        private final int[] rows;
+        private final int[] aux;
+        private final int from;
+        private final int to;
+
+        FTMergeSortTask(FTOrder order, int[] rows, int[] aux, int from, int to) {
+            this.order = order;
+            this.rows = rows;
+            this.aux = aux;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_GRAIN) {
+                order.mergeSort(rows, aux, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new FTMergeSortTask(order, rows, aux, from, mid), new FTMergeSortTask(order, rows, aux, mid, to));
+            order.merge(rows, aux, from, mid, to);
+        }
+    }
+
+    /*
+     * The sort keys of a column, indexed by model row.
+     */
+    private static abstract class FTSortColumn {
+
+        final int column;
+        boolean[] nulls;
+        int size;
+
+        FTSortColumn(int column) { this.column = column; }
+
+        abstract int capacity();
+
+        abstract void resize(int capacity);
+
+        abstract void move(int from, int to, int length);
+
+        abstract void set(int row, Object value, Collator collator);
+
+        abstract int compareKeys(int row1, int row2);
+
+        abstract FTSortColumn newInstance();
+
+        abstract void copyKeys(FTSortColumn target);
+
+        FTSortColumn copy() {
+            FTSortColumn ret = newInstance();
+            copyKeys( ret );
+            ret.nulls = (nulls != null) ? nulls.clone() : null;
+            ret.size = size;
+            return ret;
+        }
+
+        /*
+         * Allocates the mask of null keys up front, so that threads extracting
+         * different rows never race to create it.
+         */
+        void allocateNulls() {
+            if (nulls == null) {
+                nulls = new boolean[ capacity() ];
+            }
+        }
+
+        void setNull(int row) {
+            allocateNulls();
+            nulls[row] = true;
+        }
+
+        void clearNull(int row) {
+            if (nulls != null) {
+                nulls[row] = false;
+            }
+        }
+
+        int compare(int row1, int row2) {
+            if (nulls != null) {
+                if (nulls[row1]) {
+                    return nulls[row2] ? 0 : -1;
+                } else if (nulls[row2]) {
+                    return 1;
+                }
+            }
+            return compareKeys(row1, row2);
+        }
+
+        void insert(int first, int count) {
+            if (size + count > capacity()) {
+                resize( Math.max(size + count, capacity() + (capacity() >> 1)) );
+                if (nulls != null) {
+                    nulls = Arrays.copyOf(nulls, capacity());
+                }
+            }
+            move(first, first + count, size - first);
+            if (nulls != null) {
+                System.arraycopy(nulls, first, nulls, first + count, size - first);
+                Arrays.fill(nulls, first, first + count, false);
+            }
+            size += count;
+        }
+
+        void delete(int first, int last) {
+            int count = last - first + 1;
+            move(last + 1, first, size - last - 1);
+            if (nulls != null) {
+                System.arraycopy(nulls, last + 1, nulls, first, size - last - 1);
+            }
+            size -= count;
+        }
+
+        /*
+         * Removes the keys of the specified rows, sorted and without duplicates.
+         */
+        void delete(int[] rows) {
+            int to = rows[0];
+            for(int i=0; i<rows.length; i++) {
+                int from = rows[i] + 1;
+                int length = ((i + 1 < rows.length) ? rows[i+1] : size) - from;
+                move(from, to, length);
+                if (nulls != null) {
+                    System.arraycopy(nulls, from, nulls, to, length);
+                }
+                to += length;
+            }
+            size -= rows.length;
+        }
+    }
+
+    private static class FTLongColumn extends FTSortColumn {
+
+        long[] keys = new long[0];
+
+        FTLongColumn(int column) { super( column ); }
+
+        @Override
+        int capacity() { return keys.length; }
+
+        @Override
+        void resize(int capacity) { keys = Arrays.copyOf(keys, capacity); }
+
+        @Override
+        void move(int from, int to, int length) { System.arraycopy(keys, from, keys, to, length); }
+
+        @Override
+        void set(int row, Object value, Collator collator) {
+            keys[row] = ((Number) value).longValue();
+            clearNull( row );
+        }
+
+        @Override
+        int compareKeys(int row1, int row2) {
+            long k1 = keys[row1];
+            long k2 = keys[row2];
+            return (k1 < k2) ? -1 : ((k1 == k2) ? 0 : 1);
+        }
+
+        @Override
+        FTSortColumn newInstance() { return new FTLongColumn( column ); }
+
+        @Override
+        void copyKeys(FTSortColumn target) { ((FTLongColumn) target).keys = keys.clone(); }
+    }
+
+    private static class FTDoubleColumn extends FTSortColumn {
+
+        double[] keys = new double[0];
+
+        FTDoubleColumn(int column) { super( column ); }
+
+        @Override
+        int capacity() { return keys.length; }
+
+        @Override
+        void resize(int capacity) { keys = Arrays.copyOf(keys, capacity); }
+
+        @Override
+        void move(int from, int to, int length) { System.arraycopy(keys, from, keys, to, length); }
+
+        @Override
+        void set(int row, Object value, Collator collator) {
+            keys[row] = ((Number) value).doubleValue();
+            clearNull( row );
+        }
+
+        @Override
+        int compareKeys(int row1, int row2) { return Double.compare(keys[row1], keys[row2]); }
+
+        @Override
+        FTSortColumn newInstance() { return new FTDoubleColumn( column ); }
+
+        @Override
+        void copyKeys(FTSortColumn target) { ((FTDoubleColumn) target).keys = keys.clone(); }
+    }
+
+    private static class FTObjectColumn extends FTSortColumn {
+
+        Object[] keys = new Object[0];
+
+        FTObjectColumn(int column) { super( column ); }
+
+        @Override
+        int capacity() { return keys.length; }
+
+        @Override
+        void resize(int capacity) { keys = Arrays.copyOf(keys, capacity); }
+
+        @Override
+        void move(int from, int to, int length) { System.arraycopy(keys, from, keys, to, length); }
+
+        @Override
+        void set(int row, Object value, Collator collator) {
+            if (value instanceof String) {
+                keys[row] = collator.getCollationKey( (String) value );
+            } else if (value instanceof Comparable) {
+                keys[row] = value;
+            } else {
+                keys[row] = collator.getCollationKey( value.toString() );
+            }
+            clearNull( row );
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        int compareKeys(int row1, int row2) {
+            Object k1 = keys[row1];
+            Object k2 = keys[row2];
+            if (k1.getClass() != k2.getClass()) {
+                return k1.getClass().getName().compareTo( k2.getClass().getName() );
+            }
+            return ((Comparable<Object>) k1).compareTo( k2 );
+        }
+
+        @Override
+        FTSortColumn newInstance() { return new FTObjectColumn( column ); }
+
+        @Override
+        void copyKeys(FTSortColumn target) { ((FTObjectColumn) target).keys = keys.clone(); }
+
+        @Override
+        void delete(int first, int last) {
+            super.delete(first, last);
+            Arrays.fill(keys, size, Math.min(size + last - first + 1, keys.length), null);
+        }
+
+        @Override
+        void delete(int[] rows) {
+            super.delete( rows );
+            Arrays.fill(keys, size, Math.min(size + rows.length, keys.length), null);
+        }
+    }
+}
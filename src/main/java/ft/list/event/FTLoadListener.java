@@ -0,0 +1,27 @@
+package ft.list.event;
+
+/**
+ * The listener interface for receiving progress notifications from an asynchronous
+ * load started with <code>FTList.addElementsAsync</code>.
+ * Both methods are invoked on the Event Dispatch Thread.
+ * 
+ * @author Manuel Agostinetto
+ */
+public interface FTLoadListener {
+    /**
+     * Invoked each time a chunk of elements has been added to the list.
+     * 
+     * @param count the total number of elements added so far
+     */
+    void elementsLoaded(int count);
+    
+    /**
+     * Invoked once, when the load is over because all the elements have been added,
+     * because it was cancelled or because producing the elements failed.
+     * 
+     * @param count the total number of elements added to the list
+     * @param error the exception thrown while producing the elements, or
+     * <code>null</code> if the load completed or was cancelled
+     */
+    void loadFinished(int count, Throwable error);
+}
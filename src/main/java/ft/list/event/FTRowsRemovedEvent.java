@@ -0,0 +1,41 @@
+package ft.list.event;
+
+import javax.swing.event.TableModelEvent;
+import javax.swing.table.TableModel;
+
+/**
+ * The event fired by a <code>FTTableListModel</code> when rows that are not
+ * contiguous are removed at once.
+ * <p>The event has the shape of a <code>tableDataChanged</code> event, so any
+ * <code>TableModelListener</code> can handle it as a change of the whole data.
+ * Listeners aware of this class can read the removed rows instead, and update
+ * their own state in a single pass: a {@link ft.list.FTTableRowSorter} installed
+ * on a <code>FTTableList</code> removes the rows from its order without sorting
+ * again.
+ *
+ * @author Manuel Agostinetto
+ */
+public class FTRowsRemovedEvent extends TableModelEvent {
+
+    private final int[] removedRows;
+
+    /**
+     * Creates the event for the removal of the specified rows.
+     *
+     * @param source the model that removed the rows
+     * @param removedRows the indexes the removed rows had before the removal,
+     * sorted in ascending order and without duplicates
+     */
+    public FTRowsRemovedEvent(TableModel source, int[] removedRows) {
+        super( source );
+        this.removedRows = removedRows;
+    }
+
+    /**
+     * Returns the indexes the removed rows had before the removal, sorted in
+     * ascending order. The returned array is shared and must not be modified.
+     *
+     * @return the indexes of the removed rows
+     */
+    public int[] getRemovedRows() { return removedRows; }
+}
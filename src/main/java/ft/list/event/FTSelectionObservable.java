@@ -7,14 +7,85 @@ import javax.swing.event.ListSelectionListener;
  * a <code>ListSelectionListener</code>.<br>
  * The <code>ListSelectionListener</code> object will be notified for changes made
  * to the selection model of the list.
+ * <p>The dispatch mode tells how the changes are delivered to the listeners. In
+ * the default mode, <code>DISPATCH_IMMEDIATE</code>, every change is delivered as
+ * soon as it happens, including the many changes with <code>valueIsAdjusting</code>
+ * set while the user drags the selection. The other modes merge the changes into
+ * a single event, so that listeners which refresh a detail view run once per
+ * gesture rather than once per change.
  * 
  * @author Manuel.Agostinetto
  */
 public interface FTSelectionObservable {
+    
+    /**
+     * Every change of the selection is delivered as soon as it happens.
+     */
+    int DISPATCH_IMMEDIATE = 0;
+    
+    /**
+     * The changes with <code>valueIsAdjusting</code> set are not delivered: the
+     * listeners receive a single event covering all of them when the adjustment ends.
+     */
+    int DISPATCH_COALESCE_ADJUSTING = 1;
+    
+    /**
+     * The changes made while the Event Dispatch Thread processes an event are
+     * delivered with a single event, once that processing is over.
+     */
+    int DISPATCH_PER_TICK = 2;
+    
+    /**
+     * The changes are delivered with a single event when the selection doesn't
+     * change for the dispatch delay of the list.
+     */
+    int DISPATCH_DEBOUNCE = 3;
+    
     /**
      * Adds the specified <code>listener</code> to receive notifications from this <code>FTList</code>.
      * 
      * @param listener the listener to be added to the <code>FTList</code>
      */
     void addListSelectionListener(ListSelectionListener listener);
+    
+    /**
+     * Removes the specified <code>listener</code> from this <code>FTList</code>.
+     * <p>The default implementation throws an <code>UnsupportedOperationException</code>,
+     * so that implementations written before this method was added still compile.
+     * 
+     * @param listener the listener to be removed from the <code>FTList</code>
+     * @throws UnsupportedOperationException if the observable can't remove listeners
+     */
+    default void removeListSelectionListener(ListSelectionListener listener) {
+        throw new UnsupportedOperationException("removeListSelectionListener");
+    }
+    
+    /**
+     * Sets how the changes of the selection are delivered to the listeners.
+     * The changes not yet delivered are delivered at once.
+     * <p>The default implementation supports only <code>DISPATCH_IMMEDIATE</code>.
+     * 
+     * @param mode one of <code>DISPATCH_IMMEDIATE</code>,
+     * <code>DISPATCH_COALESCE_ADJUSTING</code>, <code>DISPATCH_PER_TICK</code> and
+     * <code>DISPATCH_DEBOUNCE</code>
+     * @throws IllegalArgumentException if <code>mode</code> is not valid
+     * @throws UnsupportedOperationException if the observable doesn't support
+     * <code>mode</code>
+     */
+    default void setSelectionDispatchMode(int mode) {
+        if ((mode < DISPATCH_IMMEDIATE) || (mode > DISPATCH_DEBOUNCE)) {
+            throw new IllegalArgumentException("Invalid dispatch mode: " + mode);
+        }
+        if (mode != DISPATCH_IMMEDIATE) {
+            throw new UnsupportedOperationException("Unsupported dispatch mode: " + mode);
+        }
+    }
+    
+    /**
+     * Returns how the changes of the selection are delivered to the listeners.
+     * <p>The default implementation returns <code>DISPATCH_IMMEDIATE</code>.
+     * 
+     * @return the dispatch mode
+     */
+    default int getSelectionDispatchMode() { return DISPATCH_IMMEDIATE; }
 }
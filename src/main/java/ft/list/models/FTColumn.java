@@ -0,0 +1,130 @@
+package ft.list.models;
+
+import java.text.Format;
+
+/**
+ * The declaration of a column of a <code>FTTableListModel</code>: its name, the
+ * class of its values, whether it can hold <code>null</code> values and an optional
+ * <code>Format</code> used to display them.
+ * <p>When the columns of a model are declared, <code>getColumnClass</code> returns
+ * the declared class without looking at the data, so <code>JTable</code> can choose
+ * renderers and sorters once per column even when the table is empty.
+ * <pre>
+ * FTColumn[] columns = {
+ *     new FTColumn("Id", Long.class, false, null),
+ *     new FTColumn("Name", String.class),
+ *     new FTColumn("Amount", Double.class, true, new DecimalFormat("#,##0.00"))
+ * };
+ * </pre>
+ * A <code>FTColumn</code> is immutable.
+ *
+ * @author Manuel Agostinetto
+ */
+public final class FTColumn {
+
+    private final String name;
+    private final Class<?> type;
+    private final boolean nullable;
+    private final Format format;
+
+    /**
+     * Creates an undeclared column: the class of its values is inferred from the
+     * data of the model.
+     *
+     * @param name the name of the column, displayed in the table header
+     */
+    public FTColumn(String name) {
+        this(name, null, true, null);
+    }
+
+    /**
+     * Creates a column of nullable values of the specified class, displayed with
+     * the default renderer for that class.
+     *
+     * @param name the name of the column, displayed in the table header
+     * @param type the class of the values of the column
+     */
+    public FTColumn(String name, Class<?> type) {
+        this(name, type, true, null);
+    }
+
+    /**
+     * Creates a column.
+     *
+     * @param name the name of the column, displayed in the table header
+     * @param type the class of the values of the column, or <code>null</code> to
+     * infer it from the data of the model
+     * @param nullable <code>true</code> if the column can hold <code>null</code> values
+     * @param format the format used to display the values, or <code>null</code> to
+     * use the default renderer for the class of the column
+     */
+    public FTColumn(String name, Class<?> type, boolean nullable, Format format) {
+        this.name = name;
+        this.type = type;
+        this.nullable = nullable;
+        this.format = format;
+    }
+
+    /**
+     * Returns the name of the column.
+     *
+     * @return the name of the column
+     */
+    public String getName() { return name; }
+
+    /**
+     * Returns the declared class of the values of the column.
+     *
+     * @return the class of the values, or <code>null</code> if it's not declared
+     */
+    public Class<?> getType() { return type; }
+
+    /**
+     * Returns <code>true</code> if the class of the values of the column is declared.
+     *
+     * @return <code>true</code> if the class of the values is declared
+     */
+    public boolean isDeclared() { return (type != null); }
+
+    /**
+     * Returns <code>true</code> if the column can hold <code>null</code> values.
+     *
+     * @return <code>true</code> if the column can hold <code>null</code> values
+     */
+    public boolean isNullable() { return nullable; }
+
+    /**
+     * Returns the format used to display the values of the column.
+     *
+     * @return the format of the values, or <code>null</code> if the default
+     * renderer is used
+     */
+    public Format getFormat() { return format; }
+
+    /**
+     * Creates undeclared columns with the specified names.
+     *
+     * @param names the names of the columns
+     * @return a new array of undeclared columns
+     */
+    public static FTColumn[] of(String[] names) {
+        return of(names, null);
+    }
+
+    /**
+     * Creates nullable columns with the specified names, all holding values of
+     * the same class.
+     *
+     * @param names the names of the columns
+     * @param type the class of the values of all the columns, or <code>null</code>
+     * to infer it from the data of the model
+     * @return a new array of columns
+     */
+    public static FTColumn[] of(String[] names, Class<?> type) {
+        FTColumn[] ret = new FTColumn[ names.length ];
+        for(int i=0; i<names.length; i++) {
+            ret[i] = new FTColumn(names[i], type, true, null);
+        }
+        return ret;
+    }
+}
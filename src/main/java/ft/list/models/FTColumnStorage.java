@@ -0,0 +1,361 @@
+package ft.list.models;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+/**
+ * The storage of a single column of a <code>FTTableColumnarModel</code>.
+ * Values are kept in a contiguous array, of primitives when the type of the column
+ * allows it. Columns of primitives track <code>null</code> cells in a separate mask,
+ * which is allocated only when the first <code>null</code> is stored.
+ *
+ * @author Manuel Agostinetto
+ */
+abstract class FTColumnStorage implements Cloneable {
+
+    private boolean[] nulls;
+
+    /**
+     * Creates the storage best suited for a column of the specified type.
+     *
+     * @param type the class of the values of the column
+     * @param capacity the initial capacity of the column
+     * @return a new, empty column storage
+     */
+    static FTColumnStorage forType(Class<?> type, int capacity) {
+        if (type == Integer.class) {
+            return new IntColumn( capacity );
+        } else if (type == Long.class) {
+            return new LongColumn( capacity );
+        } else if (type == Double.class) {
+            return new DoubleColumn( capacity );
+        } else if (type == Float.class) {
+            return new FloatColumn( capacity );
+        }
+        return new ObjectColumn( capacity );
+    }
+
+    /**
+     * Returns the array that stores the values of the column.
+     *
+     * @return the typed array, as an <code>Object</code>
+     */
+    abstract Object array();
+
+    /**
+     * Replaces the array with a new one of the specified length, keeping the
+     * first <code>size</code> values.
+     *
+     * @param capacity the length of the new array
+     * @param size the number of values to keep
+     */
+    abstract void resize(int capacity, int size);
+
+    /**
+     * Reads the non-null value at <code>row</code>, boxing it.
+     *
+     * @param row the row of the value
+     * @return the boxed value
+     */
+    abstract Object read(int row);
+
+    /**
+     * Writes the non-null value at <code>row</code>, unboxing it.
+     *
+     * @param row the row of the value
+     * @param value the value to write
+     */
+    abstract void write(int row, Object value);
+
+    /**
+     * Reads the value at <code>row</code> as a <code>double</code>.
+     *
+     * @param row the row of the value
+     * @return the value as a <code>double</code>
+     */
+    abstract double doubleAt(int row);
+
+    /**
+     * Reads the value at <code>row</code> as a <code>long</code>.
+     *
+     * @param row the row of the value
+     * @return the value as a <code>long</code>
+     */
+    abstract long longAt(int row);
+
+    /**
+     * Returns the value at <code>row</code>.
+     *
+     * @param row the row of the value
+     * @return the value, or <code>null</code>
+     */
+    Object get(int row) {
+        return (nulls != null && nulls[row]) ? null : read( row );
+    }
+
+    /**
+     * Stores the value at <code>row</code>.
+     *
+     * @param row the row of the value
+     * @param value the value, or <code>null</code>
+     */
+    void set(int row, Object value) {
+        if (value == null) {
+            if (nulls == null) {
+                nulls = new boolean[ Array.getLength(array()) ];
+            }
+            nulls[row] = true;
+        } else {
+            write(row, value);
+            if (nulls != null) {
+                nulls[row] = false;
+            }
+        }
+    }
+
+    /**
+     * Tells whether the value at <code>row</code> is <code>null</code>.
+     *
+     * @param row the row of the value
+     * @return <code>true</code> if the cell is <code>null</code>
+     */
+    boolean isNull(int row) {
+        return (nulls != null) && nulls[row];
+    }
+
+    /**
+     * Grows the column to the specified capacity.
+     *
+     * @param capacity the new capacity
+     * @param size the number of values currently stored
+     */
+    void grow(int capacity, int size) {
+        resize(capacity, size);
+        if (nulls != null) {
+            boolean[] newNulls = new boolean[ capacity ];
+            System.arraycopy(nulls, 0, newNulls, 0, size);
+            nulls = newNulls;
+        }
+    }
+
+    /**
+     * Moves <code>length</code> values from <code>from</code> to <code>to</code>.
+     *
+     * @param from the first row to move
+     * @param to the destination of the first row
+     * @param length the number of rows to move
+     */
+    void move(int from, int to, int length) {
+        Object array = array();
+        System.arraycopy(array, from, array, to, length);
+        if (nulls != null) {
+            System.arraycopy(nulls, from, nulls, to, length);
+        }
+    }
+
+    /**
+     * Rearranges the values of the rows affected by a move.
+     *
+     * @param move the move to apply
+     */
+    void rearrange(FTMove move) {
+        move.applyTo( array() );
+        if (nulls != null) {
+            move.applyTo( nulls );
+        }
+    }
+
+    /**
+     * Compacts the column, removing the values of the removed rows.
+     *
+     * @param removal the removal to apply
+     */
+    void compact(FTRemoval removal) {
+        removal.applyTo( array() );
+        if (nulls != null) {
+            removal.applyTo( nulls );
+        }
+        release(removal.remaining(), removal.size);
+    }
+
+    /**
+     * Releases the values between <code>from</code> and <code>to</code>, exclusive.
+     *
+     * @param from the first row to release
+     * @param to the row after the last row to release
+     */
+    void release(int from, int to) { }
+
+    /**
+     * Returns a copy of the column with new arrays, so that changing one of the
+     * two columns doesn't change the other.
+     *
+     * @param capacity the capacity of the copy
+     * @param size the number of values to copy
+     * @return the copy of the column
+     */
+    FTColumnStorage copy(int capacity, int size) {
+        FTColumnStorage ret;
+        try {
+            ret = (FTColumnStorage) clone();
+        } catch (CloneNotSupportedException ex) {
+            throw new AssertionError( ex );
+        }
+        ret.grow(capacity, size);
+        return ret;
+    }
+
+    private static class ObjectColumn extends FTColumnStorage {
+        private Object[] data;
+
+        ObjectColumn(int capacity) { data = new Object[ capacity ]; }
+
+        @Override
+        Object array() { return data; }
+
+        @Override
+        void resize(int capacity, int size) {
+            Object[] newData = new Object[ capacity ];
+            System.arraycopy(data, 0, newData, 0, size);
+            data = newData;
+        }
+
+        @Override
+        Object get(int row) { return data[row]; }
+
+        @Override
+        void set(int row, Object value) { data[row] = value; }
+
+        @Override
+        boolean isNull(int row) { return (data[row] == null); }
+
+        @Override
+        Object read(int row) { return data[row]; }
+
+        @Override
+        void write(int row, Object value) { data[row] = value; }
+
+        @Override
+        double doubleAt(int row) { return ((Number) data[row]).doubleValue(); }
+
+        @Override
+        long longAt(int row) { return ((Number) data[row]).longValue(); }
+
+        @Override
+        void release(int from, int to) {
+            Arrays.fill(data, from, to, null);
+        }
+    }
+
+    private static class IntColumn extends FTColumnStorage {
+        private int[] data;
+
+        IntColumn(int capacity) { data = new int[ capacity ]; }
+
+        @Override
+        Object array() { return data; }
+
+        @Override
+        void resize(int capacity, int size) {
+            int[] newData = new int[ capacity ];
+            System.arraycopy(data, 0, newData, 0, size);
+            data = newData;
+        }
+
+        @Override
+        Object read(int row) { return data[row]; }
+
+        @Override
+        void write(int row, Object value) { data[row] = ((Integer) value).intValue(); }
+
+        @Override
+        double doubleAt(int row) { return data[row]; }
+
+        @Override
+        long longAt(int row) { return data[row]; }
+    }
+
+    private static class LongColumn extends FTColumnStorage {
+        private long[] data;
+
+        LongColumn(int capacity) { data = new long[ capacity ]; }
+
+        @Override
+        Object array() { return data; }
+
+        @Override
+        void resize(int capacity, int size) {
+            long[] newData = new long[ capacity ];
+            System.arraycopy(data, 0, newData, 0, size);
+            data = newData;
+        }
+
+        @Override
+        Object read(int row) { return data[row]; }
+
+        @Override
+        void write(int row, Object value) { data[row] = ((Long) value).longValue(); }
+
+        @Override
+        double doubleAt(int row) { return data[row]; }
+
+        @Override
+        long longAt(int row) { return data[row]; }
+    }
+
+    private static class DoubleColumn extends FTColumnStorage {
+        private double[] data;
+
+        DoubleColumn(int capacity) { data = new double[ capacity ]; }
+
+        @Override
+        Object array() { return data; }
+
+        @Override
+        void resize(int capacity, int size) {
+            double[] newData = new double[ capacity ];
+            System.arraycopy(data, 0, newData, 0, size);
+            data = newData;
+        }
+
+        @Override
+        Object read(int row) { return data[row]; }
+
+        @Override
+        void write(int row, Object value) { data[row] = ((Double) value).doubleValue(); }
+
+        @Override
+        double doubleAt(int row) { return data[row]; }
+
+        @Override
+        long longAt(int row) { return (long) data[row]; }
+    }
+
+    private static class FloatColumn extends FTColumnStorage {
+        private float[] data;
+
+        FloatColumn(int capacity) { data = new float[ capacity ]; }
+
+        @Override
+        Object array() { return data; }
+
+        @Override
+        void resize(int capacity, int size) {
+            float[] newData = new float[ capacity ];
+            System.arraycopy(data, 0, newData, 0, size);
+            data = newData;
+        }
+
+        @Override
+        Object read(int row) { return data[row]; }
+
+        @Override
+        void write(int row, Object value) { data[row] = ((Float) value).floatValue(); }
+
+        @Override
+        double doubleAt(int row) { return data[row]; }
+
+        @Override
+        long longAt(int row) { return (long) data[row]; }
+    }
+}
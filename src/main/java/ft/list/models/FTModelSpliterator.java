@@ -0,0 +1,117 @@
+package ft.list.models;
+
+import java.util.ConcurrentModificationException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A <code>Spliterator</code> over a range of positions of a model, that reads each
+ * element directly from the storage of the model.
+ * <p>It's sized and splits its range in halves, so parallel streams divide the work
+ * evenly. It's fail-fast: since it reads the model itself rather than a copy, the
+ * modification counter of the model is checked before each element is read, and a
+ * change to the model after the spliterator was created throws a
+ * <code>ConcurrentModificationException</code>.
+ *
+ * @author Manuel Agostinetto
+ * @param <E> the type of elements of the model
+ */
+final class FTModelSpliterator<E> implements Spliterator<E> {
+
+    /**
+     * The model read by the spliterator.
+     *
+     * @param <E> the type of elements of the model
+     */
+    abstract static class Source<E> {
+
+        /**
+         * Returns the element at the specified position.
+         *
+         * @param index the position of the element
+         * @return the element at the specified position
+         */
+        abstract E elementAt(int index);
+
+        /**
+         * Returns the modification counter of the model.
+         *
+         * @return the number of changes notified by the model
+         */
+        abstract int modCount();
+    }
+
+    private final Source<E> source;
+    private final int expectedModCount;
+    private int index;
+    private final int fence;
+
+    /**
+     * Creates a spliterator over the positions between <code>origin</code>,
+     * inclusive, and <code>fence</code>, exclusive.
+     *
+     * @param source the model to read
+     * @param origin the first position
+     * @param fence the position after the last one
+     */
+    FTModelSpliterator(Source<E> source, int origin, int fence) {
+        this(source, origin, fence, source.modCount());
+    }
+
+    private FTModelSpliterator(Source<E> source, int origin, int fence, int expectedModCount) {
+        this.source = source;
+        this.index = origin;
+        this.fence = fence;
+        this.expectedModCount = expectedModCount;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super E> action) {
+        if (action == null) {
+            throw new NullPointerException();
+        }
+        checkForComodification();
+        if (index < fence) {
+            action.accept( source.elementAt(index++) );
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super E> action) {
+        if (action == null) {
+            throw new NullPointerException();
+        }
+        int i = index;
+        index = fence;
+        for(; i<fence; i++) {
+            checkForComodification();
+            action.accept( source.elementAt(i) );
+        }
+        checkForComodification();
+    }
+
+    @Override
+    public Spliterator<E> trySplit() {
+        int mid = (index + fence) >>> 1;
+        if (mid <= index) {
+            return null;
+        }
+        Spliterator<E> ret = new FTModelSpliterator<E>(source, index, mid, expectedModCount);
+        index = mid;
+        return ret;
+    }
+
+    @Override
+    public long estimateSize() { return fence - index; }
+
+    @Override
+    public int characteristics() { return ORDERED | SIZED | SUBSIZED; }
+
+    private void checkForComodification() {
+        if (source.modCount() != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+}
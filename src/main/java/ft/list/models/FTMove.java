@@ -0,0 +1,148 @@
+package ft.list.models;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The rearrangement of a model produced by moving a set of rows by the same
+ * number of positions. The moved rows keep their relative order and the other
+ * rows fill the positions left free, in their original order; only the rows
+ * between {@link #from} and {@link #to} change position.
+ * <p>The distance is reduced when needed so that no row moves out of the model.
+ *
+ * @author Manuel Agostinetto
+ */
+final class FTMove {
+
+    /**
+     * The indexes of the moved rows before the move, sorted.
+     */
+    final int[] sources;
+
+    /**
+     * The indexes of the moved rows after the move, in the same order as the sources.
+     */
+    final int[] targets;
+
+    /**
+     * The first index of the range affected by the move.
+     */
+    final int from;
+
+    /**
+     * The last index of the range affected by the move.
+     */
+    final int to;
+
+    /**
+     * For each position of the affected range, the index before the move of the
+     * row that takes that position.
+     */
+    final int[] order;
+
+    /**
+     * Computes the move of the rows at <code>indexes</code> by <code>delta</code>
+     * positions in a model of <code>size</code> rows.
+     *
+     * @param indexes the indexes of the rows to move, in any order
+     * @param delta the number of positions, negative to move towards the top
+     * @param size the number of rows in the model
+     * @throws ArrayIndexOutOfBoundsException if an index is out of range
+     */
+    FTMove(int[] indexes, int delta, int size) {
+        int[] sorted = indexes.clone();
+        Arrays.sort( sorted );
+        int count = 0;
+        for(int i=0; i<sorted.length; i++) {
+            if ((sorted[i] < 0) || (sorted[i] >= size)) {
+                throw new ArrayIndexOutOfBoundsException( sorted[i] );
+            }
+            if ((count == 0) || (sorted[i] != sorted[count-1])) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        sources = Arrays.copyOf(sorted, count);
+        int distance = 0;
+        if (count > 0) {
+            distance = (delta < 0) ? Math.max(delta, -sources[0]) : Math.min(delta, size - 1 - sources[count-1]);
+        }
+        targets = new int[ count ];
+        for(int i=0; i<count; i++) {
+            targets[i] = sources[i] + distance;
+        }
+        if (distance == 0) {
+            from = 0;
+            to = -1;
+            order = new int[0];
+            return;
+        }
+        from = Math.min(sources[0], targets[0]);
+        to = Math.max(sources[count-1], targets[count-1]);
+        order = new int[ to - from + 1 ];
+        Arrays.fill(order, -1);
+        for(int i=0; i<count; i++) {
+            order[targets[i] - from] = sources[i];
+        }
+        int slot = 0;
+        int next = 0;
+        for(int row=from; row<=to; row++) {
+            if ((next < count) && (sources[next] == row)) {
+                next++;
+                continue;
+            }
+            while (order[slot] != -1) {
+                slot++;
+            }
+            order[slot] = row;
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if no row changes position.
+     *
+     * @return <code>true</code> if the move leaves the model unchanged
+     */
+    boolean isEmpty() { return (order.length == 0); }
+
+    /**
+     * Rearranges the affected range of a typed array, copying each run of rows
+     * that stay contiguous with a single <code>System.arraycopy</code>.
+     *
+     * @param array the array that holds the rows
+     */
+    void applyTo(Object array) {
+        if ( isEmpty() ) {
+            return;
+        }
+        Object copy = Array.newInstance(array.getClass().getComponentType(), order.length);
+        System.arraycopy(array, from, copy, 0, order.length);
+        int i = 0;
+        while (i < order.length) {
+            int start = i;
+            while (i + 1 < order.length && order[i+1] == order[i] + 1) {
+                i++;
+            }
+            i++;
+            System.arraycopy(copy, order[start] - from, array, from + start, i - start);
+        }
+    }
+
+    /**
+     * Rearranges the affected range of a list.
+     *
+     * @param <T> the type of the elements of the list
+     * @param list the list that holds the rows
+     */
+    <T> void applyTo(List<T> list) {
+        if ( isEmpty() ) {
+            return;
+        }
+        Object[] copy = list.subList(from, to + 1).toArray();
+        for(int i=0; i<order.length; i++) {
+            @SuppressWarnings("unchecked")
+            T row = (T) copy[order[i] - from];
+            list.set(from + i, row);
+        }
+    }
+}
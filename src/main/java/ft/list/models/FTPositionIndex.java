@@ -0,0 +1,151 @@
+package ft.list.models;
+
+import java.util.HashMap;
+import java.util.Iterator;
+
+/**
+ * A hash index from the keys of a model to their position in the backing storage.
+ * It is used by the models that act as a Set, where every key is unique, to answer
+ * membership and position queries without scanning the whole storage.
+ * <p>Positions are kept lazily: appending an element keeps the index exact, while
+ * inserting or removing in the middle only lowers a watermark below which positions
+ * are still known to be correct. Positions above the watermark are recomputed on the
+ * first <code>indexOf</code> that needs them, so a sequence of mutations costs a
+ * single re-scan of the shifted tail.
+ *
+ * @author Manuel Agostinetto
+ * @param <K> the type of keys managed by this index
+ */
+abstract class FTPositionIndex<K> {
+
+    private HashMap<K,Integer> positions;
+    private int validUpTo;
+
+    /**
+     * Creates an empty index.
+     */
+    FTPositionIndex() {
+        positions = new HashMap<K,Integer>();
+    }
+
+    /**
+     * Returns the key of the element currently stored at <code>index</code>.
+     *
+     * @param index the position of the element in the storage
+     * @return the key of the element
+     */
+    protected abstract K keyAt(int index);
+
+    /**
+     * Returns the number of elements currently in the storage.
+     *
+     * @return the number of elements in the storage
+     */
+    protected abstract int size();
+
+    /**
+     * Returns the keys of the elements stored from <code>index</code> on, in
+     * order. The default implementation calls <code>keyAt</code> for each
+     * position; a storage that takes more than constant time to reach a position
+     * overrides it to walk its elements in order.
+     *
+     * @param index the position of the first key
+     * @return an iterator over the keys from <code>index</code> to the end of the storage
+     */
+    protected Iterator<K> keysFrom(final int index) {
+        return new Iterator<K>() {
+            private int next = index;
+
+            @Override
+            public boolean hasNext() { return (next < size()); }
+
+            @Override
+            public K next() { return keyAt( next++ ); }
+        };
+    }
+
+    /**
+     * Tells whether the specified key is in the index.
+     *
+     * @param key the key to look for
+     * @return <code>true</code> if the key is in the index
+     */
+    boolean contains(K key) { return positions.containsKey( key ); }
+
+    /**
+     * Returns the position of the specified key in the storage.
+     *
+     * @param key the key to look for
+     * @return the position of the key or -1 if the key is not in the index
+     */
+    int indexOf(K key) {
+        Integer pos = positions.get( key );
+        if (pos == null) {
+            return -1;
+        }
+        if (pos >= validUpTo) {
+            reindex();
+            pos = positions.get( key );
+        }
+        return pos;
+    }
+
+    /**
+     * Records that <code>key</code> has been stored at <code>index</code>.
+     * Every element after <code>index</code> is considered shifted.
+     *
+     * @param key the key that was stored
+     * @param index the position where it was stored
+     */
+    void inserted(K key, int index) {
+        positions.put(key, index);
+        if (validUpTo == index && index == size() - 1) {
+            validUpTo++;
+        } else if (validUpTo > index) {
+            validUpTo = index;
+        }
+    }
+
+    /**
+     * Records that <code>key</code> has been removed from <code>index</code>.
+     * Every element after <code>index</code> is considered shifted.
+     *
+     * @param key the key that was removed
+     * @param index the position where it was stored
+     */
+    void removed(K key, int index) {
+        positions.remove( key );
+        if (validUpTo > index) {
+            validUpTo = index;
+        }
+    }
+
+    /**
+     * Records that the elements from <code>index</code> on may have changed
+     * position, without being added or removed.
+     *
+     * @param index the first position that may have changed
+     */
+    void invalidate(int index) {
+        if (validUpTo > index) {
+            validUpTo = index;
+        }
+    }
+
+    /**
+     * Removes all keys from the index.
+     */
+    void clear() {
+        positions.clear();
+        validUpTo = 0;
+    }
+
+    private void reindex() {
+        int size = size();
+        Iterator<K> keys = keysFrom( validUpTo );
+        for(int i=validUpTo; i<size; i++) {
+            positions.put(keys.next(), i);
+        }
+        validUpTo = size;
+    }
+}
@@ -0,0 +1,201 @@
+package ft.list.models;
+
+import java.util.Arrays;
+
+/**
+ * A hash index from primitive keys to their position in the backing storage of
+ * a primitive model. It is the primitive counterpart of <code>FTPositionIndex</code>:
+ * keys are stored as <code>long</code> values in an open-addressing table with
+ * linear probing, so no key or position is ever boxed.
+ * <p>Positions are kept lazily in the same way: appending keeps the index exact,
+ * while inserting or removing in the middle only lowers a watermark, and positions
+ * above the watermark are recomputed on the first <code>indexOf</code> that needs them.
+ *
+ * @author Manuel Agostinetto
+ */
+abstract class FTPrimitiveIndex {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final int FREE = -1;
+
+    private long[] keys;
+    private int[] positions;
+    private int count;
+    private int mask;
+    private int validUpTo;
+
+    /**
+     * Creates an empty index.
+     */
+    FTPrimitiveIndex() {
+        allocate( MIN_CAPACITY );
+    }
+
+    /**
+     * Returns the key of the element currently stored at <code>index</code>.
+     *
+     * @param index the position of the element in the storage
+     * @return the key of the element
+     */
+    protected abstract long keyAt(int index);
+
+    /**
+     * Returns the number of elements currently in the storage.
+     *
+     * @return the number of elements in the storage
+     */
+    protected abstract int size();
+
+    /**
+     * Tells whether the specified key is in the index.
+     *
+     * @param key the key to look for
+     * @return <code>true</code> if the key is in the index
+     */
+    boolean contains(long key) { return positions[ slotOf(key) ] != FREE; }
+
+    /**
+     * Returns the position of the specified key in the storage.
+     *
+     * @param key the key to look for
+     * @return the position of the key or -1 if the key is not in the index
+     */
+    int indexOf(long key) {
+        int slot = slotOf( key );
+        if (positions[slot] == FREE) {
+            return -1;
+        }
+        if (positions[slot] >= validUpTo) {
+            reindex();
+            slot = slotOf( key );
+        }
+        return positions[slot];
+    }
+
+    /**
+     * Records that <code>key</code> has been stored at <code>index</code>.
+     * Every element after <code>index</code> is considered shifted.
+     *
+     * @param key the key that was stored
+     * @param index the position where it was stored
+     */
+    void inserted(long key, int index) {
+        put(key, index);
+        if (validUpTo == index && index == size() - 1) {
+            validUpTo++;
+        } else if (validUpTo > index) {
+            validUpTo = index;
+        }
+    }
+
+    /**
+     * Records that <code>key</code> has been removed from <code>index</code>.
+     * Every element after <code>index</code> is considered shifted.
+     *
+     * @param key the key that was removed
+     * @param index the position where it was stored
+     */
+    void removed(long key, int index) {
+        int slot = slotOf( key );
+        if (positions[slot] != FREE) {
+            delete( slot );
+        }
+        if (validUpTo > index) {
+            validUpTo = index;
+        }
+    }
+
+    /**
+     * Records that the elements from <code>index</code> on may have changed
+     * position, without being added or removed.
+     *
+     * @param index the first position that may have changed
+     */
+    void invalidate(int index) {
+        if (validUpTo > index) {
+            validUpTo = index;
+        }
+    }
+
+    /**
+     * Removes all keys from the index.
+     */
+    void clear() {
+        allocate( MIN_CAPACITY );
+        count = 0;
+        validUpTo = 0;
+    }
+
+    private void reindex() {
+        int size = size();
+        for(int i=validUpTo; i<size; i++) {
+            put(keyAt(i), i);
+        }
+        validUpTo = size;
+    }
+
+    private void put(long key, int position) {
+        int slot = slotOf( key );
+        if (positions[slot] == FREE) {
+            keys[slot] = key;
+            count++;
+        }
+        positions[slot] = position;
+        if (count > (mask >> 1) + (mask >> 2)) {
+            rehash();
+        }
+    }
+
+    /*
+     * Backward-shift deletion: closes the hole left by the removed key moving
+     * back the following keys of the cluster, so no tombstone is ever needed.
+     */
+    private void delete(int slot) {
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (positions[next] != FREE) {
+            int home = hash( keys[next] ) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                positions[hole] = positions[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        positions[hole] = FREE;
+        count--;
+    }
+
+    private int slotOf(long key) {
+        int slot = hash( key ) & mask;
+        while (positions[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldPositions = positions;
+        allocate( oldKeys.length << 1 );
+        for(int i=0; i<oldKeys.length; i++) {
+            if (oldPositions[i] != FREE) {
+                int slot = slotOf( oldKeys[i] );
+                keys[slot] = oldKeys[i];
+                positions[slot] = oldPositions[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[ capacity ];
+        positions = new int[ capacity ];
+        Arrays.fill(positions, FREE);
+        mask = capacity - 1;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,260 @@
+package ft.list.models;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+
+/**
+ * The layout of the fixed-width records of a file, used by {@link FTTableMappedModel}
+ * to decode the cells of the table directly from the file.
+ * <p>A layout is a sequence of columns, each with a name and a binary type. Columns
+ * are laid out one after the other, in the order they are added, without padding:
+ * <pre>
+ * FTRecordLayout layout = new FTRecordLayout()
+ *         .addLong("Id")
+ *         .addString("User", 16)
+ *         .addDouble("Amount");   // 32 bytes per record
+ * </pre>
+ * Numbers are read in big-endian byte order unless a different order is set with
+ * {@link #setByteOrder(ByteOrder)}. Strings are fixed-length fields decoded with the
+ * layout charset (ISO-8859-1 by default); trailing blanks and <code>NUL</code>
+ * characters are trimmed.
+ * <p>A layout must not be modified after it has been used to create a model.
+ *
+ * @author Manuel Agostinetto
+ */
+public class FTRecordLayout {
+
+    private static final int BYTE = 0;
+    private static final int SHORT = 1;
+    private static final int INT = 2;
+    private static final int LONG = 3;
+    private static final int FLOAT = 4;
+    private static final int DOUBLE = 5;
+    private static final int STRING = 6;
+
+    private ArrayList<String> names;
+    private ArrayList<Class<?>> classes;
+    private int[] types;
+    private int[] offsets;
+    private int[] lengths;
+    private int recordLength;
+    private ByteOrder byteOrder;
+    private Charset charset;
+
+    /**
+     * Creates an empty layout.
+     */
+    public FTRecordLayout() {
+        names = new ArrayList<String>();
+        classes = new ArrayList<Class<?>>();
+        types = new int[0];
+        offsets = new int[0];
+        lengths = new int[0];
+        byteOrder = ByteOrder.BIG_ENDIAN;
+        charset = Charset.forName("ISO-8859-1");
+    }
+
+    /**
+     * Appends a column of 8 bit signed integers, decoded as <code>Byte</code>.
+     *
+     * @param name the name of the column
+     * @return this layout
+     */
+    public FTRecordLayout addByte(String name) { return add(name, Byte.class, BYTE, 1); }
+
+    /**
+     * Appends a column of 16 bit signed integers, decoded as <code>Short</code>.
+     *
+     * @param name the name of the column
+     * @return this layout
+     */
+    public FTRecordLayout addShort(String name) { return add(name, Short.class, SHORT, 2); }
+
+    /**
+     * Appends a column of 32 bit signed integers, decoded as <code>Integer</code>.
+     *
+     * @param name the name of the column
+     * @return this layout
+     */
+    public FTRecordLayout addInt(String name) { return add(name, Integer.class, INT, 4); }
+
+    /**
+     * Appends a column of 64 bit signed integers, decoded as <code>Long</code>.
+     *
+     * @param name the name of the column
+     * @return this layout
+     */
+    public FTRecordLayout addLong(String name) { return add(name, Long.class, LONG, 8); }
+
+    /**
+     * Appends a column of 32 bit floating point numbers, decoded as <code>Float</code>.
+     *
+     * @param name the name of the column
+     * @return this layout
+     */
+    public FTRecordLayout addFloat(String name) { return add(name, Float.class, FLOAT, 4); }
+
+    /**
+     * Appends a column of 64 bit floating point numbers, decoded as <code>Double</code>.
+     *
+     * @param name the name of the column
+     * @return this layout
+     */
+    public FTRecordLayout addDouble(String name) { return add(name, Double.class, DOUBLE, 8); }
+
+    /**
+     * Appends a fixed-length text column, decoded as <code>String</code>.
+     *
+     * @param name the name of the column
+     * @param length the length of the field in bytes
+     * @return this layout
+     */
+    public FTRecordLayout addString(String name, int length) {
+        if (length <= 0) {
+            throw new IllegalArgumentException("Length must be greater then 0. Passed " + length);
+        }
+        return add(name, String.class, STRING, length);
+    }
+
+    /**
+     * Appends an unnamed gap of <code>length</code> bytes that is not shown in the table.
+     *
+     * @param length the length of the gap in bytes
+     * @return this layout
+     */
+    public FTRecordLayout skip(int length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Length must be positive. Passed " + length);
+        }
+        recordLength += length;
+        return this;
+    }
+
+    /**
+     * Sets the byte order used to decode numbers.
+     *
+     * @param byteOrder the byte order of the file
+     * @return this layout
+     */
+    public FTRecordLayout setByteOrder(ByteOrder byteOrder) {
+        this.byteOrder = byteOrder;
+        return this;
+    }
+
+    /**
+     * Sets the charset used to decode text columns.
+     *
+     * @param charset the charset of the text fields
+     * @return this layout
+     */
+    public FTRecordLayout setCharset(Charset charset) {
+        this.charset = charset;
+        return this;
+    }
+
+    /**
+     * Returns the byte order used to decode numbers.
+     *
+     * @return the byte order of the file
+     */
+    public ByteOrder getByteOrder() { return byteOrder; }
+
+    /**
+     * Returns the length of a record in bytes.
+     *
+     * @return the length of a record
+     */
+    public int getRecordLength() { return recordLength; }
+
+    /**
+     * Returns the number of columns in the layout.
+     *
+     * @return the number of columns
+     */
+    public int getColumnCount() { return names.size(); }
+
+    /**
+     * Returns the names of the columns, in order.
+     *
+     * @return a new array with the names of the columns
+     */
+    public String[] getColumnNames() { return names.toArray( new String[names.size()] ); }
+
+    /**
+     * Returns the declaration of the columns, in order. Columns decoded from a
+     * record are never <code>null</code>.
+     *
+     * @return a new array with the declaration of the columns
+     */
+    public FTColumn[] getColumns() {
+        FTColumn[] ret = new FTColumn[ names.size() ];
+        for(int i=0; i<ret.length; i++) {
+            ret[i] = new FTColumn(names.get(i), classes.get(i), false, null);
+        }
+        return ret;
+    }
+
+    /**
+     * Returns the class of the values decoded from the specified column.
+     *
+     * @param col the index of the column
+     * @return the class of the values of the column
+     */
+    public Class<?> getColumnClass(int col) { return classes.get( col ); }
+
+    /**
+     * Decodes a cell from the buffer.
+     *
+     * @param buffer the buffer that holds the record
+     * @param record the position of the record in the buffer
+     * @param col the index of the column
+     * @return the decoded value
+     */
+    Object decode(ByteBuffer buffer, int record, int col) {
+        int pos = record + offsets[col];
+        switch( types[col] ) {
+            case BYTE:   return buffer.get( pos );
+            case SHORT:  return buffer.getShort( pos );
+            case INT:    return buffer.getInt( pos );
+            case LONG:   return buffer.getLong( pos );
+            case FLOAT:  return buffer.getFloat( pos );
+            case DOUBLE: return buffer.getDouble( pos );
+            default:     return decodeString(buffer, pos, lengths[col]);
+        }
+    }
+
+    private String decodeString(ByteBuffer buffer, int pos, int length) {
+        int end = length;
+        while (end > 0) {
+            byte b = buffer.get(pos + end - 1);
+            if (b != 0 && b != ' ') {
+                break;
+            }
+            end--;
+        }
+        byte[] bytes = new byte[ end ];
+        for(int i=0; i<end; i++) {
+            bytes[i] = buffer.get(pos + i);
+        }
+        return new String(bytes, charset);
+    }
+
+    private FTRecordLayout add(String name, Class<?> cls, int type, int length) {
+        names.add( name );
+        classes.add( cls );
+        types = grow(types, type);
+        offsets = grow(offsets, recordLength);
+        lengths = grow(lengths, length);
+        recordLength += length;
+        return this;
+    }
+
+    private static int[] grow(int[] array, int value) {
+        int[] ret = new int[ array.length + 1 ];
+        System.arraycopy(array, 0, ret, 0, array.length);
+        ret[array.length] = value;
+        return ret;
+    }
+}
@@ -0,0 +1,125 @@
+package ft.list.models;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The removal of a set of rows from a model, in a single pass over the storage.
+ * The removed rows are grouped in runs of contiguous indexes, so that listeners can
+ * be notified with one interval event per run rather than one per row.
+ *
+ * @author Manuel Agostinetto
+ */
+final class FTRemoval {
+
+    /**
+     * The number of runs above which the listeners are notified with a single
+     * event covering the whole model rather than with one event per run.
+     */
+    static final int MAX_INTERVAL_EVENTS = 1000;
+
+    /**
+     * The indexes of the removed rows, sorted and without duplicates.
+     */
+    final int[] indexes;
+
+    /**
+     * The number of rows in the model before the removal.
+     */
+    final int size;
+
+    /**
+     * The index of the first row of each run.
+     */
+    final int[] runStarts;
+
+    /**
+     * The index of the last row of each run.
+     */
+    final int[] runEnds;
+
+    /**
+     * Computes the removal of the rows at <code>indexes</code> from a model of
+     * <code>size</code> rows.
+     *
+     * @param indexes the indexes of the rows to remove, in any order
+     * @param size the number of rows in the model
+     * @throws ArrayIndexOutOfBoundsException if an index is out of range
+     */
+    FTRemoval(int[] indexes, int size) {
+        int[] sorted = indexes.clone();
+        Arrays.sort( sorted );
+        int count = 0;
+        int runs = 0;
+        for(int i=0; i<sorted.length; i++) {
+            if ((sorted[i] < 0) || (sorted[i] >= size)) {
+                throw new ArrayIndexOutOfBoundsException( sorted[i] );
+            }
+            if ((count == 0) || (sorted[i] != sorted[count-1])) {
+                if ((count == 0) || (sorted[i] != sorted[count-1] + 1)) {
+                    runs++;
+                }
+                sorted[count++] = sorted[i];
+            }
+        }
+        this.indexes = Arrays.copyOf(sorted, count);
+        this.size = size;
+        runStarts = new int[ runs ];
+        runEnds = new int[ runs ];
+        int run = -1;
+        for(int i=0; i<count; i++) {
+            if ((i == 0) || (this.indexes[i] != this.indexes[i-1] + 1)) {
+                runStarts[++run] = this.indexes[i];
+            }
+            runEnds[run] = this.indexes[i];
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if no row is removed.
+     *
+     * @return <code>true</code> if the removal leaves the model unchanged
+     */
+    boolean isEmpty() { return (indexes.length == 0); }
+
+    /**
+     * Returns the number of rows left in the model after the removal.
+     *
+     * @return the number of remaining rows
+     */
+    int remaining() { return size - indexes.length; }
+
+    /**
+     * Compacts the first {@link #size} values of a typed array, moving each block
+     * of remaining rows with a single <code>System.arraycopy</code>. The values
+     * after {@link #remaining()} are left untouched.
+     *
+     * @param array the array that holds the rows
+     */
+    void applyTo(Object array) {
+        int to = runStarts[0];
+        for(int run=0; run<runStarts.length; run++) {
+            int from = runEnds[run] + 1;
+            int length = ((run + 1 < runStarts.length) ? runStarts[run+1] : size) - from;
+            System.arraycopy(array, from, array, to, length);
+            to += length;
+        }
+    }
+
+    /**
+     * Compacts a list, shrinking it to {@link #remaining()} elements.
+     *
+     * @param <T> the type of the elements of the list
+     * @param list the list that holds the rows
+     */
+    <T> void applyTo(List<T> list) {
+        int to = runStarts[0];
+        for(int run=0; run<runStarts.length; run++) {
+            int end = (run + 1 < runStarts.length) ? runStarts[run+1] : size;
+            for(int from=runEnds[run]+1; from<end; from++) {
+                list.set(to++, list.get( from ));
+            }
+        }
+        list.subList(to, size).clear();
+    }
+}
@@ -0,0 +1,58 @@
+package ft.list.models;
+
+import java.util.Arrays;
+
+/**
+ * The identity of a table row, based on the content of its cells.
+ * Two keys are equal when the values of the cells they were built from are equal,
+ * so rows can be compared and hashed by content rather than by array identity.
+ * <p>A key can be built from every cell of the row or from a subset of key columns.
+ * The hash code is computed once, when the key is built: rows must not be modified
+ * while they are stored in a model that acts as a Set.
+ *
+ * @author Manuel Agostinetto
+ */
+final class FTRowKey {
+
+    private final Object[] values;
+    private final int hash;
+
+    private FTRowKey(Object[] values) {
+        this.values = values;
+        this.hash = Arrays.hashCode( values );
+    }
+
+    /**
+     * Builds the key of the specified row.
+     *
+     * @param row the cells of the row
+     * @param keyColumns the indexes of the columns that identify the row, or
+     * <code>null</code> to use every column
+     * @return the key of the row
+     */
+    static FTRowKey of(Object[] row, int[] keyColumns) {
+        if (keyColumns == null) {
+            return new FTRowKey( row );
+        }
+        Object[] values = new Object[ keyColumns.length ];
+        for(int i=0; i<keyColumns.length; i++) {
+            values[i] = row[ keyColumns[i] ];
+        }
+        return new FTRowKey( values );
+    }
+
+    @Override
+    public int hashCode() { return hash; }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof FTRowKey)) {
+            return false;
+        }
+        FTRowKey other = (FTRowKey) obj;
+        return (hash == other.hash) && Arrays.equals(values, other.values);
+    }
+}
@@ -0,0 +1,25 @@
+package ft.list.models;
+
+import java.util.List;
+
+/**
+ * The source of the rows of a {@link FTTablePagedModel}.
+ * <p>The model asks the provider for a page of contiguous rows the first time one of
+ * those rows is needed, either to paint it or because it's near the rows that are
+ * being displayed. Pages may be requested from the Event Dispatch Thread as well as
+ * from a background thread, so implementations must be thread-safe.
+ *
+ * @author Manuel Agostinetto
+ * @param <E> the type of rows provided
+ */
+public interface FTRowPageProvider<E> {
+    /**
+     * Loads <code>count</code> rows starting at <code>firstRow</code>.
+     * The returned list must contain exactly <code>count</code> rows.
+     *
+     * @param firstRow the index of the first row of the page
+     * @param count the number of rows of the page
+     * @return the rows of the page, in order
+     */
+    List<E> loadPage(int firstRow, int count);
+}
@@ -0,0 +1,87 @@
+package ft.list.models;
+
+/**
+ * A <code>FTSimpleListModel</code> of Doubles that stores its values in an
+ * array of <code>double</code>, without boxing them.
+ * <p>Besides the methods of <code>FTSimpleListModel</code>, it offers primitive
+ * accessors such as <code>getDouble</code> and <code>addDouble</code> that can be used on
+ * hot paths to avoid boxing.
+ * Values are compared as <code>Double.equals</code> does, so <code>NaN</code>
+ * is equal to itself and <code>0.0</code> is different from <code>-0.0</code>.
+ *
+ * @author Manuel Agostinetto
+ */
+public class FTSimpleDoubleModel extends FTSimplePrimitiveModel<Double> {
+
+    private double[] data;
+
+    /**
+     * Creates a <code>FTSimpleDoubleModel</code>.
+     * If <code>set</code> is <code>true</code> the model acts as a Set and
+     * doesn't accept duplicate values.
+     *
+     * @param set if <code>true</code> it acts as a Set
+     */
+    public FTSimpleDoubleModel(boolean set) {
+        super( set );
+        data = new double[ DEFAULT_CAPACITY ];
+    }
+
+    /**
+     * Returns the value at the specified position, without boxing it.
+     *
+     * @param index the position of the value
+     * @return the value at the specified position
+     * @throws ArrayIndexOutOfBoundsException if the index is out of range
+     */
+    public double getDouble(int index) {
+        checkIndex( index );
+        return data[index];
+    }
+
+    /**
+     * Adds a value to the bottom of the model, without boxing it.
+     * If the model acts as a Set and already contains the value, it does nothing.
+     *
+     * @param value the value to be added
+     */
+    public void addDouble(double value) {
+        int pos = openSlot(getSize(), Double.doubleToLongBits( value ));
+        if (pos >= 0) {
+            data[pos] = value;
+            fireIntervalAdded(this, pos, pos);
+        }
+    }
+
+    /**
+     * Returns the position of the first occurrence of the specified value,
+     * without boxing it.
+     *
+     * @param value the value to look for
+     * @return the position of the value or -1 if the model doesn't contain it
+     */
+    public int indexOfDouble(double value) {
+        return indexOfKey( Double.doubleToLongBits( value ) );
+    }
+
+    @Override
+    protected Object getStorage() { return data; }
+
+    @Override
+    protected void setStorage(Object storage) { data = (double[]) storage; }
+
+    @Override
+    protected Object newStorage(int capacity) { return new double[ capacity ]; }
+
+    @Override
+    protected long keyAt(int index) { return Double.doubleToLongBits( data[index] ); }
+
+    @Override
+    protected long keyOf(Double value) { return Double.doubleToLongBits( value.doubleValue() ); }
+
+    @Override
+    protected void store(int index, Double value) { data[index] = value.doubleValue(); }
+
+    @Override
+    protected Double load(int index) { return data[index]; }
+}
@@ -0,0 +1,465 @@
+package ft.list.models;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Predicate;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+
+/**
+ * A filtered view over another <code>FTSimpleListModel</code>.
+ * <p>The view shows, in the same order, only the elements of the source model that
+ * are accepted by the current filter. It keeps a sorted mapping from view indexes to
+ * source indexes, which is updated incrementally when the source changes: elements
+ * added to the source are tested one by one, elements removed are dropped from the
+ * mapping, and no other element is tested again.
+ * <p>Changing the filter notifies the list with the minimal set of removed and added
+ * intervals, so a <code>JList</code> keeps the selection on the elements that remain
+ * visible. When the new filter is a refinement of the current one (it accepts only
+ * elements that the current one accepts, as when characters are appended to a search
+ * text), {@link #refineFilter(Predicate)} tests only the elements currently visible.
+ * <pre>
+ * FTSimpleFilteredModel&lt;String&gt; view = new FTSimpleFilteredModel&lt;String&gt;(source);
+ * FTSimpleList&lt;String&gt; list = new FTSimpleList&lt;String&gt;(view);
+ * ...
+ * view.setFilterText( searchField.getText() );
+ * </pre>
+ * Changes made through the view are applied to the source model, translating view
+ * indexes into source indexes.
+ * <p>The view listens to the source model until {@link #dispose()} is called, so a
+ * view that is no longer used must be disposed to let it be garbage collected
+ * while the source is still in use.
+ *
+ * @author Manuel Agostinetto
+ * @param <E> the type of elements managed by this model
+ */
+public class FTSimpleFilteredModel<E> extends FTSimpleListModel<E> {
+
+    /*
+     * Beyond this number of changed intervals a filter change is notified as the
+     * removal of all the old elements followed by the addition of the new ones.
+     */
+    private static final int MAX_INTERVAL_EVENTS = 1000;
+
+    private FTSimpleListModel<E> source;
+    private FTSourceListener sourceListener;
+    private Predicate<? super E> filter;
+    private String filterText;
+    private int[] map;
+    private int count;
+
+    /**
+     * Creates a view over <code>source</code> that shows all its elements.
+     *
+     * @param source the model to be filtered
+     */
+    public FTSimpleFilteredModel(FTSimpleListModel<E> source) {
+        super( source.isSet() );
+        this.source = source;
+        map = new int[0];
+        rebuild();
+        sourceListener = new FTSourceListener();
+        source.addListDataListener( sourceListener );
+    }
+
+    /**
+     * Stops listening to the source model. The view is left empty and notifies
+     * its listeners of the removal of all its elements; it must not be used
+     * afterwards.
+     */
+    public void dispose() {
+        if (sourceListener != null) {
+            source.removeListDataListener( sourceListener );
+            sourceListener = null;
+            int oldCount = count;
+            map = new int[0];
+            count = 0;
+            if (oldCount > 0) {
+                fireIntervalRemoved(this, 0, oldCount - 1);
+            }
+        }
+    }
+
+    /**
+     * Returns the model filtered by this view.
+     *
+     * @return the source model
+     */
+    public FTSimpleListModel<E> getSource() { return source; }
+
+    /**
+     * Returns the current filter.
+     *
+     * @return the current filter, or <code>null</code> if all the elements are shown
+     */
+    public Predicate<? super E> getFilter() { return filter; }
+
+    /**
+     * Sets the filter of the view. Every element of the source model is tested.
+     *
+     * @param filter the elements to show, or <code>null</code> to show all the elements
+     */
+    public void setFilter(Predicate<? super E> filter) {
+        this.filter = filter;
+        filterText = null;
+        int[] oldMap = map;
+        int oldCount = count;
+        rebuild();
+        fireChanges(oldMap, oldCount);
+    }
+
+    /**
+     * Sets a filter that accepts only a subset of the elements accepted by the
+     * current filter. Only the elements currently visible are tested.
+     *
+     * @param filter the elements to show, among the ones currently visible
+     */
+    public void refineFilter(Predicate<? super E> filter) {
+        this.filter = filter;
+        filterText = null;
+        int[] oldMap = map;
+        int oldCount = count;
+        int[] newMap = new int[ oldCount ];
+        int newCount = 0;
+        for(int i=0; i<oldCount; i++) {
+            if ( filter.test(sourceElementAt(oldMap[i])) ) {
+                newMap[newCount++] = oldMap[i];
+            }
+        }
+        map = newMap;
+        count = newCount;
+        fireChanges(oldMap, oldCount);
+    }
+
+    /**
+     * Shows only the elements whose string representation contains <code>text</code>,
+     * ignoring case. If <code>text</code> contains the text of the current text
+     * filter, only the elements currently visible are tested.
+     *
+     * @param text the text to look for, or <code>null</code> or an empty string to
+     * show all the elements
+     */
+    public void setFilterText(String text) {
+        if ((text == null) || text.isEmpty()) {
+            setFilter( null );
+            return;
+        }
+        Predicate<E> textFilter = new FTTextFilter<E>( text );
+        if ((filterText != null) && containsIgnoreCase(text, filterText)) {
+            refineFilter( textFilter );
+        } else {
+            setFilter( textFilter );
+        }
+        filterText = text;
+    }
+
+    /**
+     * Returns the index in the source model of the element at <code>viewIndex</code>.
+     *
+     * @param viewIndex the index of the element in this view
+     * @return the index of the element in the source model
+     */
+    public int convertIndexToModel(int viewIndex) {
+        checkIndex( viewIndex );
+        return map[viewIndex];
+    }
+
+    /**
+     * Returns the index in this view of the element at <code>modelIndex</code> in
+     * the source model.
+     *
+     * @param modelIndex the index of the element in the source model
+     * @return the index of the element in this view, or -1 if it's filtered out
+     */
+    public int convertIndexToView(int modelIndex) {
+        int pos = lowerBound( modelIndex );
+        return ((pos < count) && (map[pos] == modelIndex)) ? pos : -1;
+    }
+
+    @Override
+    public E getElementAt(int index) {
+        checkIndex( index );
+        return sourceElementAt( map[index] );
+    }
+
+    @Override
+    public int getSize() { return count; }
+
+    /**
+     * Removes from the source model the element at <code>index</code> in this view.
+     *
+     * @param index the index of the element in this view
+     * @return the element that was removed or <code>null</code> if index is
+     * out of range
+     */
+    @Override
+    public E removeElementAt(int index) {
+        if ((index < 0) || (index >= count)) {
+            return null;
+        }
+        return source.removeElementAt( map[index] );
+    }
+
+    @Override
+    public boolean removeElement(E element) { return source.removeElement( element ); }
+
+    /**
+     * Removes from the source model all the elements visible through this view.
+     */
+    @Override
+    public void removeAllElements() {
+        if (count > 0) {
+            removeRange(0, count - 1);
+        }
+    }
+
+    /**
+     * Adds the specified element to the bottom of the source model.
+     * The element is visible through this view only if the filter accepts it.
+     *
+     * @param element the element to be added
+     */
+    @Override
+    public void addElement(E element) { source.addElement( element ); }
+
+    /**
+     * Inserts an element into the source model, before the element at
+     * <code>index</code> in this view.
+     *
+     * @param index the index in this view where to insert the element
+     * @param element the element to be inserted
+     */
+    @Override
+    public void insertElementAt(int index, E element) {
+        source.insertElementAt(toModelInsertionIndex(index), element);
+    }
+
+    @Override
+    public void addAll(Collection<? extends E> c) { source.addAll( c ); }
+
+    @Override
+    public void insertAll(int index, Collection<? extends E> c) {
+        source.insertAll(toModelInsertionIndex(index), c);
+    }
+
+    /**
+     * Removes from the source model the elements between <code>fromIndex</code>
+     * and <code>toIndex</code> in this view, both inclusive, with a single call to
+     * its <code>removeElementsAt</code>.
+     *
+     * @param fromIndex the view index of the first element to be removed
+     * @param toIndex the view index of the last element to be removed
+     */
+    @Override
+    public void removeRange(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        source.removeElementsAt( Arrays.copyOfRange(map, fromIndex, toIndex + 1) );
+    }
+
+    /**
+     * Removes from the source model the elements at the specified indexes in this
+     * view, with a single call to its <code>removeElementsAt</code>.
+     *
+     * @param indexes the view indexes of the elements to remove, in any order
+     */
+    @Override
+    public void removeElementsAt(int[] indexes) {
+        int[] rows = new int[ indexes.length ];
+        for(int i=0; i<indexes.length; i++) {
+            checkIndex( indexes[i] );
+            rows[i] = map[ indexes[i] ];
+        }
+        source.removeElementsAt( rows );
+    }
+
+    private int toModelInsertionIndex(int index) {
+        if (index < 0) {
+            throw new ArrayIndexOutOfBoundsException("Index must be greater then 0. Passed " + index);
+        }
+        return (index < count) ? map[index] : source.getSize();
+    }
+
+    private void checkIndex(int index) {
+        if ((index < 0) || (index >= count)) {
+            throw new ArrayIndexOutOfBoundsException( index );
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private E sourceElementAt(int modelIndex) { return (E) source.getElementAt( modelIndex ); }
+
+    private boolean accept(int modelIndex) {
+        return (filter == null) || filter.test( sourceElementAt(modelIndex) );
+    }
+
+    private void rebuild() {
+        int size = source.getSize();
+        int[] newMap = new int[ size ];
+        int newCount = 0;
+        for(int i=0; i<size; i++) {
+            if ( accept(i) ) {
+                newMap[newCount++] = i;
+            }
+        }
+        map = newMap;
+        count = newCount;
+    }
+
+    /*
+     * Index of the first view entry whose source index is >= modelIndex.
+     */
+    private int lowerBound(int modelIndex) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (map[mid] < modelIndex) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > map.length) {
+            map = Arrays.copyOf(map, Math.max(capacity, map.length + (map.length >> 1)));
+        }
+    }
+
+    /*
+     * Notifies the difference between the old mapping and the current one as a
+     * sequence of removed and added intervals, walking both sorted mappings.
+     */
+    private void fireChanges(int[] oldMap, int oldCount) {
+        int intervals = 0;
+        int i = 0;
+        int j = 0;
+        boolean removing = false;
+        boolean adding = false;
+        while (i < oldCount || j < count) {
+            if (j >= count || (i < oldCount && oldMap[i] < map[j])) {
+                if (!removing) intervals++;
+                removing = true; adding = false; i++;
+            } else if (i >= oldCount || map[j] < oldMap[i]) {
+                if (!adding) intervals++;
+                adding = true; removing = false; j++;
+            } else {
+                removing = false; adding = false; i++; j++;
+            }
+        }
+        if (intervals == 0) {
+            return;
+        }
+        if (intervals > MAX_INTERVAL_EVENTS) {
+            if (oldCount > 0) fireIntervalRemoved(this, 0, oldCount - 1);
+            if (count > 0) fireIntervalAdded(this, 0, count - 1);
+            return;
+        }
+        i = 0;
+        j = 0;
+        int pos = 0;
+        while (i < oldCount || j < count) {
+            if (j >= count || (i < oldCount && oldMap[i] < map[j])) {
+                int start = i;
+                while (i < oldCount && (j >= count || oldMap[i] < map[j])) i++;
+                fireIntervalRemoved(this, pos, pos + i - start - 1);
+            } else if (i >= oldCount || map[j] < oldMap[i]) {
+                int start = j;
+                while (j < count && (i >= oldCount || map[j] < oldMap[i])) j++;
+                fireIntervalAdded(this, pos, pos + j - start - 1);
+                pos += j - start;
+            } else {
+                i++; j++; pos++;
+            }
+        }
+    }
+
+    private static boolean containsIgnoreCase(String text, String part) {
+        int max = text.length() - part.length();
+        for(int i=0; i<=max; i++) {
+            if ( text.regionMatches(true, i, part, 0, part.length()) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class FTTextFilter<E> implements Predicate<E> {
+        private final String text;
+
+        FTTextFilter(String text) { this.text = text; }
+
+        @Override
+        public boolean test(E e) { return containsIgnoreCase(String.valueOf(e), text); }
+    }
+
+    private class FTSourceListener implements ListDataListener {
+        @Override
+        public void intervalAdded(ListDataEvent lde) {
+            int first = lde.getIndex0();
+            int added = lde.getIndex1() - first + 1;
+            int pos = lowerBound( first );
+            for(int i=pos; i<count; i++) {
+                map[i] += added;
+            }
+            insertMatches(first, first + added - 1, pos);
+        }
+
+        @Override
+        public void intervalRemoved(ListDataEvent lde) {
+            int first = lde.getIndex0();
+            int last = lde.getIndex1();
+            int removed = last - first + 1;
+            int from = lowerBound( first );
+            int to = lowerBound( last + 1 );
+            System.arraycopy(map, to, map, from, count - to);
+            count -= to - from;
+            for(int i=from; i<count; i++) {
+                map[i] -= removed;
+            }
+            if (to > from) {
+                fireIntervalRemoved(FTSimpleFilteredModel.this, from, to - 1);
+            }
+        }
+
+        @Override
+        public void contentsChanged(ListDataEvent lde) {
+            int first = lde.getIndex0();
+            int last = lde.getIndex1();
+            if ((first < 0) || (last >= source.getSize())) {
+                int[] oldMap = map;
+                int oldCount = count;
+                rebuild();
+                fireChanges(oldMap, oldCount);
+                return;
+            }
+            int from = lowerBound( first );
+            int to = lowerBound( last + 1 );
+            if (to > from) {
+                System.arraycopy(map, to, map, from, count - to);
+                count -= to - from;
+                fireIntervalRemoved(FTSimpleFilteredModel.this, from, to - 1);
+            }
+            insertMatches(first, last, from);
+        }
+
+        private void insertMatches(int first, int last, int pos) {
+            int[] matches = new int[ last - first + 1 ];
+            int m = 0;
+            for(int i=first; i<=last; i++) {
+                if ( accept(i) ) {
+                    matches[m++] = i;
+                }
+            }
+            if (m > 0) {
+                ensureCapacity(count + m);
+                System.arraycopy(map, pos, map, pos + m, count - pos);
+                System.arraycopy(matches, 0, map, pos, m);
+                count += m;
+                fireIntervalAdded(FTSimpleFilteredModel.this, pos, pos + m - 1);
+            }
+        }
+    }
+}
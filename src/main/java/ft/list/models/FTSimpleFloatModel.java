@@ -0,0 +1,87 @@
+package ft.list.models;
+
+/**
+ * A <code>FTSimpleListModel</code> of Floats that stores its values in an
+ * array of <code>float</code>, without boxing them.
+ * <p>Besides the methods of <code>FTSimpleListModel</code>, it offers primitive
+ * accessors such as <code>getFloat</code> and <code>addFloat</code> that can be used on
+ * hot paths to avoid boxing.
+ * Values are compared as <code>Float.equals</code> does, so <code>NaN</code>
+ * is equal to itself and <code>0.0f</code> is different from <code>-0.0f</code>.
+ *
+ * @author Manuel Agostinetto
+ */
+public class FTSimpleFloatModel extends FTSimplePrimitiveModel<Float> {
+
+    private float[] data;
+
+    /**
+     * Creates a <code>FTSimpleFloatModel</code>.
+     * If <code>set</code> is <code>true</code> the model acts as a Set and
+     * doesn't accept duplicate values.
+     *
+     * @param set if <code>true</code> it acts as a Set
+     */
+    public FTSimpleFloatModel(boolean set) {
+        super( set );
+        data = new float[ DEFAULT_CAPACITY ];
+    }
+
+    /**
+     * Returns the value at the specified position, without boxing it.
+     *
+     * @param index the position of the value
+     * @return the value at the specified position
+     * @throws ArrayIndexOutOfBoundsException if the index is out of range
+     */
+    public float getFloat(int index) {
+        checkIndex( index );
+        return data[index];
+    }
+
+    /**
+     * Adds a value to the bottom of the model, without boxing it.
+     * If the model acts as a Set and already contains the value, it does nothing.
+     *
+     * @param value the value to be added
+     */
+    public void addFloat(float value) {
+        int pos = openSlot(getSize(), Float.floatToIntBits( value ));
+        if (pos >= 0) {
+            data[pos] = value;
+            fireIntervalAdded(this, pos, pos);
+        }
+    }
+
+    /**
+     * Returns the position of the first occurrence of the specified value,
+     * without boxing it.
+     *
+     * @param value the value to look for
+     * @return the position of the value or -1 if the model doesn't contain it
+     */
+    public int indexOfFloat(float value) {
+        return indexOfKey( Float.floatToIntBits( value ) );
+    }
+
+    @Override
+    protected Object getStorage() { return data; }
+
+    @Override
+    protected void setStorage(Object storage) { data = (float[]) storage; }
+
+    @Override
+    protected Object newStorage(int capacity) { return new float[ capacity ]; }
+
+    @Override
+    protected long keyAt(int index) { return Float.floatToIntBits( data[index] ); }
+
+    @Override
+    protected long keyOf(Float value) { return Float.floatToIntBits( value.floatValue() ); }
+
+    @Override
+    protected void store(int index, Float value) { data[index] = value.floatValue(); }
+
+    @Override
+    protected Float load(int index) { return data[index]; }
+}
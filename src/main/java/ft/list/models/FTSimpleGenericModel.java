@@ -5,8 +5,21 @@
 package ft.list.models;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 
 /**
+ * A generic <code>FTSimpleListModel</code> backed by an <code>ArrayList</code>,
+ * or by another <code>List</code> chosen by a subclass (see {@link FTSimpleTreeModel}).
+ * <p>When the model acts as a Set, a hash index from each element to its position
+ * is kept alongside the data, so that membership checks, <code>indexOf</code> and
+ * removal by value don't need to scan the whole list.
+ * <p>{@link #snapshot()} shares the <code>ArrayList</code> with the returned list:
+ * the first change after a snapshot copies the elements into a new
+ * <code>ArrayList</code>, so taking many snapshots between two changes costs a
+ * single copy.
  *
  * @author Manuel Agostinetto
  * 
@@ -14,7 +27,9 @@ import java.util.ArrayList;
  */
 public class FTSimpleGenericModel<T> extends FTSimpleListModel<T> {
     
-    private ArrayList<T> myData;
+    private List<T> myData;
+    private FTPositionIndex<T> myIndex;
+    private boolean shared;
     
     /**
      * Creates a <code>FTSimpleGenericModel</code>.
@@ -24,8 +39,31 @@ public class FTSimpleGenericModel<T> extends FTSimpleListModel<T> {
      * @param set if <code>true</code> it acts as a Set
      */
     public FTSimpleGenericModel(boolean set) {
+        this(set, new ArrayList<T>());
+    }
+    
+    /**
+     * Creates a <code>FTSimpleGenericModel</code> that stores its elements in
+     * the specified list, which must be empty.
+     * 
+     * @param set if <code>true</code> it acts as a Set
+     * @param storage the empty list used to store the elements
+     */
+    protected FTSimpleGenericModel(boolean set, List<T> storage) {
         super( set );
-        myData = new ArrayList<T>();
+        myData = storage;
+        if (set) {
+            myIndex = new FTPositionIndex<T>() {
+                @Override
+                protected T keyAt(int pos) { return myData.get( pos ); }
+
+                @Override
+                protected int size() { return myData.size(); }
+
+                @Override
+                protected Iterator<T> keysFrom(int pos) { return elementsFrom( pos ); }
+            };
+        }
     }
     
     /**
@@ -35,13 +73,144 @@ public class FTSimpleGenericModel<T> extends FTSimpleListModel<T> {
      */
     @Override
     public void addElement(T value) {
-        if (!set || !myData.contains(value)) {
+        if (!set || !myIndex.contains(value)) {
             int first = myData.size();
+            unshare();
             myData.add( value );
+            if (set) myIndex.inserted(value, first);
+            fireIntervalAdded(this, first, myData.size()-1);
+        }
+    }
+    
+    /**
+     * Adds all the elements in the specified <code>Collection</code> to the model.
+     * The storage is grown once and a single interval event is fired.
+     * If the model acts as a Set, elements already present are skipped.
+     * 
+     * @param c the elements to be added
+     */
+    @Override
+    public void addAll(Collection<? extends T> c) {
+        int first = myData.size();
+        unshare();
+        if (myData instanceof ArrayList) {
+            ((ArrayList<T>) myData).ensureCapacity(first + c.size());
+        }
+        if (set) {
+            for(T value : c) {
+                if ( !myIndex.contains(value) ) {
+                    myData.add( value );
+                    myIndex.inserted(value, myData.size()-1);
+                }
+            }
+        } else {
+            myData.addAll( c );
+        }
+        if (myData.size() > first) {
             fireIntervalAdded(this, first, myData.size()-1);
         }
     }
     
+    /**
+     * Inserts all the elements in the specified <code>Collection</code> at the
+     * specified position into the model. The storage is shifted once and a single
+     * interval event is fired.
+     * If the model acts as a Set, elements already present are skipped.
+     * 
+     * @param index the index where to insert the elements
+     * @param c the elements to be inserted
+     */
+    @Override
+    public void insertAll(int index, Collection<? extends T> c) {
+        if (index < 0) {
+            throw new ArrayIndexOutOfBoundsException("Index must be greater then 0. Passed " + index);
+        }
+        int pos = Math.min(index, myData.size());
+        Collection<? extends T> values = c;
+        if (set) {
+            List<T> unique = new ArrayList<T>( c.size() );
+            for(T value : c) {
+                if ( !myIndex.contains(value) ) {
+                    myIndex.inserted(value, pos + unique.size());
+                    unique.add( value );
+                }
+            }
+            // the keys are recorded before the storage grows, so no position from pos on is known yet
+            myIndex.invalidate( pos );
+            values = unique;
+        }
+        if ( !values.isEmpty() ) {
+            unshare();
+            myData.addAll(pos, values);
+            fireIntervalAdded(this, pos, pos + values.size() - 1);
+        }
+    }
+    
+    /**
+     * Removes the elements between <code>fromIndex</code> and <code>toIndex</code>,
+     * both inclusive, from the model. The storage is compacted once and a single
+     * interval event is fired.
+     * 
+     * @param fromIndex the index of the first element to be removed
+     * @param toIndex the index of the last element to be removed
+     */
+    @Override
+    public void removeRange(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        unshare();
+        List<T> range = myData.subList(fromIndex, toIndex+1);
+        if (set) {
+            for(T value : range) {
+                myIndex.removed(value, fromIndex);
+            }
+        }
+        range.clear();
+        fireIntervalRemoved(this, fromIndex, toIndex);
+    }
+    
+    /**
+     * Moves the elements at the specified indexes by <code>delta</code> positions.
+     * The affected range is rearranged in place and a single
+     * <code>contentsChanged</code> event is fired.
+     * 
+     * @param indexes the indexes of the elements to move, in any order
+     * @param delta the number of positions to move the elements by
+     * @return the new indexes of the moved elements, sorted
+     */
+    @Override
+    public int[] moveRows(int[] indexes, int delta) {
+        FTMove move = new FTMove(indexes, delta, myData.size());
+        if ( !move.isEmpty() ) {
+            unshare();
+            move.applyTo( myData );
+            if (set) myIndex.invalidate( move.from );
+            fireContentsChanged(this, move.from, move.to);
+        }
+        return move.targets;
+    }
+    
+    /**
+     * Removes the elements at the specified indexes from the model. The storage
+     * is compacted in a single pass and one interval event is fired for each run
+     * of contiguous indexes.
+     * 
+     * @param indexes the indexes of the elements to remove, in any order
+     */
+    @Override
+    public void removeElementsAt(int[] indexes) {
+        FTRemoval removal = new FTRemoval(indexes, myData.size());
+        if ( !removal.isEmpty() ) {
+            if (set) {
+                for(int index : removal.indexes) {
+                    myIndex.removed(myData.get(index), removal.indexes[0]);
+                }
+            }
+            unshare();
+            removal.applyTo( myData );
+            fireElementsRemoved( removal );
+        }
+    }
+    
     /**
      * Removes all elements from the model.
      */
@@ -49,7 +218,9 @@ public class FTSimpleGenericModel<T> extends FTSimpleListModel<T> {
     public void removeAllElements() {
         if ( !myData.isEmpty() ) {
             int last = myData.size() - 1;
+            unshare();
             myData.clear();
+            if (set) myIndex.clear();
             fireIntervalRemoved(this, 0, last);
         }
     }
@@ -57,6 +228,7 @@ public class FTSimpleGenericModel<T> extends FTSimpleListModel<T> {
     /**
      * Insert an element at the specified position into the model.
      * Every element from <code>index</code> will be shifted.
+     * If the model acts as a Set and already contains the element, it does nothing.
      * 
      * @param index the index where to insert the element
      * @param value the element to be inserted
@@ -64,14 +236,14 @@ public class FTSimpleGenericModel<T> extends FTSimpleListModel<T> {
     @Override
     public void insertElementAt(int index, T value) {
         if (index >= 0) {
-            if (myData.size() > index) {
-                myData.add(index, value);
-                fireIntervalAdded(this, index, index+1);
-            } else {
-                int first = myData.size();
-                myData.add( value );
-                fireIntervalAdded(this, first, myData.size()-1);
+            if (set && myIndex.contains(value)) {
+                return;
             }
+            int pos = Math.min(index, myData.size());
+            unshare();
+            myData.add(pos, value);
+            if (set) myIndex.inserted(value, pos);
+            fireIntervalAdded(this, pos, pos);
         } else {
             throw new ArrayIndexOutOfBoundsException("Index must be greater then 0. Passed " + index);
         }
@@ -87,13 +259,11 @@ public class FTSimpleGenericModel<T> extends FTSimpleListModel<T> {
      */
     @Override
     public boolean removeElement(T value) {
-        boolean ret = false;
-        if ( myData.contains(value) ) {
-            int pos = myData.indexOf( value );
-            ret = myData.remove(value);
-            fireIntervalRemoved(this, pos, pos);
+        int pos = indexOf( value );
+        if (pos >= 0) {
+            removeElementAt( pos );
         }
-        return ret;
+        return (pos >= 0);
     }
     
     /**
@@ -108,15 +278,70 @@ public class FTSimpleGenericModel<T> extends FTSimpleListModel<T> {
     public T removeElementAt(int index) {
         T ret = null;
         if ((index >= 0) && (index < myData.size())) {
+            unshare();
             ret =  myData.remove( index );
+            if (set) myIndex.removed(ret, index);
             fireIntervalRemoved(this, index, index);
         }
         return ret;
     }
     
+    /**
+     * Returns the position of the first occurrence of the specified element.
+     * When the model acts as a Set the position is looked up in the hash index.
+     * 
+     * @param value the element to look for
+     * @return the position of the element or -1 if the model doesn't contain it
+     */
+    public int indexOf(T value) {
+        return set ? myIndex.indexOf( value ) : myData.indexOf( value );
+    }
+    
+    /**
+     * Tells whether the model contains the specified element.
+     * 
+     * @param value the element to look for
+     * @return <code>true</code> if the model contains the element
+     */
+    public boolean contains(T value) {
+        return set ? myIndex.contains( value ) : myData.contains( value );
+    }
+    
+    /**
+     * Returns an immutable list with the elements currently in the model, in O(1)
+     * time. The returned list doesn't change when the model changes.
+     * 
+     * @return an immutable copy of the elements of the model
+     */
+    @Override
+    public List<T> snapshot() {
+        shared = true;
+        return Collections.unmodifiableList( myData );
+    }
+    
     @Override
     public T getElementAt(int index) { return myData.get( index ); }
     
     @Override
     public int getSize() { return myData.size(); }
+    
+    /**
+     * Copies the elements into a new <code>ArrayList</code> if the current one is
+     * shared with a snapshot. Must be called before every change to the storage.
+     */
+    /**
+     * Returns an iterator over the elements from <code>index</code> on, used to
+     * rebuild the positions of the Set index in one pass.
+     * 
+     * @param index the position of the first element
+     * @return an iterator starting at <code>index</code>
+     */
+    Iterator<T> elementsFrom(int index) { return myData.listIterator( index ); }
+    
+    private void unshare() {
+        if (shared) {
+            myData = new ArrayList<T>( myData );
+            shared = false;
+        }
+    }
 }
@@ -0,0 +1,85 @@
+package ft.list.models;
+
+/**
+ * A <code>FTSimpleListModel</code> of Integers that stores its values in an
+ * array of <code>int</code>, without boxing them.
+ * <p>Besides the methods of <code>FTSimpleListModel</code>, it offers primitive
+ * accessors such as <code>getInt</code> and <code>addInt</code> that can be used on
+ * hot paths to avoid boxing.
+ *
+ * @author Manuel Agostinetto
+ */
+public class FTSimpleIntegerModel extends FTSimplePrimitiveModel<Integer> {
+
+    private int[] data;
+
+    /**
+     * Creates a <code>FTSimpleIntegerModel</code>.
+     * If <code>set</code> is <code>true</code> the model acts as a Set and
+     * doesn't accept duplicate values.
+     *
+     * @param set if <code>true</code> it acts as a Set
+     */
+    public FTSimpleIntegerModel(boolean set) {
+        super( set );
+        data = new int[ DEFAULT_CAPACITY ];
+    }
+
+    /**
+     * Returns the value at the specified position, without boxing it.
+     *
+     * @param index the position of the value
+     * @return the value at the specified position
+     * @throws ArrayIndexOutOfBoundsException if the index is out of range
+     */
+    public int getInt(int index) {
+        checkIndex( index );
+        return data[index];
+    }
+
+    /**
+     * Adds a value to the bottom of the model, without boxing it.
+     * If the model acts as a Set and already contains the value, it does nothing.
+     *
+     * @param value the value to be added
+     */
+    public void addInt(int value) {
+        int pos = openSlot(getSize(), value);
+        if (pos >= 0) {
+            data[pos] = value;
+            fireIntervalAdded(this, pos, pos);
+        }
+    }
+
+    /**
+     * Returns the position of the first occurrence of the specified value,
+     * without boxing it.
+     *
+     * @param value the value to look for
+     * @return the position of the value or -1 if the model doesn't contain it
+     */
+    public int indexOfInt(int value) {
+        return indexOfKey( value );
+    }
+
+    @Override
+    protected Object getStorage() { return data; }
+
+    @Override
+    protected void setStorage(Object storage) { data = (int[]) storage; }
+
+    @Override
+    protected Object newStorage(int capacity) { return new int[ capacity ]; }
+
+    @Override
+    protected long keyAt(int index) { return data[index]; }
+
+    @Override
+    protected long keyOf(Integer value) { return value.intValue(); }
+
+    @Override
+    protected void store(int index, Integer value) { data[index] = value.intValue(); }
+
+    @Override
+    protected Integer load(int index) { return data[index]; }
+}
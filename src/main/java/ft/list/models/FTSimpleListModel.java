@@ -1,5 +1,16 @@
 package ft.list.models;
 
+import ft.list.FTListMetrics;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import javax.swing.AbstractListModel;
 
 /**
@@ -15,6 +26,20 @@ public abstract class FTSimpleListModel<E> extends AbstractListModel {
      */
     protected boolean set;
     
+    /**
+     * The number of changes notified to the listeners, checked by the
+     * spliterators of this model to fail fast.
+     */
+    private int modCount;
+    
+    private volatile FTListMetrics metrics;
+    
+    /*
+     * The number of elements removed while a removal is notified as the whole model
+     * removed and added again, so the metrics count the rows actually removed.
+     */
+    private int removedRows;
+    
     /**
      * Creates an instance of a <code>FTSimpleListModel</code> that doesn't
      * act as a Set.
@@ -75,4 +100,295 @@ public abstract class FTSimpleListModel<E> extends AbstractListModel {
      * @param element the element to be inserted
      */
     public abstract void insertElementAt(int index, E element);
+
+    /**
+     * Adds all the elements in the specified <code>Collection</code> to the bottom
+     * of this model, in the order they are returned by its iterator.
+     * <p>The default implementation calls <code>addElement</code> for each element;
+     * subclasses should override it in order to grow their storage only once and
+     * notify the listeners with a single interval event.
+     * 
+     * @param c the elements to be added
+     */
+    public void addAll(Collection<? extends E> c) {
+        for(E element : c) {
+            addElement( element );
+        }
+    }
+
+    /**
+     * Inserts all the elements in the specified <code>Collection</code> at the
+     * specified position into the model, in the order they are returned by its
+     * iterator. Every element from <code>index</code> will be shifted.
+     * <p>The default implementation calls <code>insertElementAt</code> for each
+     * element; subclasses should override it in order to shift their storage only
+     * once and notify the listeners with a single interval event.
+     * 
+     * @param index the index where to insert the elements
+     * @param c the elements to be inserted
+     */
+    public void insertAll(int index, Collection<? extends E> c) {
+        int pos = index;
+        for(E element : c) {
+            int size = getSize();
+            insertElementAt(pos, element);
+            if (getSize() > size) {
+                pos++;
+            }
+        }
+    }
+
+    /**
+     * Removes the elements between <code>fromIndex</code> and <code>toIndex</code>,
+     * both inclusive, from this model.
+     * <p>The default implementation calls <code>removeElementAt</code> for each
+     * element; subclasses should override it in order to compact their storage
+     * only once and notify the listeners with a single interval event.
+     * 
+     * @param fromIndex the index of the first element to be removed
+     * @param toIndex the index of the last element to be removed
+     * @throws IllegalArgumentException if <code>fromIndex</code> is greater than
+     * <code>toIndex</code>
+     * @throws ArrayIndexOutOfBoundsException if an index is out of range
+     */
+    public void removeRange(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        for(int i=toIndex; i>=fromIndex; i--) {
+            removeElementAt( i );
+        }
+    }
+
+    /**
+     * Moves the elements at the specified indexes by <code>delta</code> positions,
+     * towards the top of the model when <code>delta</code> is negative. The moved
+     * elements keep their relative order and the other elements fill the positions
+     * left free. The distance is reduced when needed so that no element moves
+     * beyond the top or the bottom of the model.
+     * <p>The default implementation removes the elements and inserts them again;
+     * subclasses should override it in order to rearrange their storage in place
+     * and notify the listeners with a single <code>contentsChanged</code> event.
+     * 
+     * @param indexes the indexes of the elements to move, in any order
+     * @param delta the number of positions to move the elements by
+     * @return the new indexes of the moved elements, sorted
+     * @throws ArrayIndexOutOfBoundsException if an index is out of range
+     */
+    @SuppressWarnings("unchecked")
+    public int[] moveRows(int[] indexes, int delta) {
+        FTMove move = new FTMove(indexes, delta, getSize());
+        if ( !move.isEmpty() ) {
+            Object[] moved = new Object[ move.sources.length ];
+            for(int i=moved.length-1; i>=0; i--) {
+                moved[i] = removeElementAt( move.sources[i] );
+            }
+            for(int i=0; i<moved.length; i++) {
+                insertElementAt(move.targets[i], (E) moved[i]);
+            }
+        }
+        return move.targets;
+    }
+
+    /**
+     * Returns an immutable list with the elements currently in this model. The
+     * returned list doesn't change when the model changes, so it can be read by
+     * another thread while the model keeps changing on the Event Dispatch Thread.
+     * <p>The default implementation copies the elements; subclasses should override it
+     * in order to share their storage with the returned list and return it in O(1)
+     * time. It must be called on the thread that changes the model.
+     * 
+     * @return an immutable copy of the elements of this model
+     */
+    @SuppressWarnings("unchecked")
+    public List<E> snapshot() {
+        int size = getSize();
+        List<E> ret = new ArrayList<E>( size );
+        for(int i=0; i<size; i++) {
+            ret.add( (E) getElementAt(i) );
+        }
+        return Collections.unmodifiableList( ret );
+    }
+
+    /**
+     * Returns a <code>Spliterator</code> over the elements of this model. It reads
+     * the elements from the model as they are requested, without copying them first.
+     * <p>The spliterator is sized and splits evenly, and it's fail-fast: it throws a
+     * <code>ConcurrentModificationException</code> if the model notifies a change
+     * after the spliterator was created. It must be used while the thread that
+     * changes the model is waiting for it, like a stream started on the Event
+     * Dispatch Thread; to read the elements from another thread use the spliterator
+     * of a {@link #snapshot()}.
+     * 
+     * @return a spliterator over the elements of this model
+     */
+    public Spliterator<E> spliterator() {
+        return new FTModelSpliterator<E>(new FTModelSpliterator.Source<E>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            E elementAt(int index) { return (E) getElementAt( index ); }
+
+            @Override
+            int modCount() { return modCount; }
+        }, 0, getSize());
+    }
+
+    /**
+     * Returns a sequential <code>Stream</code> over the elements of this model,
+     * backed by its {@link #spliterator()}.
+     * 
+     * @return a sequential stream over the elements of this model
+     */
+    public Stream<E> stream() { return StreamSupport.stream(spliterator(), false); }
+
+    /**
+     * Returns a parallel <code>Stream</code> over the elements of this model,
+     * backed by its {@link #spliterator()}. The elements are read by the threads
+     * of the common pool while the calling thread waits for the terminal operation.
+     * 
+     * @return a parallel stream over the elements of this model
+     */
+    public Stream<E> parallelStream() { return StreamSupport.stream(spliterator(), true); }
+
+    /**
+     * Performs the given action for each element of this model, in order.
+     * 
+     * @param action the action to be performed for each element
+     * @throws java.util.ConcurrentModificationException if the action changes the model
+     */
+    public void forEach(Consumer<? super E> action) { spliterator().forEachRemaining( action ); }
+
+    /**
+     * Removes the elements at the specified indexes from this model.
+     * <p>The default implementation calls <code>removeRange</code> for each run of
+     * contiguous indexes, from the bottom of the model up; subclasses should
+     * override it in order to compact their storage in a single pass.
+     * 
+     * @param indexes the indexes of the elements to remove, in any order
+     * @throws ArrayIndexOutOfBoundsException if an index is out of range
+     */
+    public void removeElementsAt(int[] indexes) {
+        FTRemoval removal = new FTRemoval(indexes, getSize());
+        for(int run=removal.runStarts.length-1; run>=0; run--) {
+            removeRange(removal.runStarts[run], removal.runEnds[run]);
+        }
+    }
+
+    /**
+     * Removes all the elements of this model that satisfy the specified predicate.
+     * The elements are tested first and then removed with a single call to
+     * <code>removeElementsAt</code>.
+     * 
+     * @param filter the predicate that returns <code>true</code> for the elements
+     * to be removed
+     * @return <code>true</code> if any element was removed
+     */
+    @SuppressWarnings("unchecked")
+    public boolean removeIf(Predicate<? super E> filter) {
+        int size = getSize();
+        int[] matches = new int[ size ];
+        int count = 0;
+        for(int i=0; i<size; i++) {
+            if ( filter.test((E) getElementAt(i)) ) {
+                matches[count++] = i;
+            }
+        }
+        if (count > 0) {
+            removeElementsAt( Arrays.copyOf(matches, count) );
+        }
+        return (count > 0);
+    }
+
+    /**
+     * Sets the metrics that count the changes notified by this model, or
+     * <code>null</code> to stop counting. Usually called by the list that
+     * displays the model.
+     * 
+     * @param metrics the metrics to update, or <code>null</code>
+     * @see ft.list.FTList#setMetrics(FTListMetrics)
+     */
+    public void setMetrics(FTListMetrics metrics) { this.metrics = metrics; }
+
+    /**
+     * Returns the metrics that count the changes notified by this model.
+     * 
+     * @return the metrics of this model, or <code>null</code> if there are none
+     */
+    public FTListMetrics getMetrics() { return metrics; }
+
+    @Override
+    protected void fireContentsChanged(Object source, int index0, int index1) {
+        modCount++;
+        FTListMetrics m = metrics;
+        if (m != null) {
+            m.recordUpdate();
+        }
+        super.fireContentsChanged(source, index0, index1);
+    }
+
+    @Override
+    protected void fireIntervalAdded(Object source, int index0, int index1) {
+        modCount++;
+        FTListMetrics m = metrics;
+        if (m != null) {
+            m.recordInsert( (removedRows > 0) ? 0 : Math.abs(index1 - index0) + 1 );
+        }
+        super.fireIntervalAdded(source, index0, index1);
+    }
+
+    @Override
+    protected void fireIntervalRemoved(Object source, int index0, int index1) {
+        modCount++;
+        FTListMetrics m = metrics;
+        if (m != null) {
+            m.recordDelete( (removedRows > 0) ? removedRows : Math.abs(index1 - index0) + 1 );
+        }
+        super.fireIntervalRemoved(source, index0, index1);
+    }
+
+    /**
+     * Notifies the listeners of a removal already applied to the storage, with one
+     * <code>intervalRemoved</code> event per run fired from the bottom of the model
+     * up. When the runs are too many, the whole model is notified as removed and
+     * added again.
+     * 
+     * @param removal the removal applied to the storage
+     */
+    void fireElementsRemoved(FTRemoval removal) {
+        if (removal.runStarts.length <= FTRemoval.MAX_INTERVAL_EVENTS) {
+            for(int run=removal.runStarts.length-1; run>=0; run--) {
+                fireIntervalRemoved(this, removal.runStarts[run], removal.runEnds[run]);
+            }
+        } else {
+            removedRows = removal.indexes.length;
+            try {
+                fireIntervalRemoved(this, 0, removal.size - 1);
+                if (removal.remaining() > 0) {
+                    fireIntervalAdded(this, 0, removal.remaining() - 1);
+                }
+            } finally {
+                removedRows = 0;
+            }
+        }
+    }
+
+    /**
+     * Checks that the range between <code>fromIndex</code> and <code>toIndex</code>,
+     * both inclusive, is a valid range of elements of this model.
+     * 
+     * @param fromIndex the index of the first element of the range
+     * @param toIndex the index of the last element of the range
+     * @throws IllegalArgumentException if <code>fromIndex</code> is greater than
+     * <code>toIndex</code>
+     * @throws ArrayIndexOutOfBoundsException if an index is out of range
+     */
+    protected void checkRange(int fromIndex, int toIndex) {
+        if (fromIndex > toIndex) {
+            throw new IllegalArgumentException("fromIndex must be <= toIndex. Passed " + fromIndex + " > " + toIndex);
+        }
+        if (fromIndex < 0) {
+            throw new ArrayIndexOutOfBoundsException( fromIndex );
+        }
+        if (toIndex >= getSize()) {
+            throw new ArrayIndexOutOfBoundsException( toIndex );
+        }
+    }
 }
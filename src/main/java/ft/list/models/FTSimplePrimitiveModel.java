@@ -0,0 +1,425 @@
+package ft.list.models;
+
+import java.lang.reflect.Array;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Base class for the <code>FTSimpleListModel</code> implementations that store
+ * their values in an array of primitives rather than in a list of boxed objects.
+ * <p>Subclasses provide the typed array and the conversion between the boxed type
+ * and the primitive type; this class takes care of the growth policy, of shifting
+ * the values and of firing the events. When the model acts as a Set, a primitive
+ * open-addressing hash index from each value to its position is kept alongside
+ * the array.
+ * <p>Primitive models can not contain <code>null</code> values: adding or inserting
+ * <code>null</code> throws a <code>NullPointerException</code>.
+ * <p>{@link #snapshot()} shares the array with the returned list: the first change
+ * after a snapshot copies the array, so taking many snapshots between two changes
+ * costs a single copy.
+ *
+ * @author Manuel Agostinetto
+ * @param <E> the boxed type of the values managed by this model
+ */
+public abstract class FTSimplePrimitiveModel<E> extends FTSimpleListModel<E> {
+
+    /**
+     * The initial capacity of the array of primitives.
+     */
+    protected static final int DEFAULT_CAPACITY = 16;
+
+    private int size;
+    private FTPrimitiveIndex myIndex;
+    private boolean shared;
+
+    /**
+     * Creates a <code>FTSimplePrimitiveModel</code>.
+     * If <code>set</code> is <code>true</code> the model acts as a Set and
+     * doesn't accept duplicate values.
+     *
+     * @param set if <code>true</code> it acts as a Set
+     */
+    protected FTSimplePrimitiveModel(boolean set) {
+        super( set );
+        if (set) {
+            myIndex = new FTPrimitiveIndex() {
+                @Override
+                protected long keyAt(int index) { return FTSimplePrimitiveModel.this.keyAt( index ); }
+
+                @Override
+                protected int size() { return size; }
+            };
+        }
+    }
+
+    /**
+     * Returns the array that stores the values of this model.
+     *
+     * @return the typed array of primitives, as an <code>Object</code>
+     */
+    protected abstract Object getStorage();
+
+    /**
+     * Replaces the array that stores the values of this model.
+     *
+     * @param storage the new typed array of primitives
+     */
+    protected abstract void setStorage(Object storage);
+
+    /**
+     * Creates a new typed array of primitives with the specified capacity.
+     *
+     * @param capacity the length of the new array
+     * @return the new array, as an <code>Object</code>
+     */
+    protected abstract Object newStorage(int capacity);
+
+    /**
+     * Returns the hash key of the value stored at <code>index</code>.
+     * Two values have the same key if and only if their boxed counterparts are equal.
+     *
+     * @param index the position of the value
+     * @return the key of the value
+     */
+    protected abstract long keyAt(int index);
+
+    /**
+     * Returns the hash key of the specified value.
+     *
+     * @param value the value, never <code>null</code>
+     * @return the key of the value
+     */
+    protected abstract long keyOf(E value);
+
+    /**
+     * Stores the specified value at <code>index</code>, unboxing it.
+     *
+     * @param index the position where to store the value
+     * @param value the value to store
+     */
+    protected abstract void store(int index, E value);
+
+    /**
+     * Reads the value stored at <code>index</code>, boxing it.
+     *
+     * @param index the position of the value
+     * @return the boxed value
+     */
+    protected abstract E load(int index);
+
+    @Override
+    public void addElement(E value) {
+        int pos = openSlot(size, keyOf(value));
+        if (pos >= 0) {
+            store(pos, value);
+            fireIntervalAdded(this, pos, pos);
+        }
+    }
+
+    @Override
+    public void insertElementAt(int index, E value) {
+        if (index < 0) {
+            throw new ArrayIndexOutOfBoundsException("Index must be greater then 0. Passed " + index);
+        }
+        int pos = openSlot(index, keyOf(value));
+        if (pos >= 0) {
+            store(pos, value);
+            fireIntervalAdded(this, pos, pos);
+        }
+    }
+
+    @Override
+    public void addAll(Collection<? extends E> c) {
+        checkNotNull( c );
+        int first = size;
+        ensureCapacity(size + c.size());
+        for(E value : c) {
+            long key = keyOf( value );
+            if (!set || !myIndex.contains(key)) {
+                store(size++, value);
+                if (set) myIndex.inserted(key, size-1);
+            }
+        }
+        if (size > first) {
+            fireIntervalAdded(this, first, size-1);
+        }
+    }
+
+    @Override
+    public void insertAll(int index, Collection<? extends E> c) {
+        if (index < 0) {
+            throw new ArrayIndexOutOfBoundsException("Index must be greater then 0. Passed " + index);
+        }
+        checkNotNull( c );
+        int pos = Math.min(index, size);
+        Collection<? extends E> values = c;
+        if (set) {
+            List<E> unique = new ArrayList<E>( c.size() );
+            for(E value : c) {
+                long key = keyOf( value );
+                if ( !myIndex.contains(key) ) {
+                    myIndex.inserted(key, pos + unique.size());
+                    unique.add( value );
+                }
+            }
+            // the keys are recorded before the storage grows, so no position from pos on is known yet
+            myIndex.invalidate( pos );
+            values = unique;
+        }
+        int count = values.size();
+        if (count > 0) {
+            ensureCapacity(size + count);
+            Object storage = getStorage();
+            System.arraycopy(storage, pos, storage, pos + count, size - pos);
+            size += count;
+            int i = pos;
+            for(E value : values) {
+                store(i++, value);
+            }
+            fireIntervalAdded(this, pos, pos + count - 1);
+        }
+    }
+
+    @Override
+    public void removeRange(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (set) {
+            for(int i=fromIndex; i<=toIndex; i++) {
+                myIndex.removed(keyAt(i), fromIndex);
+            }
+        }
+        unshare();
+        Object storage = getStorage();
+        System.arraycopy(storage, toIndex + 1, storage, fromIndex, size - toIndex - 1);
+        size -= toIndex - fromIndex + 1;
+        fireIntervalRemoved(this, fromIndex, toIndex);
+    }
+
+    @Override
+    public int[] moveRows(int[] indexes, int delta) {
+        FTMove move = new FTMove(indexes, delta, size);
+        if ( !move.isEmpty() ) {
+            unshare();
+            move.applyTo( getStorage() );
+            if (set) myIndex.invalidate( move.from );
+            fireContentsChanged(this, move.from, move.to);
+        }
+        return move.targets;
+    }
+
+    @Override
+    public void removeElementsAt(int[] indexes) {
+        FTRemoval removal = new FTRemoval(indexes, size);
+        if ( !removal.isEmpty() ) {
+            if (set) {
+                for(int index : removal.indexes) {
+                    myIndex.removed(keyAt(index), removal.indexes[0]);
+                }
+            }
+            unshare();
+            removal.applyTo( getStorage() );
+            size = removal.remaining();
+            fireElementsRemoved( removal );
+        }
+    }
+
+    @Override
+    public void removeAllElements() {
+        if (size > 0) {
+            int last = size - 1;
+            size = 0;
+            setStorage( newStorage(DEFAULT_CAPACITY) );
+            shared = false;
+            if (set) myIndex.clear();
+            fireIntervalRemoved(this, 0, last);
+        }
+    }
+
+    @Override
+    public E removeElementAt(int index) {
+        E ret = null;
+        if ((index >= 0) && (index < size)) {
+            ret = load( index );
+            if (set) myIndex.removed(keyAt(index), index);
+            unshare();
+            Object storage = getStorage();
+            System.arraycopy(storage, index + 1, storage, index, size - index - 1);
+            size--;
+            fireIntervalRemoved(this, index, index);
+        }
+        return ret;
+    }
+
+    @Override
+    public boolean removeElement(E value) {
+        int pos = (value != null) ? indexOfKey( keyOf(value) ) : -1;
+        if (pos >= 0) {
+            removeElementAt( pos );
+        }
+        return (pos >= 0);
+    }
+
+    /**
+     * Returns the position of the first occurrence of the specified value.
+     * When the model acts as a Set the position is looked up in the hash index.
+     *
+     * @param value the value to look for
+     * @return the position of the value or -1 if the model doesn't contain it
+     */
+    public int indexOf(E value) {
+        return (value != null) ? indexOfKey( keyOf(value) ) : -1;
+    }
+
+    /**
+     * Tells whether the model contains the specified value.
+     *
+     * @param value the value to look for
+     * @return <code>true</code> if the model contains the value
+     */
+    public boolean contains(E value) {
+        return (indexOf(value) >= 0);
+    }
+
+    /**
+     * Returns an immutable list with the values currently in the model, in O(1)
+     * time. The returned list doesn't change when the model changes; its elements
+     * are boxed when they are read.
+     *
+     * @return an immutable copy of the values of the model
+     */
+    @Override
+    public List<E> snapshot() {
+        shared = true;
+        return new FTArraySnapshot<E>(getStorage(), size);
+    }
+
+    @Override
+    public E getElementAt(int index) {
+        checkIndex( index );
+        return load( index );
+    }
+
+    @Override
+    public int getSize() { return size; }
+
+    /**
+     * Makes room for a value with the specified key at <code>index</code>,
+     * shifting the following values. Primitive accessors of subclasses use it to
+     * add values without boxing them.
+     *
+     * @param index the requested position; if greater than the size of the model
+     * the value is appended
+     * @param key the key of the value that will be stored
+     * @return the position where the value must be stored, or -1 if the model
+     * acts as a Set and already contains the value
+     */
+    protected final int openSlot(int index, long key) {
+        if (set && myIndex.contains(key)) {
+            return -1;
+        }
+        ensureCapacity(size + 1);
+        int pos = Math.min(index, size);
+        if (pos < size) {
+            Object storage = getStorage();
+            System.arraycopy(storage, pos, storage, pos + 1, size - pos);
+        }
+        size++;
+        if (set) myIndex.inserted(key, pos);
+        return pos;
+    }
+
+    /**
+     * Returns the position of the first value with the specified key.
+     *
+     * @param key the key to look for
+     * @return the position of the value or -1 if the model doesn't contain it
+     */
+    protected final int indexOfKey(long key) {
+        if (set) {
+            return myIndex.indexOf( key );
+        }
+        for(int i=0; i<size; i++) {
+            if (keyAt(i) == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks that <code>index</code> is the position of a value in this model.
+     *
+     * @param index the index to check
+     * @throws ArrayIndexOutOfBoundsException if the index is out of range
+     */
+    protected final void checkIndex(int index) {
+        if ((index < 0) || (index >= size)) {
+            throw new ArrayIndexOutOfBoundsException( index );
+        }
+    }
+
+    /*
+     * Rejects a collection containing null before any value of it is stored, so
+     * that a failed addAll or insertAll leaves the model unchanged.
+     */
+    private void checkNotNull(Collection<? extends E> c) {
+        for(E value : c) {
+            if (value == null) {
+                throw new NullPointerException("Primitive models can not contain null values");
+            }
+        }
+    }
+
+    /**
+     * Grows the array to at least <code>capacity</code> values. If the array is
+     * shared with a snapshot, it's copied even when it's large enough.
+     */
+    private void ensureCapacity(int capacity) {
+        Object storage = getStorage();
+        int length = Array.getLength( storage );
+        if ((capacity > length) || shared) {
+            int newLength = (capacity > length) ? Math.max(capacity, length + (length >> 1) + 1) : length;
+            Object newArray = newStorage( newLength );
+            System.arraycopy(storage, 0, newArray, 0, size);
+            setStorage( newArray );
+            shared = false;
+        }
+    }
+
+    /**
+     * Copies the array if it's shared with a snapshot. Must be called before
+     * every change to the storage.
+     */
+    private void unshare() {
+        ensureCapacity( size );
+    }
+
+    /**
+     * An immutable view over the first values of an array of primitives that
+     * the model doesn't change anymore.
+     */
+    private static final class FTArraySnapshot<E> extends AbstractList<E> implements RandomAccess {
+        private final Object array;
+        private final int size;
+
+        FTArraySnapshot(Object array, int size) {
+            this.array = array;
+            this.size = size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E get(int index) {
+            if ((index < 0) || (index >= size)) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return (E) Array.get(array, index);
+        }
+
+        @Override
+        public int size() { return size; }
+    }
+}
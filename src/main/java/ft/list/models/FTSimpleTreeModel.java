@@ -0,0 +1,51 @@
+package ft.list.models;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A generic <code>FTSimpleListModel</code> that stores its elements in a balanced
+ * tree rather than in an <code>ArrayList</code>.
+ * <p>Inserting or removing an element takes O(log n) time wherever it is in the
+ * model, while an <code>ArrayList</code> shifts every element after it. Reading an
+ * element by position also takes O(log n) time, so this model pays off when
+ * elements are often inserted or removed far from the bottom of long lists, for
+ * example when new elements are always inserted at the top.
+ * <p>{@link #snapshot()} shares the nodes of the tree with the returned list, so
+ * neither taking a snapshot nor changing the model afterwards copies the elements.
+ *
+ * @author Manuel Agostinetto
+ * @param <T> the type of elements managed by this model
+ */
+public class FTSimpleTreeModel<T> extends FTSimpleGenericModel<T> {
+
+    private final FTTreeList<T> tree;
+
+    /**
+     * Creates a <code>FTSimpleTreeModel</code>.
+     * If <code>set</code> is <code>true</code> the model acts as a Set and
+     * doesn't accept duplicate elements.
+     *
+     * @param set if <code>true</code> it acts as a Set
+     */
+    public FTSimpleTreeModel(boolean set) {
+        this(set, new FTTreeList<T>());
+    }
+
+    private FTSimpleTreeModel(boolean set, FTTreeList<T> tree) {
+        super(set, tree);
+        this.tree = tree;
+    }
+
+    /**
+     * Returns an immutable list with the elements currently in the model, in O(1)
+     * time. The returned list doesn't change when the model changes.
+     *
+     * @return an immutable copy of the elements of the model
+     */
+    @Override
+    public List<T> snapshot() { return tree.snapshot(); }
+
+    @Override
+    Iterator<T> elementsFrom(int index) { return tree.iterator( index ); }
+}
@@ -0,0 +1,499 @@
+package ft.list.models;
+
+import java.lang.reflect.Array;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A model for a <code>FTTableList</code> that stores its data by column.
+ * <p>Each column is kept in a contiguous array, of primitives when the type of the
+ * cells is <code>Integer</code>, <code>Long</code>, <code>Double</code> or
+ * <code>Float</code>, so the model doesn't hold an array per row nor a boxed object
+ * per cell. <code>getValueAt</code> reads directly from the column, while
+ * <code>getRow</code> materializes a new array each time it is called: rows of this
+ * model should be compared by content, never by identity.
+ * <p>Rows are identified as in {@link FTTableGenericModel}: by the content of all
+ * their cells or of a subset of key columns. When the model acts as a Set, a hash
+ * index from each row identity to its position is kept alongside the columns.
+ * <p>All the columns are declared with the class of the cells of the model.
+ * <p>{@link #snapshot()} shares the columns with the returned list: the first change
+ * after a snapshot copies them, so taking many snapshots between two changes costs
+ * a single copy.
+ *
+ * @author Manuel Agostinetto
+ * @param <T> the type of the cells managed by this model
+ */
+public class FTTableColumnarModel<T> extends FTTableListModel<T[]> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private Class<T> type;
+    private FTColumnStorage[] columns;
+    private int size;
+    private int capacity;
+    private FTPositionIndex<FTRowKey> myIndex;
+    private int[] keyColumns;
+    private boolean shared;
+
+    /**
+     * Creates an instance of <code>FTTableColumnarModel</code> with a header.
+     * If the <code>set</code> param is set to <code>true</code> the model acts
+     * as a Set and doesn't accept duplicate rows.
+     *
+     * @param headers the array of Strings used for the table header
+     * @param type the class of the cells of the table
+     * @param set if <code>true</code> the model acts as a Set and doesn't
+     * accept duplicate values
+     */
+    public FTTableColumnarModel(String[] headers, Class<T> type, boolean set) {
+        this(headers, type, set, null);
+    }
+
+    /**
+     * Creates an instance of <code>FTTableColumnarModel</code> with a header,
+     * identifying rows by the values in the <code>keyColumns</code> columns.
+     * If the <code>set</code> param is set to <code>true</code> the model acts
+     * as a Set and doesn't accept two rows with the same values in the key columns.
+     *
+     * @param headers the array of Strings used for the table header
+     * @param type the class of the cells of the table
+     * @param set if <code>true</code> the model acts as a Set and doesn't
+     * accept duplicate values
+     * @param keyColumns the indexes of the columns that identify a row, or
+     * <code>null</code> to identify rows by all their cells
+     */
+    public FTTableColumnarModel(String[] headers, Class<T> type, boolean set, int[] keyColumns) {
+        super(FTColumn.of(headers, type), set);
+        this.type = type;
+        capacity = DEFAULT_CAPACITY;
+        columns = new FTColumnStorage[ headers.length ];
+        for(int i=0; i<columns.length; i++) {
+            columns[i] = FTColumnStorage.forType(type, capacity);
+        }
+        if (keyColumns != null) {
+            for(int col : keyColumns) {
+                if ((col < 0) || (col >= headers.length)) {
+                    throw new IllegalArgumentException("Column " + col + " not found.");
+                }
+            }
+            this.keyColumns = keyColumns.clone();
+        }
+        if (set) {
+            myIndex = new FTPositionIndex<FTRowKey>() {
+                @Override
+                protected FTRowKey keyAt(int pos) { return FTTableColumnarModel.this.keyAt( pos ); }
+
+                @Override
+                protected int size() { return size; }
+            };
+        }
+    }
+
+    /**
+     * Returns the indexes of the columns that identify a row.
+     *
+     * @return the indexes of the key columns, or <code>null</code> if rows are
+     * identified by all their cells
+     */
+    public int[] getKeyColumns() {
+        return (keyColumns != null) ? keyColumns.clone() : null;
+    }
+
+    @Override
+    public void removeAllRows() {
+        int last = size - 1;
+        size = 0;
+        capacity = DEFAULT_CAPACITY;
+        for(int i=0; i<columns.length; i++) {
+            columns[i] = FTColumnStorage.forType(type, capacity);
+        }
+        shared = false;
+        if (set) myIndex.clear();
+        if (last >= 0) {
+            fireTableRowsDeleted(0, last);
+        }
+    }
+
+    @Override
+    public void insertElementAt(int index, T[] row) {
+        if (index < 0) {
+            throw new ArrayIndexOutOfBoundsException("Index must be greater then 0. Passed " + index);
+        }
+        FTRowKey key = null;
+        if (set) {
+            key = keyOf( row );
+            if (myIndex.contains(key)) {
+                return;
+            }
+        }
+        int pos = Math.min(index, size);
+        openGap(pos, 1);
+        store(pos, row);
+        if (set) myIndex.inserted(key, pos);
+        fireTableRowsInserted(pos, pos);
+    }
+
+    @Override
+    public void addRow(T[] row) {
+        insertElementAt(size, row);
+    }
+
+    @Override
+    public void addRows(Collection<? extends T[]> rows) {
+        int first = size;
+        ensureCapacity(size + rows.size());
+        for(T[] row : rows) {
+            FTRowKey key = set ? keyOf( row ) : null;
+            if (!set || !myIndex.contains(key)) {
+                store(size++, row);
+                if (set) myIndex.inserted(key, size-1);
+            }
+        }
+        if (size > first) {
+            fireTableRowsInserted(first, size-1);
+        }
+    }
+
+    @Override
+    public void insertRows(int index, Collection<? extends T[]> rows) {
+        if (index < 0) {
+            throw new ArrayIndexOutOfBoundsException("Index must be greater then 0. Passed " + index);
+        }
+        int pos = Math.min(index, size);
+        Collection<? extends T[]> values = rows;
+        if (set) {
+            List<T[]> unique = new ArrayList<T[]>( rows.size() );
+            for(T[] row : rows) {
+                FTRowKey key = keyOf( row );
+                if ( !myIndex.contains(key) ) {
+                    myIndex.inserted(key, pos + unique.size());
+                    unique.add( row );
+                }
+            }
+            // the keys are recorded before the storage grows, so no position from pos on is known yet
+            myIndex.invalidate( pos );
+            values = unique;
+        }
+        if ( !values.isEmpty() ) {
+            openGap(pos, values.size());
+            int i = pos;
+            for(T[] row : values) {
+                store(i++, row);
+            }
+            fireTableRowsInserted(pos, pos + values.size() - 1);
+        }
+    }
+
+    @Override
+    public T[] removeRow(int index) {
+        T[] ret = null;
+        if ((index >= 0) && (index < size)) {
+            ret = getRow( index );
+            if (set) myIndex.removed(keyOf(ret), index);
+            closeGap(index, 1);
+            fireTableRowsDeleted(index, index);
+        }
+        return ret;
+    }
+
+    /**
+     * Moves the rows at the specified indexes by <code>delta</code> positions.
+     * The affected range is rearranged in place and a single
+     * <code>rowsUpdated</code> event is fired.
+     *
+     * @param indexes the indexes of the rows to move, in any order
+     * @param delta the number of positions to move the rows by
+     * @return the new indexes of the moved rows, sorted
+     */
+    @Override
+    public int[] moveRows(int[] indexes, int delta) {
+        FTMove move = new FTMove(indexes, delta, size);
+        if ( !move.isEmpty() ) {
+            unshare();
+            for(FTColumnStorage column : columns) {
+                column.rearrange( move );
+            }
+            if (set) myIndex.invalidate( move.from );
+            fireTableRowsUpdated(move.from, move.to);
+        }
+        return move.targets;
+    }
+
+    @Override
+    public void removeRows(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (set) {
+            for(int i=fromIndex; i<=toIndex; i++) {
+                myIndex.removed(keyAt(i), fromIndex);
+            }
+        }
+        closeGap(fromIndex, toIndex - fromIndex + 1);
+        fireTableRowsDeleted(fromIndex, toIndex);
+    }
+
+    @Override
+    public void removeElementsAt(int[] indexes) {
+        FTRemoval removal = new FTRemoval(indexes, size);
+        if ( !removal.isEmpty() ) {
+            if (set) {
+                for(int index : removal.indexes) {
+                    myIndex.removed(keyAt(index), removal.indexes[0]);
+                }
+            }
+            unshare();
+            for(FTColumnStorage column : columns) {
+                column.compact( removal );
+            }
+            size = removal.remaining();
+            fireRowsRemoved( removal );
+        }
+    }
+
+    @Override
+    public boolean removeElement(T[] row) {
+        int index = indexOf( row );
+        if (index >= 0) {
+            removeRow( index );
+        }
+        return (index >= 0);
+    }
+
+    /**
+     * Returns the index of the first row with the same identity of the specified row.
+     * When the model acts as a Set the position is looked up in the hash index.
+     *
+     * @param row the row to look for
+     * @return the index of the row or -1 if the model doesn't contain it
+     */
+    public int indexOf(T[] row) {
+        FTRowKey key = keyOf( row );
+        if (set) {
+            return myIndex.indexOf( key );
+        }
+        for(int i=0; i<size; i++) {
+            if (key.equals( keyAt(i) )) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Tells whether the model contains a row with the same identity of the specified row.
+     *
+     * @param row the row to look for
+     * @return <code>true</code> if the model contains the row
+     */
+    public boolean contains(T[] row) {
+        return set ? myIndex.contains( keyOf(row) ) : (indexOf(row) >= 0);
+    }
+
+    /**
+     * Returns a new array with the cells of the specified row.
+     *
+     * @param index the index of the row
+     * @return a new array with the cells of the row
+     */
+    @Override
+    public T[] getRow(int index) {
+        checkRow( index );
+        return rowOf(type, columns, index);
+    }
+
+    /**
+     * Returns an immutable list with the rows currently in the table, in O(1)
+     * time. The returned list doesn't change when the model changes; like
+     * <code>getRow</code>, it materializes a new array each time a row is read.
+     *
+     * @return an immutable copy of the rows of the table
+     */
+    @Override
+    public List<T[]> snapshot() {
+        shared = true;
+        return new FTColumnarSnapshot<T>(type, columns.clone(), size);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T getValueAt(int row, int col) {
+        T ret = null;
+        if (row < size) {
+            if (col < columns.length) {
+                ret = (T) columns[col].get( row );
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Returns the value of a numeric cell as a <code>double</code>, without boxing it.
+     *
+     * @param row the index of the row
+     * @param col the index of the column
+     * @return the value of the cell as a <code>double</code>
+     * @throws NullPointerException if the cell is <code>null</code>
+     */
+    public double getDouble(int row, int col) {
+        checkCell(row, col);
+        return columns[col].doubleAt( row );
+    }
+
+    /**
+     * Returns the value of a numeric cell as a <code>long</code>, without boxing it.
+     *
+     * @param row the index of the row
+     * @param col the index of the column
+     * @return the value of the cell as a <code>long</code>
+     * @throws NullPointerException if the cell is <code>null</code>
+     */
+    public long getLong(int row, int col) {
+        checkCell(row, col);
+        return columns[col].longAt( row );
+    }
+
+    /**
+     * Tells whether the specified cell is <code>null</code>.
+     *
+     * @param row the index of the row
+     * @param col the index of the column
+     * @return <code>true</code> if the cell is <code>null</code>
+     */
+    public boolean isNull(int row, int col) {
+        checkCell(row, col);
+        return columns[col].isNull( row );
+    }
+
+    @Override
+    public int getRowCount() {
+        return size;
+    }
+
+    private void checkRow(int row) {
+        if ((row < 0) || (row >= size)) {
+            throw new ArrayIndexOutOfBoundsException( row );
+        }
+    }
+
+    private void checkCell(int row, int col) {
+        checkRow( row );
+        if ((col < 0) || (col >= columns.length)) {
+            throw new ArrayIndexOutOfBoundsException( col );
+        }
+        if (columns[col].isNull(row)) {
+            throw new NullPointerException("Cell (" + row + ", " + col + ") is null");
+        }
+    }
+
+    /*
+     * Builds the key of a row passed by the caller as if it was stored: the
+     * missing cells are null and the exceeding ones are ignored, like store
+     * does, so that the key equals the one keyAt returns once the row is stored.
+     */
+    private FTRowKey keyOf(T[] row) {
+        return FTRowKey.of(Arrays.copyOf(row, columns.length), keyColumns);
+    }
+
+    private FTRowKey keyAt(int pos) {
+        Object[] values;
+        if (keyColumns == null) {
+            values = new Object[ columns.length ];
+            for(int col=0; col<columns.length; col++) {
+                values[col] = columns[col].get( pos );
+            }
+        } else {
+            values = new Object[ keyColumns.length ];
+            for(int i=0; i<keyColumns.length; i++) {
+                values[i] = columns[ keyColumns[i] ].get( pos );
+            }
+        }
+        return FTRowKey.of(values, null);
+    }
+
+    private void store(int pos, T[] row) {
+        for(int col=0; col<columns.length; col++) {
+            columns[col].set(pos, (col < row.length) ? row[col] : null);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T[] rowOf(Class<T> type, FTColumnStorage[] columns, int index) {
+        T[] ret = (T[]) Array.newInstance(type, columns.length);
+        for(int col=0; col<columns.length; col++) {
+            ret[col] = (T) columns[col].get( index );
+        }
+        return ret;
+    }
+
+    /**
+     * Copies the columns if they are shared with a snapshot. Must be called before
+     * every change to the storage.
+     */
+    private void unshare() {
+        if (shared) {
+            for(int i=0; i<columns.length; i++) {
+                columns[i] = columns[i].copy(capacity, size);
+            }
+            shared = false;
+        }
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        unshare();
+        if (minCapacity > capacity) {
+            int newCapacity = Math.max(minCapacity, capacity + (capacity >> 1) + 1);
+            for(FTColumnStorage column : columns) {
+                column.grow(newCapacity, size);
+            }
+            capacity = newCapacity;
+        }
+    }
+
+    private void openGap(int pos, int count) {
+        ensureCapacity(size + count);
+        if (pos < size) {
+            for(FTColumnStorage column : columns) {
+                column.move(pos, pos + count, size - pos);
+            }
+        }
+        size += count;
+    }
+
+    private void closeGap(int pos, int count) {
+        unshare();
+        for(FTColumnStorage column : columns) {
+            column.move(pos + count, pos, size - pos - count);
+            column.release(size - count, size);
+        }
+        size -= count;
+    }
+
+    /**
+     * An immutable view over columns that the model doesn't change anymore.
+     */
+    private static final class FTColumnarSnapshot<T> extends AbstractList<T[]> implements RandomAccess {
+        private final Class<T> type;
+        private final FTColumnStorage[] columns;
+        private final int size;
+
+        FTColumnarSnapshot(Class<T> type, FTColumnStorage[] columns, int size) {
+            this.type = type;
+            this.columns = columns;
+            this.size = size;
+        }
+
+        @Override
+        public T[] get(int index) {
+            if ((index < 0) || (index >= size)) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return rowOf(type, columns, index);
+        }
+
+        @Override
+        public int size() { return size; }
+    }
+}
@@ -5,15 +5,33 @@
 package ft.list.models;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 
 /**
  * This class represents a generic model for a <code>FTTableList</code>.
+ * The rows are stored in an <code>ArrayList</code>, or in another <code>List</code>
+ * chosen by a subclass (see {@link FTTableTreeModel}).
+ * <p>Rows are compared by content: two rows are the same row when the values of
+ * their cells are equal. The identity of a row can be restricted to a subset of
+ * key columns, in which case two rows with equal values in the key columns are
+ * the same row even if the other cells differ.
+ * When the model acts as a Set, a hash index from each row identity to its
+ * position is kept alongside the data, so that duplicate checks and removal by
+ * value don't need to scan the whole table.
+ * <p>{@link #snapshot()} shares the <code>ArrayList</code> with the returned list:
+ * the first change after a snapshot copies the rows into a new <code>ArrayList</code>.
  * 
  * @author Manuel.Agostinetto
  * @param <T> the type of elements managed by this model.
  */
 public class FTTableGenericModel<T> extends FTTableListModel<T[]> {
-    private ArrayList<T[]> myData;
+    private List<T[]> myData;
+    private FTPositionIndex<FTRowKey> myIndex;
+    private int[] keyColumns;
+    private boolean shared;
     
     /**
      * Creates an instance of <code>FTTableGenericModel</code> with a header.
@@ -25,27 +43,133 @@ public class FTTableGenericModel<T> extends FTTableListModel<T[]> {
      * accept duplicate values
      */
     public FTTableGenericModel(String[] headers, boolean set) {
-        super(headers, set);
-        myData = new ArrayList<T[]>();
+        this(headers, set, null);
+    }
+    
+    /**
+     * Creates an instance of <code>FTTableGenericModel</code> with a header,
+     * identifying rows by the values in the <code>keyColumns</code> columns.
+     * If the <code>set</code> param is set to <code>true</code> the model acts
+     * as a Set and doesn't accept two rows with the same values in the key columns.
+     * 
+     * @param headers the array of Strings used for the table header
+     * @param set if <code>true</code> the model acts as a Set and doesn't
+     * accept duplicate values
+     * @param keyColumns the indexes of the columns that identify a row, or
+     * <code>null</code> to identify rows by all their cells
+     */
+    public FTTableGenericModel(String[] headers, boolean set, int[] keyColumns) {
+        this(FTColumn.of( headers ), set, keyColumns);
+    }
+    
+    /**
+     * Creates an instance of <code>FTTableGenericModel</code> with declared columns.
+     * If the <code>set</code> param is set to <code>true</code> the model acts
+     * as a Set and doesn't accept duplicate elements.
+     * 
+     * @param columns the declaration of the columns of the table
+     * @param set if <code>true</code> the model acts as a Set and doesn't
+     * accept duplicate values
+     */
+    public FTTableGenericModel(FTColumn[] columns, boolean set) {
+        this(columns, set, null);
+    }
+    
+    /**
+     * Creates an instance of <code>FTTableGenericModel</code> with declared columns,
+     * identifying rows by the values in the <code>keyColumns</code> columns.
+     * If the <code>set</code> param is set to <code>true</code> the model acts
+     * as a Set and doesn't accept two rows with the same values in the key columns.
+     * 
+     * @param columns the declaration of the columns of the table
+     * @param set if <code>true</code> the model acts as a Set and doesn't
+     * accept duplicate values
+     * @param keyColumns the indexes of the columns that identify a row, or
+     * <code>null</code> to identify rows by all their cells
+     */
+    public FTTableGenericModel(FTColumn[] columns, boolean set, int[] keyColumns) {
+        this(columns, set, keyColumns, new ArrayList<T[]>());
+    }
+    
+    /**
+     * Creates an instance of <code>FTTableGenericModel</code> with declared columns
+     * that stores its rows in the specified list, which must be empty.
+     * 
+     * @param columns the declaration of the columns of the table
+     * @param set if <code>true</code> the model acts as a Set and doesn't
+     * accept duplicate values
+     * @param keyColumns the indexes of the columns that identify a row, or
+     * <code>null</code> to identify rows by all their cells
+     * @param storage the empty list used to store the rows
+     */
+    protected FTTableGenericModel(FTColumn[] columns, boolean set, int[] keyColumns, List<T[]> storage) {
+        super(columns, set);
+        myData = storage;
+        if (keyColumns != null) {
+            for(int col : keyColumns) {
+                if ((col < 0) || (col >= columns.length)) {
+                    throw new IllegalArgumentException("Column " + col + " not found.");
+                }
+            }
+            this.keyColumns = keyColumns.clone();
+        }
+        if (set) {
+            myIndex = new FTPositionIndex<FTRowKey>() {
+                @Override
+                protected FTRowKey keyAt(int pos) { return keyOf( myData.get(pos) ); }
+
+                @Override
+                protected int size() { return myData.size(); }
+
+                @Override
+                protected Iterator<FTRowKey> keysFrom(int pos) {
+                    final Iterator<T[]> rows = rowsFrom( pos );
+                    return new Iterator<FTRowKey>() {
+                        @Override
+                        public boolean hasNext() { return rows.hasNext(); }
+
+                        @Override
+                        public FTRowKey next() { return keyOf( rows.next() ); }
+                    };
+                }
+            };
+        }
+    }
+    
+    /**
+     * Returns the indexes of the columns that identify a row.
+     * 
+     * @return the indexes of the key columns, or <code>null</code> if rows are
+     * identified by all their cells
+     */
+    public int[] getKeyColumns() {
+        return (keyColumns != null) ? keyColumns.clone() : null;
     }
     
     @Override
     public void removeAllRows() {
         int size = myData.size();
+        unshare();
         myData.clear();
+        if (set) myIndex.clear();
         fireTableRowsDeleted(0, size);
     }
     
     @Override
     public void insertElementAt(int index, T[] row) {
         if (index >= 0) {
-            if (myData.size() > index) {
-                myData.add(index, row);
-                fireTableRowsInserted(index, index);
-            } else {
-                myData.add( row );
-                fireTableRowsInserted(myData.size()-1, myData.size()-1);
+            FTRowKey key = null;
+            if (set) {
+                key = keyOf( row );
+                if (myIndex.contains(key)) {
+                    return;
+                }
             }
+            int pos = Math.min(index, myData.size());
+            unshare();
+            myData.add(pos, row);
+            if (set) myIndex.inserted(key, pos);
+            fireTableRowsInserted(pos, pos);
         } else {
             throw new ArrayIndexOutOfBoundsException("Index must be greater then 0. Passed " + index);
         }
@@ -53,20 +177,20 @@ public class FTTableGenericModel<T> extends FTTableListModel<T[]> {
     
     @Override
     public boolean removeElement(T[] row) {
-        boolean ret = false;
-        int index = myData.indexOf( row );
+        int index = indexOf( row );
         if (index >= 0) {
-            ret = myData.remove( row );
-            fireTableRowsDeleted(index, index);
+            removeRow( index );
         }
-        return ret;
+        return (index >= 0);
     }
     
     @Override
     public T[] removeRow(int index) {
         T[] ret = null;
         if (index >= 0) {
+            unshare();
             ret = myData.remove( index );
+            if (set) myIndex.removed(keyOf(ret), index);
             fireTableRowsDeleted(index, index);
         }
         return ret;
@@ -74,13 +198,189 @@ public class FTTableGenericModel<T> extends FTTableListModel<T[]> {
     
     @Override
     public void addRow(T[] row) {
-        if (!set || !myData.contains(row)) {
+        FTRowKey key = set ? keyOf(row) : null;
+        if (!set || !myIndex.contains(key)) {
             int size = myData.size();
+            unshare();
             myData.add( row );
+            if (set) myIndex.inserted(key, size);
             fireTableRowsInserted(size, myData.size()-1);
         }
     }
     
+    /**
+     * Adds all the rows in the specified <code>Collection</code> to the table.
+     * The storage is grown once and a single event is fired.
+     * If the model acts as a Set, rows already present are skipped.
+     * 
+     * @param rows the rows to add to the table
+     */
+    @Override
+    public void addRows(Collection<? extends T[]> rows) {
+        int first = myData.size();
+        unshare();
+        if (myData instanceof ArrayList) {
+            ((ArrayList<T[]>) myData).ensureCapacity(first + rows.size());
+        }
+        if (set) {
+            for(T[] row : rows) {
+                FTRowKey key = keyOf( row );
+                if ( !myIndex.contains(key) ) {
+                    myData.add( row );
+                    myIndex.inserted(key, myData.size()-1);
+                }
+            }
+        } else {
+            myData.addAll( rows );
+        }
+        if (myData.size() > first) {
+            fireTableRowsInserted(first, myData.size()-1);
+        }
+    }
+    
+    /**
+     * Inserts all the rows in the specified <code>Collection</code> into the table
+     * starting at the specified index. The storage is shifted once and a single
+     * event is fired.
+     * If the model acts as a Set, rows already present are skipped.
+     * 
+     * @param index the row index of the first row to be inserted
+     * @param rows the rows to be inserted
+     */
+    @Override
+    public void insertRows(int index, Collection<? extends T[]> rows) {
+        if (index < 0) {
+            throw new ArrayIndexOutOfBoundsException("Index must be greater then 0. Passed " + index);
+        }
+        int pos = Math.min(index, myData.size());
+        Collection<? extends T[]> values = rows;
+        if (set) {
+            List<T[]> unique = new ArrayList<T[]>( rows.size() );
+            for(T[] row : rows) {
+                FTRowKey key = keyOf( row );
+                if ( !myIndex.contains(key) ) {
+                    myIndex.inserted(key, pos + unique.size());
+                    unique.add( row );
+                }
+            }
+            // the keys are recorded before the storage grows, so no position from pos on is known yet
+            myIndex.invalidate( pos );
+            values = unique;
+        }
+        if ( !values.isEmpty() ) {
+            unshare();
+            myData.addAll(pos, values);
+            fireTableRowsInserted(pos, pos + values.size() - 1);
+        }
+    }
+    
+    /**
+     * Removes the rows between <code>fromIndex</code> and <code>toIndex</code>,
+     * both inclusive, from the table. The storage is compacted once and a single
+     * event is fired.
+     * 
+     * @param fromIndex the index of the first row to be removed
+     * @param toIndex the index of the last row to be removed
+     */
+    @Override
+    public void removeRows(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        unshare();
+        List<T[]> range = myData.subList(fromIndex, toIndex+1);
+        if (set) {
+            for(T[] row : range) {
+                myIndex.removed(keyOf(row), fromIndex);
+            }
+        }
+        range.clear();
+        fireTableRowsDeleted(fromIndex, toIndex);
+    }
+    
+    /**
+     * Moves the rows at the specified indexes by <code>delta</code> positions.
+     * The affected range is rearranged in place and a single
+     * <code>rowsUpdated</code> event is fired.
+     * 
+     * @param indexes the indexes of the rows to move, in any order
+     * @param delta the number of positions to move the rows by
+     * @return the new indexes of the moved rows, sorted
+     */
+    @Override
+    public int[] moveRows(int[] indexes, int delta) {
+        FTMove move = new FTMove(indexes, delta, myData.size());
+        if ( !move.isEmpty() ) {
+            unshare();
+            move.applyTo( myData );
+            if (set) myIndex.invalidate( move.from );
+            fireTableRowsUpdated(move.from, move.to);
+        }
+        return move.targets;
+    }
+    
+    /**
+     * Removes the rows at the specified indexes from the table. The storage is
+     * compacted in a single pass and a single event is fired.
+     * 
+     * @param indexes the indexes of the rows to remove, in any order
+     */
+    @Override
+    public void removeElementsAt(int[] indexes) {
+        FTRemoval removal = new FTRemoval(indexes, myData.size());
+        if ( !removal.isEmpty() ) {
+            if (set) {
+                for(int index : removal.indexes) {
+                    myIndex.removed(keyOf(myData.get(index)), removal.indexes[0]);
+                }
+            }
+            unshare();
+            removal.applyTo( myData );
+            fireRowsRemoved( removal );
+        }
+    }
+    
+    /**
+     * Returns the index of the first row with the same identity of the specified row.
+     * When the model acts as a Set the position is looked up in the hash index.
+     * 
+     * @param row the row to look for
+     * @return the index of the row or -1 if the model doesn't contain it
+     */
+    public int indexOf(T[] row) {
+        FTRowKey key = keyOf( row );
+        if (set) {
+            return myIndex.indexOf( key );
+        }
+        int size = myData.size();
+        for(int i=0; i<size; i++) {
+            if (key.equals( keyOf(myData.get(i)) )) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Tells whether the model contains a row with the same identity of the specified row.
+     * 
+     * @param row the row to look for
+     * @return <code>true</code> if the model contains the row
+     */
+    public boolean contains(T[] row) {
+        return set ? myIndex.contains( keyOf(row) ) : (indexOf(row) >= 0);
+    }
+    
+    /**
+     * Returns an immutable list with the rows currently in the table, in O(1)
+     * time. The returned list doesn't change when the model changes.
+     * 
+     * @return an immutable copy of the rows of the table
+     */
+    @Override
+    public List<T[]> snapshot() {
+        shared = true;
+        return Collections.unmodifiableList( myData );
+    }
+    
     @Override
     public T[] getRow(int index) {
         return myData.get( index );
@@ -101,4 +401,28 @@ public class FTTableGenericModel<T> extends FTTableListModel<T[]> {
     public int getRowCount() {
         return myData.size();
     }
+    
+    private FTRowKey keyOf(T[] row) {
+        return FTRowKey.of(row, keyColumns);
+    }
+    
+    /**
+     * Copies the rows into a new <code>ArrayList</code> if the current one is
+     * shared with a snapshot. Must be called before every change to the storage.
+     */
+    /**
+     * Returns an iterator over the rows from <code>index</code> on, used to
+     * rebuild the positions of the Set index in one pass.
+     * 
+     * @param index the position of the first row
+     * @return an iterator starting at <code>index</code>
+     */
+    Iterator<T[]> rowsFrom(int index) { return myData.listIterator( index ); }
+    
+    private void unshare() {
+        if (shared) {
+            myData = new ArrayList<T[]>( myData );
+            shared = false;
+        }
+    }
 }
@@ -1,6 +1,19 @@
 package ft.list.models;
 
 import ft.list.*;
+import ft.list.event.FTRowsRemovedEvent;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.swing.event.TableModelEvent;
 import javax.swing.table.*;
 
 /**
@@ -13,13 +26,29 @@ import javax.swing.table.*;
  * <p>To get a concrete subclass of <code>FTTableListModel</code> for manipulating
  * simple data types (such as Strings and Numbers) you can take advantage of
  * the {@link FTModelFactory} factory class.
+ * <p>The columns of the model can be declared with {@link FTColumn} objects. The
+ * class of a declared column is returned by <code>getColumnClass</code> without
+ * looking at the data; the class of an undeclared column is inferred from its first
+ * non-null value and cached until the structure or the whole data of the model
+ * changes.
  * 
  * @author Manuel Agostinetto
  * @param <E> the type of elements managed by the model.
  */
 public abstract class FTTableListModel<E> extends AbstractTableModel {
     
-    private String[] headers;
+    private static final int PROBED_ROWS = 64;
+    
+    private FTColumn[] columns;
+    private Class<?>[] columnClasses;
+    
+    /**
+     * The number of changes notified to the listeners, checked by the
+     * spliterators of this model to fail fast.
+     */
+    private int modCount;
+    
+    private volatile FTListMetrics metrics;
     
     /**
      * Specifies if this model is a Set. Default value is <code>false</code>.
@@ -44,8 +73,33 @@ public abstract class FTTableListModel<E> extends AbstractTableModel {
      * @param set if <code>true</code>, the model is a Set.
      */
     public FTTableListModel(String[] headers, boolean set) {
-        this.headers = headers;
+        this(FTColumn.of( headers ), set);
+    }
+    
+    /**
+     * Constructs a new <code>FTTableListModel</code> with the specified <code>columns</code>.
+     * The model is not a Set.
+     * 
+     * @param columns the declaration of the columns of the table.
+     */
+    public FTTableListModel(FTColumn[] columns) {
+        this(columns, false);
+    }
+    
+    /**
+     * Constructs a new <code>FTTableListModel</code> with the specified <code>columns</code>.
+     * If <code>set</code> is <code>true</code>, the model is intended to be a Set.
+     * 
+     * @param columns the declaration of the columns of the table.
+     * @param set if <code>true</code>, the model is a Set.
+     */
+    public FTTableListModel(FTColumn[] columns, boolean set) {
+        this.columns = columns.clone();
         this.set = set;
+        columnClasses = new Class<?>[ columns.length ];
+        for(int i=0; i<columns.length; i++) {
+            columnClasses[i] = columns[i].getType();
+        }
     }
     
     /**
@@ -63,7 +117,7 @@ public abstract class FTTableListModel<E> extends AbstractTableModel {
      */
     @Override
     public int getColumnCount() {
-        return headers.length;
+        return columns.length;
     }
 
     /**
@@ -75,19 +129,96 @@ public abstract class FTTableListModel<E> extends AbstractTableModel {
      */
     @Override
     public String getColumnName(int col) {
-        return headers[col];
+        return columns[col].getName();
+    }
+    
+    /**
+     * Returns the declaration of the column at <code>col</code> index.
+     * 
+     * @param col the index of the column
+     * @return the declaration of the column
+     */
+    public FTColumn getColumn(int col) {
+        return columns[col];
     }
     
     /**
      * Returns the most specific superclass for all the cell values in the column.
      * This is used by the <code>FTTableList</code> to set up the default renderer
      * for the column.
+     * <p>For a declared column it's the declared class. Otherwise it's the class of
+     * the first non-null value among the first rows of the column, which is cached,
+     * or <code>Object.class</code> if there's no such value.
      * 
      * @param col the index of the column
      * @return the common ancestor class of the object values in the model
      */
     @Override
-    public Class<?> getColumnClass(int col) { return getValueAt(0, col).getClass(); }
+    public Class<?> getColumnClass(int col) {
+        Class<?> ret = columnClasses[col];
+        if (ret == null) {
+            ret = Object.class;
+            int rows = Math.min(getRowCount(), PROBED_ROWS);
+            for(int row=0; row<rows; row++) {
+                Object value = getValueAt(row, col);
+                if (value != null) {
+                    ret = value.getClass();
+                    columnClasses[col] = ret;
+                    break;
+                }
+            }
+        }
+        return ret;
+    }
+    
+    /**
+     * Forwards the event to the listeners of the model. The inferred classes of
+     * the undeclared columns are discarded when the structure or the whole data
+     * of the model changes.
+     * 
+     * @param e the event to be forwarded
+     */
+    @Override
+    public void fireTableChanged(TableModelEvent e) {
+        if ((e.getFirstRow() == TableModelEvent.HEADER_ROW) || (e.getLastRow() == Integer.MAX_VALUE)) {
+            for(int i=0; i<columns.length; i++) {
+                columnClasses[i] = columns[i].getType();
+            }
+        }
+        modCount++;
+        FTListMetrics m = metrics;
+        if (m != null) {
+            if (e instanceof FTRowsRemovedEvent) {
+                m.recordDelete( ((FTRowsRemovedEvent) e).getRemovedRows().length );
+            } else if ((e.getFirstRow() == TableModelEvent.HEADER_ROW) || (e.getLastRow() == Integer.MAX_VALUE)) {
+                m.recordUpdate();
+            } else if (e.getType() == TableModelEvent.INSERT) {
+                m.recordInsert( e.getLastRow() - e.getFirstRow() + 1 );
+            } else if (e.getType() == TableModelEvent.DELETE) {
+                m.recordDelete( e.getLastRow() - e.getFirstRow() + 1 );
+            } else {
+                m.recordUpdate();
+            }
+        }
+        super.fireTableChanged( e );
+    }
+    
+    /**
+     * Sets the metrics that count the changes notified by this model, or
+     * <code>null</code> to stop counting. Usually called by the list that
+     * displays the model.
+     * 
+     * @param metrics the metrics to update, or <code>null</code>
+     * @see FTList#setMetrics(FTListMetrics)
+     */
+    public void setMetrics(FTListMetrics metrics) { this.metrics = metrics; }
+
+    /**
+     * Returns the metrics that count the changes notified by this model.
+     * 
+     * @return the metrics of this model, or <code>null</code> if there are none
+     */
+    public FTListMetrics getMetrics() { return metrics; }
     
     /**
      * This method returns always <code>false</code> in order to not allow cell editing.
@@ -148,4 +279,255 @@ public abstract class FTTableListModel<E> extends AbstractTableModel {
      * @param element the row value to be inserted
      */
     public abstract void insertElementAt(int index, E element);
+    
+    /**
+     * Adds all the objects in the specified <code>Collection</code> to the bottom
+     * of the table, in the order they are returned by its iterator.
+     * <p>The default implementation calls <code>addRow</code> for each object;
+     * subclasses should override it in order to grow their storage only once and
+     * notify the table with a single event.
+     * 
+     * @param elements the rows to add to the table
+     */
+    public void addRows(Collection<? extends E> elements) {
+        for(E element : elements) {
+            addRow( element );
+        }
+    }
+    
+    /**
+     * Inserts all the objects in the specified <code>Collection</code> into the
+     * table starting at the specified index, in the order they are returned by its
+     * iterator. If index is greater than the size of the table, appends the rows
+     * to the end of the table.
+     * <p>The default implementation calls <code>insertElementAt</code> for each
+     * object; subclasses should override it in order to shift their storage only
+     * once and notify the table with a single event.
+     * 
+     * @param index the row index of the first row to be inserted
+     * @param elements the rows to be inserted
+     */
+    public void insertRows(int index, Collection<? extends E> elements) {
+        int pos = index;
+        for(E element : elements) {
+            int size = getRowCount();
+            insertElementAt(pos, element);
+            if (getRowCount() > size) {
+                pos++;
+            }
+        }
+    }
+    
+    /**
+     * Removes the rows between <code>fromIndex</code> and <code>toIndex</code>,
+     * both inclusive, from the table.
+     * <p>The default implementation calls <code>removeRow</code> for each row;
+     * subclasses should override it in order to compact their storage only once
+     * and notify the table with a single event.
+     * 
+     * @param fromIndex the index of the first row to be removed
+     * @param toIndex the index of the last row to be removed
+     * @throws IllegalArgumentException if <code>fromIndex</code> is greater than
+     * <code>toIndex</code>
+     * @throws ArrayIndexOutOfBoundsException if an index is out of range
+     */
+    public void removeRows(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        for(int i=toIndex; i>=fromIndex; i--) {
+            removeRow( i );
+        }
+    }
+    
+    /**
+     * Moves the rows at the specified indexes by <code>delta</code> positions,
+     * towards the top of the table when <code>delta</code> is negative. The moved
+     * rows keep their relative order and the other rows fill the positions left
+     * free. The distance is reduced when needed so that no row moves beyond the
+     * top or the bottom of the table.
+     * <p>The default implementation removes the rows and inserts them again;
+     * subclasses should override it in order to rearrange their storage in place
+     * and notify the table with a single <code>rowsUpdated</code> event.
+     * 
+     * @param indexes the indexes of the rows to move, in any order
+     * @param delta the number of positions to move the rows by
+     * @return the new indexes of the moved rows, sorted
+     * @throws ArrayIndexOutOfBoundsException if an index is out of range
+     */
+    @SuppressWarnings("unchecked")
+    public int[] moveRows(int[] indexes, int delta) {
+        FTMove move = new FTMove(indexes, delta, getRowCount());
+        if ( !move.isEmpty() ) {
+            Object[] moved = new Object[ move.sources.length ];
+            for(int i=moved.length-1; i>=0; i--) {
+                moved[i] = removeRow( move.sources[i] );
+            }
+            for(int i=0; i<moved.length; i++) {
+                insertElementAt(move.targets[i], (E) moved[i]);
+            }
+        }
+        return move.targets;
+    }
+    
+    /**
+     * Returns an immutable list with the rows currently in this model. The
+     * returned list doesn't change when the model changes, so it can be read by
+     * another thread while the model keeps changing on the Event Dispatch Thread.
+     * <p>The default implementation copies the rows; subclasses should override it
+     * in order to share their storage with the returned list and return it in O(1)
+     * time. It must be called on the thread that changes the model.
+     * 
+     * @return an immutable copy of the rows of this model
+     */
+    public List<E> snapshot() {
+        int size = getRowCount();
+        List<E> ret = new ArrayList<E>( size );
+        for(int i=0; i<size; i++) {
+            ret.add( getRow(i) );
+        }
+        return Collections.unmodifiableList( ret );
+    }
+    
+    /**
+     * Returns a <code>Spliterator</code> over the rows of this model. It reads
+     * the rows from the model as they are requested, without copying them first.
+     * <p>The spliterator is sized and splits evenly, and it's fail-fast: it throws a
+     * <code>ConcurrentModificationException</code> if the model notifies a change
+     * after the spliterator was created. It must be used while the thread that
+     * changes the model is waiting for it, like a stream started on the Event
+     * Dispatch Thread; to read the rows from another thread use the spliterator
+     * of a {@link #snapshot()}.
+     * 
+     * @return a spliterator over the rows of this model
+     */
+    public Spliterator<E> spliterator() {
+        return new FTModelSpliterator<E>(new FTModelSpliterator.Source<E>() {
+            @Override
+            E elementAt(int index) { return getRow( index ); }
+    
+            @Override
+            int modCount() { return modCount; }
+        }, 0, getRowCount());
+    }
+    
+    /**
+     * Returns a sequential <code>Stream</code> over the rows of this model,
+     * backed by its {@link #spliterator()}.
+     * 
+     * @return a sequential stream over the rows of this model
+     */
+    public Stream<E> stream() { return StreamSupport.stream(spliterator(), false); }
+    
+    /**
+     * Returns a parallel <code>Stream</code> over the rows of this model,
+     * backed by its {@link #spliterator()}. The rows are read by the threads
+     * of the common pool while the calling thread waits for the terminal operation.
+     * 
+     * @return a parallel stream over the rows of this model
+     */
+    public Stream<E> parallelStream() { return StreamSupport.stream(spliterator(), true); }
+    
+    /**
+     * Performs the given action for each row of this model, in order.
+     * 
+     * @param action the action to be performed for each row
+     * @throws java.util.ConcurrentModificationException if the action changes the model
+     */
+    public void forEach(Consumer<? super E> action) { spliterator().forEachRemaining( action ); }
+    
+    /**
+     * Returns a list that reads the rows of this model when they are requested.
+     * Read-only models return it as their snapshot, since their rows never change.
+     * 
+     * @return a view over the rows of this model
+     */
+    final List<E> rowsView() {
+        return new AbstractList<E>() {
+            @Override
+            public E get(int index) { return getRow( index ); }
+            
+            @Override
+            public int size() { return getRowCount(); }
+        };
+    }
+    
+    /**
+     * Removes the rows at the specified indexes from the table.
+     * <p>The default implementation calls <code>removeRows</code> for each run of
+     * contiguous indexes, from the bottom of the table up; subclasses should
+     * override it in order to compact their storage in a single pass and notify
+     * the table with a single event.
+     * 
+     * @param indexes the indexes of the rows to remove, in any order
+     * @throws ArrayIndexOutOfBoundsException if an index is out of range
+     */
+    public void removeElementsAt(int[] indexes) {
+        FTRemoval removal = new FTRemoval(indexes, getRowCount());
+        for(int run=removal.runStarts.length-1; run>=0; run--) {
+            removeRows(removal.runStarts[run], removal.runEnds[run]);
+        }
+    }
+    
+    /**
+     * Removes all the rows of the table that satisfy the specified predicate.
+     * The rows are tested first and then removed with a single call to
+     * <code>removeElementsAt</code>.
+     * 
+     * @param filter the predicate that returns <code>true</code> for the rows
+     * to be removed
+     * @return <code>true</code> if any row was removed
+     */
+    public boolean removeIf(Predicate<? super E> filter) {
+        int rowCount = getRowCount();
+        int[] matches = new int[ rowCount ];
+        int count = 0;
+        for(int i=0; i<rowCount; i++) {
+            if ( filter.test(getRow(i)) ) {
+                matches[count++] = i;
+            }
+        }
+        if (count > 0) {
+            removeElementsAt( Arrays.copyOf(matches, count) );
+        }
+        return (count > 0);
+    }
+    
+    /**
+     * Notifies the table of a removal already applied to the storage. A single
+     * run of rows is notified with a <code>rowsDeleted</code> event; several runs
+     * are notified with a single {@link FTRowsRemovedEvent}, which other listeners
+     * see as a <code>tableDataChanged</code> event, since the row count of the
+     * model no longer matches the state expected by the listeners after the first
+     * run (for example by a <code>DefaultRowSorter</code>).
+     * 
+     * @param removal the removal applied to the storage
+     */
+    void fireRowsRemoved(FTRemoval removal) {
+        if (removal.runStarts.length == 1) {
+            fireTableRowsDeleted(removal.runStarts[0], removal.runEnds[0]);
+        } else {
+            fireTableChanged( new FTRowsRemovedEvent(this, removal.indexes) );
+        }
+    }
+    
+    /**
+     * Checks that the range between <code>fromIndex</code> and <code>toIndex</code>,
+     * both inclusive, is a valid range of rows of this model.
+     * 
+     * @param fromIndex the index of the first row of the range
+     * @param toIndex the index of the last row of the range
+     * @throws IllegalArgumentException if <code>fromIndex</code> is greater than
+     * <code>toIndex</code>
+     * @throws ArrayIndexOutOfBoundsException if an index is out of range
+     */
+    protected void checkRange(int fromIndex, int toIndex) {
+        if (fromIndex > toIndex) {
+            throw new IllegalArgumentException("fromIndex must be <= toIndex. Passed " + fromIndex + " > " + toIndex);
+        }
+        if (fromIndex < 0) {
+            throw new ArrayIndexOutOfBoundsException( fromIndex );
+        }
+        if (toIndex >= getRowCount()) {
+            throw new ArrayIndexOutOfBoundsException( toIndex );
+        }
+    }
 }
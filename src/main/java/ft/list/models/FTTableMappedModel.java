@@ -0,0 +1,219 @@
+package ft.list.models;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A read-only model for a <code>FTTableList</code> backed by a memory-mapped file
+ * of fixed-width records.
+ * <p>The file is mapped with <code>FileChannel.map</code> when the model is created
+ * and each cell is decoded straight from the mapped buffer according to a
+ * {@link FTRecordLayout}, so opening a file of several gigabytes is immediate and
+ * the heap usage doesn't depend on the size of the file. Files larger than 2GB are
+ * mapped in several segments, each holding a whole number of records.
+ * <p>The columns of the model are declared by the layout.
+ * <p>Each row is an <code>Object[]</code> decoded on demand from the file. The
+ * model can not be modified: methods that would add or remove rows throw an
+ * <code>UnsupportedOperationException</code>. The file must not be modified
+ * either while the model is in use.
+ *
+ * @author Manuel Agostinetto
+ */
+public class FTTableMappedModel extends FTTableListModel<Object[]> {
+
+    private FTRecordLayout layout;
+    private MappedByteBuffer[] segments;
+    private int recordsPerSegment;
+    private int rowCount;
+
+    /**
+     * Creates a <code>FTTableMappedModel</code> that shows the records of the
+     * specified file, starting at the beginning of the file.
+     *
+     * @param file the file of fixed-width records
+     * @param layout the layout of the records
+     * @throws IOException if the file can not be opened or mapped
+     */
+    public FTTableMappedModel(File file, FTRecordLayout layout) throws IOException {
+        this(file, layout, 0);
+    }
+
+    /**
+     * Creates a <code>FTTableMappedModel</code> that shows the records of the
+     * specified file, skipping a header of <code>headerLength</code> bytes.
+     * Trailing bytes that don't fill a whole record are ignored.
+     *
+     * @param file the file of fixed-width records
+     * @param layout the layout of the records
+     * @param headerLength the number of bytes to skip at the beginning of the file
+     * @throws IOException if the file can not be opened or mapped
+     * @throws IllegalArgumentException if the file holds more than
+     * <code>Integer.MAX_VALUE</code> records
+     */
+    public FTTableMappedModel(File file, FTRecordLayout layout, long headerLength) throws IOException {
+        super( layout.getColumns() );
+        this.layout = layout;
+        int recordLength = layout.getRecordLength();
+        if (recordLength <= 0) {
+            throw new IllegalArgumentException("The layout has no columns");
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            long records = Math.max(0, channel.size() - headerLength) / recordLength;
+            if (records > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Too many records in file " + file + ": " + records);
+            }
+            rowCount = (int) records;
+            recordsPerSegment = Integer.MAX_VALUE / recordLength;
+            int segmentCount = (rowCount == 0) ? 0 : (int) ((records - 1) / recordsPerSegment) + 1;
+            segments = new MappedByteBuffer[ segmentCount ];
+            for(int i=0; i<segmentCount; i++) {
+                long first = (long) i * recordsPerSegment;
+                long count = Math.min(recordsPerSegment, records - first);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, headerLength + first * recordLength, count * recordLength);
+                segments[i].order( layout.getByteOrder() );
+            }
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Returns the layout of the records of this model.
+     *
+     * @return the layout of the records
+     */
+    public FTRecordLayout getLayout() { return layout; }
+
+    @Override
+    public Object getValueAt(int row, int col) {
+        checkRow( row );
+        int segment = row / recordsPerSegment;
+        int record = (row - segment * recordsPerSegment) * layout.getRecordLength();
+        return layout.decode(segments[segment], record, col);
+    }
+
+    /**
+     * Returns a new array with the decoded cells of the specified row.
+     *
+     * @param row the index of the row
+     * @return a new array with the cells of the row
+     */
+    @Override
+    public Object[] getRow(int row) {
+        checkRow( row );
+        int segment = row / recordsPerSegment;
+        int record = (row - segment * recordsPerSegment) * layout.getRecordLength();
+        Object[] ret = new Object[ layout.getColumnCount() ];
+        for(int col=0; col<ret.length; col++) {
+            ret[col] = layout.decode(segments[segment], record, col);
+        }
+        return ret;
+    }
+
+    @Override
+    public int getRowCount() { return rowCount; }
+
+    /**
+     * Returns a list over the rows of the model, in O(1) time. Since the model is
+     * read-only, the list is a view that decodes the records when its rows are read,
+     * from any thread.
+     *
+     * @return an immutable list with the rows of the model
+     */
+    @Override
+    public List<Object[]> snapshot() { return rowsView(); }
+
+    /**
+     * Not supported: the model is read-only.
+     *
+     * @param element the row to add to the table
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void addRow(Object[] element) { throw readOnly(); }
+
+    /**
+     * Not supported: the model is read-only.
+     *
+     * @param row the index of the row to remove
+     * @return never returns
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public Object[] removeRow(int row) { throw readOnly(); }
+
+    /**
+     * Not supported: the model is read-only.
+     *
+     * @param element the object to remove from the model
+     * @return never returns
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean removeElement(Object[] element) { throw readOnly(); }
+
+    /**
+     * Not supported: the model is read-only.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void removeAllRows() { throw readOnly(); }
+
+    /**
+     * Not supported: the model is read-only.
+     *
+     * @param index the row index of the row to be inserted
+     * @param element the row value to be inserted
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void insertElementAt(int index, Object[] element) { throw readOnly(); }
+
+    /**
+     * Not supported: the model is read-only.
+     *
+     * @param indexes the indexes of the rows to move
+     * @param delta the number of positions to move the rows by
+     * @return never returns
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public int[] moveRows(int[] indexes, int delta) { throw readOnly(); }
+
+    /**
+     * Not supported: the model is read-only.
+     *
+     * @param indexes the indexes of the rows to remove
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void removeElementsAt(int[] indexes) { throw readOnly(); }
+
+    /**
+     * Not supported: the model is read-only.
+     *
+     * @param filter the predicate that selects the rows to remove
+     * @return never returns
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean removeIf(Predicate<? super Object[]> filter) { throw readOnly(); }
+
+    private void checkRow(int row) {
+        if ((row < 0) || (row >= rowCount)) {
+            throw new ArrayIndexOutOfBoundsException( row );
+        }
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("FTTableMappedModel is read-only");
+    }
+}
@@ -0,0 +1,397 @@
+package ft.list.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * A read-only model for a <code>FTTableList</code> that loads its rows lazily, one
+ * page at a time, from a {@link FTRowPageProvider}.
+ * <p>The model knows only the total number of rows up front. A page is loaded the
+ * first time one of its rows is requested by <code>getValueAt</code> or
+ * <code>getRow</code>, and the most recently used pages are kept in a bounded LRU
+ * cache, so the whole dataset is never on the heap.
+ * <p>{@link #prefetch(int, int)} loads in background the pages that cover a range of
+ * rows and the pages adjacent to it. <code>FTTableList</code> calls it each time its
+ * viewport moves, so scrolling usually finds the pages already in the cache. Each
+ * model has its own background thread; the loads still queued for pages that left
+ * the viewport are cancelled, and a page needed by the Event Dispatch Thread is
+ * loaded on it rather than waiting for the loads queued before it. The pages in the
+ * viewport are evicted from the cache only when all the cached pages are.
+ * <p>The model can not be modified: methods that would add or remove rows throw an
+ * <code>UnsupportedOperationException</code>.
+ *
+ * @author Manuel Agostinetto
+ * @param <T> the type of the cells managed by this model
+ */
+public class FTTablePagedModel<T> extends FTTableListModel<T[]> {
+
+    private static final ThreadFactory PREFETCH_THREADS = new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "FTTablePagedModel-prefetch");
+            t.setDaemon( true );
+            return t;
+        }
+    };
+
+    private FTRowPageProvider<T[]> provider;
+    private int rowCount;
+    private int pageSize;
+    private final LinkedHashMap<Integer,List<T[]>> cache;
+    private final HashMap<Integer,PageLoader> loading;
+    private final HashSet<Integer> visiblePages = new HashSet<Integer>();
+    private final ThreadPoolExecutor prefetcher;
+    private int generation;
+
+    /**
+     * Creates a <code>FTTablePagedModel</code>.
+     *
+     * @param headers the array of Strings used for the table header
+     * @param provider the provider of the pages of rows
+     * @param rowCount the total number of rows
+     * @param pageSize the number of rows of a page
+     * @param maxCachedPages the maximum number of pages kept in the cache
+     */
+    public FTTablePagedModel(String[] headers, FTRowPageProvider<T[]> provider, int rowCount, int pageSize, int maxCachedPages) {
+        this(FTColumn.of( headers ), provider, rowCount, pageSize, maxCachedPages);
+    }
+
+    /**
+     * Creates a <code>FTTablePagedModel</code> with declared columns. Declaring the
+     * class of the columns avoids loading the first page to infer it.
+     *
+     * @param columns the declaration of the columns of the table
+     * @param provider the provider of the pages of rows
+     * @param rowCount the total number of rows
+     * @param pageSize the number of rows of a page
+     * @param maxCachedPages the maximum number of pages kept in the cache
+     */
+    public FTTablePagedModel(FTColumn[] columns, FTRowPageProvider<T[]> provider, int rowCount, int pageSize, final int maxCachedPages) {
+        super( columns );
+        if (pageSize <= 0 || maxCachedPages <= 0) {
+            throw new IllegalArgumentException("pageSize and maxCachedPages must be greater then 0");
+        }
+        this.provider = provider;
+        this.rowCount = rowCount;
+        this.pageSize = pageSize;
+        cache = new LinkedHashMap<Integer,List<T[]>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer,List<T[]>> eldest) {
+                if (size() <= maxCachedPages) {
+                    return false;
+                }
+                // evict the least recently used page out of the viewport
+                Iterator<Integer> pages = keySet().iterator();
+                while ( pages.hasNext() ) {
+                    if ( !visiblePages.contains(pages.next()) ) {
+                        pages.remove();
+                        return false;
+                    }
+                }
+                return true;
+            }
+        };
+        loading = new HashMap<Integer,PageLoader>();
+        prefetcher = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), PREFETCH_THREADS);
+        prefetcher.allowCoreThreadTimeOut( true );
+    }
+
+    /**
+     * Returns the number of rows of a page.
+     *
+     * @return the number of rows of a page
+     */
+    public int getPageSize() { return pageSize; }
+
+    /**
+     * Loads in background the pages that contain the rows between
+     * <code>firstRow</code> and <code>lastRow</code>, inclusive, and the pages
+     * adjacent to them. Pages already cached or being loaded are skipped.
+     *
+     * @param firstRow the index of the first row
+     * @param lastRow the index of the last row
+     */
+    public void prefetch(int firstRow, int lastRow) {
+        if (rowCount == 0) {
+            return;
+        }
+        int firstVisible = Math.min(firstRow, lastRow) / pageSize;
+        int lastVisible = Math.min((rowCount - 1) / pageSize, Math.max(firstRow, lastRow) / pageSize);
+        int firstPage = Math.max(0, firstVisible - 1);
+        int lastPage = Math.min((rowCount - 1) / pageSize, lastVisible + 1);
+        int[] visible = new int[ lastVisible - firstVisible + 1 ];
+        for(int i=0; i<visible.length; i++) {
+            visible[i] = firstVisible + i;
+        }
+        int[] wanted = new int[ lastPage - firstPage + 1 ];
+        for(int i=0; i<wanted.length; i++) {
+            wanted[i] = firstPage + i;
+        }
+        schedule(visible, wanted);
+    }
+
+    /**
+     * Loads in background the pages that contain the specified rows, without the
+     * adjacent pages. Pages already cached or being loaded are skipped. It suits
+     * rows that are not contiguous in the model, such as the visible rows of a
+     * sorted table.
+     *
+     * @param rows the indexes of the rows, in any order
+     */
+    public void prefetch(int[] rows) {
+        int[] pages = new int[ rows.length ];
+        for(int i=0; i<rows.length; i++) {
+            pages[i] = rows[i] / pageSize;
+        }
+        Arrays.sort( pages );
+        int count = 0;
+        for(int i=0; i<pages.length; i++) {
+            if ((count == 0) || (pages[i] != pages[count-1])) {
+                pages[count++] = pages[i];
+            }
+        }
+        pages = Arrays.copyOf(pages, count);
+        schedule(pages, pages);
+    }
+
+    /*
+     * Cancels the loads not yet started of the pages that are not wanted anymore and
+     * queues the loads of the wanted pages that are not cached. Both arrays are sorted.
+     */
+    private void schedule(int[] visible, int[] wanted) {
+        synchronized( cache ) {
+            visiblePages.clear();
+            for(int page : visible) {
+                visiblePages.add( page );
+            }
+            Iterator<Map.Entry<Integer,PageLoader>> queued = loading.entrySet().iterator();
+            while ( queued.hasNext() ) {
+                Map.Entry<Integer,PageLoader> entry = queued.next();
+                if ((Arrays.binarySearch(wanted, entry.getKey()) < 0) && prefetcher.remove(entry.getValue())) {
+                    queued.remove();
+                    entry.getValue().cancel( false );
+                }
+            }
+            for(int page : wanted) {
+                if (!cache.containsKey(page) && !loading.containsKey(page)) {
+                    PageLoader loader = new PageLoader(page, generation);
+                    loading.put(page, loader);
+                    prefetcher.execute( loader );
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all the pages from the cache and notifies the table that all the
+     * rows may have changed. Use it when the data of the provider has changed.
+     * Pages still being loaded when the cache is cleared are discarded.
+     */
+    public void clearCache() {
+        synchronized( cache ) {
+            generation++;
+            cache.clear();
+            List<PageLoader> loaders = new ArrayList<PageLoader>( loading.values() );
+            loading.clear();
+            for(PageLoader loader : loaders) {
+                prefetcher.remove( loader );
+                loader.cancel( false );
+            }
+        }
+        fireTableDataChanged();
+    }
+
+    @Override
+    public T[] getRow(int row) {
+        if ((row < 0) || (row >= rowCount)) {
+            throw new ArrayIndexOutOfBoundsException( row );
+        }
+        return getPage( row / pageSize ).get( row % pageSize );
+    }
+
+    @Override
+    public T getValueAt(int row, int col) {
+        T ret = null;
+        if (row < rowCount) {
+            if (col < getColumnCount()) {
+                ret = getRow( row )[ col ];
+            }
+        }
+        return ret;
+    }
+
+    @Override
+    public int getRowCount() { return rowCount; }
+
+    /**
+     * Returns a list over the rows of the model, in O(1) time. Since the model is
+     * read-only, the list is a view that loads the pages when its rows are read,
+     * from any thread.
+     *
+     * @return an immutable list with the rows of the model
+     */
+    @Override
+    public List<T[]> snapshot() { return rowsView(); }
+
+    /**
+     * Not supported: the model is read-only.
+     *
+     * @param element the row to add to the table
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void addRow(T[] element) { throw readOnly(); }
+
+    /**
+     * Not supported: the model is read-only.
+     *
+     * @param row the index of the row to remove
+     * @return never returns
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public T[] removeRow(int row) { throw readOnly(); }
+
+    /**
+     * Not supported: the model is read-only.
+     *
+     * @param element the object to remove from the model
+     * @return never returns
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean removeElement(T[] element) { throw readOnly(); }
+
+    /**
+     * Not supported: the model is read-only.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void removeAllRows() { throw readOnly(); }
+
+    /**
+     * Not supported: the model is read-only.
+     *
+     * @param index the row index of the row to be inserted
+     * @param element the row value to be inserted
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void insertElementAt(int index, T[] element) { throw readOnly(); }
+
+    /**
+     * Not supported: the model is read-only.
+     *
+     * @param indexes the indexes of the rows to move
+     * @param delta the number of positions to move the rows by
+     * @return never returns
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public int[] moveRows(int[] indexes, int delta) { throw readOnly(); }
+
+    /**
+     * Not supported: the model is read-only.
+     *
+     * @param indexes the indexes of the rows to remove
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void removeElementsAt(int[] indexes) { throw readOnly(); }
+
+    /**
+     * Not supported: the model is read-only.
+     *
+     * @param filter the predicate that selects the rows to remove
+     * @return never returns
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean removeIf(Predicate<? super T[]> filter) { throw readOnly(); }
+
+    private List<T[]> getPage(int page) {
+        PageLoader pending;
+        int loaderGeneration;
+        synchronized( cache ) {
+            List<T[]> rows = cache.get( page );
+            if (rows != null) {
+                return rows;
+            }
+            pending = loading.get( page );
+            loaderGeneration = generation;
+        }
+        if (pending != null) {
+            // a load still queued runs on this thread instead of waiting for the loads before it
+            if ( prefetcher.remove(pending) ) {
+                pending.run();
+            }
+            try {
+                return pending.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // the prefetch failed: try again on this thread
+            } catch (CancellationException e) {
+                // the cache was cleared: load the page again
+            }
+        }
+        return load(page, loaderGeneration);
+    }
+
+    /*
+     * Loads a page and caches it, unless the cache was cleared in the meantime.
+     */
+    private List<T[]> load(int page, int loaderGeneration) {
+        int first = page * pageSize;
+        List<T[]> rows = provider.loadPage(first, Math.min(pageSize, rowCount - first));
+        synchronized( cache ) {
+            // a page loaded before clearCache may hold stale rows
+            if ((rows != null) && (loaderGeneration == generation)) {
+                cache.put(page, rows);
+            }
+        }
+        return rows;
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("FTTablePagedModel is read-only");
+    }
+
+    private class PageLoader extends FutureTask<List<T[]>> {
+
+        private final int page;
+
+        PageLoader(final int page, final int loaderGeneration) {
+            super(new Callable<List<T[]>>() {
+                @Override
+                public List<T[]> call() { return load(page, loaderGeneration); }
+            });
+            this.page = page;
+        }
+
+        @Override
+        protected void done() {
+            synchronized( cache ) {
+                if (loading.get(page) == this) {
+                    loading.remove( page );
+                }
+            }
+        }
+    }
+}
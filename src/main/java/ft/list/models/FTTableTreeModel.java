@@ -0,0 +1,68 @@
+package ft.list.models;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A generic model for a <code>FTTableList</code> that stores its rows in a
+ * balanced tree rather than in an <code>ArrayList</code>.
+ * <p>Inserting or removing a row takes O(log n) time wherever it is in the table,
+ * while an <code>ArrayList</code> shifts every row after it. Reading a row by
+ * position also takes O(log n) time, so this model pays off when rows are often
+ * inserted or removed far from the bottom of long tables.
+ * <p>{@link #snapshot()} shares the nodes of the tree with the returned list, so
+ * neither taking a snapshot nor changing the model afterwards copies the rows.
+ *
+ * @author Manuel Agostinetto
+ * @param <T> the type of elements managed by this model
+ */
+public class FTTableTreeModel<T> extends FTTableGenericModel<T> {
+
+    private final FTTreeList<T[]> tree;
+
+    /**
+     * Creates an instance of <code>FTTableTreeModel</code> with a header.
+     * If the <code>set</code> param is set to <code>true</code> the model acts
+     * as a Set and doesn't accept duplicate elements.
+     *
+     * @param headers the array of Strings used for the table header
+     * @param set if <code>true</code> the model acts as a Set and doesn't
+     * accept duplicate values
+     */
+    public FTTableTreeModel(String[] headers, boolean set) {
+        this(FTColumn.of( headers ), set, null);
+    }
+
+    /**
+     * Creates an instance of <code>FTTableTreeModel</code> with declared columns,
+     * identifying rows by the values in the <code>keyColumns</code> columns.
+     * If the <code>set</code> param is set to <code>true</code> the model acts
+     * as a Set and doesn't accept two rows with the same values in the key columns.
+     *
+     * @param columns the declaration of the columns of the table
+     * @param set if <code>true</code> the model acts as a Set and doesn't
+     * accept duplicate values
+     * @param keyColumns the indexes of the columns that identify a row, or
+     * <code>null</code> to identify rows by all their cells
+     */
+    public FTTableTreeModel(FTColumn[] columns, boolean set, int[] keyColumns) {
+        this(columns, set, keyColumns, new FTTreeList<T[]>());
+    }
+
+    private FTTableTreeModel(FTColumn[] columns, boolean set, int[] keyColumns, FTTreeList<T[]> tree) {
+        super(columns, set, keyColumns, tree);
+        this.tree = tree;
+    }
+
+    /**
+     * Returns an immutable list with the rows currently in the table, in O(1)
+     * time. The returned list doesn't change when the model changes.
+     *
+     * @return an immutable copy of the rows of the table
+     */
+    @Override
+    public List<T[]> snapshot() { return tree.snapshot(); }
+
+    @Override
+    Iterator<T[]> rowsFrom(int index) { return tree.iterator( index ); }
+}
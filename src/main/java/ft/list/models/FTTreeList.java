@@ -0,0 +1,412 @@
+package ft.list.models;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A <code>List</code> stored in a balanced binary tree (an AVL tree) whose nodes
+ * know the size of their subtree, so that the element at a given position can be
+ * found by walking down from the root.
+ * <p>Positional <code>get</code>, <code>set</code>, <code>add</code> and
+ * <code>remove</code> take O(log n) time wherever the position is, at the cost of
+ * a slower <code>get</code> than an <code>ArrayList</code>. It is meant for models
+ * that insert or remove many elements far from the end of long lists.
+ * Iterating over the list takes O(1) amortized time per element.
+ * <p>{@link #snapshot()} returns an immutable copy of the list in O(1) time. The
+ * copy shares the nodes of the tree with the list, which copies a node before
+ * changing it when the node may be shared: a change after a snapshot copies only
+ * the O(log n) nodes on the path from the root to the changed position.
+ *
+ * @author Manuel Agostinetto
+ * @param <E> the type of elements in this list
+ */
+final class FTTreeList<E> extends AbstractList<E> {
+
+    private static final class Node<E> {
+        E value;
+        Node<E> left;
+        Node<E> right;
+        int height;
+        int size;
+        final int epoch;
+
+        Node(E value, int epoch) {
+            this.value = value;
+            this.epoch = epoch;
+            height = 1;
+            size = 1;
+        }
+    }
+
+    private Node<E> root;
+    private int epoch;
+    private final boolean frozen;
+
+    /**
+     * Creates an empty list.
+     */
+    FTTreeList() {
+        frozen = false;
+    }
+
+    /**
+     * Creates a list containing the elements of the specified collection, in the
+     * order they are returned by its iterator. The tree is built balanced in
+     * linear time.
+     *
+     * @param c the elements to be placed into the list
+     */
+    FTTreeList(Collection<? extends E> c) {
+        frozen = false;
+        Object[] values = c.toArray();
+        root = build(values, 0, values.length);
+    }
+
+    private FTTreeList(Node<E> root) {
+        this.root = root;
+        frozen = true;
+    }
+
+    /**
+     * Returns an immutable list with the elements currently in this list, in
+     * O(1) time. The returned list doesn't change when this list changes, and it
+     * can be read by any thread.
+     *
+     * @return an immutable copy of this list
+     */
+    FTTreeList<E> snapshot() {
+        if (frozen) {
+            return this;
+        }
+        epoch++;
+        return new FTTreeList<E>( root );
+    }
+
+    @Override
+    public int size() { return size(root); }
+
+    @Override
+    public E get(int index) {
+        checkIndex( index );
+        return find(index).value;
+    }
+
+    @Override
+    public E set(int index, E element) {
+        checkWritable();
+        checkIndex( index );
+        E ret = find(index).value;
+        root = replace(root, index, element);
+        return ret;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        if ((index < 0) || (index > size())) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        checkWritable();
+        root = insert(root, index, element);
+        modCount++;
+    }
+
+    /**
+     * Inserts all the elements of the specified collection at the specified
+     * position. When the list is empty the tree is built balanced in linear
+     * time, otherwise the elements are inserted one at a time.
+     *
+     * @param index the index where to insert the first element
+     * @param c the elements to be inserted
+     * @return <code>true</code> if the list changed
+     */
+    @Override
+    public boolean addAll(int index, Collection<? extends E> c) {
+        checkWritable();
+        if (root == null && index == 0) {
+            Object[] values = c.toArray();
+            root = build(values, 0, values.length);
+            modCount++;
+            return (values.length > 0);
+        }
+        return super.addAll(index, c);
+    }
+
+    @Override
+    public E remove(int index) {
+        checkWritable();
+        checkIndex( index );
+        E ret = find(index).value;
+        root = delete(root, index);
+        modCount++;
+        return ret;
+    }
+
+    @Override
+    public void clear() {
+        checkWritable();
+        root = null;
+        modCount++;
+    }
+
+    @Override
+    public Iterator<E> iterator() { return new FTTreeIterator(0); }
+
+    /**
+     * Returns an iterator over the elements from <code>index</code> on. Reaching
+     * the first element takes O(log n) time, every following one O(1) amortized.
+     *
+     * @param index the position of the first element returned
+     * @return an iterator starting at <code>index</code>
+     */
+    Iterator<E> iterator(int index) {
+        if ((index < 0) || (index > size())) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        return new FTTreeIterator( index );
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        int index = 0;
+        for(E value : this) {
+            if ((o == null) ? (value == null) : o.equals(value)) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(Object o) { return (indexOf(o) >= 0); }
+
+    private void checkIndex(int index) {
+        if ((index < 0) || (index >= size())) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+    }
+
+    private void checkWritable() {
+        if (frozen) {
+            throw new UnsupportedOperationException("The snapshot can not be modified");
+        }
+    }
+
+    private Node<E> find(int index) {
+        Node<E> node = root;
+        int pos = index;
+        while (true) {
+            int leftSize = size( node.left );
+            if (pos < leftSize) {
+                node = node.left;
+            } else if (pos == leftSize) {
+                return node;
+            } else {
+                pos -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Node<E> build(Object[] values, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        Node<E> node = new Node<E>((E) values[mid], epoch);
+        node.left = build(values, from, mid);
+        node.right = build(values, mid + 1, to);
+        update( node );
+        return node;
+    }
+
+    /**
+     * Returns a node that can be changed: the node itself if it was created after
+     * the last snapshot, a copy of it otherwise.
+     */
+    private Node<E> own(Node<E> node) {
+        if (node.epoch == epoch) {
+            return node;
+        }
+        Node<E> ret = new Node<E>(node.value, epoch);
+        ret.left = node.left;
+        ret.right = node.right;
+        ret.height = node.height;
+        ret.size = node.size;
+        return ret;
+    }
+
+    private Node<E> replace(Node<E> node, int index, E value) {
+        Node<E> ret = own( node );
+        int leftSize = size( ret.left );
+        if (index < leftSize) {
+            ret.left = replace(ret.left, index, value);
+        } else if (index == leftSize) {
+            ret.value = value;
+        } else {
+            ret.right = replace(ret.right, index - leftSize - 1, value);
+        }
+        return ret;
+    }
+
+    private Node<E> insert(Node<E> node, int index, E value) {
+        if (node == null) {
+            return new Node<E>(value, epoch);
+        }
+        node = own( node );
+        int leftSize = size( node.left );
+        if (index <= leftSize) {
+            node.left = insert(node.left, index, value);
+        } else {
+            node.right = insert(node.right, index - leftSize - 1, value);
+        }
+        return balance( node );
+    }
+
+    private Node<E> delete(Node<E> node, int index) {
+        node = own( node );
+        int leftSize = size( node.left );
+        if (index < leftSize) {
+            node.left = delete(node.left, index);
+        } else if (index > leftSize) {
+            node.right = delete(node.right, index - leftSize - 1);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node<E> next = node.right;
+            while (next.left != null) {
+                next = next.left;
+            }
+            node.value = next.value;
+            node.right = delete(node.right, 0);
+        }
+        return balance( node );
+    }
+
+    private Node<E> balance(Node<E> node) {
+        update( node );
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft( node.left );
+            }
+            return rotateRight( node );
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight( node.right );
+            }
+            return rotateLeft( node );
+        }
+        return node;
+    }
+
+    private Node<E> rotateRight(Node<E> node) {
+        node = own( node );
+        Node<E> ret = own( node.left );
+        node.left = ret.right;
+        update( node );
+        ret.right = node;
+        update( ret );
+        return ret;
+    }
+
+    private Node<E> rotateLeft(Node<E> node) {
+        node = own( node );
+        Node<E> ret = own( node.right );
+        node.right = ret.left;
+        update( node );
+        ret.left = node;
+        update( ret );
+        return ret;
+    }
+
+    private static void update(Node<?> node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+
+    private static int height(Node<?> node) { return (node == null) ? 0 : node.height; }
+
+    private static int size(Node<?> node) { return (node == null) ? 0 : node.size; }
+
+    /**
+     * An in-order iterator that keeps the path to the next node, so that moving
+     * to the next element doesn't walk down from the root.
+     */
+    private final class FTTreeIterator implements Iterator<E> {
+
+        private final Deque<Node<E>> path = new ArrayDeque<Node<E>>();
+        private int next;
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        FTTreeIterator(int index) {
+            next = index;
+            seek( index );
+        }
+
+        @Override
+        public boolean hasNext() { return (next < size()); }
+
+        @Override
+        public E next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if ( !hasNext() ) {
+                throw new NoSuchElementException();
+            }
+            Node<E> node = path.pop();
+            for(Node<E> n=node.right; n!=null; n=n.left) {
+                path.push( n );
+            }
+            last = next++;
+            return node.value;
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            FTTreeList.this.remove( last );
+            next = last;
+            last = -1;
+            expectedModCount = modCount;
+            seek( next );
+        }
+
+        private void seek(int index) {
+            path.clear();
+            Node<E> node = root;
+            int pos = index;
+            while (node != null) {
+                int leftSize = size( node.left );
+                if (pos < leftSize) {
+                    path.push( node );
+                    node = node.left;
+                } else if (pos == leftSize) {
+                    path.push( node );
+                    return;
+                } else {
+                    pos -= leftSize + 1;
+                    node = node.right;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package ft.list;
+
+import ft.list.event.FTLoadListener;
+import ft.list.models.FTSimpleGenericModel;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterators;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.swing.SwingUtilities;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the asynchronous loads of <code>FTList</code>.
+ *
+ * @author Manuel Agostinetto
+ */
+public class FTAsyncLoaderTest {
+
+    @BeforeClass
+    public static void headless() {
+        System.setProperty("java.awt.headless", "true");
+    }
+
+    @Test
+    public void loadCountsOnlyTheAddedElements() throws Exception {
+        FTSimpleList<String> list = new FTSimpleList<String>( new FTSimpleGenericModel<String>(true) );
+        List<String> elements = Arrays.asList("a", "b", "a", "c", "b", "d", "a");
+        Future<Integer> load = list.addElementsAsync(elements, 3);
+        assertEquals(4, load.get(10, TimeUnit.SECONDS).intValue());
+        assertEquals(4, list.getNumElements());
+    }
+
+    @Test
+    public void failingListCompletesTheLoad() throws Exception {
+        final IllegalStateException failure = new IllegalStateException("full");
+        FTSimpleList<String> list = new FTSimpleList<String>( new FTSimpleGenericModel<String>(false) {
+            @Override
+            public void addAll(Collection<? extends String> c) {
+                if (getSize() > 0) {
+                    throw failure;
+                }
+                super.addAll( c );
+            }
+        });
+        final int[] finished = { -1 };
+        final Throwable[] error = new Throwable[ 1 ];
+        List<String> elements = new AbstractList<String>() {
+            @Override
+            public String get(int index) { return String.valueOf( index ); }
+
+            @Override
+            public int size() { return 10; }
+        };
+        Future<Integer> load = list.addElementsAsync(elements, 4, new FTLoadListener() {
+            @Override
+            public void elementsLoaded(int count) { }
+
+            @Override
+            public void loadFinished(int count, Throwable t) {
+                finished[0] = count;
+                error[0] = t;
+            }
+        });
+        try {
+            load.get(10, TimeUnit.SECONDS);
+            fail("The load must fail");
+        } catch (ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() { }
+        });
+        assertEquals(4, finished[0]);
+        assertSame(failure, error[0]);
+        assertEquals(4, list.getNumElements());
+    }
+
+    @Test
+    public void streamIsClosedWhenTheLoadCompletes() throws Exception {
+        FTSimpleList<String> list = new FTSimpleList<String>( new FTSimpleGenericModel<String>(false) );
+        CountDownLatch closed = new CountDownLatch(1);
+        Future<Integer> load = list.addElementsAsync(Stream.of("a", "b", "c").onClose(closed::countDown), 2);
+        assertEquals(3, load.get(10, TimeUnit.SECONDS).intValue());
+        assertTrue( closed.await(10, TimeUnit.SECONDS) );
+    }
+
+    @Test
+    public void streamIsClosedWhenTheProducerFails() throws Exception {
+        FTSimpleList<String> list = new FTSimpleList<String>( new FTSimpleGenericModel<String>(false) );
+        CountDownLatch closed = new CountDownLatch(1);
+        final IllegalStateException failure = new IllegalStateException("broken");
+        Stream<String> elements = Stream.of("a", "b", "c").map(s -> {
+            if ( s.equals("b") ) {
+                throw failure;
+            }
+            return s;
+        });
+        Future<Integer> load = list.addElementsAsync(elements.onClose(closed::countDown), 1);
+        try {
+            load.get(10, TimeUnit.SECONDS);
+            fail("The load must fail");
+        } catch (ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+        assertTrue( closed.await(10, TimeUnit.SECONDS) );
+    }
+
+    @Test
+    public void cancelInterruptsTheProducer() throws Exception {
+        FTSimpleList<String> list = new FTSimpleList<String>( new FTSimpleGenericModel<String>(false) );
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch closed = new CountDownLatch(1);
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        Iterator<String> producer = new Iterator<String>() {
+            @Override
+            public boolean hasNext() { return true; }
+
+            @Override
+            public String next() {
+                blocked.countDown();
+                try {
+                    new CountDownLatch(1).await();
+                } catch (InterruptedException e) {
+                    interrupted.set( true );
+                    Thread.currentThread().interrupt();
+                }
+                return "x";
+            }
+        };
+        Stream<String> elements = StreamSupport.stream(Spliterators.spliteratorUnknownSize(producer, 0), false);
+        Future<Integer> load = list.addElementsAsync(elements.onClose(closed::countDown), 10);
+        assertTrue( blocked.await(10, TimeUnit.SECONDS) );
+        assertTrue( load.cancel(true) );
+        assertTrue( closed.await(10, TimeUnit.SECONDS) );
+        assertTrue( interrupted.get() );
+        assertEquals(0, list.getNumElements());
+    }
+}
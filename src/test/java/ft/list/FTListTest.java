@@ -0,0 +1,133 @@
+package ft.list;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import javax.swing.DefaultListModel;
+import javax.swing.JComponent;
+import javax.swing.JList;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the default implementations of <code>FTList</code>, run on a subclass
+ * that implements only the abstract methods.
+ *
+ * @author Manuel Agostinetto
+ */
+public class FTListTest {
+
+    @BeforeClass
+    public static void headless() {
+        System.setProperty("java.awt.headless", "true");
+    }
+
+    /*
+     * A list written against the original abstract methods of FTList.
+     */
+    private static class FTMinimalList extends FTList<String> {
+
+        private DefaultListModel<String> model;
+        private JList<String> list;
+
+        FTMinimalList(String... elements) {
+            model = new DefaultListModel<String>();
+            for(String element : elements) {
+                model.addElement( element );
+            }
+            initComponents();
+        }
+
+        @Override
+        protected JComponent createListComponent() {
+            list = new JList<String>( model );
+            list.getSelectionModel().addListSelectionListener( getSelectionForwarder() );
+            return list;
+        }
+
+        @Override
+        public void removeAllElements() { model.removeAllElements(); }
+
+        @Override
+        public void add(String element) { model.addElement( element ); }
+
+        @Override
+        public void addElements(Collection<? extends String> c) {
+            for(String element : c) {
+                model.addElement( element );
+            }
+        }
+
+        @Override
+        public void setSelectionMode(int selectionMode) { list.setSelectionMode( selectionMode ); }
+
+        @Override
+        public void clearSelection() { list.clearSelection(); }
+
+        @Override
+        public void refreshList() { list.repaint(); }
+
+        @Override
+        public void setSelectionInterval(int firstIndex, int secondIndex) { list.setSelectionInterval(firstIndex, secondIndex); }
+
+        @Override
+        public String removeElementAt(int index) { return model.remove( index ); }
+
+        @Override
+        public String getElementAt(int index) { return model.getElementAt( index ); }
+
+        @Override
+        public List<String> getAllElements() { return Collections.list( model.elements() ); }
+
+        @Override
+        public int[] getSelectedIndexes() { return list.getSelectedIndices(); }
+
+        @Override
+        public int getNumElements() { return model.getSize(); }
+
+        @Override
+        public boolean removeElement(String element) { return model.removeElement( element ); }
+
+        @Override
+        public boolean isEmpty() { return model.isEmpty(); }
+    }
+
+    @Test
+    public void defaultRemoveElementsAt() {
+        FTMinimalList list = new FTMinimalList("a", "b", "c", "d", "e", "f");
+        list.removeElementsAt( new int[] { 4, 0, 2, 4 } );
+        assertEquals(Arrays.asList("b", "d", "f"), list.getAllElements());
+    }
+
+    @Test
+    public void defaultRemoveIf() {
+        FTMinimalList list = new FTMinimalList("a", "bb", "c", "dd", "e");
+        assertTrue( list.removeIf(s -> s.length() == 2) );
+        assertFalse( list.removeIf(s -> s.isEmpty()) );
+        assertEquals(Arrays.asList("a", "c", "e"), list.getAllElements());
+    }
+
+    @Test
+    public void defaultSetSelectedIndexes() {
+        FTMinimalList list = new FTMinimalList("a", "b", "c", "d", "e", "f", "g");
+        list.setSelectionInterval(0, 6);
+        list.setSelectedIndexes( new int[] { 5, 1, 2, 5, 3 } );
+        assertArrayEquals(new int[] { 1, 2, 3, 5 }, list.getSelectedIndexes());
+        list.setSelectedIndexes( new int[0] );
+        assertEquals(0, list.getSelectedIndexes().length);
+    }
+
+    @Test
+    public void defaultMoveElements() {
+        FTMinimalList list = new FTMinimalList("a", "b", "c", "d", "e", "f");
+        assertArrayEquals(new int[] { 0, 2 }, list.moveElements(new int[] { 1, 3 }, -1));
+        assertEquals(Arrays.asList("b", "a", "d", "c", "e", "f"), list.getAllElements());
+        // the distance is reduced so that the last element stays in the list
+        assertArrayEquals(new int[] { 4, 5 }, list.moveElements(new int[] { 2, 3 }, 10));
+        assertEquals(Arrays.asList("b", "a", "e", "f", "d", "c"), list.getAllElements());
+        assertArrayEquals(new int[] { 0 }, list.moveElements(new int[] { 0 }, -1));
+        assertEquals(Arrays.asList("b", "a", "e", "f", "d", "c"), list.getAllElements());
+    }
+}
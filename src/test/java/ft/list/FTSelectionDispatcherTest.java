@@ -0,0 +1,165 @@
+package ft.list;
+
+import ft.list.event.FTSelectionObservable;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests that every dispatch mode of <code>FTSelectionDispatcher</code> delivers the
+ * changes of a selection gesture, merged into one event in the coalescing modes.
+ *
+ * @author Manuel Agostinetto
+ */
+public class FTSelectionDispatcherTest {
+
+    @BeforeClass
+    public static void headless() {
+        System.setProperty("java.awt.headless", "true");
+    }
+
+    /*
+     * Records the events delivered by the dispatcher. Read and written on the
+     * Event Dispatch Thread.
+     */
+    private static class FTSelectionLog implements ListSelectionListener {
+
+        final List<String> events = new ArrayList<String>();
+
+        @Override
+        public void valueChanged(ListSelectionEvent e) {
+            events.add(e.getFirstIndex() + "-" + e.getLastIndex() + (e.getValueIsAdjusting() ? " adjusting" : ""));
+        }
+    }
+
+    private final Object source = new Object();
+
+    /*
+     * Runs the task on the Event Dispatch Thread, rethrowing its failures.
+     */
+    private static void runOnEdt(Runnable task) throws Exception {
+        try {
+            SwingUtilities.invokeAndWait( task );
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw (Exception) e.getCause();
+        }
+    }
+
+    /*
+     * Notifies the dispatcher of the changes of a drag that ends at index 1.
+     */
+    private void drag(FTSelectionDispatcher dispatcher) {
+        dispatcher.valueChanged( new ListSelectionEvent(source, 3, 3, true) );
+        dispatcher.valueChanged( new ListSelectionEvent(source, 3, 5, true) );
+        dispatcher.valueChanged( new ListSelectionEvent(source, 2, 5, true) );
+        dispatcher.valueChanged( new ListSelectionEvent(source, 1, 2, false) );
+    }
+
+    private static List<String> eventsOf(final FTSelectionLog log) throws Exception {
+        final List<String> ret = new ArrayList<String>();
+        runOnEdt(new Runnable() {
+            @Override
+            public void run() { ret.addAll( log.events ); }
+        });
+        return ret;
+    }
+
+    private FTSelectionDispatcher createDispatcher(int mode, FTSelectionLog log) {
+        FTSelectionDispatcher ret = new FTSelectionDispatcher( source );
+        ret.setMode( mode );
+        ret.addListener( log );
+        return ret;
+    }
+
+    @Test
+    public void immediateModeDeliversEveryChange() throws Exception {
+        final FTSelectionLog log = new FTSelectionLog();
+        runOnEdt(new Runnable() {
+            @Override
+            public void run() {
+                drag( createDispatcher(FTSelectionObservable.DISPATCH_IMMEDIATE, log) );
+                assertEquals(4, log.events.size());
+                assertEquals("1-2", log.events.get(3));
+            }
+        });
+    }
+
+    @Test
+    public void coalesceAdjustingModeDeliversOneEventAtTheEndOfTheGesture() throws Exception {
+        final FTSelectionLog log = new FTSelectionLog();
+        runOnEdt(new Runnable() {
+            @Override
+            public void run() {
+                FTSelectionDispatcher dispatcher = createDispatcher(FTSelectionObservable.DISPATCH_COALESCE_ADJUSTING, log);
+                dispatcher.valueChanged( new ListSelectionEvent(source, 3, 3, true) );
+                assertTrue( log.events.isEmpty() );
+                drag( dispatcher );
+                assertEquals(1, log.events.size());
+                assertEquals("1-5", log.events.get(0));
+            }
+        });
+    }
+
+    @Test
+    public void perTickModeDeliversOneEventPerTick() throws Exception {
+        final FTSelectionLog log = new FTSelectionLog();
+        runOnEdt(new Runnable() {
+            @Override
+            public void run() {
+                drag( createDispatcher(FTSelectionObservable.DISPATCH_PER_TICK, log) );
+                assertTrue( log.events.isEmpty() );
+            }
+        });
+        // the tick was queued before this task
+        List<String> events = eventsOf( log );
+        assertEquals(1, events.size());
+        assertEquals("1-5", events.get(0));
+    }
+
+    @Test
+    public void debounceModeDeliversOneEventAfterTheDelay() throws Exception {
+        final FTSelectionLog log = new FTSelectionLog();
+        runOnEdt(new Runnable() {
+            @Override
+            public void run() {
+                FTSelectionDispatcher dispatcher = createDispatcher(FTSelectionObservable.DISPATCH_DEBOUNCE, log);
+                dispatcher.setDelay( 20 );
+                drag( dispatcher );
+                assertTrue( log.events.isEmpty() );
+            }
+        });
+        long deadline = System.currentTimeMillis() + 5000;
+        while (eventsOf(log).isEmpty() && (System.currentTimeMillis() < deadline)) {
+            Thread.sleep( 10 );
+        }
+        Thread.sleep( 100 );
+        List<String> events = eventsOf( log );
+        assertEquals(1, events.size());
+        assertEquals("1-5", events.get(0));
+    }
+
+    @Test
+    public void changingTheModeDeliversThePendingChanges() throws Exception {
+        final FTSelectionLog log = new FTSelectionLog();
+        runOnEdt(new Runnable() {
+            @Override
+            public void run() {
+                FTSelectionDispatcher dispatcher = createDispatcher(FTSelectionObservable.DISPATCH_DEBOUNCE, log);
+                dispatcher.setDelay( 60000 );
+                drag( dispatcher );
+                dispatcher.setMode( FTSelectionObservable.DISPATCH_IMMEDIATE );
+                assertEquals(1, log.events.size());
+                assertEquals("1-5", log.events.get(0));
+            }
+        });
+    }
+}
@@ -0,0 +1,152 @@
+package ft.list;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import javax.swing.DefaultListSelectionModel;
+import javax.swing.ListSelectionModel;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of <code>FTSelectionModel</code> against <code>DefaultListSelectionModel</code>.
+ *
+ * @author Manuel Agostinetto
+ */
+public class FTSelectionModelTest {
+
+    private static final int RANGE = 40;
+    private static final int SEQUENCES = 2000;
+    private static final int OPERATIONS = 60;
+
+    /*
+     * Records the events of a selection model as strings.
+     */
+    private static class FTEventLog implements ListSelectionListener {
+
+        final List<String> events = new ArrayList<String>();
+
+        @Override
+        public void valueChanged(ListSelectionEvent e) {
+            events.add( e.getFirstIndex() + "-" + e.getLastIndex() + (e.getValueIsAdjusting() ? " adjusting" : "") );
+        }
+    }
+
+    /*
+     * Applies the same random operation to both models and returns its description.
+     */
+    private static String apply(Random random, ListSelectionModel expected, ListSelectionModel actual) {
+        int a = random.nextInt( RANGE );
+        int b = random.nextInt( RANGE );
+        int operation = random.nextInt( 14 );
+        // -1 is the index of an empty list, ignored or special cased by the selection changes
+        if ((operation < 10) && (random.nextInt(20) == 0)) {
+            a = -1;
+        }
+        switch( operation ) {
+            case 0:
+            case 1:
+                expected.setSelectionInterval(a, b);
+                actual.setSelectionInterval(a, b);
+                return "setSelectionInterval(" + a + ", " + b + ")";
+            case 2:
+            case 3:
+                expected.addSelectionInterval(a, b);
+                actual.addSelectionInterval(a, b);
+                return "addSelectionInterval(" + a + ", " + b + ")";
+            case 4:
+            case 5:
+                expected.removeSelectionInterval(a, b);
+                actual.removeSelectionInterval(a, b);
+                return "removeSelectionInterval(" + a + ", " + b + ")";
+            case 6:
+                expected.clearSelection();
+                actual.clearSelection();
+                return "clearSelection()";
+            case 7:
+                expected.setAnchorSelectionIndex( a );
+                actual.setAnchorSelectionIndex( a );
+                return "setAnchorSelectionIndex(" + a + ")";
+            case 8:
+                expected.setLeadSelectionIndex( a );
+                actual.setLeadSelectionIndex( a );
+                return "setLeadSelectionIndex(" + a + ")";
+            case 9:
+                ((DefaultListSelectionModel) expected).moveLeadSelectionIndex( a );
+                ((DefaultListSelectionModel) actual).moveLeadSelectionIndex( a );
+                return "moveLeadSelectionIndex(" + a + ")";
+            case 10:
+                int length = 1 + random.nextInt( 5 );
+                boolean before = random.nextBoolean();
+                expected.insertIndexInterval(a, length, before);
+                actual.insertIndexInterval(a, length, before);
+                return "insertIndexInterval(" + a + ", " + length + ", " + before + ")";
+            case 11:
+                expected.removeIndexInterval(a, b);
+                actual.removeIndexInterval(a, b);
+                return "removeIndexInterval(" + a + ", " + b + ")";
+            case 12:
+                boolean adjusting = random.nextBoolean();
+                expected.setValueIsAdjusting( adjusting );
+                actual.setValueIsAdjusting( adjusting );
+                return "setValueIsAdjusting(" + adjusting + ")";
+            default:
+                int mode = random.nextInt( 10 ) == 0 ? random.nextInt( 3 ) : ListSelectionModel.MULTIPLE_INTERVAL_SELECTION;
+                expected.setSelectionMode( mode );
+                actual.setSelectionMode( mode );
+                return "setSelectionMode(" + mode + ")";
+        }
+    }
+
+    private static void assertSameState(String history, ListSelectionModel expected, ListSelectionModel actual) {
+        assertArrayEquals(history, expected.getSelectedIndices(), actual.getSelectedIndices());
+        assertEquals(history, expected.getMinSelectionIndex(), actual.getMinSelectionIndex());
+        assertEquals(history, expected.getMaxSelectionIndex(), actual.getMaxSelectionIndex());
+        assertEquals(history, expected.getAnchorSelectionIndex(), actual.getAnchorSelectionIndex());
+        assertEquals(history, expected.getLeadSelectionIndex(), actual.getLeadSelectionIndex());
+        assertEquals(history, expected.isSelectionEmpty(), actual.isSelectionEmpty());
+        assertEquals(history, expected.getSelectedItemsCount(), actual.getSelectedItemsCount());
+        assertEquals(history, expected.getValueIsAdjusting(), actual.getValueIsAdjusting());
+        for(int i=0; i<RANGE*2; i++) {
+            assertEquals(history + " isSelectedIndex(" + i + ")", expected.isSelectedIndex(i), actual.isSelectedIndex(i));
+        }
+    }
+
+    @Test
+    public void behavesLikeDefaultListSelectionModel() {
+        Random random = new Random( 22 );
+        for(int sequence=0; sequence<SEQUENCES; sequence++) {
+            DefaultListSelectionModel expected = new DefaultListSelectionModel();
+            FTSelectionModel actual = new FTSelectionModel();
+            FTEventLog expectedEvents = new FTEventLog();
+            FTEventLog actualEvents = new FTEventLog();
+            expected.addListSelectionListener( expectedEvents );
+            actual.addListSelectionListener( actualEvents );
+            StringBuilder history = new StringBuilder("sequence " + sequence + ":");
+            for(int op=0; op<OPERATIONS; op++) {
+                history.append(' ').append( apply(random, expected, actual) );
+                assertEquals(history.toString(), expectedEvents.events, actualEvents.events);
+                assertSameState(history.toString(), expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void largeSelectionIsStoredAsRuns() {
+        FTSelectionModel model = new FTSelectionModel();
+        model.setSelectionInterval(0, 9999999);
+        model.removeSelectionInterval(10, 19);
+        assertEquals(2, model.getSelectedRunCount());
+        assertEquals(9999990, model.getSelectedItemsCount());
+        model.insertIndexInterval(5, 100, true);
+        assertEquals(2, model.getSelectedRunCount());
+        assertTrue( model.isSelectedIndex(104) );
+        assertFalse( model.isSelectedIndex(110) );
+        assertTrue( model.isSelectedIndex(120) );
+        final long[] sum = new long[1];
+        model.forEachSelected(i -> sum[0] += 1);
+        assertEquals(model.getSelectedItemsCount(), sum[0]);
+    }
+}
@@ -0,0 +1,172 @@
+package ft.list;
+
+import ft.list.models.FTSimpleGenericModel;
+import ft.list.models.FTTableGenericModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import javax.swing.SwingUtilities;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests that the selection of the lists follows their elements when the models
+ * insert and remove many elements with a single event.
+ *
+ * @author Manuel Agostinetto
+ */
+public class FTSelectionShiftTest {
+
+    private static final int OPERATIONS = 300;
+
+    @BeforeClass
+    public static void headless() {
+        System.setProperty("java.awt.headless", "true");
+    }
+
+    /*
+     * The changes made to the list under test, mirrored on a plain list of ids.
+     */
+    private abstract static class FTTarget {
+
+        abstract void insertAll(int index, List<String> ids);
+
+        abstract void removeRange(int fromIndex, int toIndex);
+
+        abstract FTList<?> list();
+
+        abstract String idAt(int index);
+    }
+
+    private static FTTarget simpleTarget() {
+        final FTSimpleGenericModel<String> model = new FTSimpleGenericModel<String>(false);
+        final FTSimpleList<String> list = new FTSimpleList<String>( model );
+        return new FTTarget() {
+            @Override
+            void insertAll(int index, List<String> ids) { model.insertAll(index, ids); }
+
+            @Override
+            void removeRange(int fromIndex, int toIndex) { model.removeRange(fromIndex, toIndex); }
+
+            @Override
+            FTList<?> list() { return list; }
+
+            @Override
+            String idAt(int index) { return list.getElementAt( index ); }
+        };
+    }
+
+    private static FTTarget tableTarget() {
+        final FTTableGenericModel<String> model = new FTTableGenericModel<String>(new String[] { "Id" }, false);
+        final FTTableList<String[]> list = new FTTableList<String[]>( model );
+        return new FTTarget() {
+            @Override
+            void insertAll(int index, List<String> ids) {
+                List<String[]> rows = new ArrayList<String[]>();
+                for(String id : ids) {
+                    rows.add( new String[] { id } );
+                }
+                model.insertRows(index, rows);
+            }
+
+            @Override
+            void removeRange(int fromIndex, int toIndex) { model.removeRows(fromIndex, toIndex); }
+
+            @Override
+            FTList<?> list() { return list; }
+
+            @Override
+            String idAt(int index) { return list.getElementAt(index)[0]; }
+        };
+    }
+
+    private static void run(FTTarget target, long seed) {
+        Random random = new Random( seed );
+        List<String> ids = new ArrayList<String>();
+        Set<String> selected = new HashSet<String>();
+        int next = 0;
+        for(int op=0; op<OPERATIONS; op++) {
+            int size = ids.size();
+            int choice = random.nextInt( 4 );
+            String description;
+            if ((size < 20) || (choice == 0)) {
+                // the inserted elements are selected when the element they are inserted before is
+                int index = random.nextInt( size + 1 );
+                boolean fill = (index < size) && selected.contains( ids.get(index) );
+                List<String> inserted = new ArrayList<String>();
+                int count = 1 + random.nextInt( 30 );
+                for(int i=0; i<count; i++) {
+                    inserted.add( "e" + (next++) );
+                }
+                target.insertAll(index, inserted);
+                ids.addAll(index, inserted);
+                if (fill) {
+                    selected.addAll( inserted );
+                }
+                description = "insertAll(" + index + ", " + count + ")";
+            } else if (choice == 1) {
+                int from = random.nextInt( size );
+                int to = Math.min(size - 1, from + random.nextInt(20));
+                target.removeRange(from, to);
+                for(int i=to; i>=from; i--) {
+                    selected.remove( ids.remove(i) );
+                }
+                description = "removeRange(" + from + ", " + to + ")";
+            } else if (choice == 2) {
+                int[] indexes = new int[ 1 + random.nextInt(15) ];
+                for(int i=0; i<indexes.length; i++) {
+                    indexes[i] = random.nextInt( size );
+                }
+                target.list().removeElementsAt( indexes );
+                int[] sorted = indexes.clone();
+                Arrays.sort( sorted );
+                for(int i=sorted.length-1; i>=0; i--) {
+                    if ((i == sorted.length-1) || (sorted[i] != sorted[i+1])) {
+                        selected.remove( ids.remove(sorted[i]) );
+                    }
+                }
+                description = "removeElementsAt(" + Arrays.toString(sorted) + ")";
+            } else {
+                int[] indexes = new int[ random.nextInt(size) ];
+                selected.clear();
+                for(int i=0; i<indexes.length; i++) {
+                    indexes[i] = random.nextInt( size );
+                    selected.add( ids.get(indexes[i]) );
+                }
+                target.list().setSelectedIndexes( indexes );
+                description = "setSelectedIndexes(" + indexes.length + ")";
+            }
+            assertEquals(description, ids.size(), target.list().getNumElements());
+            Set<String> actual = new HashSet<String>();
+            for(int index : target.list().getSelectedIndexes()) {
+                actual.add( target.idAt(index) );
+            }
+            assertEquals("operation " + op + ": " + description, selected, actual);
+        }
+    }
+
+    private static void runOnEdt(final FTTarget target, final long seed) throws Exception {
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() { FTSelectionShiftTest.run(target, seed); }
+        });
+    }
+
+    @Test
+    public void simpleListSelectionFollowsElements() throws Exception {
+        for(long seed=0; seed<10; seed++) {
+            runOnEdt(simpleTarget(), seed);
+        }
+    }
+
+    @Test
+    public void tableListSelectionFollowsElements() throws Exception {
+        for(long seed=0; seed<10; seed++) {
+            runOnEdt(tableTarget(), seed);
+        }
+    }
+}
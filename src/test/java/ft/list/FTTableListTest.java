@@ -0,0 +1,86 @@
+package ft.list;
+
+import ft.list.event.FTTableRowColorCustomizer;
+import ft.list.models.FTTableGenericModel;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Container;
+import javax.swing.JTable;
+import javax.swing.table.DefaultTableCellRenderer;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of <code>FTTableList</code>.
+ *
+ * @author Manuel Agostinetto
+ */
+public class FTTableListTest {
+
+    @BeforeClass
+    public static void headless() {
+        System.setProperty("java.awt.headless", "true");
+    }
+
+    static JTable findTable(Container c) {
+        for(Component child : c.getComponents()) {
+            if (child instanceof JTable) {
+                return (JTable) child;
+            }
+            if (child instanceof Container) {
+                JTable ret = findTable( (Container) child );
+                if (ret != null) {
+                    return ret;
+                }
+            }
+        }
+        return null;
+    }
+
+    static FTTableGenericModel<Integer> createModel(int rows) {
+        FTTableGenericModel<Integer> ret = new FTTableGenericModel<Integer>(new String[] { "Value" }, false);
+        for(int i=0; i<rows; i++) {
+            ret.addRow( new Integer[] { i } );
+        }
+        return ret;
+    }
+
+    /*
+     * Renders the first rows, so the row color cache only covers them.
+     */
+    private static FTTableList<Integer[]> createColoredList(FTTableGenericModel<Integer> model, int paintedRows) {
+        FTTableList<Integer[]> ret = new FTTableList<Integer[]>( model );
+        ret.setRowColorCustomizer( new FTTableRowColorCustomizer<Integer[]>() {
+            @Override
+            public Color getRowColor(Integer[] row) { return ((row[0] % 2) == 0) ? Color.RED : null; }
+        });
+        JTable table = findTable( ret );
+        for(int row=0; row<paintedRows; row++) {
+            table.prepareRenderer(table.getCellRenderer(row, 0), row, 0);
+        }
+        return ret;
+    }
+
+    @Test
+    public void deletionBeyondPaintedRows() {
+        FTTableGenericModel<Integer> model = createModel( 100 );
+        FTTableList<Integer[]> list = createColoredList(model, 9);
+        JTable table = findTable( list );
+        model.removeRows(5, 50);
+        assertEquals(54, table.getRowCount());
+        assertEquals(Integer.valueOf(51), model.getValueAt(5, 0));
+        Component cell = table.prepareRenderer(new DefaultTableCellRenderer(), 5, 0);
+        assertNotEquals(Color.RED, cell.getBackground());
+        cell = table.prepareRenderer(new DefaultTableCellRenderer(), 4, 0);
+        assertEquals(Color.RED, cell.getBackground());
+    }
+
+    @Test
+    public void removeAllRowsWithPartialCache() {
+        FTTableGenericModel<Integer> model = createModel( 100 );
+        FTTableList<Integer[]> list = createColoredList(model, 9);
+        model.removeAllRows();
+        assertEquals(0, findTable(list).getRowCount());
+    }
+}
@@ -0,0 +1,199 @@
+package ft.list;
+
+import ft.list.models.FTTableGenericModel;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import javax.swing.RowSorter.SortKey;
+import javax.swing.SortOrder;
+import javax.swing.SwingUtilities;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of <code>FTTableRowSorter</code> installed on a <code>FTTableList</code>.
+ *
+ * @author Manuel Agostinetto
+ */
+public class FTTableRowSorterTest {
+
+    private static final int ROWS = 100000;
+
+    @BeforeClass
+    public static void headless() {
+        System.setProperty("java.awt.headless", "true");
+    }
+
+    /*
+     * A model that counts the values read by the sorter.
+     */
+    private static class FTCountingModel extends FTTableGenericModel<String> {
+
+        int reads;
+
+        FTCountingModel() { super(new String[] { "Name", "Id" }, false); }
+
+        @Override
+        public String getValueAt(int row, int col) {
+            reads++;
+            return super.getValueAt(row, col);
+        }
+    }
+
+    /*
+     * Runs the task on the Event Dispatch Thread, rethrowing its failures.
+     */
+    private static void runOnEdt(Runnable task) throws Throwable {
+        try {
+            SwingUtilities.invokeAndWait( task );
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static FTCountingModel createModel() {
+        FTCountingModel ret = new FTCountingModel();
+        Random random = new Random( 42 );
+        for(int i=0; i<ROWS; i++) {
+            ret.addRow( new String[] { "Name " + random.nextInt(1000000), String.valueOf(i) } );
+        }
+        return ret;
+    }
+
+    private static FTTableList<String[]> createSortedList() { return createSortedList( createModel() ); }
+
+    private static FTTableList<String[]> createSortedList(FTTableGenericModel<String> model) {
+        FTTableList<String[]> ret = new FTTableList<String[]>( model );
+        ret.setAutoCreateRowSorter( true );
+        ret.getRowSorter().setParallelThreshold( Integer.MAX_VALUE );
+        ret.getRowSorter().setSortKeys( Arrays.asList(new SortKey(0, SortOrder.ASCENDING)) );
+        return ret;
+    }
+
+    /*
+     * Removes the rows at every tenth position of the view, returning the ids of
+     * the removed rows.
+     */
+    private static Set<String> removeScattered(FTTableList<String[]> list) {
+        FTTableRowSorter<?> sorter = list.getRowSorter();
+        int[] rows = new int[ ROWS / 10 ];
+        Set<String> ret = new HashSet<String>();
+        for(int i=0; i<rows.length; i++) {
+            rows[i] = sorter.convertRowIndexToModel( i * 10 );
+            ret.add( list.getElementAt(rows[i])[1] );
+        }
+        list.removeElementsAt( rows );
+        return ret;
+    }
+
+    @Test
+    public void scatteredRemovalKeepsOrder() throws Throwable {
+        runOnEdt(() -> {
+            FTTableList<String[]> list = createSortedList();
+            Set<String> removed = removeScattered( list );
+            FTTableRowSorter<?> sorter = list.getRowSorter();
+            assertEquals(ROWS - removed.size(), list.getNumElements());
+            assertEquals(list.getNumElements(), sorter.getViewRowCount());
+            String previous = null;
+            Set<Integer> seen = new HashSet<Integer>();
+            for(int view=0; view<sorter.getViewRowCount(); view++) {
+                int row = sorter.convertRowIndexToModel( view );
+                assertTrue( seen.add(row) );
+                String[] element = list.getElementAt( row );
+                assertFalse( removed.contains(element[1]) );
+                if (previous != null) {
+                    assertTrue(previous.compareTo(element[0]) <= 0);
+                }
+                previous = element[0];
+            }
+        });
+    }
+
+    @Test
+    public void scatteredRemovalDoesNotSortAgain() throws Throwable {
+        runOnEdt(() -> {
+            FTCountingModel model = createModel();
+            FTTableList<String[]> list = createSortedList( model );
+            model.reads = 0;
+            removeScattered( list );
+            // sorting again would read the sort key of every remaining row
+            assertEquals(0, model.reads);
+            assertEquals(list.getNumElements(), list.getRowSorter().getViewRowCount());
+        });
+    }
+
+    @Test
+    public void elementIndexesAreModelIndexes() throws Throwable {
+        runOnEdt( FTTableRowSorterTest::checkElementIndexes );
+    }
+
+    private static void checkElementIndexes() {
+        FTTableGenericModel<String> model = new FTTableGenericModel<String>(new String[] { "Name", "Id" }, false);
+        for(String name : new String[] { "e", "d", "c", "b", "a" }) {
+            model.addRow( new String[] { name, name } );
+        }
+        FTTableList<String[]> list = createSortedList( model );
+        // view: a b c d e, model: e d c b a
+        list.removeElementsAt( new int[] { 0, 1 } );
+        assertEquals(3, list.getNumElements());
+        assertEquals("c", list.getElementAt(0)[0]);
+        assertEquals("a", model.getRow(2)[0]);
+        // model: c b a
+        assertArrayEquals(new int[] { 1 }, list.moveElements(new int[] { 2 }, -1));
+        assertEquals("a", list.getElementAt(1)[0]);
+        // model: c a b, view: a b c
+        list.setSelectedIndexes( new int[] { 0 } );
+        list.moveSelectedElements( 1 );
+        assertEquals("a", list.getElementAt(2)[0]);
+        assertArrayEquals(new int[] { 0 }, list.getSelectedIndexes());
+        // model: c b a, view: a b c
+        list.setSelectedIndexes( new int[] { 0, 2 } );
+        list.removeSelectedElements();
+        assertEquals(1, list.getNumElements());
+        assertEquals("b", list.getElementAt(0)[0]);
+    }
+
+    @Test
+    public void changesDuringBackgroundSortAreApplied() throws Throwable {
+        final FTTableGenericModel<String> model = createModel();
+        final List<FTTableList<String[]>> lists = new ArrayList<FTTableList<String[]>>();
+        runOnEdt(() -> {
+            FTTableList<String[]> list = createSortedList( model );
+            lists.add( list );
+            FTTableRowSorter<?> sorter = list.getRowSorter();
+            sorter.setParallelThreshold( 1000 );
+            sorter.setSortKeys( Arrays.asList(new SortKey(0, SortOrder.DESCENDING)) );
+            // the job can't be installed before this runnable returns
+            model.addRow( new String[] { "Name 999999", "inserted" } );
+            model.insertElementAt(0, new String[] { "Name 0", "first" });
+            model.removeRows(10, 19);
+            model.removeElementsAt( new int[] { 100, 2000, 30000 } );
+            model.getRow(50)[0] = "Name 5";
+            model.fireTableRowsUpdated(50, 50);
+        });
+        ForkJoinPool.commonPool().awaitQuiescence(10, TimeUnit.SECONDS);
+        runOnEdt(() -> {
+            FTTableList<String[]> list = lists.get( 0 );
+            FTTableRowSorter<?> sorter = list.getRowSorter();
+            assertEquals(ROWS - 11, sorter.getViewRowCount());
+            Set<Integer> seen = new HashSet<Integer>();
+            String previous = null;
+            for(int view=0; view<sorter.getViewRowCount(); view++) {
+                int row = sorter.convertRowIndexToModel( view );
+                String name = list.getElementAt(row)[0];
+                assertTrue( seen.add(row) );
+                if (previous != null) {
+                    assertTrue(previous.compareTo(name) >= 0);
+                }
+                previous = name;
+            }
+        });
+    }
+}
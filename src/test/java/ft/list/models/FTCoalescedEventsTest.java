@@ -0,0 +1,129 @@
+package ft.list.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import javax.swing.event.TableModelEvent;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests that the bulk changes of the models are notified with a single event.
+ *
+ * @author Manuel Agostinetto
+ */
+public class FTCoalescedEventsTest {
+
+    /*
+     * Records the events of a list model as strings.
+     */
+    private static class FTListLog implements ListDataListener {
+
+        final List<String> events = new ArrayList<String>();
+
+        @Override
+        public void intervalAdded(ListDataEvent e) { events.add("added " + e.getIndex0() + "-" + e.getIndex1()); }
+
+        @Override
+        public void intervalRemoved(ListDataEvent e) { events.add("removed " + e.getIndex0() + "-" + e.getIndex1()); }
+
+        @Override
+        public void contentsChanged(ListDataEvent e) { events.add("changed " + e.getIndex0() + "-" + e.getIndex1()); }
+    }
+
+    private static List<FTSimpleListModel<Integer>> simpleModels() {
+        List<FTSimpleListModel<Integer>> ret = new ArrayList<FTSimpleListModel<Integer>>();
+        for(boolean set : new boolean[] { false, true }) {
+            ret.add( new FTSimpleGenericModel<Integer>(set) );
+            ret.add( new FTSimpleTreeModel<Integer>(set) );
+            ret.add( new FTSimpleIntegerModel(set) );
+        }
+        return ret;
+    }
+
+    @Test
+    public void bulkChangesFireOneListEvent() {
+        for(FTSimpleListModel<Integer> model : simpleModels()) {
+            String name = model.getClass().getSimpleName() + (model.isSet() ? " set" : "");
+            FTListLog log = new FTListLog();
+            model.addListDataListener( log );
+            model.addAll( Arrays.asList(1, 2, 3, 4) );
+            assertEquals(name, Arrays.asList("added 0-3"), log.events);
+            log.events.clear();
+            model.insertAll(1, Arrays.asList(5, 6, 7));
+            assertEquals(name, Arrays.asList("added 1-3"), log.events);
+            log.events.clear();
+            model.removeRange(2, 5);
+            assertEquals(name, Arrays.asList("removed 2-5"), log.events);
+            assertEquals(name, Arrays.asList(1, 5, 4), model.snapshot());
+        }
+    }
+
+    @Test
+    public void elementsAlreadyInASetAreLeftOutOfTheEvent() {
+        for(FTSimpleListModel<Integer> model : simpleModels()) {
+            if ( !model.isSet() ) {
+                continue;
+            }
+            String name = model.getClass().getSimpleName();
+            model.addAll( Arrays.asList(1, 2) );
+            FTListLog log = new FTListLog();
+            model.addListDataListener( log );
+            model.addAll( Arrays.asList(2, 3, 1, 4) );
+            model.insertAll(0, Arrays.asList(1, 2));
+            assertEquals(name, Arrays.asList("added 2-3"), log.events);
+        }
+    }
+
+    @Test
+    public void moveRowsFiresOneListEvent() {
+        for(FTSimpleListModel<Integer> model : simpleModels()) {
+            String name = model.getClass().getSimpleName() + (model.isSet() ? " set" : "");
+            model.addAll( Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7) );
+            FTListLog log = new FTListLog();
+            model.addListDataListener( log );
+            assertArrayEquals(name, new int[] { 4, 6 }, model.moveRows(new int[] { 5, 3 }, 1));
+            assertEquals(name, Arrays.asList("changed 3-6"), log.events);
+            assertEquals(name, Arrays.asList(0, 1, 2, 4, 3, 6, 5, 7), model.snapshot());
+        }
+    }
+
+    private static int indexOf(FTTableListModel<Integer[]> model, Integer value) {
+        Integer[] row = new Integer[] { value };
+        if (model instanceof FTTableColumnarModel) {
+            return ((FTTableColumnarModel<Integer>) model).indexOf( row );
+        }
+        return ((FTTableGenericModel<Integer>) model).indexOf( row );
+    }
+
+    @Test
+    public void moveRowsFiresOneTableEvent() {
+        List<FTTableListModel<Integer[]>> models = new ArrayList<FTTableListModel<Integer[]>>();
+        models.add( new FTTableGenericModel<Integer>(new String[] { "Value" }, true) );
+        models.add( new FTTableTreeModel<Integer>(new String[] { "Value" }, true) );
+        models.add( new FTTableColumnarModel<Integer>(new String[] { "Value" }, Integer.class, true) );
+        for(FTTableListModel<Integer[]> model : models) {
+            String name = model.getClass().getSimpleName();
+            for(int i=0; i<8; i++) {
+                model.addRow( new Integer[] { i } );
+            }
+            final List<TableModelEvent> events = new ArrayList<TableModelEvent>();
+            model.addTableModelListener( events::add );
+            // the distance is reduced so that the first row stays in the table
+            assertArrayEquals(name, new int[] { 0, 4 }, model.moveRows(new int[] { 6, 2 }, -3));
+            assertEquals(name, 1, events.size());
+            TableModelEvent e = events.get( 0 );
+            assertEquals(name, TableModelEvent.UPDATE, e.getType());
+            assertEquals(name, 0, e.getFirstRow());
+            assertEquals(name, 6, e.getLastRow());
+            List<Integer> expected = Arrays.asList(2, 0, 1, 3, 6, 4, 5, 7);
+            for(int i=0; i<expected.size(); i++) {
+                assertEquals(name, expected.get(i), model.getRow(i)[0]);
+                // the Set index follows the moved rows
+                assertEquals(name, i, indexOf(model, expected.get(i)));
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package ft.list.models;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the spliterators and streams of the models: they read every element
+ * once and fail fast when the model changes during the traversal.
+ *
+ * @author Manuel Agostinetto
+ */
+public class FTModelSpliteratorTest {
+
+    private static final int SIZE = 1000;
+
+    private static List<FTSimpleListModel<Integer>> simpleModels() {
+        List<FTSimpleListModel<Integer>> ret = new ArrayList<FTSimpleListModel<Integer>>();
+        ret.add( new FTSimpleGenericModel<Integer>(false) );
+        ret.add( new FTSimpleTreeModel<Integer>(false) );
+        ret.add( new FTSimpleIntegerModel(false) );
+        List<Integer> values = IntStream.range(0, SIZE).boxed().collect( Collectors.toList() );
+        for(FTSimpleListModel<Integer> model : ret) {
+            model.addAll( values );
+        }
+        return ret;
+    }
+
+    private static List<FTTableListModel<Integer[]>> tableModels() {
+        List<FTTableListModel<Integer[]>> ret = new ArrayList<FTTableListModel<Integer[]>>();
+        ret.add( new FTTableGenericModel<Integer>(new String[] { "Value" }, false) );
+        ret.add( new FTTableTreeModel<Integer>(new String[] { "Value" }, false) );
+        ret.add( new FTTableColumnarModel<Integer>(new String[] { "Value" }, Integer.class, false) );
+        for(FTTableListModel<Integer[]> model : ret) {
+            for(int i=0; i<SIZE; i++) {
+                model.addRow( new Integer[] { i } );
+            }
+        }
+        return ret;
+    }
+
+    private static void assertThrowsCME(String name, Runnable traversal) {
+        try {
+            traversal.run();
+            fail(name + ": the change was not detected");
+        } catch (ConcurrentModificationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void streamsReadEveryElementInOrder() {
+        List<Integer> expected = IntStream.range(0, SIZE).boxed().collect( Collectors.toList() );
+        for(FTSimpleListModel<Integer> model : simpleModels()) {
+            String name = model.getClass().getSimpleName();
+            assertEquals(name, expected, model.stream().collect( Collectors.toList() ));
+            assertEquals(name, expected, model.parallelStream().collect( Collectors.toList() ));
+            assertEquals(name, SIZE, model.spliterator().getExactSizeIfKnown());
+        }
+        for(FTTableListModel<Integer[]> model : tableModels()) {
+            String name = model.getClass().getSimpleName();
+            assertEquals(name, expected, model.stream().map( r -> r[0] ).collect( Collectors.toList() ));
+            assertEquals(name, expected, model.parallelStream().map( r -> r[0] ).collect( Collectors.toList() ));
+        }
+    }
+
+    @Test
+    public void changesDuringTheTraversalThrow() {
+        for(final FTSimpleListModel<Integer> model : simpleModels()) {
+            String name = model.getClass().getSimpleName();
+            assertThrowsCME(name + " forEach", () -> model.forEach( v -> { if (v == 10) model.addElement( -1 ); } ));
+            final Spliterator<Integer> spliterator = model.spliterator();
+            assertTrue( spliterator.tryAdvance(v -> { }) );
+            model.removeElementAt( 0 );
+            assertThrowsCME(name + " tryAdvance", () -> spliterator.tryAdvance( v -> { } ));
+        }
+        for(final FTTableListModel<Integer[]> model : tableModels()) {
+            String name = model.getClass().getSimpleName();
+            assertThrowsCME(name + " forEach", () -> model.forEach( r -> { if (r[0] == 10) model.removeRow( 0 ); } ));
+            final Spliterator<Integer[]> spliterator = model.spliterator();
+            assertTrue( spliterator.tryAdvance(r -> { }) );
+            model.addRow( new Integer[] { -1 } );
+            assertThrowsCME(name + " tryAdvance", () -> spliterator.tryAdvance( r -> { } ));
+        }
+    }
+
+    @Test
+    public void changesBeforeTheTerminalOperationThrow() {
+        for(final FTSimpleListModel<Integer> model : simpleModels()) {
+            String name = model.getClass().getSimpleName();
+            final Spliterator<Integer> spliterator = model.spliterator();
+            final Spliterator<Integer> prefix = spliterator.trySplit();
+            assertNotNull( prefix );
+            model.moveRows(new int[] { 0 }, 1);
+            // both halves of a split spliterator detect the change
+            assertThrowsCME(name + " prefix", () -> prefix.forEachRemaining( v -> { } ));
+            assertThrowsCME(name + " suffix", () -> spliterator.forEachRemaining( v -> { } ));
+            final Stream<Integer> stream = model.stream();
+            model.fireContentsChanged(model, 0, 0);
+            assertThrowsCME(name + " stream", () -> stream.collect( Collectors.toList() ));
+        }
+        for(final FTTableListModel<Integer[]> model : tableModels()) {
+            String name = model.getClass().getSimpleName();
+            final Stream<Integer[]> stream = model.parallelStream();
+            model.fireTableRowsUpdated(0, 0);
+            assertThrowsCME(name + " parallelStream", () -> stream.collect( Collectors.toList() ));
+        }
+    }
+}
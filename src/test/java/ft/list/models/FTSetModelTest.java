@@ -0,0 +1,306 @@
+package ft.list.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the models acting as a Set: they contain no duplicates and the hash
+ * index returns the current position of every element, also after random changes.
+ *
+ * @author Manuel Agostinetto
+ */
+public class FTSetModelTest {
+
+    private static final int SEQUENCES = 100;
+    private static final int OPERATIONS = 200;
+    private static final int VALUES = 60;
+
+    /*
+     * The operations of a model acting as a Set, on elements identified by an int.
+     */
+    private abstract static class FTTarget {
+
+        abstract void add(int value);
+
+        abstract void insert(int index, int value);
+
+        abstract void insertAll(int index, List<Integer> values);
+
+        abstract void removeAt(int index);
+
+        abstract boolean remove(int value);
+
+        abstract void removeRange(int fromIndex, int toIndex);
+
+        abstract void removeAll(int[] indexes);
+
+        abstract void move(int[] indexes, int delta);
+
+        abstract int size();
+
+        abstract int valueAt(int index);
+
+        abstract int indexOf(int value);
+    }
+
+    private static FTTarget simpleTarget(final FTSimpleGenericModel<Integer> model) {
+        return new FTTarget() {
+            @Override
+            void add(int value) { model.addElement( value ); }
+
+            @Override
+            void insert(int index, int value) { model.insertElementAt(index, value); }
+
+            @Override
+            void insertAll(int index, List<Integer> values) { model.insertAll(index, values); }
+
+            @Override
+            void removeAt(int index) { model.removeElementAt( index ); }
+
+            @Override
+            boolean remove(int value) { return model.removeElement( value ); }
+
+            @Override
+            void removeRange(int fromIndex, int toIndex) { model.removeRange(fromIndex, toIndex); }
+
+            @Override
+            void removeAll(int[] indexes) { model.removeElementsAt( indexes ); }
+
+            @Override
+            void move(int[] indexes, int delta) { model.moveRows(indexes, delta); }
+
+            @Override
+            int size() { return model.getSize(); }
+
+            @Override
+            int valueAt(int index) { return model.getElementAt( index ); }
+
+            @Override
+            int indexOf(int value) { return model.indexOf( value ); }
+        };
+    }
+
+    /*
+     * Every row is a new array. When versioned, the second cell tells apart two
+     * rows with the same value, so the model must identify rows by the first one.
+     */
+    private static FTTarget tableTarget(final FTTableGenericModel<Integer> model, final boolean versioned) {
+        return new FTTarget() {
+            int version;
+
+            Integer[] row(int value) { return versioned ? new Integer[] { value, version++ } : new Integer[] { value }; }
+
+            @Override
+            void add(int value) { model.addRow( row(value) ); }
+
+            @Override
+            void insert(int index, int value) { model.insertElementAt(index, row(value)); }
+
+            @Override
+            void insertAll(int index, List<Integer> values) {
+                List<Integer[]> rows = new ArrayList<Integer[]>();
+                for(int value : values) {
+                    rows.add( row(value) );
+                }
+                model.insertRows(index, rows);
+            }
+
+            @Override
+            void removeAt(int index) { model.removeRow( index ); }
+
+            @Override
+            boolean remove(int value) { return model.removeElement( row(value) ); }
+
+            @Override
+            void removeRange(int fromIndex, int toIndex) { model.removeRows(fromIndex, toIndex); }
+
+            @Override
+            void removeAll(int[] indexes) { model.removeElementsAt( indexes ); }
+
+            @Override
+            void move(int[] indexes, int delta) { model.moveRows(indexes, delta); }
+
+            @Override
+            int size() { return model.getRowCount(); }
+
+            @Override
+            int valueAt(int index) { return model.getRow(index)[0]; }
+
+            @Override
+            int indexOf(int value) { return model.indexOf( row(value) ); }
+        };
+    }
+
+    private static int[] randomIndexes(Random random, int size, int max) {
+        int[] ret = new int[ 1 + random.nextInt(max) ];
+        for(int i=0; i<ret.length; i++) {
+            ret[i] = random.nextInt( size );
+        }
+        return ret;
+    }
+
+    /*
+     * Applies the same random change to the model and to a list that skips the
+     * values it already contains, returning the description of the change.
+     */
+    private static String apply(Random random, FTTarget target, List<Integer> expected) {
+        int size = expected.size();
+        int operation = random.nextInt( 8 );
+        if ((size == 0) && (operation >= 3)) {
+            operation = 2;
+        }
+        switch( operation ) {
+            case 0: {
+                int value = random.nextInt( VALUES );
+                target.add( value );
+                if ( !expected.contains(value) ) expected.add( value );
+                return "add(" + value + ")";
+            }
+            case 1: {
+                int value = random.nextInt( VALUES );
+                int index = random.nextInt( size + 1 );
+                target.insert(index, value);
+                if ( !expected.contains(value) ) expected.add(index, value);
+                return "insert(" + index + ", " + value + ")";
+            }
+            case 2: {
+                int index = random.nextInt( size + 1 );
+                List<Integer> values = new ArrayList<Integer>();
+                for(int i=random.nextInt(10); i>=0; i--) {
+                    values.add( random.nextInt(VALUES) );
+                }
+                target.insertAll(index, values);
+                List<Integer> unique = new ArrayList<Integer>();
+                for(int value : values) {
+                    if (!expected.contains(value) && !unique.contains(value)) unique.add( value );
+                }
+                expected.addAll(index, unique);
+                return "insertAll(" + index + ", " + values + ")";
+            }
+            case 3: {
+                int index = random.nextInt( size );
+                target.removeAt( index );
+                expected.remove( index );
+                return "removeAt(" + index + ")";
+            }
+            case 4: {
+                int value = random.nextInt( VALUES );
+                assertEquals(expected.remove(Integer.valueOf(value)), target.remove(value));
+                return "remove(" + value + ")";
+            }
+            case 5: {
+                int from = random.nextInt( size );
+                int to = Math.min(size - 1, from + random.nextInt(5));
+                target.removeRange(from, to);
+                expected.subList(from, to + 1).clear();
+                return "removeRange(" + from + ", " + to + ")";
+            }
+            case 6: {
+                int[] indexes = randomIndexes(random, size, 6);
+                target.removeAll( indexes );
+                new FTRemoval(indexes, size).applyTo( expected );
+                return "removeAll";
+            }
+            default: {
+                int[] indexes = randomIndexes(random, size, 4);
+                int delta = random.nextInt( 9 ) - 4;
+                target.move(indexes, delta);
+                new FTMove(indexes, delta, size).applyTo( expected );
+                return "move(" + delta + ")";
+            }
+        }
+    }
+
+    private static void run(FTTarget target, long seed) {
+        Random random = new Random( seed );
+        List<Integer> expected = new ArrayList<Integer>();
+        StringBuilder history = new StringBuilder("seed " + seed + ":");
+        for(int op=0; op<OPERATIONS; op++) {
+            history.append(' ').append( apply(random, target, expected) );
+            // positions are checked after a few changes, so that the index is rebuilt lazily
+            if (random.nextInt(4) == 0) {
+                assertEquals(history.toString(), expected.size(), target.size());
+                for(int i=0; i<expected.size(); i++) {
+                    assertEquals(history.toString(), expected.get(i).intValue(), target.valueAt(i));
+                }
+                for(int value=0; value<VALUES; value++) {
+                    assertEquals(history.toString() + " indexOf(" + value + ")", expected.indexOf(value), target.indexOf(value));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void simpleInsertAllBeforeTheLastElementKeepsTheIndex() {
+        FTSimpleGenericModel<Integer> model = new FTSimpleGenericModel<Integer>(true);
+        model.addElement( 0 );
+        model.insertAll(1, Arrays.asList(5));
+        model.insertAll(1, Arrays.asList(7, 5));
+        assertEquals(Arrays.asList(0, 7, 5), model.snapshot());
+        assertEquals(2, model.indexOf(5));
+        assertEquals(1, model.indexOf(7));
+    }
+
+    @Test
+    public void tableInsertRowsBeforeTheLastRowKeepsTheIndex() {
+        FTTableGenericModel<Integer> model = new FTTableGenericModel<Integer>(new String[] { "Value" }, true);
+        model.addRow( new Integer[] { 0 } );
+        model.insertRows(1, Arrays.asList(new Integer[][] { { 5 } }));
+        model.insertRows(1, Arrays.asList(new Integer[][] { { 7 }, { 5 } }));
+        assertEquals(3, model.getRowCount());
+        assertEquals(2, model.indexOf(new Integer[] { 5 }));
+        assertEquals(1, model.indexOf(new Integer[] { 7 }));
+    }
+
+    @Test
+    public void simpleTreeModelKeepsItsIndex() {
+        for(long seed=0; seed<SEQUENCES; seed++) {
+            run(simpleTarget( new FTSimpleTreeModel<Integer>(true) ), seed);
+        }
+    }
+
+    @Test
+    public void tableTreeModelKeepsItsIndex() {
+        for(long seed=0; seed<SEQUENCES; seed++) {
+            FTTableTreeModel<Integer> model = new FTTableTreeModel<Integer>(FTColumn.of( new String[] { "Key", "Version" } ), true, new int[] { 0 });
+            run(tableTarget(model, true), seed);
+        }
+    }
+
+    @Test
+    public void simpleGenericModelKeepsItsIndex() {
+        for(long seed=0; seed<SEQUENCES; seed++) {
+            run(simpleTarget( new FTSimpleGenericModel<Integer>(true) ), seed);
+        }
+    }
+
+    @Test
+    public void equalElementsAreNotAddedTwice() {
+        FTSimpleGenericModel<String> model = new FTSimpleGenericModel<String>(true);
+        model.addElement( "a" );
+        model.addElement( new String("a") );
+        model.addAll( Arrays.asList("b", "a", "b", "c") );
+        model.insertElementAt(0, "c");
+        model.insertAll(0, Arrays.asList("d", "d", "a"));
+        assertEquals(Arrays.asList("d", "a", "b", "c"), model.snapshot());
+        assertEquals(3, model.indexOf("c"));
+    }
+
+    @Test
+    public void tableGenericModelKeepsItsIndex() {
+        for(long seed=0; seed<SEQUENCES; seed++) {
+            run(tableTarget(new FTTableGenericModel<Integer>(new String[] { "Value" }, true), false), seed);
+        }
+    }
+
+    @Test
+    public void tableGenericModelKeepsItsIndexByKeyColumns() {
+        for(long seed=0; seed<SEQUENCES; seed++) {
+            run(tableTarget(new FTTableGenericModel<Integer>(new String[] { "Key", "Version" }, true, new int[] { 0 }), true), seed);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package ft.list.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of <code>FTSimpleFilteredModel</code> against a copy of the source model
+ * filtered from scratch.
+ *
+ * @author Manuel Agostinetto
+ */
+public class FTSimpleFilteredModelTest {
+
+    private static final int SEQUENCES = 300;
+    private static final int OPERATIONS = 80;
+
+    /*
+     * The contents of a model as seen by a listener that applies its events.
+     */
+    private static class FTMirror implements ListDataListener {
+
+        final FTSimpleListModel<String> model;
+        final List<String> elements = new ArrayList<String>();
+        int events;
+
+        FTMirror(FTSimpleListModel<String> model) {
+            this.model = model;
+            for(int i=0; i<model.getSize(); i++) {
+                elements.add( (String) model.getElementAt(i) );
+            }
+            model.addListDataListener( this );
+        }
+
+        @Override
+        public void intervalAdded(ListDataEvent e) {
+            events++;
+            for(int i=e.getIndex0(); i<=e.getIndex1(); i++) {
+                elements.add(i, (String) model.getElementAt(i));
+            }
+        }
+
+        @Override
+        public void intervalRemoved(ListDataEvent e) {
+            events++;
+            elements.subList(e.getIndex0(), e.getIndex1() + 1).clear();
+        }
+
+        @Override
+        public void contentsChanged(ListDataEvent e) {
+            events++;
+            for(int i=e.getIndex0(); i<=e.getIndex1(); i++) {
+                elements.set(i, (String) model.getElementAt(i));
+            }
+        }
+    }
+
+    private static List<String> filtered(FTSimpleListModel<String> source, Predicate<? super String> filter) {
+        List<String> ret = new ArrayList<String>();
+        for(int i=0; i<source.getSize(); i++) {
+            String element = (String) source.getElementAt( i );
+            if ((filter == null) || filter.test(element)) {
+                ret.add( element );
+            }
+        }
+        return ret;
+    }
+
+    private static List<String> randomElements(Random random, int max) {
+        List<String> ret = new ArrayList<String>();
+        int count = random.nextInt( max + 1 );
+        for(int i=0; i<count; i++) {
+            ret.add( "e" + random.nextInt(100) );
+        }
+        return ret;
+    }
+
+    private static Predicate<String> randomFilter(Random random) {
+        final int divisor = 2 + random.nextInt( 3 );
+        final int remainder = random.nextInt( divisor );
+        return s -> Integer.parseInt( s.substring(1) ) % divisor == remainder;
+    }
+
+    /*
+     * Applies a random change to the source or to the view and returns its description.
+     */
+    private static String apply(Random random, FTSimpleGenericModel<String> source, FTSimpleFilteredModel<String> view) {
+        int size = source.getSize();
+        int viewSize = view.getSize();
+        int operation = random.nextInt( 13 );
+        if ((size == 0) && (operation >= 3) && (operation <= 6)) {
+            operation = 2;
+        }
+        if ((viewSize == 0) && (operation >= 11)) {
+            operation = 9;
+        }
+        switch( operation ) {
+            case 0:
+                source.addElement( "e" + random.nextInt(100) );
+                return "addElement";
+            case 1:
+                int index = random.nextInt( size + 1 );
+                source.insertElementAt(index, "e" + random.nextInt(100));
+                return "insertElementAt(" + index + ")";
+            case 2:
+                int at = random.nextInt( size + 1 );
+                source.insertAll(at, randomElements(random, 20));
+                return "insertAll(" + at + ")";
+            case 3:
+                int from = random.nextInt( size );
+                int to = Math.min(size - 1, from + random.nextInt(10));
+                source.removeRange(from, to);
+                return "removeRange(" + from + ", " + to + ")";
+            case 4:
+                int[] indexes = new int[ 1 + random.nextInt(10) ];
+                for(int i=0; i<indexes.length; i++) {
+                    indexes[i] = random.nextInt( size );
+                }
+                source.removeElementsAt( indexes );
+                return "removeElementsAt";
+            case 5:
+                // notified as contentsChanged over the range of the moved elements
+                int[] moved = new int[ 1 + random.nextInt(5) ];
+                for(int i=0; i<moved.length; i++) {
+                    moved[i] = random.nextInt( size );
+                }
+                int delta = random.nextInt( 11 ) - 5;
+                source.moveRows(moved, delta);
+                return "moveRows(" + delta + ")";
+            case 6:
+                if (random.nextInt(5) == 0) {
+                    source.fireContentsChanged(source, -1, -1);
+                    return "contentsChanged(-1, -1)";
+                }
+                int first = random.nextInt( size );
+                int last = Math.min(size - 1, first + random.nextInt(5));
+                source.fireContentsChanged(source, first, last);
+                return "contentsChanged(" + first + ", " + last + ")";
+            case 7:
+                Predicate<String> filter = (random.nextInt(4) == 0) ? null : randomFilter( random );
+                view.setFilter( filter );
+                return "setFilter";
+            case 8:
+                final Predicate<? super String> current = view.getFilter();
+                final Predicate<String> refinement = randomFilter( random );
+                view.refineFilter(s -> ((current == null) || current.test(s)) && refinement.test(s));
+                return "refineFilter";
+            case 9:
+                int viewIndex = random.nextInt( viewSize + 1 );
+                view.insertAll(viewIndex, randomElements(random, 10));
+                return "view.insertAll(" + viewIndex + ")";
+            case 10:
+                view.addAll( randomElements(random, 10) );
+                return "view.addAll";
+            case 11:
+                int viewFrom = random.nextInt( viewSize );
+                int viewTo = Math.min(viewSize - 1, viewFrom + random.nextInt(5));
+                view.removeRange(viewFrom, viewTo);
+                return "view.removeRange(" + viewFrom + ", " + viewTo + ")";
+            default:
+                int[] viewIndexes = new int[ 1 + random.nextInt(5) ];
+                for(int i=0; i<viewIndexes.length; i++) {
+                    viewIndexes[i] = random.nextInt( viewSize );
+                }
+                view.removeElementsAt( viewIndexes );
+                return "view.removeElementsAt";
+        }
+    }
+
+    @Test
+    public void viewMatchesAFreshlyFilteredCopy() {
+        Random random = new Random( 13 );
+        for(int sequence=0; sequence<SEQUENCES; sequence++) {
+            FTSimpleGenericModel<String> source = new FTSimpleGenericModel<String>(false);
+            source.addAll( randomElements(random, 30) );
+            FTSimpleFilteredModel<String> view = new FTSimpleFilteredModel<String>( source );
+            FTMirror mirror = new FTMirror( view );
+            StringBuilder history = new StringBuilder("sequence " + sequence + ":");
+            for(int op=0; op<OPERATIONS; op++) {
+                history.append(' ').append( apply(random, source, view) );
+                List<String> expected = filtered(source, view.getFilter());
+                assertEquals(history.toString(), expected, filtered(view, null));
+                assertEquals(history.toString(), expected, mirror.elements);
+                for(int i=0; i<view.getSize(); i++) {
+                    assertEquals(history.toString(), i, view.convertIndexToView( view.convertIndexToModel(i) ));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void manyIntervalsAreNotifiedAsAWholeChange() {
+        FTSimpleGenericModel<String> source = new FTSimpleGenericModel<String>(false);
+        List<String> elements = new ArrayList<String>();
+        for(int i=0; i<5000; i++) {
+            elements.add( "e" + (i % 100) );
+        }
+        source.addAll( elements );
+        FTSimpleFilteredModel<String> view = new FTSimpleFilteredModel<String>( source );
+        FTMirror mirror = new FTMirror( view );
+        Predicate<String> even = s -> Integer.parseInt( s.substring(1) ) % 2 == 0;
+        view.setFilter( even );
+        assertEquals(2, mirror.events);
+        assertEquals(filtered(source, even), mirror.elements);
+        view.setFilterText( "e1" );
+        assertEquals(filtered(source, s -> s.contains("e1")), mirror.elements);
+        view.setFilterText( "e12" );
+        assertEquals(filtered(source, s -> s.contains("e12")), mirror.elements);
+    }
+
+    @Test
+    public void disposedViewStopsFollowingTheSource() {
+        FTSimpleGenericModel<String> source = new FTSimpleGenericModel<String>(false);
+        source.addAll( Arrays.asList("a", "b", "c") );
+        FTSimpleFilteredModel<String> view = new FTSimpleFilteredModel<String>( source );
+        FTMirror mirror = new FTMirror( view );
+        view.dispose();
+        assertEquals(0, view.getSize());
+        assertTrue( mirror.elements.isEmpty() );
+        source.addElement( "d" );
+        source.removeRange(0, 1);
+        assertEquals(0, view.getSize());
+        assertEquals(1, mirror.events);
+        assertEquals(0, source.getListDataListeners().length);
+    }
+}
@@ -0,0 +1,95 @@
+package ft.list.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of <code>FTSimplePrimitiveModel</code>, run on <code>FTSimpleIntegerModel</code>.
+ *
+ * @author Manuel Agostinetto
+ */
+public class FTSimplePrimitiveModelTest {
+
+    /*
+     * Records the events of a list model.
+     */
+    private static class FTEventLog implements ListDataListener {
+
+        final List<ListDataEvent> events = new ArrayList<ListDataEvent>();
+
+        @Override
+        public void intervalAdded(ListDataEvent e) { events.add( e ); }
+
+        @Override
+        public void intervalRemoved(ListDataEvent e) { events.add( e ); }
+
+        @Override
+        public void contentsChanged(ListDataEvent e) { events.add( e ); }
+    }
+
+    private static FTSimpleIntegerModel createModel(boolean set) {
+        FTSimpleIntegerModel ret = new FTSimpleIntegerModel( set );
+        ret.addAll( Arrays.asList(1, 2, 3) );
+        return ret;
+    }
+
+    private static void assertUnchanged(FTSimpleIntegerModel model, FTEventLog log) {
+        assertEquals(Arrays.asList(1, 2, 3), model.snapshot());
+        assertTrue( log.events.isEmpty() );
+    }
+
+    @Test
+    public void addAllWithNullLeavesTheModelUnchanged() {
+        for(boolean set : new boolean[] { false, true }) {
+            FTSimpleIntegerModel model = createModel( set );
+            FTEventLog log = new FTEventLog();
+            model.addListDataListener( log );
+            try {
+                model.addAll( Arrays.asList(4, 5, null, 6) );
+                fail("null was accepted");
+            } catch (NullPointerException e) {
+                // expected
+            }
+            assertUnchanged(model, log);
+            // the values before the null are not left in the index of a Set
+            model.addAll( Arrays.asList(4, 5) );
+            assertEquals(Arrays.asList(1, 2, 3, 4, 5), model.snapshot());
+            assertEquals(1, log.events.size());
+        }
+    }
+
+    @Test
+    public void insertAllWithNullLeavesTheModelUnchanged() {
+        for(boolean set : new boolean[] { false, true }) {
+            FTSimpleIntegerModel model = createModel( set );
+            FTEventLog log = new FTEventLog();
+            model.addListDataListener( log );
+            try {
+                model.insertAll(1, Arrays.asList(4, null));
+                fail("null was accepted");
+            } catch (NullPointerException e) {
+                // expected
+            }
+            assertUnchanged(model, log);
+            model.insertAll(1, Arrays.asList(4));
+            assertEquals(Arrays.asList(1, 4, 2, 3), model.snapshot());
+            assertEquals(1, model.indexOfInt(4));
+        }
+    }
+
+    @Test
+    public void insertAllBeforeTheLastValueKeepsTheSetIndex() {
+        FTSimpleIntegerModel model = new FTSimpleIntegerModel(true);
+        model.addInt( 0 );
+        model.insertAll(1, Arrays.asList(5));
+        model.insertAll(1, Arrays.asList(7, 5));
+        assertEquals(Arrays.asList(0, 7, 5), model.snapshot());
+        assertEquals(2, model.indexOfInt(5));
+        assertEquals(1, model.indexOfInt(7));
+    }
+}
@@ -0,0 +1,214 @@
+package ft.list.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests that the snapshots of the models don't change when the models change
+ * after them.
+ *
+ * @author Manuel Agostinetto
+ */
+public class FTSnapshotTest {
+
+    private static final int SEQUENCES = 50;
+    private static final int OPERATIONS = 100;
+
+    private static int[] randomIndexes(Random random, int size) {
+        int[] ret = new int[ 1 + random.nextInt(5) ];
+        for(int i=0; i<ret.length; i++) {
+            ret[i] = random.nextInt( size );
+        }
+        return ret;
+    }
+
+    /*
+     * Applies a random change to a simple model.
+     */
+    private static void apply(Random random, FTSimpleListModel<Integer> model) {
+        int size = model.getSize();
+        int operation = random.nextInt( 8 );
+        if ((size == 0) && (operation >= 3)) {
+            operation = 2;
+        }
+        switch( operation ) {
+            case 0:
+                model.addElement( random.nextInt(1000) );
+                break;
+            case 1:
+                model.insertElementAt(random.nextInt(size + 1), random.nextInt(1000));
+                break;
+            case 2:
+                model.insertAll(random.nextInt(size + 1), Arrays.asList(random.nextInt(1000), random.nextInt(1000)));
+                break;
+            case 3:
+                model.removeElementAt( random.nextInt(size) );
+                break;
+            case 4:
+                int from = random.nextInt( size );
+                model.removeRange(from, Math.min(size - 1, from + random.nextInt(4)));
+                break;
+            case 5:
+                model.removeElementsAt( randomIndexes(random, size) );
+                break;
+            case 6:
+                model.moveRows(randomIndexes(random, size), random.nextInt(7) - 3);
+                break;
+            default:
+                if (random.nextInt(4) == 0) {
+                    model.removeAllElements();
+                } else {
+                    model.addElement( random.nextInt(1000) );
+                }
+        }
+    }
+
+    /*
+     * Applies a random change to a table model.
+     */
+    private static void apply(Random random, FTTableListModel<Integer[]> model) {
+        int size = model.getRowCount();
+        int operation = random.nextInt( 8 );
+        if ((size == 0) && (operation >= 3)) {
+            operation = 2;
+        }
+        switch( operation ) {
+            case 0:
+                model.addRow( new Integer[] { random.nextInt(1000), random.nextInt(1000) } );
+                break;
+            case 1:
+                model.insertElementAt(random.nextInt(size + 1), new Integer[] { random.nextInt(1000), random.nextInt(1000) });
+                break;
+            case 2:
+                model.insertRows(random.nextInt(size + 1), Arrays.asList(new Integer[] { random.nextInt(1000), 0 }, new Integer[] { random.nextInt(1000), 1 }));
+                break;
+            case 3:
+                model.removeRow( random.nextInt(size) );
+                break;
+            case 4:
+                int from = random.nextInt( size );
+                model.removeRows(from, Math.min(size - 1, from + random.nextInt(4)));
+                break;
+            case 5:
+                model.removeElementsAt( randomIndexes(random, size) );
+                break;
+            case 6:
+                model.moveRows(randomIndexes(random, size), random.nextInt(7) - 3);
+                break;
+            default:
+                if (random.nextInt(4) == 0) {
+                    model.removeAllRows();
+                } else {
+                    model.addRow( new Integer[] { random.nextInt(1000), null } );
+                }
+        }
+    }
+
+    private static List<Integer> copyOf(FTSimpleListModel<Integer> model) {
+        List<Integer> ret = new ArrayList<Integer>();
+        for(int i=0; i<model.getSize(); i++) {
+            ret.add( (Integer) model.getElementAt(i) );
+        }
+        return ret;
+    }
+
+    private static List<List<Integer>> copyOf(FTTableListModel<Integer[]> model) {
+        List<List<Integer>> ret = new ArrayList<List<Integer>>();
+        for(int i=0; i<model.getRowCount(); i++) {
+            ret.add( Arrays.asList(model.getRow(i)) );
+        }
+        return ret;
+    }
+
+    private static List<List<Integer>> rowsOf(List<Integer[]> snapshot) {
+        List<List<Integer>> ret = new ArrayList<List<Integer>>();
+        for(Integer[] row : snapshot) {
+            ret.add( Arrays.asList(row) );
+        }
+        return ret;
+    }
+
+    private static void runSimple(FTSimpleListModel<Integer> model, long seed) {
+        String name = model.getClass().getSimpleName() + " seed " + seed;
+        Random random = new Random( seed );
+        List<List<Integer>> snapshots = new ArrayList<List<Integer>>();
+        List<List<Integer>> copies = new ArrayList<List<Integer>>();
+        for(int op=0; op<OPERATIONS; op++) {
+            if (random.nextInt(3) == 0) {
+                snapshots.add( model.snapshot() );
+                copies.add( copyOf(model) );
+            }
+            apply(random, model);
+            for(int i=0; i<snapshots.size(); i++) {
+                assertEquals(name, copies.get(i), snapshots.get(i));
+            }
+        }
+        assertEquals(name, copyOf(model), model.snapshot());
+    }
+
+    private static void runTable(FTTableListModel<Integer[]> model, long seed) {
+        String name = model.getClass().getSimpleName() + " seed " + seed;
+        Random random = new Random( seed );
+        List<List<Integer[]>> snapshots = new ArrayList<List<Integer[]>>();
+        List<List<List<Integer>>> copies = new ArrayList<List<List<Integer>>>();
+        for(int op=0; op<OPERATIONS; op++) {
+            if (random.nextInt(3) == 0) {
+                snapshots.add( model.snapshot() );
+                copies.add( copyOf(model) );
+            }
+            apply(random, model);
+            for(int i=0; i<snapshots.size(); i++) {
+                assertEquals(name, copies.get(i), rowsOf( snapshots.get(i) ));
+            }
+        }
+        assertEquals(name, copyOf(model), rowsOf( model.snapshot() ));
+    }
+
+    @Test
+    public void simpleSnapshotsDoNotChange() {
+        for(long seed=0; seed<SEQUENCES; seed++) {
+            runSimple(new FTSimpleGenericModel<Integer>(false), seed);
+            runSimple(new FTSimpleTreeModel<Integer>(false), seed);
+            runSimple(new FTSimpleIntegerModel(false), seed);
+        }
+    }
+
+    @Test
+    public void tableSnapshotsDoNotChange() {
+        for(long seed=0; seed<SEQUENCES; seed++) {
+            runTable(new FTTableGenericModel<Integer>(new String[] { "A", "B" }, false), seed);
+            runTable(new FTTableTreeModel<Integer>(new String[] { "A", "B" }, false), seed);
+            runTable(new FTTableColumnarModel<Integer>(new String[] { "A", "B" }, Integer.class, false), seed);
+        }
+    }
+
+    @Test
+    public void snapshotsCanNotBeChanged() {
+        List<List<?>> snapshots = new ArrayList<List<?>>();
+        FTSimpleGenericModel<Integer> generic = new FTSimpleGenericModel<Integer>(false);
+        FTSimpleTreeModel<Integer> tree = new FTSimpleTreeModel<Integer>(false);
+        FTSimpleIntegerModel primitive = new FTSimpleIntegerModel(false);
+        FTTableColumnarModel<Integer> columnar = new FTTableColumnarModel<Integer>(new String[] { "A" }, Integer.class, false);
+        generic.addElement( 1 );
+        tree.addElement( 1 );
+        primitive.addInt( 1 );
+        columnar.addRow( new Integer[] { 1 } );
+        snapshots.add( generic.snapshot() );
+        snapshots.add( tree.snapshot() );
+        snapshots.add( primitive.snapshot() );
+        snapshots.add( columnar.snapshot() );
+        for(List<?> snapshot : snapshots) {
+            try {
+                snapshot.remove( 0 );
+                fail(snapshot.getClass().getName() + " can be changed");
+            } catch (UnsupportedOperationException e) {
+                // expected
+            }
+            assertEquals(1, snapshot.size());
+        }
+    }
+}
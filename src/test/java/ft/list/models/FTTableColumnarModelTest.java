@@ -0,0 +1,58 @@
+package ft.list.models;
+
+import java.util.Arrays;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of <code>FTTableColumnarModel</code>.
+ *
+ * @author Manuel Agostinetto
+ */
+public class FTTableColumnarModelTest {
+
+    @Test
+    public void shortAndLongRowsAreIdentifiedAsStored() {
+        FTTableColumnarModel<Integer> model = new FTTableColumnarModel<Integer>(new String[] { "A", "B" }, Integer.class, true);
+        model.addRow( new Integer[] { 1 } );
+        // stored as { 1, null } and { 2, 3 }
+        model.addRow( new Integer[] { 1, null } );
+        model.addRows( Arrays.asList(new Integer[] { 2, 3, 4 }, new Integer[] { 2, 3 }) );
+        assertEquals(2, model.getRowCount());
+        assertTrue( model.contains(new Integer[] { 1 }) );
+        assertEquals(1, model.indexOf(new Integer[] { 2, 3 }));
+        // the keys of the removed rows are the ones they were inserted with
+        model.removeRows(0, 0);
+        assertFalse( model.contains(new Integer[] { 1, null }) );
+        assertEquals(0, model.indexOf(new Integer[] { 2, 3, 5 }));
+        model.removeElementsAt( new int[] { 0 } );
+        assertEquals(0, model.getRowCount());
+        model.insertRows(0, Arrays.asList(new Integer[] { 1 }, new Integer[] { 2, 3, 4 }));
+        assertEquals(2, model.getRowCount());
+        assertEquals(1, model.indexOf(new Integer[] { 2, 3 }));
+    }
+
+    @Test
+    public void shortRowsAreIdentifiedByTheirKeyColumns() {
+        FTTableColumnarModel<Integer> model = new FTTableColumnarModel<Integer>(new String[] { "A", "B", "C" }, Integer.class, true, new int[] { 2 });
+        model.addRow( new Integer[] { 1 } );
+        model.addRow( new Integer[] { 2, 2, null } );
+        model.insertElementAt(0, new Integer[] { 3, 3, 3 });
+        assertEquals(2, model.getRowCount());
+        assertEquals(1, model.indexOf(new Integer[] { 9 }));
+        assertNotNull( model.removeRow(1) );
+        model.addRow( new Integer[] { 4, 4 } );
+        assertEquals(2, model.getRowCount());
+    }
+
+    @Test
+    public void insertRowsBeforeTheLastRowKeepsTheIndex() {
+        FTTableColumnarModel<Integer> model = new FTTableColumnarModel<Integer>(new String[] { "A" }, Integer.class, true);
+        model.addRow( new Integer[] { 0 } );
+        model.insertRows(1, Arrays.asList(new Integer[][] { { 5 } }));
+        model.insertRows(1, Arrays.asList(new Integer[][] { { 7 }, { 5 } }));
+        assertEquals(3, model.getRowCount());
+        assertEquals(2, model.indexOf(new Integer[] { 5 }));
+        assertEquals(1, model.indexOf(new Integer[] { 7 }));
+    }
+}
@@ -0,0 +1,73 @@
+package ft.list.models;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the column classes of <code>FTTableListModel</code>, declared or
+ * inferred from the data.
+ *
+ * @author Manuel Agostinetto
+ */
+public class FTTableListModelTest {
+
+    private static FTColumn[] declaredColumns() {
+        return new FTColumn[] {
+            new FTColumn("Id", Long.class, false, null),
+            new FTColumn("Amount", Number.class),
+            new FTColumn("Note")
+        };
+    }
+
+    @Test
+    public void declaredClassesAreReturnedOnAnEmptyTable() {
+        FTTableGenericModel<Object> model = new FTTableGenericModel<Object>(declaredColumns(), false);
+        assertEquals(Long.class, model.getColumnClass(0));
+        assertEquals(Number.class, model.getColumnClass(1));
+        assertEquals(Object.class, model.getColumnClass(2));
+    }
+
+    @Test
+    public void declaredClassesDoNotDependOnTheData() {
+        FTTableGenericModel<Object> model = new FTTableGenericModel<Object>(declaredColumns(), false);
+        model.addRow( new Object[] { 1L, 2.5, "a" } );
+        assertEquals(Number.class, model.getColumnClass(1));
+        assertEquals(String.class, model.getColumnClass(2));
+        model.removeRow( 0 );
+        model.addRow( new Object[] { 2L, 3, 4 } );
+        model.fireTableDataChanged();
+        assertEquals(Long.class, model.getColumnClass(0));
+        assertEquals(Number.class, model.getColumnClass(1));
+        assertEquals(Integer.class, model.getColumnClass(2));
+        model.fireTableStructureChanged();
+        assertEquals(Long.class, model.getColumnClass(0));
+        assertEquals(Number.class, model.getColumnClass(1));
+    }
+
+    @Test
+    public void inferredClassesAreKeptUntilTheWholeDataChanges() {
+        FTTableGenericModel<Object> model = new FTTableGenericModel<Object>(new String[] { "Value" }, false);
+        assertEquals(Object.class, model.getColumnClass(0));
+        model.addRow( new Object[] { null } );
+        model.addRow( new Object[] { "a" } );
+        assertEquals(String.class, model.getColumnClass(0));
+        // a change of some rows keeps the inferred class
+        model.removeRows(0, 1);
+        model.addRow( new Object[] { 1 } );
+        assertEquals(String.class, model.getColumnClass(0));
+        model.fireTableDataChanged();
+        assertEquals(Integer.class, model.getColumnClass(0));
+        model.removeRow( 0 );
+        model.fireTableDataChanged();
+        assertEquals(Object.class, model.getColumnClass(0));
+    }
+
+    @Test
+    public void columnarModelDeclaresItsType() {
+        FTTableColumnarModel<Double> model = new FTTableColumnarModel<Double>(new String[] { "A", "B" }, Double.class, false);
+        assertEquals(Double.class, model.getColumnClass(0));
+        model.addRow( new Double[] { 1.0, 2.0 } );
+        model.fireTableDataChanged();
+        assertEquals(Double.class, model.getColumnClass(1));
+    }
+}
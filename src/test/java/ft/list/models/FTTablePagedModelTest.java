@@ -0,0 +1,140 @@
+package ft.list.models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of <code>FTTablePagedModel</code>.
+ *
+ * @author Manuel Agostinetto
+ */
+public class FTTablePagedModelTest {
+
+    private static final int PAGE_SIZE = 100;
+
+    /*
+     * A provider that counts the loads of each page and blocks the loads on the
+     * prefetch thread of a page until it's released.
+     */
+    private static class FTCountingProvider implements FTRowPageProvider<String[]> {
+
+        final Map<Integer,AtomicInteger> loads = new ConcurrentHashMap<Integer,AtomicInteger>();
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final int blockedPage;
+
+        FTCountingProvider(int blockedPage) { this.blockedPage = blockedPage; }
+
+        @Override
+        public List<String[]> loadPage(int firstRow, int count) {
+            int page = firstRow / PAGE_SIZE;
+            loads.computeIfAbsent(page, k -> new AtomicInteger()).incrementAndGet();
+            if ((page == blockedPage) && Thread.currentThread().getName().startsWith("FTTablePagedModel")) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            List<String[]> ret = new ArrayList<String[]>();
+            for(int i=0; i<count; i++) {
+                ret.add( new String[] { String.valueOf(firstRow + i) } );
+            }
+            return ret;
+        }
+
+        int loads(int page) {
+            AtomicInteger count = loads.get( page );
+            return (count != null) ? count.get() : 0;
+        }
+    }
+
+    @Test
+    public void prefetchCancelsQueuedLoadsOutOfTheViewport() throws Exception {
+        FTCountingProvider provider = new FTCountingProvider(0);
+        FTTablePagedModel<String> model = new FTTablePagedModel<String>(new String[] { "Row" }, provider, 100 * PAGE_SIZE, PAGE_SIZE, 10);
+        model.prefetch(0, PAGE_SIZE - 1);
+        assertTrue( provider.blocked.await(10, TimeUnit.SECONDS) );
+        // page 1 is queued behind page 0, then the viewport moves away
+        model.prefetch(50 * PAGE_SIZE, 51 * PAGE_SIZE - 1);
+        provider.release.countDown();
+        assertEquals("5050", model.getValueAt(50 * PAGE_SIZE + 50, 0));
+        Thread.sleep( 200 );
+        assertEquals(0, provider.loads(1));
+        assertEquals(1, provider.loads(50));
+    }
+
+    @Test(timeout = 10000)
+    public void queuedPageIsLoadedWithoutWaiting() throws Exception {
+        FTCountingProvider provider = new FTCountingProvider(0);
+        FTTablePagedModel<String> model = new FTTablePagedModel<String>(new String[] { "Row" }, provider, 100 * PAGE_SIZE, PAGE_SIZE, 10);
+        model.prefetch(0, PAGE_SIZE - 1);
+        assertTrue( provider.blocked.await(10, TimeUnit.SECONDS) );
+        try {
+            // page 1 is queued behind the blocked page 0
+            assertEquals("150", model.getValueAt(150, 0));
+            assertEquals(1, provider.loads(1));
+        } finally {
+            provider.release.countDown();
+        }
+    }
+
+    @Test
+    public void prefetchKeepsTheVisiblePagesCached() throws Exception {
+        FTCountingProvider provider = new FTCountingProvider(-1);
+        FTTablePagedModel<String> model = new FTTablePagedModel<String>(new String[] { "Row" }, provider, 100 * PAGE_SIZE, PAGE_SIZE, 2);
+        assertEquals("550", model.getValueAt(550, 0));
+        model.prefetch(500, 599);
+        long deadline = System.currentTimeMillis() + 10000;
+        while (((provider.loads(4) == 0) || (provider.loads(6) == 0)) && (System.currentTimeMillis() < deadline)) {
+            Thread.sleep( 10 );
+        }
+        Thread.sleep( 100 );
+        assertEquals("550", model.getValueAt(550, 0));
+        assertEquals(1, provider.loads(5));
+    }
+
+    @Test
+    public void clearCacheDiscardsPagesBeingLoaded() throws Exception {
+        final AtomicInteger version = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        FTRowPageProvider<String[]> provider = new FTRowPageProvider<String[]>() {
+            @Override
+            public List<String[]> loadPage(int firstRow, int count) {
+                String value = "v" + version.get();
+                if ( Thread.currentThread().getName().startsWith("FTTablePagedModel") ) {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                List<String[]> ret = new ArrayList<String[]>();
+                for(int i=0; i<count; i++) {
+                    ret.add( new String[] { value } );
+                }
+                return ret;
+            }
+        };
+        FTTablePagedModel<String> model = new FTTablePagedModel<String>(new String[] { "Value" }, provider, 10, 10, 4);
+        model.prefetch( new int[] { 0 } );
+        assertTrue( started.await(10, TimeUnit.SECONDS) );
+        version.set( 1 );
+        model.clearCache();
+        release.countDown();
+        assertEquals("v1", model.getValueAt(0, 0));
+        // let the stale load finish: its page must not replace the fresh one
+        Thread.sleep( 100 );
+        assertEquals("v1", model.getValueAt(5, 0));
+    }
+}